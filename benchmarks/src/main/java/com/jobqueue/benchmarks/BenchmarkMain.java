@@ -0,0 +1,48 @@
+package com.jobqueue.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the benchmarks jar. Runs JMH with the given arguments, and unless they
+ * choose a result format or file themselves, writes the results as JSON to
+ * {@code results/jmh-<timestamp>.json} so that runs can be kept and compared with
+ * {@link CompareResults}.
+ */
+public final class BenchmarkMain {
+    
+    private static final Path RESULTS_DIRECTORY = Paths.get("results");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private BenchmarkMain() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff") && !listingOnly(arguments)) {
+            Path resultFile = RESULTS_DIRECTORY.resolve("jmh-" + LocalDateTime.now().format(TIMESTAMP) + ".json");
+            try {
+                Files.createDirectories(RESULTS_DIRECTORY);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to create " + RESULTS_DIRECTORY, e);
+            }
+            arguments.addAll(0, List.of("-rf", "json", "-rff", resultFile.toString()));
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+    
+    /**
+     * Whether JMH was only asked to print something, so there is no result to write
+     */
+    private static boolean listingOnly(List<String> arguments) {
+        return arguments.contains("-l") || arguments.contains("-lp") || arguments.contains("-lrf")
+                || arguments.contains("-lprof") || arguments.contains("-h");
+    }
+}
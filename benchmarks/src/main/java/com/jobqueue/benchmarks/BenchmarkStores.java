@@ -0,0 +1,69 @@
+package com.jobqueue.benchmarks;
+
+import com.jobqueue.model.Job;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Scratch stores and job mixes shared by the benchmarks that touch the file system.
+ */
+final class BenchmarkStores {
+    
+    private BenchmarkStores() {
+    }
+    
+    /**
+     * Create an empty directory for a store under the system temporary directory
+     */
+    static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("jobqueue-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Delete a store directory with everything in it
+     */
+    static void delete(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * A realistic mix: mostly completed jobs, some pending, and every tenth one failed once
+     * with an error and a retry time
+     */
+    static List<Job> jobs(int count) {
+        List<Job> jobs = new ArrayList<>(count);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            Job job = new Job("job-" + i, "sh -c 'echo processing batch " + i + " && sleep 1'", 3);
+            if (i % 10 == 0) {
+                job.markAsProcessing();
+                job.markAsFailed("Command exited with code 1", now + (i % 60) * 1000L);
+            } else if (i % 4 != 0) {
+                job.markAsProcessing();
+                job.markAsCompleted();
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+}
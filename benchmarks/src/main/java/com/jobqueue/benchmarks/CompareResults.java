@@ -0,0 +1,80 @@
+package com.jobqueue.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written by {@link BenchmarkMain} and prints, for every
+ * benchmark and parameter combination present in both, the baseline score, the new score
+ * and the change. Whether a change is an improvement depends on the mode: higher is better
+ * for throughput, lower for average time.
+ * <pre>
+ * java -cp target/benchmarks.jar com.jobqueue.benchmarks.CompareResults baseline.json current.json
+ * </pre>
+ */
+public final class CompareResults {
+    
+    private CompareResults() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(Paths.get(args[0]));
+        Map<String, JsonNode> current = read(Paths.get(args[1]));
+        
+        System.out.printf("%-70s %14s %14s %9s  %s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode metric = entry.getValue().get("primaryMetric");
+            double oldScore = before.get("primaryMetric").get("score").asDouble();
+            double newScore = metric.get("score").asDouble();
+            String change = oldScore == 0 ? "n/a" : String.format("%+.1f%%", (newScore - oldScore) * 100 / oldScore);
+            System.out.printf("%-70s %14.3f %14.3f %9s  %s%n", entry.getKey(), oldScore, newScore, change,
+                              metric.get("scoreUnit").asText());
+        }
+        for (String key : current.keySet()) {
+            if (!baseline.containsKey(key)) {
+                System.out.println("New: " + key);
+            }
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println("Missing: " + key);
+            }
+        }
+    }
+    
+    /**
+     * Read a result file, keyed by benchmark name and parameters
+     */
+    private static Map<String, JsonNode> read(Path path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText()
+                                                          .replace("com.jobqueue.benchmarks.", ""));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jobqueue.benchmarks;
+
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.dlq.DLQManager;
+import com.jobqueue.model.Job;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.queue.JobQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link DLQManager#getStatistics}, which the DLQ stats command and every status
+ * report call, with 100 or 10,000 dead jobs in a store of 100,000 jobs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DLQStatisticsBenchmark {
+    
+    private static final int STORE_SIZE = 100_000;
+    
+    @Param({"100", "10000"})
+    private int deadJobs;
+    
+    private Path directory;
+    private PersistenceManager persistenceManager;
+    private DLQManager dlqManager;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = BenchmarkStores.createDirectory();
+        JobQueueConfig config = new JobQueueConfig()
+                .withDataFile(directory.resolve("jobs.json").toString())
+                .withStorageMode("wal");
+        persistenceManager = new PersistenceManager(config);
+        dlqManager = new DLQManager(persistenceManager, new JobQueue(persistenceManager, config));
+        
+        List<Job> jobs = BenchmarkStores.jobs(STORE_SIZE);
+        for (int i = 0; i < deadJobs; i++) {
+            Job job = jobs.get(i * (STORE_SIZE / deadJobs));
+            job.markAsDead(i % 3 == 0 ? "Job timeout after 300 seconds" : "Command exited with code 1");
+        }
+        persistenceManager.saveJobs(jobs);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        persistenceManager.close();
+        BenchmarkStores.delete(directory);
+    }
+    
+    @Benchmark
+    public DLQManager.DLQStatistics getStatistics() {
+        return dlqManager.getStatistics();
+    }
+}
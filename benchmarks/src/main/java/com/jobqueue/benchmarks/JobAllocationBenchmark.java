@@ -0,0 +1,58 @@
+package com.jobqueue.benchmarks;
+
+import com.jobqueue.model.CoarseClock;
+import com.jobqueue.model.Job;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory a job costs: what creating one allocates, which is also what it keeps on the heap,
+ * and what its state transitions allocate over a life of one failed attempt and one
+ * successful one. {@code create} parses a fixed ID so only the job itself is counted;
+ * {@code createWithNewId} generates one as enqueueing does. Run with {@code -prof gc} and read
+ * {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobAllocationBenchmark {
+    
+    private static final String ID = "0b9f0e4c-5a8e-4c55-9d1e-2f6f7f0d9a51";
+    private static final String COMMAND = "sh -c 'echo processing batch 42 && sleep 1'";
+    
+    private final Job job = new Job(ID, COMMAND, 3);
+    
+    @Benchmark
+    public Job create() {
+        return new Job(ID, COMMAND, 3);
+    }
+    
+    @Benchmark
+    public Job createWithNewId() {
+        return new Job(COMMAND, 3);
+    }
+    
+    @Benchmark
+    public Job transitions() {
+        long now = CoarseClock.currentTimeMillis();
+        job.markAsProcessing("worker-1", now + 30_000);
+        job.renewLease(now + 60_000);
+        job.markAsFailed("Command exited with code 1", now + 2_000);
+        job.resetForRetry();
+        job.markAsProcessing("worker-1", now + 30_000);
+        job.markAsCompleted();
+        return job;
+    }
+}
@@ -0,0 +1,99 @@
+package com.jobqueue.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jobqueue.model.Job;
+import com.jobqueue.persistence.JobCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize and parse throughput of a job file in the binary codec versus the Jackson path
+ * the persistence manager uses for JSON files.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobCodecBenchmark {
+    
+    @Param({"1000"})
+    private int jobCount;
+    
+    private final JobCodec jobCodec = new JobCodec();
+    private ObjectMapper objectMapper;
+    private ObjectWriter jsonWriter;
+    private List<Job> jobs;
+    private byte[] jsonFile;
+    private byte[] binaryFile;
+    
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        jsonWriter = objectMapper.writerWithDefaultPrettyPrinter();
+        
+        // A realistic mix: some jobs have failed once and carry an error and a retry time
+        jobs = new ArrayList<>(jobCount);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < jobCount; i++) {
+            Job job = new Job("job-" + i, "sh -c 'echo processing batch " + i + " && sleep 1'", 3);
+            if (i % 4 == 0) {
+                job.markAsProcessing();
+                job.markAsFailed("Command exited with code 1", now + (i % 60) * 1000L);
+            }
+            jobs.add(job);
+        }
+        
+        jsonFile = jsonWriter.writeValueAsBytes(jobs);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jobCodec.writeFile(out, jobs);
+        binaryFile = out.toByteArray();
+        
+        System.out.printf("%n%d jobs: JSON %d bytes, binary %d bytes%n",
+                          jobCount, jsonFile.length, binaryFile.length);
+    }
+    
+    @Benchmark
+    public byte[] serializeJackson() throws IOException {
+        return jsonWriter.writeValueAsBytes(jobs);
+    }
+    
+    @Benchmark
+    public byte[] serializeBinary() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(binaryFile.length);
+        jobCodec.writeFile(out, jobs);
+        return out.toByteArray();
+    }
+    
+    @Benchmark
+    public List<Job> parseJackson() throws IOException {
+        return objectMapper.readValue(jsonFile, new TypeReference<List<Job>>() {});
+    }
+    
+    @Benchmark
+    public int parseBinary(Blackhole blackhole) throws IOException {
+        return jobCodec.readFile(new ByteArrayInputStream(binaryFile), blackhole::consume);
+    }
+}
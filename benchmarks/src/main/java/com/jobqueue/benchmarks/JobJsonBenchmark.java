@@ -0,0 +1,61 @@
+package com.jobqueue.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jobqueue.daemon.DaemonProtocol;
+import com.jobqueue.model.Job;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one job into JSON and back, as done for every job in a daemon or lease
+ * request and every record of a JSON write-ahead log. The job has failed once, so every
+ * field is set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobJsonBenchmark {
+    
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private Job job;
+    private byte[] json;
+    
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = DaemonProtocol.createObjectMapper();
+        writer = objectMapper.writerFor(Job.class);
+        reader = objectMapper.readerFor(Job.class);
+        
+        job = new Job("sh -c 'echo processing batch 42 && sleep 1'", 3, 7);
+        job.markAsProcessing("worker-1", System.currentTimeMillis() + 30_000);
+        job.markAsFailed("Command exited with code 1", System.currentTimeMillis() + 4_000);
+        json = writer.writeValueAsBytes(job);
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(job);
+    }
+    
+    @Benchmark
+    public Job deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
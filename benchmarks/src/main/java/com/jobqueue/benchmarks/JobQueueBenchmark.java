@@ -0,0 +1,139 @@
+package com.jobqueue.benchmarks;
+
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.model.Job;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.queue.JobQueue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of {@link JobQueue#enqueue} and {@link JobQueue#dequeue} under contention, with
+ * the store in WAL mode so every operation goes through the store lock and the group
+ * committer. Producers enqueue while consumers dequeue and complete, the way workers do; the
+ * "completed" counter of each consume method is the rate of jobs through the queue. Runs
+ * with one store shard and with four, and with consumers dequeuing one job or a batch of
+ * eight at a time. A fresh store is used for every iteration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class JobQueueBenchmark {
+    
+    /**
+     * Producers back off above this depth so the store cannot grow without bound
+     */
+    private static final int MAX_PENDING = 10_000;
+    
+    @Param({"1", "4"})
+    private int storeShards;
+    
+    @Param({"1", "8"})
+    private int dequeueBatch;
+    
+    private Path directory;
+    private PersistenceManager persistenceManager;
+    private JobQueue jobQueue;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        directory = BenchmarkStores.createDirectory();
+        JobQueueConfig config = new JobQueueConfig()
+                .withDataFile(directory.resolve("jobs.json").toString())
+                .withStorageMode("wal")
+                .withStoreShards(storeShards)
+                .withCommitLinger(0);
+        persistenceManager = new PersistenceManager(config);
+        jobQueue = new JobQueue(persistenceManager, config);
+        jobQueue.initialize();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        jobQueue.shutdown();
+        persistenceManager.close();
+        BenchmarkStores.delete(directory);
+    }
+    
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Consumer {
+        private static final AtomicInteger IDS = new AtomicInteger();
+        
+        private final String workerId = "worker-" + IDS.incrementAndGet();
+        public long completed;
+    }
+    
+    @Benchmark
+    @Group("threads1")
+    @GroupThreads(1)
+    public String enqueue1() {
+        return enqueue();
+    }
+    
+    @Benchmark
+    @Group("threads1")
+    @GroupThreads(1)
+    public void consume1(Consumer consumer) {
+        consume(consumer);
+    }
+    
+    @Benchmark
+    @Group("threads4")
+    @GroupThreads(4)
+    public String enqueue4() {
+        return enqueue();
+    }
+    
+    @Benchmark
+    @Group("threads4")
+    @GroupThreads(4)
+    public void consume4(Consumer consumer) {
+        consume(consumer);
+    }
+    
+    private String enqueue() {
+        if (jobQueue.getPendingCount() >= MAX_PENDING) {
+            Thread.onSpinWait();
+            return null;
+        }
+        return jobQueue.enqueue(new Job("true", 3));
+    }
+    
+    private void consume(Consumer consumer) {
+        if (dequeueBatch == 1) {
+            Optional<Job> job = jobQueue.dequeue(consumer.workerId, 10, TimeUnit.MILLISECONDS);
+            if (job.isPresent()) {
+                jobQueue.markCompleted(job.get(), job.get().getAttempts());
+                consumer.completed++;
+            }
+        } else {
+            for (Job job : jobQueue.dequeueBatch(consumer.workerId, dequeueBatch, 10, TimeUnit.MILLISECONDS)) {
+                jobQueue.markCompleted(job, job.getAttempts());
+                consumer.completed++;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.jobqueue.benchmarks;
+
+import com.jobqueue.queue.LinkedPendingQueue;
+import com.jobqueue.queue.PendingQueue;
+import com.jobqueue.queue.RingBufferPendingQueue;
+import com.jobqueue.queue.WaitStrategy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand-off throughput of the pending queue implementations: four producers keep the queue
+ * topped up while 1, 4, 16 or 64 consumers poll it the way workers do. The "items" counter
+ * of each consume method is the dequeue rate; timed-out polls are not counted.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class PendingQueueBenchmark {
+    
+    /**
+     * Producers back off above this depth so the linked queue cannot grow without bound
+     */
+    private static final int MAX_DEPTH = 4096;
+    private static final Object ITEM = new Object();
+    
+    @Param({"linked", "ring_park", "ring_spin_then_park", "ring_yield"})
+    private String queueType;
+    
+    private PendingQueue<Object> queue;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        if (queueType.equals("linked")) {
+            queue = new LinkedPendingQueue<>();
+        } else {
+            String strategy = queueType.substring("ring_".length());
+            queue = new RingBufferPendingQueue<>(MAX_DEPTH * 2, WaitStrategy.fromString(strategy));
+        }
+    }
+    
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Dequeued {
+        public long items;
+    }
+    
+    @Benchmark
+    @Group("consumers1")
+    @GroupThreads(4)
+    public void produce1() {
+        produce();
+    }
+    
+    @Benchmark
+    @Group("consumers1")
+    @GroupThreads(1)
+    public void consume1(Dequeued dequeued) throws InterruptedException {
+        consume(dequeued);
+    }
+    
+    @Benchmark
+    @Group("consumers4")
+    @GroupThreads(4)
+    public void produce4() {
+        produce();
+    }
+    
+    @Benchmark
+    @Group("consumers4")
+    @GroupThreads(4)
+    public void consume4(Dequeued dequeued) throws InterruptedException {
+        consume(dequeued);
+    }
+    
+    @Benchmark
+    @Group("consumers16")
+    @GroupThreads(4)
+    public void produce16() {
+        produce();
+    }
+    
+    @Benchmark
+    @Group("consumers16")
+    @GroupThreads(16)
+    public void consume16(Dequeued dequeued) throws InterruptedException {
+        consume(dequeued);
+    }
+    
+    @Benchmark
+    @Group("consumers64")
+    @GroupThreads(4)
+    public void produce64() {
+        produce();
+    }
+    
+    @Benchmark
+    @Group("consumers64")
+    @GroupThreads(64)
+    public void consume64(Dequeued dequeued) throws InterruptedException {
+        consume(dequeued);
+    }
+    
+    private void produce() {
+        if (queue.size() < MAX_DEPTH) {
+            queue.offer(ITEM);
+        } else {
+            Thread.yield();
+        }
+    }
+    
+    private void consume(Dequeued dequeued) throws InterruptedException {
+        if (queue.poll(1, TimeUnit.MILLISECONDS) != null) {
+            dequeued.items++;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jobqueue.benchmarks;
+
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.model.Job;
+import com.jobqueue.persistence.PersistenceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link PersistenceManager#saveJob} on a store already holding 100, 1,000 or
+ * 10,000 jobs. Each call re-saves an existing job, so the store keeps its size. The JSON
+ * mode rewrites the whole data file on every save, so its cost grows with the store; the
+ * WAL mode appends one record, so it should not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    
+    @Param({"json", "wal"})
+    private String storageMode;
+    
+    @Param({"100", "1000", "10000"})
+    private int storeSize;
+    
+    private Path directory;
+    private PersistenceManager persistenceManager;
+    private List<Job> jobs;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = BenchmarkStores.createDirectory();
+        JobQueueConfig config = new JobQueueConfig()
+                .withDataFile(directory.resolve("jobs.json").toString())
+                .withStorageMode(storageMode)
+                .withCommitLinger(0);
+        persistenceManager = new PersistenceManager(config);
+        jobs = BenchmarkStores.jobs(storeSize);
+        persistenceManager.saveJobs(jobs);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        persistenceManager.close();
+        BenchmarkStores.delete(directory);
+    }
+    
+    @Benchmark
+    public Job saveJob() {
+        Job job = jobs.get(next);
+        next = (next + 1) % jobs.size();
+        persistenceManager.saveJob(job);
+        return job;
+    }
+}
@@ -0,0 +1,71 @@
+package com.jobqueue.benchmarks;
+
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.persistence.PersistenceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of a store: opening a {@link PersistenceManager} on an existing data file
+ * of 10,000 or 100,000 jobs, which loads every job and builds the state index. Covers both
+ * storage formats, with the file read on one thread or memory-mapped and bound in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreLoadBenchmark {
+    
+    @Param({"10000", "100000"})
+    private int storeSize;
+    
+    @Param({"json", "binary"})
+    private String storageFormat;
+    
+    @Param({"false", "true"})
+    private boolean parallelLoad;
+    
+    private Path directory;
+    private JobQueueConfig config;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = BenchmarkStores.createDirectory();
+        config = new JobQueueConfig()
+                .withDataFile(directory.resolve("jobs.json").toString())
+                .withStorageFormat(storageFormat)
+                .withParallelLoad(parallelLoad);
+        PersistenceManager writer = new PersistenceManager(config);
+        writer.saveJobs(BenchmarkStores.jobs(storeSize));
+        writer.close();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkStores.delete(directory);
+    }
+    
+    @Benchmark
+    public int loadJobs() {
+        PersistenceManager persistenceManager = new PersistenceManager(config);
+        int loaded = persistenceManager.getJobCount();
+        persistenceManager.close();
+        return loaded;
+    }
+}
@@ -0,0 +1,144 @@
+package com.jobqueue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of holding 100, 1,000 or 10,000 jobs in flight at once in each worker mode.
+ * Every job blocks until all of them have started, standing in for a worker waiting on its
+ * child process, so the score is the time to start, park and finish the whole batch.
+ * At the end of each trial the mean growth of the resident set and of the used heap while
+ * every job was blocked is printed: platform thread stacks show up in the resident set,
+ * virtual thread stacks in the heap.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkerModeBenchmark {
+    
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    
+    @Param({"platform", "virtual"})
+    private String mode;
+    
+    @Param({"100", "1000", "10000"})
+    private int concurrentJobs;
+    
+    @State(Scope.Benchmark)
+    public static class Footprint {
+        private long baselineRssKb;
+        private long baselineHeapBytes;
+        private long totalRssKb;
+        private long totalHeapBytes;
+        private int samples;
+        
+        @Setup(Level.Invocation)
+        public void baseline() {
+            System.gc();
+            baselineRssKb = residentSetKb();
+            baselineHeapBytes = usedHeapBytes();
+        }
+        
+        void sample() {
+            totalRssKb += residentSetKb() - baselineRssKb;
+            totalHeapBytes += usedHeapBytes() - baselineHeapBytes;
+            samples++;
+        }
+        
+        @TearDown(Level.Trial)
+        public void report(WorkerModeBenchmark benchmark) {
+            System.out.printf("%nFootprint with %d %s jobs in flight (mean of %d batches): "
+                            + "resident set +%.1f MB, heap +%.1f MB%n",
+                            benchmark.concurrentJobs, benchmark.mode, samples,
+                            totalRssKb / 1024.0 / samples, totalHeapBytes / (1024.0 * 1024) / samples);
+        }
+    }
+    
+    @Benchmark
+    public void runBatch(Footprint footprint) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(concurrentJobs);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable job = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        
+        if (mode.equals("platform")) {
+            // Platform mode needs one worker thread per job in flight
+            try (ExecutorService workers = Executors.newFixedThreadPool(concurrentJobs)) {
+                for (int i = 0; i < concurrentJobs; i++) {
+                    workers.execute(job);
+                }
+                awaitAndRelease(started, release, footprint);
+            }
+        } else {
+            // Virtual mode: a semaphore bounds the jobs, each gets a fresh virtual thread
+            Semaphore permits = new Semaphore(concurrentJobs);
+            try (ExecutorService jobThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < concurrentJobs; i++) {
+                    permits.acquire();
+                    jobThreads.execute(() -> {
+                        try {
+                            job.run();
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+                awaitAndRelease(started, release, footprint);
+            }
+        }
+    }
+    
+    private static void awaitAndRelease(CountDownLatch started, CountDownLatch release, Footprint footprint)
+            throws InterruptedException {
+        started.await();
+        footprint.sample();
+        release.countDown();
+    }
+    
+    private static long residentSetKb() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux: only the heap counter is meaningful
+        }
+        return 0;
+    }
+    
+    private static long usedHeapBytes() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
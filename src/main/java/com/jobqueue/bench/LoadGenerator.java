@@ -0,0 +1,343 @@
+package com.jobqueue.bench;
+
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.model.Job;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.queue.JobQueue;
+import com.jobqueue.queue.JobSource;
+import com.jobqueue.worker.JobExecutor;
+import com.jobqueue.worker.WorkerManager;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Drives synthetic jobs through the whole pipeline, enqueue, dequeue, execution and
+ * completion, with a real {@link JobQueue}, store and {@link WorkerManager}, and records how
+ * long each stage took.
+ * <p>
+ * In a closed loop a fixed number of jobs is kept in flight and a new one is enqueued as
+ * each finishes, which finds the highest sustainable rate. In an open loop jobs are enqueued
+ * on a fixed schedule whatever the queue does; latencies are then measured from when each
+ * job was due rather than when it was actually enqueued, so a stalled producer does not hide
+ * the stall from the results.
+ * <p>
+ * Workers take jobs through a source wrapping the queue that notes when each job is dequeued
+ * and finished. Jobs either run in-process, sleeping for the profile's work time, or run the
+ * profile's command as a shell process like any other job.
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+    
+    private final JobQueueConfig config;
+    private final LoadProfile profile;
+    private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+    private final Histogram queueWait = new ConcurrentHistogram(3);
+    private final Histogram execution = new ConcurrentHistogram(3);
+    private final Histogram endToEnd = new ConcurrentHistogram(3);
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong lastFinishNanos = new AtomicLong();
+    private final CountDownLatch finished;
+    private final Semaphore inFlight;
+    
+    /**
+     * @param config configuration of the store and workers; its data file should be a scratch
+     *               file, since the run fills it with jobs
+     */
+    public LoadGenerator(JobQueueConfig config, LoadProfile profile) {
+        if (profile.getJobs() < 1) {
+            throw new IllegalArgumentException("Job count must be at least 1");
+        }
+        if (profile.getWarmupJobs() < 0) {
+            throw new IllegalArgumentException("Warmup job count must not be negative");
+        }
+        if (profile.getRatePerSecond() < 0) {
+            throw new IllegalArgumentException("Rate must not be negative");
+        }
+        if (profile.getConcurrency() < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        if (profile.getWorkerCount() < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1");
+        }
+        if (profile.getWorkMicros() < 0) {
+            throw new IllegalArgumentException("Work time must not be negative");
+        }
+        this.config = config;
+        this.profile = profile;
+        this.finished = new CountDownLatch(profile.getWarmupJobs() + profile.getJobs());
+        this.inFlight = new Semaphore(profile.getConcurrency());
+    }
+    
+    /**
+     * Run the load to the end and wait for every job to finish
+     */
+    public LoadReport run() throws InterruptedException {
+        PersistenceManager persistenceManager = new PersistenceManager(config);
+        JobQueue jobQueue = new JobQueue(persistenceManager, config);
+        Supplier<JobExecutor> executorFactory = profile.getCommand() != null ? null : SimulatedJobExecutor::new;
+        WorkerManager workerManager = new WorkerManager(new TimingJobSource(jobQueue), jobQueue, config,
+                                                        executorFactory);
+        GcListener gcListener = null;
+        try {
+            workerManager.start(profile.getWorkerCount(), profile.getWorkerMode());
+            
+            long measureStartNanos = 0;
+            int total = profile.getWarmupJobs() + profile.getJobs();
+            double intervalNanos = profile.isOpenLoop() ? TimeUnit.SECONDS.toNanos(1) / profile.getRatePerSecond() : 0;
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < total; i++) {
+                long enqueueNanos;
+                if (profile.isOpenLoop()) {
+                    enqueueNanos = startNanos + (long) (i * intervalNanos);
+                    long delay;
+                    while ((delay = enqueueNanos - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(delay);
+                    }
+                } else {
+                    inFlight.acquire();
+                    enqueueNanos = System.nanoTime();
+                }
+                
+                boolean measured = i >= profile.getWarmupJobs();
+                if (measured && gcListener == null) {
+                    gcListener = new GcListener();
+                    measureStartNanos = enqueueNanos;
+                }
+                String command = profile.getCommand() != null ? profile.getCommand() : "in-process";
+                // A failed job goes straight to the dead letter queue instead of being retried
+                Job job = new Job(command, 1);
+                timings.put(job.getId(), new Timing(enqueueNanos, measured));
+                jobQueue.enqueue(job);
+            }
+            
+            finished.await();
+            gcListener.stop();
+            return new LoadReport(profile, completedJobs.get(), failedJobs.get(),
+                                  lastFinishNanos.get() - measureStartNanos,
+                                  queueWait, execution, endToEnd, gcListener.getActivity());
+        } finally {
+            if (gcListener != null) {
+                gcListener.stop();
+            }
+            workerManager.shutdown();
+            jobQueue.shutdown();
+            persistenceManager.close();
+        }
+    }
+    
+    /**
+     * Record that a worker took a job off the queue
+     */
+    private void dequeued(Job job) {
+        Timing timing = timings.get(job.getId());
+        if (timing != null) {
+            // A job dequeued again after its lease was lost keeps the later time
+            timing.dequeuedNanos = System.nanoTime();
+        }
+    }
+    
+    /**
+     * Record that a job's outcome was stored, given when the worker reported it
+     */
+    private void finished(Job job, boolean success, long reportedNanos) {
+        long now = System.nanoTime();
+        Timing timing = timings.remove(job.getId());
+        if (timing == null) {
+            return;
+        }
+        if (timing.measured) {
+            queueWait.recordValue(toMicros(timing.dequeuedNanos - timing.enqueuedNanos));
+            execution.recordValue(toMicros(reportedNanos - timing.dequeuedNanos));
+            endToEnd.recordValue(toMicros(now - timing.enqueuedNanos));
+            (success ? completedJobs : failedJobs).incrementAndGet();
+            lastFinishNanos.accumulateAndGet(now, Math::max);
+        }
+        inFlight.release();
+        finished.countDown();
+    }
+    
+    private static long toMicros(long nanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+    
+    /**
+     * Adds up the collections each garbage collector reports while it listens. A collection
+     * ending in "end of GC cycle" is a concurrent cycle, as ZGC and Shenandoah report theirs,
+     * which ran alongside the application; every other one paused it. G1's concurrent collector
+     * reports only its Remark and Cleanup pauses, so those count as pauses.
+     */
+    private static final class GcListener implements NotificationListener {
+        private static final String CONCURRENT_CYCLE = "end of GC cycle";
+        
+        private final List<NotificationEmitter> emitters = new ArrayList<>();
+        // Per collector: pauses, pause milliseconds, concurrent cycles, cycle milliseconds
+        private final Map<String, long[]> totals = new LinkedHashMap<>();
+        
+        GcListener() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                synchronized (totals) {
+                    totals.put(gc.getName(), new long[4]);
+                }
+                if (gc instanceof NotificationEmitter emitter) {
+                    emitter.addNotificationListener(this, null, null);
+                    emitters.add(emitter);
+                }
+            }
+        }
+        
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            int slot = CONCURRENT_CYCLE.equals(info.getGcAction()) ? 2 : 0;
+            synchronized (totals) {
+                long[] collector = totals.computeIfAbsent(info.getGcName(), name -> new long[4]);
+                collector[slot]++;
+                collector[slot + 1] += info.getGcInfo().getDuration();
+            }
+        }
+        
+        void stop() {
+            for (NotificationEmitter emitter : emitters) {
+                try {
+                    emitter.removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    logger.debug("GC listener was already removed", e);
+                }
+            }
+            emitters.clear();
+        }
+        
+        Map<String, LoadReport.GcActivity> getActivity() {
+            Map<String, LoadReport.GcActivity> activity = new LinkedHashMap<>();
+            synchronized (totals) {
+                totals.forEach((name, collector) -> activity.put(name,
+                        new LoadReport.GcActivity(collector[0], collector[1], collector[2], collector[3])));
+            }
+            return activity;
+        }
+    }
+    
+    /**
+     * When a job went through each stage, by {@link System#nanoTime()}
+     */
+    private static class Timing {
+        final long enqueuedNanos;
+        final boolean measured;
+        volatile long dequeuedNanos;
+        
+        Timing(long enqueuedNanos, boolean measured) {
+            this.enqueuedNanos = enqueuedNanos;
+            this.measured = measured;
+            this.dequeuedNanos = enqueuedNanos;
+        }
+    }
+    
+    /**
+     * The queue as the workers see it, noting when jobs are dequeued and finished
+     */
+    private class TimingJobSource implements JobSource {
+        private final JobQueue jobQueue;
+        
+        TimingJobSource(JobQueue jobQueue) {
+            this.jobQueue = jobQueue;
+        }
+        
+        @Override
+        public Optional<Job> dequeue(String workerId, long timeout, TimeUnit unit) {
+            Optional<Job> job = jobQueue.dequeue(workerId, timeout, unit);
+            job.ifPresent(LoadGenerator.this::dequeued);
+            return job;
+        }
+        
+        @Override
+        public List<Job> dequeueBatch(String workerId, int maxJobs, long timeout, TimeUnit unit) {
+            List<Job> jobs = jobQueue.dequeueBatch(workerId, maxJobs, timeout, unit);
+            jobs.forEach(LoadGenerator.this::dequeued);
+            return jobs;
+        }
+        
+        @Override
+        public boolean markCompleted(Job job, int attempt) {
+            long reportedNanos = System.nanoTime();
+            boolean recorded = jobQueue.markCompleted(job, attempt);
+            if (recorded) {
+                finished(job, true, reportedNanos);
+            }
+            return recorded;
+        }
+        
+        @Override
+        public boolean markFailed(Job job, int attempt, String errorMessage) {
+            long reportedNanos = System.nanoTime();
+            boolean recorded = jobQueue.markFailed(job, attempt, errorMessage);
+            if (recorded) {
+                logger.debug("Benchmark job {} failed: {}", job.getJobId(), errorMessage);
+                finished(job, false, reportedNanos);
+            }
+            return recorded;
+        }
+        
+        @Override
+        public int renewLeases() {
+            return jobQueue.renewLeases();
+        }
+        
+        @Override
+        public int release(Collection<Job> jobs) {
+            return jobQueue.release(jobs);
+        }
+    }
+    
+    /**
+     * Runs a job without starting a process: it only sleeps for the profile's work time,
+     * so the results show the overhead of the queue itself
+     */
+    private class SimulatedJobExecutor extends JobExecutor {
+        
+        SimulatedJobExecutor() {
+            super(null, 0, 0, null);
+        }
+        
+        @Override
+        public JobExecutionResult execute(Job job) {
+            long workNanos = TimeUnit.MICROSECONDS.toNanos(profile.getWorkMicros());
+            if (workNanos > 0) {
+                long deadline = System.nanoTime() + workNanos;
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remaining);
+                }
+            }
+            return new JobExecutionResult(true, null, 0, "", 0);
+        }
+    }
+}
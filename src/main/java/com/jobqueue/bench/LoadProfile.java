@@ -0,0 +1,145 @@
+package com.jobqueue.bench;
+
+import com.jobqueue.worker.WorkerMode;
+
+/**
+ * What a {@link LoadGenerator} run does: how many jobs it sends and how fast, and how the
+ * workers that run them are set up.
+ * Immutable; each with method returns a changed copy, like {@link com.jobqueue.config.JobQueueConfig}.
+ */
+public class LoadProfile {
+    private final int jobs;
+    private final int warmupJobs;
+    private final double ratePerSecond;
+    private final int concurrency;
+    private final int workerCount;
+    private final WorkerMode workerMode;
+    private final String command;
+    private final long workMicros;
+    
+    /**
+     * Closed loop with 64 jobs in flight, 10,000 measured jobs after 1,000 warmup jobs,
+     * run in-process by four platform workers
+     */
+    public LoadProfile() {
+        this(10_000, 1_000, 0, 64, 4, WorkerMode.PLATFORM, null, 0);
+    }
+    
+    private LoadProfile(int jobs, int warmupJobs, double ratePerSecond, int concurrency, int workerCount,
+                        WorkerMode workerMode, String command, long workMicros) {
+        this.jobs = jobs;
+        this.warmupJobs = warmupJobs;
+        this.ratePerSecond = ratePerSecond;
+        this.concurrency = concurrency;
+        this.workerCount = workerCount;
+        this.workerMode = workerMode;
+        this.command = command;
+        this.workMicros = workMicros;
+    }
+    
+    /**
+     * Get the number of jobs whose latencies are recorded
+     */
+    public int getJobs() {
+        return jobs;
+    }
+    
+    /**
+     * Get the number of jobs sent first and left out of the results, while the JVM warms up
+     */
+    public int getWarmupJobs() {
+        return warmupJobs;
+    }
+    
+    /**
+     * Get the rate jobs are enqueued at, or 0 to keep a fixed number in flight instead
+     */
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+    
+    /**
+     * Check if jobs are enqueued at a fixed rate regardless of how fast they complete
+     */
+    public boolean isOpenLoop() {
+        return ratePerSecond > 0;
+    }
+    
+    /**
+     * Get the number of jobs kept in flight in a closed loop run
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+    
+    public int getWorkerCount() {
+        return workerCount;
+    }
+    
+    public WorkerMode getWorkerMode() {
+        return workerMode;
+    }
+    
+    /**
+     * Get the shell command every job runs, or null to run jobs in-process
+     */
+    public String getCommand() {
+        return command;
+    }
+    
+    /**
+     * Get how long each job sleeps when run in-process
+     */
+    public long getWorkMicros() {
+        return workMicros;
+    }
+    
+    public LoadProfile withJobs(int jobs) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    public LoadProfile withWarmupJobs(int warmupJobs) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    public LoadProfile withRatePerSecond(double ratePerSecond) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    public LoadProfile withConcurrency(int concurrency) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    public LoadProfile withWorkerCount(int workerCount) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    public LoadProfile withWorkerMode(WorkerMode workerMode) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    public LoadProfile withCommand(String command) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    public LoadProfile withWorkMicros(long workMicros) {
+        return new LoadProfile(jobs, warmupJobs, ratePerSecond, concurrency, workerCount, workerMode, command,
+                               workMicros);
+    }
+    
+    @Override
+    public String toString() {
+        String load = isOpenLoop() ? String.format("open loop at %.0f jobs/s", ratePerSecond)
+                                   : String.format("closed loop with %d jobs in flight", concurrency);
+        String execution = command != null ? "command '" + command + "'"
+                                           : String.format("in-process, %d microseconds of work per job", workMicros);
+        return String.format("%s; %d %s workers, %s", load, workerCount, workerMode, execution);
+    }
+}
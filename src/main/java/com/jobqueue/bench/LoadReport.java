@@ -0,0 +1,186 @@
+package com.jobqueue.bench;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link LoadGenerator} run: latency histograms in microseconds, the sustained
+ * completion rate and the garbage collection done meanwhile.
+ */
+public class LoadReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    
+    private final LoadProfile profile;
+    private final long completedJobs;
+    private final long failedJobs;
+    private final long elapsedNanos;
+    private final Histogram queueWait;
+    private final Histogram execution;
+    private final Histogram endToEnd;
+    private final Map<String, GcActivity> gcActivity;
+    
+    LoadReport(LoadProfile profile, long completedJobs, long failedJobs, long elapsedNanos,
+               Histogram queueWait, Histogram execution, Histogram endToEnd, Map<String, GcActivity> gcActivity) {
+        this.profile = profile;
+        this.completedJobs = completedJobs;
+        this.failedJobs = failedJobs;
+        this.elapsedNanos = elapsedNanos;
+        this.queueWait = queueWait;
+        this.execution = execution;
+        this.endToEnd = endToEnd;
+        this.gcActivity = gcActivity;
+    }
+    
+    public LoadProfile getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Get the number of measured jobs that completed
+     */
+    public long getCompletedJobs() {
+        return completedJobs;
+    }
+    
+    /**
+     * Get the number of measured jobs whose command failed
+     */
+    public long getFailedJobs() {
+        return failedJobs;
+    }
+    
+    /**
+     * Get the time from enqueuing the first measured job to finishing the last one
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    /**
+     * Get the sustained rate measured jobs finished at
+     */
+    public double getJobsPerSecond() {
+        return elapsedNanos > 0 ? (completedJobs + failedJobs) * 1e9 / elapsedNanos : 0;
+    }
+    
+    /**
+     * Get the time from enqueue until a worker dequeued the job
+     */
+    public Histogram getQueueWait() {
+        return queueWait;
+    }
+    
+    /**
+     * Get the time from dequeue until the worker reported the outcome
+     */
+    public Histogram getExecution() {
+        return execution;
+    }
+    
+    /**
+     * Get the time from enqueue until the outcome was recorded in the store
+     */
+    public Histogram getEndToEnd() {
+        return endToEnd;
+    }
+    
+    /**
+     * Get the pauses and concurrent cycles of each garbage collector during the run, by collector name
+     */
+    public Map<String, GcActivity> getGcActivity() {
+        return gcActivity;
+    }
+    
+    /**
+     * Print the report as a table
+     */
+    public void print(PrintStream out) {
+        out.println("Profile: " + profile);
+        out.printf("Jobs: %d measured after %d warmup, %d failed%n",
+                   completedJobs + failedJobs, profile.getWarmupJobs(), failedJobs);
+        out.printf("Throughput: %.1f jobs/s over %.2f s%n", getJobsPerSecond(), elapsedNanos / 1e9);
+        out.println();
+        
+        out.printf("%-14s", "Latency (ms)");
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9s", "p" + (percentile == (long) percentile ? String.valueOf((long) percentile)
+                                                                      : String.valueOf(percentile)));
+        }
+        out.printf(" %9s %9s%n", "max", "mean");
+        printRow(out, "Queue wait", queueWait);
+        printRow(out, "Execution", execution);
+        printRow(out, "End-to-end", endToEnd);
+        out.println();
+        
+        long pauses = 0;
+        long pauseMillis = 0;
+        long cycles = 0;
+        long cycleMillis = 0;
+        for (GcActivity activity : gcActivity.values()) {
+            pauses += activity.getPauses();
+            pauseMillis += activity.getPauseMillis();
+            cycles += activity.getConcurrentCycles();
+            cycleMillis += activity.getConcurrentMillis();
+        }
+        out.printf("GC pauses: %d, %d ms%n", pauses, pauseMillis);
+        out.printf("GC concurrent cycles: %d, %d ms%n", cycles, cycleMillis);
+        for (Map.Entry<String, GcActivity> entry : gcActivity.entrySet()) {
+            GcActivity activity = entry.getValue();
+            out.printf("  %-22s %d pauses, %d ms", entry.getKey() + ":", activity.getPauses(), activity.getPauseMillis());
+            if (activity.getConcurrentCycles() > 0) {
+                out.printf("; %d concurrent cycles, %d ms", activity.getConcurrentCycles(),
+                           activity.getConcurrentMillis());
+            }
+            out.println();
+        }
+    }
+    
+    private static void printRow(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-14s", name);
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9.3f", toMillis(histogram.getValueAtPercentile(percentile)));
+        }
+        out.printf(" %9.3f %9.3f%n", toMillis(histogram.getMaxValue()), histogram.getMean() / 1000);
+    }
+    
+    private static double toMillis(long micros) {
+        return micros / (double) TimeUnit.MILLISECONDS.toMicros(1);
+    }
+    
+    /**
+     * Collections one garbage collector did during the run: pauses that stopped the
+     * application, and concurrent cycles that ran alongside it
+     */
+    public static class GcActivity {
+        private final long pauses;
+        private final long pauseMillis;
+        private final long concurrentCycles;
+        private final long concurrentMillis;
+        
+        GcActivity(long pauses, long pauseMillis, long concurrentCycles, long concurrentMillis) {
+            this.pauses = pauses;
+            this.pauseMillis = pauseMillis;
+            this.concurrentCycles = concurrentCycles;
+            this.concurrentMillis = concurrentMillis;
+        }
+        
+        public long getPauses() {
+            return pauses;
+        }
+        
+        public long getPauseMillis() {
+            return pauseMillis;
+        }
+        
+        public long getConcurrentCycles() {
+            return concurrentCycles;
+        }
+        
+        public long getConcurrentMillis() {
+            return concurrentMillis;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.jobqueue.cli;
+
+import ch.qos.logback.classic.Level;
+import com.jobqueue.bench.LoadGenerator;
+import com.jobqueue.bench.LoadProfile;
+import com.jobqueue.bench.LoadReport;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.worker.Worker;
+import com.jobqueue.worker.WorkerMode;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * CLI command for measuring the throughput and latency of the whole pipeline.
+ * Runs synthetic jobs through a scratch store with the configured storage and worker
+ * settings, so the real job store is never touched.
+ */
+@Command(
+    name = "bench",
+    description = "Measure end-to-end job throughput and latency with synthetic jobs"
+)
+public class BenchCommand implements Callable<Integer> {
+    
+    @ParentCommand
+    private QueueCtl parent;
+    
+    @Option(
+        names = {"-n", "--jobs"},
+        description = "Number of measured jobs (default: 10000)"
+    )
+    private int jobs = 10_000;
+    
+    @Option(
+        names = {"--warmup"},
+        description = "Jobs run first and left out of the results (default: 1000)"
+    )
+    private int warmupJobs = 1_000;
+    
+    @Option(
+        names = {"-r", "--rate"},
+        description = "Jobs enqueued per second regardless of progress; 0 keeps --concurrency in flight (default: 0)"
+    )
+    private double rate;
+    
+    @Option(
+        names = {"--concurrency"},
+        description = "Jobs kept in flight when no rate is given (default: 64)"
+    )
+    private int concurrency = 64;
+    
+    @Option(
+        names = {"-w", "--workers"},
+        description = "Number of workers (default: from config)"
+    )
+    private Integer workerCount;
+    
+    @Option(
+        names = {"-m", "--mode"},
+        description = "Worker mode: platform or virtual (default: from config)"
+    )
+    private String mode;
+    
+    @Option(
+        names = {"-p", "--prefetch"},
+        description = "Jobs each worker dequeues ahead of the one it runs (default: from config)"
+    )
+    private Integer prefetch;
+    
+    @Option(
+        names = {"--command"},
+        description = "Run this shell command for every job instead of running jobs in-process"
+    )
+    private String command;
+    
+    @Option(
+        names = {"--work-micros"},
+        description = "How long each in-process job takes, in microseconds (default: 0)"
+    )
+    private long workMicros;
+    
+    @Override
+    public Integer call() {
+        Path directory = null;
+        try {
+            parent.initializeConfig();
+            JobQueueConfig config = QueueCtl.getConfigManager().getConfig();
+            
+            WorkerMode workerMode;
+            try {
+                workerMode = WorkerMode.fromString(mode != null ? mode : config.getWorkerMode());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: mode must be one of: platform, virtual");
+                return 1;
+            }
+            if (prefetch != null) {
+                if (prefetch < 0 || prefetch > Worker.MAX_PREFETCH) {
+                    System.err.printf("Error: prefetch must be between 0 and %d%n", Worker.MAX_PREFETCH);
+                    return 1;
+                }
+                config = config.withWorkerPrefetch(prefetch);
+            }
+            
+            LoadProfile profile = new LoadProfile()
+                    .withJobs(jobs)
+                    .withWarmupJobs(warmupJobs)
+                    .withRatePerSecond(rate)
+                    .withConcurrency(concurrency)
+                    .withWorkerCount(workerCount != null ? workerCount : config.getWorkerCount())
+                    .withWorkerMode(workerMode)
+                    .withCommand(command)
+                    .withWorkMicros(workMicros);
+            
+            // A scratch store next to nothing the user owns, with the configured settings
+            directory = Files.createTempDirectory("queuectl-bench");
+            config = config.withDataFile(directory.resolve("jobs.json").toString())
+                    .withOutputDir(directory.resolve("output").toString());
+            LoadGenerator generator = new LoadGenerator(config, profile);
+            
+            // Per-job logging would cost more than the queue operations being measured
+            if (!parent.isVerbose()) {
+                quietLogging();
+            }
+            
+            System.out.printf("Running %d jobs (%d warmup): %s%n", warmupJobs + jobs, warmupJobs, profile);
+            System.out.printf("Storage: %s mode, %s format, %d shard(s)%n%n", config.getStorageMode(),
+                              config.getStorageFormat(), config.getStoreShards());
+            LoadReport report = generator.run();
+            report.print(System.out);
+            return 0;
+        
+        } catch (Exception e) {
+            System.err.println("Error running benchmark: " + e.getMessage());
+            if (parent.isVerbose()) {
+                e.printStackTrace();
+            }
+            return 1;
+        } finally {
+            deleteQuietly(directory);
+        }
+    }
+    
+    private static void quietLogging() {
+        if (LoggerFactory.getLogger("com.jobqueue") instanceof ch.qos.logback.classic.Logger logger) {
+            logger.setLevel(Level.WARN);
+        }
+    }
+    
+    private static void deleteQuietly(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            List<Path> all = paths.sorted(Comparator.reverseOrder()).toList();
+            for (Path path : all) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: failed to remove scratch store " + directory + ": " + e.getMessage());
+        }
+    }
+}
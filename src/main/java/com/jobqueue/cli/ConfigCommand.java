@@ -1,6 +1,14 @@
 package com.jobqueue.cli;
 
 import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.output.OutputStore;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.persistence.StorageFormat;
+import com.jobqueue.persistence.StorageMode;
+import com.jobqueue.queue.PendingQueueType;
+import com.jobqueue.queue.WaitStrategy;
+import com.jobqueue.worker.Worker;
+import com.jobqueue.worker.WorkerMode;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.ParentCommand;
@@ -55,6 +63,29 @@ public class ConfigCommand implements Callable<Integer> {
                 System.out.printf("Data File:                %s%n", config.getDataFile());
                 System.out.printf("Job Timeout (seconds):    %d%n", config.getJobTimeoutSeconds());
                 System.out.printf("Retry Check Interval (s): %d%n", config.getRetryCheckIntervalSeconds());
+                System.out.printf("Storage Mode:             %s%n", config.getStorageMode());
+                System.out.printf("Storage Format:           %s%n", config.getStorageFormat());
+                System.out.printf("Store Shards:             %d%n", config.getStoreShards());
+                System.out.printf("Commit Batch Size:        %d%n", config.getCommitBatchSize());
+                System.out.printf("Commit Linger (ms):       %d%n", config.getCommitLingerMillis());
+                System.out.printf("Compaction Log Bytes:     %d%n", config.getCompactionLogBytes());
+                System.out.printf("Compaction Log Records:   %d%n", config.getCompactionLogRecords());
+                System.out.printf("Parallel Load:            %s%n", config.isParallelLoad());
+                System.out.printf("Pending Queue:            %s%n", config.getPendingQueue());
+                System.out.printf("Pending Queue Capacity:   %d%n", config.getPendingQueueCapacity());
+                System.out.printf("Wait Strategy:            %s%n", config.getWaitStrategy());
+                System.out.printf("Priority Aging (seconds): %d%n", config.getPriorityAgingSeconds());
+                System.out.printf("Worker Mode:              %s%n", config.getWorkerMode());
+                System.out.printf("Worker Prefetch:          %d%n", config.getWorkerPrefetch());
+                System.out.printf("Max Output Bytes:         %d%n", config.getMaxOutputBytes());
+                System.out.printf("Output Dir:               %s%n", OutputStore.directoryFor(config));
+                System.out.printf("Lease Timeout (seconds):  %d%n", config.getLeaseTimeoutSeconds());
+                System.out.printf("Cluster Bind Address:     %s%n", config.getClusterBindAddress());
+                System.out.printf("Cluster Port:             %s%n",
+                                config.getClusterPort() == 0 ? "any" : config.getClusterPort());
+                System.out.printf("Metrics Bind Address:     %s%n", config.getMetricsBindAddress());
+                System.out.printf("Metrics Port:             %s%n",
+                                config.getMetricsPort() == 0 ? "disabled" : config.getMetricsPort());
                 
                 System.out.printf("%nConfiguration File: %s%n", parent.parent.getConfigFile());
                 
@@ -78,7 +109,7 @@ public class ConfigCommand implements Callable<Integer> {
         
         @Parameters(
             index = "0",
-            description = "Configuration parameter: max-retries, backoff-base, worker-count, job-timeout, retry-interval"
+            description = "Configuration parameter: max-retries, backoff-base, worker-count, job-timeout, retry-interval, storage-mode, storage-format, commit-batch-size, commit-linger, pending-queue, pending-queue-capacity, wait-strategy"
         )
         private String parameter;
         
@@ -145,9 +176,200 @@ public class ConfigCommand implements Callable<Integer> {
                         System.out.printf("Retry check interval updated to: %d seconds%n", retryInterval);
                         break;
                         
+                    case "storage-mode":
+                        StorageMode storageMode;
+                        try {
+                            storageMode = StorageMode.fromString(value);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: storage-mode must be one of: json, wal");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateStorageMode(storageMode.getValue());
+                        System.out.printf("Storage mode updated to: %s%n", storageMode);
+                        System.out.println("Note: Use 'store export' before switching from wal back to json");
+                        break;
+                        
+                    case "storage-format":
+                        StorageFormat storageFormat;
+                        try {
+                            storageFormat = StorageFormat.fromString(value);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: storage-format must be one of: json, binary");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateStorageFormat(storageFormat.getValue());
+                        System.out.printf("Storage format updated to: %s%n", storageFormat);
+                        System.out.println("Note: Existing files are still read; new writes use this format");
+                        break;
+                        
+                    case "commit-batch-size":
+                        int commitBatchSize = Integer.parseInt(value);
+                        if (commitBatchSize < 1) {
+                            System.err.println("Error: commit-batch-size must be positive");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateCommitBatchSize(commitBatchSize);
+                        System.out.printf("Commit batch size updated to: %d%n", commitBatchSize);
+                        break;
+                        
+                    case "commit-linger":
+                        long commitLinger = Long.parseLong(value);
+                        if (commitLinger < 0) {
+                            System.err.println("Error: commit-linger must be non-negative");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateCommitLinger(commitLinger);
+                        System.out.printf("Commit linger updated to: %d ms%n", commitLinger);
+                        break;
+                        
+                    case "pending-queue":
+                        PendingQueueType pendingQueue;
+                        try {
+                            pendingQueue = PendingQueueType.fromString(value);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: pending-queue must be one of: linked, ring");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updatePendingQueue(pendingQueue.getValue());
+                        System.out.printf("Pending queue updated to: %s%n", pendingQueue);
+                        System.out.println("Note: Restart workers for this change to take effect");
+                        break;
+                        
+                    case "pending-queue-capacity":
+                        int pendingQueueCapacity = Integer.parseInt(value);
+                        if (pendingQueueCapacity < 2) {
+                            System.err.println("Error: pending-queue-capacity must be at least 2");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updatePendingQueueCapacity(pendingQueueCapacity);
+                        System.out.printf("Pending queue capacity updated to: %d%n", pendingQueueCapacity);
+                        break;
+                        
+                    case "wait-strategy":
+                        WaitStrategy waitStrategy;
+                        try {
+                            waitStrategy = WaitStrategy.fromString(value);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: wait-strategy must be one of: park, spin_then_park, yield");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateWaitStrategy(waitStrategy.getValue());
+                        System.out.printf("Wait strategy updated to: %s%n", waitStrategy);
+                        break;
+                        
+                    case "priority-aging":
+                        long priorityAging = Long.parseLong(value);
+                        if (priorityAging < 1) {
+                            System.err.println("Error: priority-aging must be at least 1 second");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updatePriorityAging(priorityAging);
+                        System.out.printf("Priority aging updated to: %d seconds%n", priorityAging);
+                        break;
+                        
+                    case "worker-mode":
+                        WorkerMode workerMode;
+                        try {
+                            workerMode = WorkerMode.fromString(value);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: worker-mode must be one of: platform, virtual");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateWorkerMode(workerMode.getValue());
+                        System.out.printf("Worker mode updated to: %s%n", workerMode);
+                        System.out.println("Note: Restart workers for this change to take effect");
+                        break;
+                        
+                    case "max-output-bytes":
+                        int maxOutputBytes = Integer.parseInt(value);
+                        if (maxOutputBytes < 1) {
+                            System.err.println("Error: max-output-bytes must be positive");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateMaxOutputBytes(maxOutputBytes);
+                        System.out.printf("Max output bytes updated to: %d%n", maxOutputBytes);
+                        break;
+                        
+                    case "output-dir":
+                        // "default" puts the store back next to the data file
+                        String outputDir = value.equalsIgnoreCase("default") ? null : value;
+                        QueueCtl.getConfigManager().updateOutputDir(outputDir);
+                        System.out.printf("Output directory updated to: %s%n",
+                                        OutputStore.directoryFor(QueueCtl.getConfigManager().getConfig()));
+                        break;
+                        
+                    case "lease-timeout":
+                        long leaseTimeout = Long.parseLong(value);
+                        if (leaseTimeout < 3) {
+                            System.err.println("Error: lease-timeout must be at least 3 seconds");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateLeaseTimeout(leaseTimeout);
+                        System.out.printf("Lease timeout updated to: %d seconds%n", leaseTimeout);
+                        break;
+                        
+                    case "cluster-bind-address":
+                        QueueCtl.getConfigManager().updateClusterBindAddress(value);
+                        System.out.println("Cluster bind address updated to: " + value);
+                        System.out.println("Note: Restart workers for this change to take effect");
+                        break;
+                        
+                    case "cluster-port":
+                        int clusterPort = Integer.parseInt(value);
+                        if (clusterPort < 0 || clusterPort > 65535) {
+                            System.err.println("Error: cluster-port must be between 0 and 65535");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateClusterPort(clusterPort);
+                        System.out.printf("Cluster port updated to: %d%n", clusterPort);
+                        System.out.println("Note: Restart workers for this change to take effect");
+                        break;
+                        
+                    case "store-shards":
+                        int storeShards = Integer.parseInt(value);
+                        if (storeShards < 1 || storeShards > PersistenceManager.MAX_SHARDS) {
+                            System.err.printf("Error: store-shards must be between 1 and %d%n",
+                                              PersistenceManager.MAX_SHARDS);
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateStoreShards(storeShards);
+                        System.out.printf("Store shards updated to: %d%n", storeShards);
+                        System.out.println("Note: Existing jobs are redistributed the next time the store is opened");
+                        break;
+                        
+                    case "worker-prefetch":
+                        int workerPrefetch = Integer.parseInt(value);
+                        if (workerPrefetch < 0 || workerPrefetch > Worker.MAX_PREFETCH) {
+                            System.err.printf("Error: worker-prefetch must be between 0 and %d%n",
+                                              Worker.MAX_PREFETCH);
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateWorkerPrefetch(workerPrefetch);
+                        System.out.printf("Worker prefetch updated to: %d%n", workerPrefetch);
+                        System.out.println("Note: Restart workers for this change to take effect");
+                        break;
+                        
+                    case "metrics-bind-address":
+                        QueueCtl.getConfigManager().updateMetricsBindAddress(value);
+                        System.out.println("Metrics bind address updated to: " + value);
+                        System.out.println("Note: Restart workers for this change to take effect");
+                        break;
+                        
+                    case "metrics-port":
+                        int metricsPort = Integer.parseInt(value);
+                        if (metricsPort < 0 || metricsPort > 65535) {
+                            System.err.println("Error: metrics-port must be between 0 and 65535");
+                            return 1;
+                        }
+                        QueueCtl.getConfigManager().updateMetricsPort(metricsPort);
+                        System.out.printf("Metrics port updated to: %d%s%n", metricsPort,
+                                          metricsPort == 0 ? " (disabled)" : "");
+                        System.out.println("Note: Restart workers for this change to take effect");
+                        break;
+                        
                     default:
                         System.err.println("Error: Unknown parameter: " + parameter);
-                        System.err.println("Valid parameters: max-retries, backoff-base, worker-count, job-timeout, retry-interval");
+                        System.err.println("Valid parameters: max-retries, backoff-base, worker-count, job-timeout, retry-interval, storage-mode, storage-format, commit-batch-size, commit-linger, pending-queue, pending-queue-capacity, wait-strategy, priority-aging, worker-mode, max-output-bytes, output-dir, lease-timeout, cluster-bind-address, cluster-port, store-shards, worker-prefetch, metrics-bind-address, metrics-port");
                         return 1;
                 }
                 
@@ -1,5 +1,7 @@
 package com.jobqueue.cli;
 
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.daemon.JobPage;
 import com.jobqueue.dlq.DLQManager;
 import com.jobqueue.model.Job;
 import picocli.CommandLine.Command;
@@ -8,7 +10,9 @@ import picocli.CommandLine.Parameters;
 import picocli.CommandLine.ParentCommand;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 
 /**
@@ -71,11 +75,21 @@ public class DLQCommand implements Callable<Integer> {
         @Override
         public Integer call() {
             try {
-                parent.parent.initializeComponents();
-                
-                DLQManager dlqManager = QueueCtl.getDLQManager();
-                List<Job> deadJobs = dlqManager.getDeadJobs(offset, limit);
-                int totalDeadJobs = dlqManager.getDeadJobCount();
+                List<Job> deadJobs;
+                int totalDeadJobs;
+                Optional<DaemonClient> daemon = parent.parent.connectToDaemon();
+                if (daemon.isPresent()) {
+                    try (DaemonClient client = daemon.get()) {
+                        JobPage page = client.deadJobs(offset, limit);
+                        deadJobs = page.getJobs();
+                        totalDeadJobs = page.getTotal();
+                    }
+                } else {
+                    parent.parent.initializeComponents();
+                    DLQManager dlqManager = QueueCtl.getDLQManager();
+                    deadJobs = dlqManager.getDeadJobs(offset, limit);
+                    totalDeadJobs = dlqManager.getDeadJobCount();
+                }
                 
                 if (deadJobs.isEmpty()) {
                     System.out.println("No jobs in Dead Letter Queue");
@@ -166,17 +180,23 @@ public class DLQCommand implements Callable<Integer> {
         @Override
         public Integer call() {
             try {
-                parent.parent.initializeComponents();
-                
-                DLQManager dlqManager = QueueCtl.getDLQManager();
-                int retriedCount;
-                
-                if (retryAll || (jobIds == null || jobIds.isEmpty())) {
+                boolean all = retryAll || (jobIds == null || jobIds.isEmpty());
+                if (all) {
                     System.out.println("Retrying all dead jobs...");
-                    retriedCount = dlqManager.retryAllDeadJobs();
                 } else {
                     System.out.printf("Retrying %d specified jobs...%n", jobIds.size());
-                    retriedCount = dlqManager.retryDeadJobs(jobIds);
+                }
+                
+                int retriedCount;
+                Optional<DaemonClient> daemon = parent.parent.connectToDaemon();
+                if (daemon.isPresent()) {
+                    try (DaemonClient client = daemon.get()) {
+                        retriedCount = client.retryDeadJobs(all ? Collections.emptyList() : jobIds);
+                    }
+                } else {
+                    parent.parent.initializeComponents();
+                    DLQManager dlqManager = QueueCtl.getDLQManager();
+                    retriedCount = all ? dlqManager.retryAllDeadJobs() : dlqManager.retryDeadJobs(jobIds);
                 }
                 
                 System.out.printf("Successfully retried %d jobs%n", retriedCount);
@@ -208,12 +228,17 @@ public class DLQCommand implements Callable<Integer> {
         @Override
         public Integer call() {
             try {
-                parent.parent.initializeComponents();
-                
-                DLQManager dlqManager = QueueCtl.getDLQManager();
-                
                 System.out.printf("Deleting %d jobs from DLQ...%n", jobIds.size());
-                int deletedCount = dlqManager.deleteDeadJobs(jobIds);
+                int deletedCount;
+                Optional<DaemonClient> daemon = parent.parent.connectToDaemon();
+                if (daemon.isPresent()) {
+                    try (DaemonClient client = daemon.get()) {
+                        deletedCount = client.deleteDeadJobs(jobIds);
+                    }
+                } else {
+                    parent.parent.initializeComponents();
+                    deletedCount = QueueCtl.getDLQManager().deleteDeadJobs(jobIds);
+                }
                 
                 System.out.printf("Successfully deleted %d jobs%n", deletedCount);
                 
@@ -250,24 +275,30 @@ public class DLQCommand implements Callable<Integer> {
         @Override
         public Integer call() {
             try {
-                parent.parent.initializeComponents();
-                
-                DLQManager dlqManager = QueueCtl.getDLQManager();
-                
                 if (!confirm) {
                     System.out.println("This operation will permanently delete jobs from the DLQ.");
                     System.out.println("Use --confirm to proceed.");
                     return 1;
                 }
                 
-                int deletedCount;
-                
                 if (olderThanDays != null) {
                     System.out.printf("Clearing dead jobs older than %d days...%n", olderThanDays);
-                    deletedCount = dlqManager.clearOldDeadJobs(olderThanDays);
                 } else {
                     System.out.println("Clearing all dead jobs...");
-                    deletedCount = dlqManager.clearAllDeadJobs();
+                }
+                
+                int deletedCount;
+                Optional<DaemonClient> daemon = parent.parent.connectToDaemon();
+                if (daemon.isPresent()) {
+                    try (DaemonClient client = daemon.get()) {
+                        deletedCount = client.clearDeadJobs(olderThanDays);
+                    }
+                } else {
+                    parent.parent.initializeComponents();
+                    DLQManager dlqManager = QueueCtl.getDLQManager();
+                    deletedCount = olderThanDays != null
+                            ? dlqManager.clearOldDeadJobs(olderThanDays)
+                            : dlqManager.clearAllDeadJobs();
                 }
                 
                 System.out.printf("Successfully cleared %d jobs from DLQ%n", deletedCount);
@@ -293,10 +324,16 @@ public class DLQCommand implements Callable<Integer> {
         @Override
         public Integer call() {
             try {
-                parent.parent.initializeComponents();
-                
-                DLQManager dlqManager = QueueCtl.getDLQManager();
-                DLQManager.DLQStatistics stats = dlqManager.getStatistics();
+                DLQManager.DLQStatistics stats;
+                Optional<DaemonClient> daemon = parent.parent.connectToDaemon();
+                if (daemon.isPresent()) {
+                    try (DaemonClient client = daemon.get()) {
+                        stats = client.dlqStatistics();
+                    }
+                } else {
+                    parent.parent.initializeComponents();
+                    stats = QueueCtl.getDLQManager().getStatistics();
+                }
                 
                 System.out.println("Dead Letter Queue Statistics");
                 System.out.println("============================");
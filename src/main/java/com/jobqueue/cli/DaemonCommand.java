@@ -0,0 +1,81 @@
+package com.jobqueue.cli;
+
+import com.jobqueue.cluster.ClusterNode;
+import com.jobqueue.cluster.LeaderInfo;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.worker.WorkerManager;
+import com.jobqueue.worker.WorkerMode;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * CLI command for running the long-lived daemon.
+ * The daemon loads the job store once and serves other queuectl commands over a local socket.
+ * It is the cluster leader, so workers started with 'worker start' lease their jobs from it.
+ */
+@Command(
+    name = "daemon",
+    description = "Run a long-lived daemon that serves other commands over a local socket"
+)
+public class DaemonCommand implements Callable<Integer> {
+    
+    @ParentCommand
+    private QueueCtl parent;
+    
+    @Option(
+        names = {"-w", "--workers"},
+        description = "Number of workers to run inside the daemon (default: ${DEFAULT-VALUE})",
+        defaultValue = "0"
+    )
+    private int workerCount;
+    
+    @Override
+    public Integer call() {
+        try {
+            parent.initializeConfig();
+            JobQueueConfig config = QueueCtl.getConfigManager().getConfig();
+            
+            // Without workers the daemon still runs the retry timer and reclaims expired leases
+            ClusterNode node = new ClusterNode(config);
+            WorkerMode mode = workerCount > 0 ? WorkerMode.fromString(config.getWorkerMode()) : WorkerMode.PLATFORM;
+            if (!node.startAsLeader(workerCount, mode)) {
+                Optional<LeaderInfo> leader = node.getLeader();
+                System.err.println("Error: another process already owns this data file" +
+                                   leader.map(info -> " (pid " + info.getPid() + ")").orElse(""));
+                return 1;
+            }
+            
+            // Remove the socket on exit; the worker manager's own hook drains the workers
+            Runtime.getRuntime().addShutdownHook(new Thread(node::close, "DaemonShutdown"));
+            
+            WorkerManager workerManager = node.getWorkerManager();
+            System.out.println("Daemon listening on " + node.getSocketPath());
+            System.out.println("Serving cluster followers on " + node.getClusterAddress());
+            System.out.println("Workers: " + workerManager.getTotalWorkerCount());
+            if (node.getMetricsAddress() != null) {
+                System.out.println("Serving metrics on http://" + node.getMetricsAddress().getHostString() + ":"
+                                   + node.getMetricsAddress().getPort() + "/metrics");
+            }
+            System.out.println("Press Ctrl+C to stop the daemon...");
+            
+            try {
+                Thread.currentThread().join();
+            } catch (InterruptedException e) {
+                System.out.println("\nShutdown signal received, stopping daemon...");
+            }
+            
+            return 0;
+        
+        } catch (Exception e) {
+            System.err.println("Error running daemon: " + e.getMessage());
+            if (parent.isVerbose()) {
+                e.printStackTrace();
+            }
+            return 1;
+        }
+    }
+}
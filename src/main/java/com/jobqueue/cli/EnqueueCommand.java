@@ -1,13 +1,25 @@
 package com.jobqueue.cli;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobqueue.daemon.DaemonClient;
 import com.jobqueue.model.Job;
+import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.ParentCommand;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 
 /**
@@ -15,18 +27,17 @@ import java.util.concurrent.Callable;
  */
 @Command(
     name = "enqueue",
-    description = "Add a new job to the queue"
+    description = "Add a new job to the queue, or a batch of jobs from a file or stdin"
 )
 public class EnqueueCommand implements Callable<Integer> {
     
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
     @ParentCommand
     private QueueCtl parent;
     
-    @Parameters(
-        index = "0",
-        description = "Job specification as JSON string or simple command"
-    )
-    private String jobSpec;
+    @ArgGroup(exclusive = true, multiplicity = "1")
+    private Source source;
     
     @Option(
         names = {"-r", "--max-retries"},
@@ -34,51 +45,77 @@ public class EnqueueCommand implements Callable<Integer> {
     )
     private Integer maxRetries;
     
+    @Option(
+        names = {"-p", "--priority"},
+        description = "Job priority from 0 (lowest) to 9 (highest), default 5; JSON jobs may set their own"
+    )
+    private Integer priority;
+    
+    static class Source {
+        @Parameters(
+            index = "0",
+            description = "Job specification as JSON string or simple command"
+        )
+        private String jobSpec;
+        
+        @Option(
+            names = {"-f", "--file"},
+            description = "Read one job per line (JSON or simple command) from a file"
+        )
+        private String file;
+        
+        @Option(
+            names = {"--stdin"},
+            description = "Read one job per line (JSON or simple command) from standard input"
+        )
+        private boolean stdin;
+    }
+    
     @Override
     public Integer call() {
         try {
-            parent.initializeComponents();
+            parent.initializeConfig();
             
-            String command;
-            int retries = maxRetries != null ? maxRetries : 
+            int retries = maxRetries != null ? maxRetries :
                          QueueCtl.getConfigManager().getConfig().getMaxRetries();
+            int defaultPriority = priority != null ? priority : Job.DEFAULT_PRIORITY;
+            if (!Job.isValidPriority(defaultPriority)) {
+                System.err.printf("Error: priority must be between %d and %d%n", Job.MIN_PRIORITY, Job.MAX_PRIORITY);
+                return 1;
+            }
             
-            // Try to parse as JSON first
-            if (jobSpec.trim().startsWith("{")) {
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode jobNode = mapper.readTree(jobSpec);
-                
-                if (jobNode.has("command")) {
-                    command = jobNode.get("command").asText();
-                    
-                    if (jobNode.has("max_retries")) {
-                        retries = jobNode.get("max_retries").asInt();
-                    }
-                } else {
-                    System.err.println("Error: JSON job specification must contain 'command' field");
-                    return 1;
-                }
-            } else {
-                // Treat as simple command
-                command = jobSpec;
+            if (source.jobSpec == null) {
+                return enqueueBatch(retries, defaultPriority);
             }
             
-            // Validate command
-            if (command == null || command.trim().isEmpty()) {
-                System.err.println("Error: Command cannot be empty");
+            Job job;
+            try {
+                job = parseJobSpec(source.jobSpec, retries, defaultPriority);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: " + e.getMessage());
                 return 1;
             }
             
-            // Enqueue the job
-            String jobId = QueueCtl.getJobQueue().enqueue(command, retries);
+            // Enqueue the job, through the daemon when one is running
+            String jobId;
+            Optional<DaemonClient> daemon = parent.connectToDaemon();
+            if (daemon.isPresent()) {
+                try (DaemonClient client = daemon.get()) {
+                    jobId = client.enqueue(job.getCommand(), job.getMaxRetries(), job.getPriority());
+                }
+            } else {
+                parent.initializeComponents();
+                jobId = QueueCtl.getJobQueue().enqueue(job);
+            }
             
             System.out.println("Job enqueued successfully:");
             System.out.println("  Job ID: " + jobId);
-            System.out.println("  Command: " + command);
-            System.out.println("  Max Retries: " + retries);
+            System.out.println("  Command: " + job.getCommand());
+            System.out.println("  Max Retries: " + job.getMaxRetries());
+            System.out.println("  Priority: " + job.getPriority());
             
             return 0;
-            
+        
         } catch (Exception e) {
             System.err.println("Error enqueuing job: " + e.getMessage());
             if (parent.isVerbose()) {
@@ -87,4 +124,113 @@ public class EnqueueCommand implements Callable<Integer> {
             return 1;
         }
     }
+    
+    /**
+     * Read every line, validate it, then enqueue the whole batch with a single commit.
+     * Nothing is enqueued if any line is invalid.
+     */
+    private int enqueueBatch(int retries, int defaultPriority) throws IOException {
+        long startNanos = System.nanoTime();
+        
+        List<Job> jobs = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        try (BufferedReader reader = source.file != null
+                ? Files.newBufferedReader(Paths.get(source.file), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                // Blank lines and comments are allowed between jobs
+                if (line.isBlank() || line.trim().startsWith("#")) {
+                    continue;
+                }
+                try {
+                    jobs.add(parseJobSpec(line, retries, defaultPriority));
+                } catch (IllegalArgumentException e) {
+                    errors.add(String.format("line %d: %s", lineNumber, e.getMessage()));
+                }
+            }
+        }
+        
+        if (!errors.isEmpty()) {
+            System.err.printf("Error: %d invalid lines, nothing was enqueued%n", errors.size());
+            errors.stream().limit(20).forEach(error -> System.err.println("  " + error));
+            if (errors.size() > 20) {
+                System.err.printf("  ... and %d more%n", errors.size() - 20);
+            }
+            return 1;
+        }
+        if (jobs.isEmpty()) {
+            System.out.println("No jobs to enqueue");
+            return 0;
+        }
+        
+        Optional<DaemonClient> daemon = parent.connectToDaemon();
+        if (daemon.isPresent()) {
+            try (DaemonClient client = daemon.get()) {
+                client.enqueueAll(jobs);
+            }
+        } else {
+            parent.initializeComponents();
+            QueueCtl.getJobQueue().enqueueAll(jobs);
+        }
+        
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.printf("Enqueued %d jobs in %d ms (%.0f jobs/s)%n",
+                        jobs.size(), elapsedMillis, jobs.size() * 1000.0 / elapsedMillis);
+        
+        return 0;
+    }
+    
+    /**
+     * Parse a job specification, either a JSON object with a "command" field or a plain command
+     *
+     * @throws IllegalArgumentException if the specification is not a valid job
+     */
+    private static Job parseJobSpec(String jobSpec, int defaultRetries, int defaultPriority) {
+        String command;
+        int retries = defaultRetries;
+        int priority = defaultPriority;
+        
+        // Try to parse as JSON first
+        if (jobSpec.trim().startsWith("{")) {
+            JsonNode jobNode;
+            try {
+                jobNode = MAPPER.readTree(jobSpec);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+            }
+            
+            if (!jobNode.has("command")) {
+                throw new IllegalArgumentException("JSON job specification must contain 'command' field");
+            }
+            command = jobNode.get("command").asText();
+            
+            if (jobNode.has("max_retries")) {
+                if (!jobNode.get("max_retries").canConvertToInt() || jobNode.get("max_retries").asInt() < 0) {
+                    throw new IllegalArgumentException("'max_retries' must be a non-negative integer");
+                }
+                retries = jobNode.get("max_retries").asInt();
+            }
+            
+            if (jobNode.has("priority")) {
+                if (!jobNode.get("priority").canConvertToInt() || !Job.isValidPriority(jobNode.get("priority").asInt())) {
+                    throw new IllegalArgumentException(String.format("'priority' must be an integer from %d to %d",
+                                                                     Job.MIN_PRIORITY, Job.MAX_PRIORITY));
+                }
+                priority = jobNode.get("priority").asInt();
+            }
+        } else {
+            // Treat as simple command
+            command = jobSpec;
+        }
+        
+        // Validate command
+        if (command == null || command.trim().isEmpty()) {
+            throw new IllegalArgumentException("Command cannot be empty");
+        }
+        
+        return new Job(command, retries, priority);
+    }
 }
@@ -1,5 +1,7 @@
 package com.jobqueue.cli;
 
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.daemon.JobPage;
 import com.jobqueue.model.Job;
 import com.jobqueue.model.JobState;
 import picocli.CommandLine.Command;
@@ -8,6 +10,7 @@ import picocli.CommandLine.ParentCommand;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 
 /**
@@ -51,30 +54,37 @@ public class ListCommand implements Callable<Integer> {
     @Override
     public Integer call() {
         try {
-            parent.initializeComponents();
-            
-            List<Job> jobs;
+            JobPage page;
+            Optional<DaemonClient> daemon = parent.connectToDaemon();
+            if (daemon.isPresent()) {
+                // The daemon pages on its side so only the requested jobs cross the socket
+                try (DaemonClient client = daemon.get()) {
+                    page = client.listJobs(state, offset, limit);
+                }
+            } else {
+                parent.initializeComponents();
+                List<Job> jobs = state != null
+                        ? QueueCtl.getJobQueue().getJobsByState(state)
+                        : QueueCtl.getJobQueue().getAllJobs();
+                page = JobPage.of(jobs, offset, limit);
+            }
             
             if (state != null) {
-                jobs = QueueCtl.getJobQueue().getJobsByState(state);
                 System.out.println("Jobs with state: " + state);
             } else {
-                jobs = QueueCtl.getJobQueue().getAllJobs();
                 System.out.println("All jobs:");
             }
             
-            if (jobs.isEmpty()) {
+            if (page.getTotal() == 0) {
                 System.out.println("No jobs found");
                 return 0;
             }
             
-            // Apply pagination
-            int start = Math.min(offset, jobs.size());
-            int end = Math.min(start + limit, jobs.size());
-            List<Job> paginatedJobs = jobs.subList(start, end);
+            List<Job> paginatedJobs = page.getJobs();
+            int start = Math.min(offset, page.getTotal());
             
             System.out.printf("Showing %d-%d of %d jobs%n%n", 
-                            start + 1, start + paginatedJobs.size(), jobs.size());
+                            start + 1, start + paginatedJobs.size(), page.getTotal());
             
             // Print header
             if (verbose) {
@@ -107,6 +117,8 @@ public class ListCommand implements Callable<Integer> {
                                     job.getCreatedAt().format(formatter),
                                     job.getUpdatedAt().format(formatter));
                     
+                    System.out.printf("  Priority: %d%n", job.getPriority());
+                    
                     if (job.getErrorMessage() != null) {
                         System.out.printf("  Error: %s%n", job.getErrorMessage());
                     }
@@ -115,6 +127,12 @@ public class ListCommand implements Callable<Integer> {
                         System.out.printf("  Next Retry: %s%n", job.getNextRetryAt().format(formatter));
                     }
                     
+                    if (job.getLeaseExpiresAt() != null) {
+                        System.out.printf("  Leased To: %s until %s%n",
+                                        job.getWorkerId() != null ? job.getWorkerId() : "unknown worker",
+                                        job.getLeaseExpiresAt().format(formatter));
+                    }
+                    
                     System.out.println();
                 } else {
                     System.out.printf("%-36s %-12s %-3s %-50s%n",
@@ -126,9 +144,9 @@ public class ListCommand implements Callable<Integer> {
             }
             
             // Show pagination info
-            if (jobs.size() > limit) {
+            if (page.getTotal() > limit) {
                 System.out.printf("%nShowing page %d of %d (use --offset and --limit for pagination)%n",
-                                (offset / limit) + 1, (jobs.size() + limit - 1) / limit);
+                                (offset / limit) + 1, (page.getTotal() + limit - 1) / limit);
             }
             
             return 0;
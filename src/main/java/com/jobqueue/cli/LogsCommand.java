@@ -0,0 +1,228 @@
+package com.jobqueue.cli;
+
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.model.Job;
+import com.jobqueue.model.JobState;
+import com.jobqueue.output.OutputStore;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParentCommand;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * CLI command for reading a job's stored output.
+ * Reads the output store directly, so it works whether or not a daemon is running.
+ * Following also asks the daemon or leader for the job's state now and then, since an attempt
+ * whose worker was killed ends without a finish record.
+ */
+@Command(
+    name = "logs",
+    description = "Show the output of a job"
+)
+public class LogsCommand implements Callable<Integer> {
+    
+    private static final long FOLLOW_POLL_MILLIS = 200;
+    private static final long STATE_CHECK_NANOS = 2_000_000_000L;
+    
+    @ParentCommand
+    private QueueCtl parent;
+    
+    @Parameters(
+        index = "0",
+        description = "Job ID"
+    )
+    private String jobId;
+    
+    @Option(
+        names = {"-n", "--tail"},
+        description = "Show only the last N lines of the latest attempt"
+    )
+    private Integer tail;
+    
+    @Option(
+        names = {"-f", "--follow"},
+        description = "Keep printing output as the job writes it, until its last attempt ends or the job is gone"
+    )
+    private boolean follow;
+    
+    private PrintStream out;
+    private int currentAttempt = -1;
+    
+    @Override
+    public Integer call() {
+        try {
+            parent.initializeConfig();
+            if (tail != null && tail < 0) {
+                System.err.println("Error: --tail must not be negative");
+                return 1;
+            }
+            
+            out = System.out;
+            OutputStore store = new OutputStore(OutputStore.directoryFor(QueueCtl.getConfigManager().getConfig()));
+            try (OutputStore.Cursor cursor = store.cursor(jobId)) {
+                // Everything stored so far, trimmed to the tail if asked
+                boolean done = false;
+                boolean found = false;
+                LineTail lines = tail != null ? new LineTail(tail) : null;
+                OutputStore.Record record;
+                while ((record = cursor.next()) != null) {
+                    found = true;
+                    done = record.isFinish() && record.isFinalAttempt();
+                    if (lines == null) {
+                        print(record);
+                    } else if (!record.isFinish()) {
+                        if (record.getAttempt() != lines.attempt) {
+                            lines.reset(record.getAttempt());
+                        }
+                        lines.add(record.getData());
+                    }
+                }
+                if (lines != null && lines.attempt >= 0) {
+                    printHeader(lines.attempt);
+                    lines.writeTo(out);
+                }
+                out.flush();
+                
+                if (!follow) {
+                    if (!found) {
+                        System.err.println("No output stored for job " + jobId);
+                    }
+                    return 0;
+                }
+                
+                // Poll for new records until the job's last attempt ends, or the job is gone or over
+                long nextStateCheck = System.nanoTime();
+                while (!done) {
+                    record = cursor.next();
+                    if (record == null) {
+                        if (System.nanoTime() - nextStateCheck >= 0) {
+                            Optional<Job> job = currentJob();
+                            if (job.isEmpty()) {
+                                System.err.println("Job not found: " + jobId);
+                                return 1;
+                            }
+                            if (job.get().getState() == JobState.COMPLETED || job.get().getState() == JobState.DEAD) {
+                                // Its output was written before its state changed
+                                while ((record = cursor.next()) != null) {
+                                    print(record);
+                                }
+                                out.flush();
+                                return 0;
+                            }
+                            nextStateCheck = System.nanoTime() + STATE_CHECK_NANOS;
+                        }
+                        Thread.sleep(FOLLOW_POLL_MILLIS);
+                        continue;
+                    }
+                    print(record);
+                    out.flush();
+                    done = record.isFinish() && record.isFinalAttempt();
+                }
+                
+                return 0;
+            }
+        
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Error reading job output: " + e.getMessage());
+            if (parent.isVerbose()) {
+                e.printStackTrace();
+            }
+            return 1;
+        }
+    }
+    
+    /**
+     * Get the job from the daemon or leader, or from the store when neither is running.
+     * Without either no worker runs jobs, so the store is only loaded once.
+     */
+    private Optional<Job> currentJob() throws IOException {
+        Optional<DaemonClient> daemon = parent.connectToDaemon();
+        if (daemon.isPresent()) {
+            try (DaemonClient client = daemon.get()) {
+                return client.getJob(jobId);
+            }
+        }
+        parent.initializeComponents();
+        return QueueCtl.getJobQueue().getJob(jobId);
+    }
+    
+    private void print(OutputStore.Record record) {
+        if (!record.isFinish()) {
+            printHeader(record.getAttempt());
+            out.write(record.getData(), 0, record.getData().length);
+        }
+    }
+    
+    /**
+     * Label output once a job has run more than once; a lone first attempt stays unlabelled
+     */
+    private void printHeader(int attempt) {
+        if (attempt != currentAttempt) {
+            if (attempt > 0 || currentAttempt >= 0) {
+                out.printf("--- attempt %d ---%n", attempt + 1);
+            }
+            currentAttempt = attempt;
+        }
+    }
+    
+    /**
+     * The last lines of one attempt's output
+     */
+    private static class LineTail {
+        private final int maxLines;
+        private final Deque<byte[]> lines = new ArrayDeque<>();
+        private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        private int attempt = -1;
+        
+        LineTail(int maxLines) {
+            this.maxLines = maxLines;
+        }
+        
+        void reset(int attempt) {
+            this.attempt = attempt;
+            lines.clear();
+            partial.reset();
+        }
+        
+        void add(byte[] data) {
+            int start = 0;
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] == '\n') {
+                    partial.write(data, start, i + 1 - start);
+                    addLine(partial.toByteArray());
+                    partial.reset();
+                    start = i + 1;
+                }
+            }
+            partial.write(data, start, data.length - start);
+        }
+        
+        void writeTo(PrintStream out) throws IOException {
+            if (partial.size() > 0) {
+                addLine(partial.toByteArray());
+                partial.reset();
+            }
+            for (byte[] line : lines) {
+                out.write(line);
+            }
+        }
+        
+        private void addLine(byte[] line) {
+            lines.addLast(line);
+            if (lines.size() > maxLines) {
+                lines.removeFirst();
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.jobqueue.cli;
 
+import com.jobqueue.cluster.LeaderInfo;
 import com.jobqueue.config.ConfigManager;
 import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.daemon.DaemonProtocol;
 import com.jobqueue.dlq.DLQManager;
 import com.jobqueue.persistence.PersistenceManager;
 import com.jobqueue.queue.JobQueue;
@@ -10,6 +13,8 @@ import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
+import java.io.IOException;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 
 /**
@@ -27,7 +32,11 @@ import java.util.concurrent.Callable;
         StatusCommand.class,
         ListCommand.class,
         DLQCommand.class,
-        ConfigCommand.class
+        ConfigCommand.class,
+        StoreCommand.class,
+        LogsCommand.class,
+        DaemonCommand.class,
+        BenchCommand.class
     }
 )
 public class QueueCtl implements Callable<Integer> {
@@ -61,27 +70,58 @@ public class QueueCtl implements Callable<Integer> {
     }
     
     /**
-     * Initialize shared components (lazy initialization)
+     * Load configuration only, without opening the job store
      */
-    public void initializeComponents() {
+    public void initializeConfig() {
         if (configManager == null) {
             configManager = new ConfigManager(configFile);
             
-            JobQueueConfig config = configManager.getConfig();
-            
             // Override data file if specified
             if (dataFile != null) {
-                config = config.withDataFile(dataFile);
-                configManager.updateConfig(config);
+                configManager.updateConfig(configManager.getConfig().withDataFile(dataFile));
             }
+        }
+    }
+    
+    /**
+     * Initialize shared components (lazy initialization)
+     */
+    public void initializeComponents() {
+        initializeConfig();
+        if (persistenceManager == null) {
+            JobQueueConfig config = configManager.getConfig();
             
-            persistenceManager = new PersistenceManager(config.getDataFile());
+            persistenceManager = new PersistenceManager(config);
             jobQueue = new JobQueue(persistenceManager, config);
             workerManager = new WorkerManager(jobQueue, config);
             dlqManager = new DLQManager(persistenceManager, jobQueue);
         }
     }
     
+    /**
+     * Connect to the daemon or cluster leader serving this data file, if one is running.
+     * Commands that find one go through it instead of loading the store themselves.
+     * A leader on another host is reached over TCP through the leader file.
+     */
+    public Optional<DaemonClient> connectToDaemon() {
+        initializeConfig();
+        JobQueueConfig config = configManager.getConfig();
+        Optional<DaemonClient> local = DaemonClient.connect(DaemonProtocol.socketPath(config));
+        if (local.isPresent()) {
+            return local;
+        }
+        Optional<LeaderInfo> leader = LeaderInfo.read(LeaderInfo.pathFor(config));
+        if (leader.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(DaemonClient.connect(leader.get().getAddress(), leader.get().getToken()));
+        } catch (IOException e) {
+            // A leader file left behind by a leader that died
+            return Optional.empty();
+        }
+    }
+    
     // Getters for shared components
     public static ConfigManager getConfigManager() {
         return configManager;
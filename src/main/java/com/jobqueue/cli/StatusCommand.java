@@ -1,10 +1,18 @@
 package com.jobqueue.cli;
 
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.daemon.StatusReport;
 import com.jobqueue.model.JobState;
+import com.jobqueue.persistence.PersistenceManager.LockStatistics;
+import com.jobqueue.queue.PriorityPendingQueue.LaneStatistics;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.ParentCommand;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 
 /**
@@ -19,13 +27,29 @@ public class StatusCommand implements Callable<Integer> {
     @ParentCommand
     private QueueCtl parent;
     
+    @Option(
+        names = {"--internals"},
+        description = "Also show how long each kind of store operation waited for and held the store locks"
+    )
+    private boolean internals;
+    
     @Override
     public Integer call() {
         try {
-            parent.initializeComponents();
+            StatusReport report;
+            Optional<DaemonClient> daemon = parent.connectToDaemon();
+            if (daemon.isPresent()) {
+                try (DaemonClient client = daemon.get()) {
+                    report = client.status();
+                }
+            } else {
+                parent.initializeComponents();
+                report = StatusReport.collect(QueueCtl.getPersistenceManager(), QueueCtl.getJobQueue(),
+                                              QueueCtl.getWorkerManager(), QueueCtl.getConfigManager().getConfig());
+            }
             
             // Get job statistics
-            Map<JobState, Long> stats = QueueCtl.getJobQueue().getStatistics();
+            Map<JobState, Long> stats = report.getJobStatistics();
             
             System.out.println("Job Queue System Status");
             System.out.println("=======================");
@@ -43,21 +67,53 @@ public class StatusCommand implements Callable<Integer> {
             
             // Worker status
             System.out.println("\nWorker Status:");
-            System.out.printf("  Running:        %s%n", QueueCtl.getWorkerManager().isRunning());
-            System.out.printf("  Total Workers:  %d%n", QueueCtl.getWorkerManager().getTotalWorkerCount());
-            System.out.printf("  Active Workers: %d%n", QueueCtl.getWorkerManager().getActiveWorkerCount());
+            System.out.printf("  Daemon:         %s%n", daemon.isPresent() ? "running" : "not running");
+            System.out.printf("  Running:        %s%n", report.isWorkersRunning());
+            System.out.printf("  Total Workers:  %d%n", report.getTotalWorkers());
+            System.out.printf("  Active Workers: %d%n", report.getActiveWorkers());
             
             // Queue status
             System.out.println("\nQueue Status:");
-            System.out.printf("  Pending in Queue: %d%n", QueueCtl.getJobQueue().getPendingCount());
+            System.out.printf("  Pending in Queue: %d%n", report.getPendingInQueue());
+            
+            // Time from enqueue to dequeue, only known to the process running the workers
+            System.out.println("\nDequeue Latency by Priority:");
+            if (report.getDequeueLatency().stream().allMatch(lane -> lane.getDequeued() == 0)) {
+                System.out.println("  n/a (no jobs dequeued by this process)");
+            } else {
+                System.out.println("  Priority  Waiting  Dequeued  Mean (ms)  Max (ms)");
+                for (LaneStatistics lane : report.getDequeueLatency()) {
+                    if (lane.getDequeued() == 0 && lane.getWaiting() == 0) {
+                        continue;
+                    }
+                    System.out.printf("  %8d  %7d  %8d  %9.1f  %8.1f%n", lane.getPriority(), lane.getWaiting(),
+                                    lane.getDequeued(), lane.getMeanWaitMillis(), lane.getMaxWaitMillis());
+                }
+            }
+            
+            // Storage status
+            System.out.println("\nStorage Status:");
+            System.out.printf("  Storage Mode:   %s%n", report.getStorageMode());
+            if (report.getLastSnapshotTime() != null) {
+                Duration age = Duration.between(report.getLastSnapshotTime(), LocalDateTime.now());
+                System.out.printf("  Snapshot Age:   %s%n", formatDuration(age));
+            } else {
+                System.out.println("  Snapshot Age:   none");
+            }
+            System.out.printf("  Log Size:       %s (%d records)%n", 
+                            formatBytes(report.getLogBytes()), report.getLogRecords());
+            
+            if (internals) {
+                printLockStatistics(report, daemon.isPresent());
+            }
             
             // Configuration
             System.out.println("\nConfiguration:");
             System.out.printf("  Config File:    %s%n", parent.getConfigFile());
-            System.out.printf("  Data File:      %s%n", QueueCtl.getConfigManager().getConfig().getDataFile());
-            System.out.printf("  Max Retries:    %d%n", QueueCtl.getConfigManager().getConfig().getMaxRetries());
-            System.out.printf("  Backoff Base:   %d%n", QueueCtl.getConfigManager().getConfig().getBackoffBase());
-            System.out.printf("  Job Timeout:    %d seconds%n", QueueCtl.getConfigManager().getConfig().getJobTimeoutSeconds());
+            System.out.printf("  Data File:      %s%n", report.getDataFile());
+            System.out.printf("  Max Retries:    %d%n", report.getMaxRetries());
+            System.out.printf("  Backoff Base:   %d%n", report.getBackoffBase());
+            System.out.printf("  Job Timeout:    %d seconds%n", report.getJobTimeoutSeconds());
             
             return 0;
             
@@ -69,4 +125,56 @@ public class StatusCommand implements Callable<Integer> {
             return 1;
         }
     }
+    
+    /**
+     * Print the store lock timings, busiest operation first. Times are in microseconds except
+     * the total hold time; percentiles are the upper bounds of histogram buckets.
+     */
+    private static void printLockStatistics(StatusReport report, boolean fromDaemon) {
+        System.out.println("\nStore Lock Internals (microseconds):");
+        // Without a daemon the timings would be this command's own few reads
+        if (!fromDaemon || report.getLockStatistics().isEmpty()) {
+            System.out.println("  n/a (only a running daemon or cluster leader has lock timings)");
+            return;
+        }
+        System.out.println("  Operation             Mode   Acquired  Contended  Wait mean  Wait p99  Wait max"
+                           + "  Hold mean  Hold p99  Hold max  Held (ms)");
+        for (LockStatistics lock : report.getLockStatistics()) {
+            System.out.printf("  %-20s  %-5s  %8d  %9d  %9.1f  %8.1f  %8.1f  %9.1f  %8.1f  %8.1f  %9.1f%n",
+                            lock.getOperation(), lock.getMode(), lock.getAcquisitions(), lock.getContended(),
+                            lock.getMeanWaitMicros(), lock.getP99WaitMicros(), lock.getMaxWaitMicros(),
+                            lock.getMeanHoldMicros(), lock.getP99HoldMicros(), lock.getMaxHoldMicros(),
+                            lock.getTotalHoldMillis());
+        }
+    }
+    
+    /**
+     * Format a duration as hours, minutes and seconds
+     */
+    static String formatDuration(Duration duration) {
+        long seconds = Math.max(0, duration.getSeconds());
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return String.format("%dm %ds", seconds / 60, seconds % 60);
+        }
+        return String.format("%dh %dm", seconds / 3600, (seconds % 3600) / 60);
+    }
+    
+    /**
+     * Format a byte count with a binary unit
+     */
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+    }
 }
@@ -0,0 +1,221 @@
+package com.jobqueue.cli;
+
+import com.jobqueue.persistence.JobCodec;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.persistence.StorageFormat;
+import com.jobqueue.persistence.StorageMode;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParentCommand;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+
+/**
+ * CLI command for moving jobs in and out of the job store.
+ */
+@Command(
+    name = "store",
+    description = "Import and export the job store",
+    subcommands = {
+        StoreCommand.ExportCommand.class,
+        StoreCommand.ImportCommand.class,
+        StoreCommand.CompactCommand.class,
+        StoreCommand.ConvertCommand.class
+    }
+)
+public class StoreCommand implements Callable<Integer> {
+    
+    @ParentCommand
+    private QueueCtl parent;
+    
+    @Override
+    public Integer call() {
+        // If no subcommand is specified, show help
+        System.out.println("Job store commands:");
+        System.out.println("  export  - Export all jobs to a JSON file");
+        System.out.println("  import  - Import jobs from a JSON file");
+        System.out.println("  compact - Snapshot the store and truncate the write-ahead log");
+        System.out.println("  convert - Convert a job file between JSON and binary");
+        return 0;
+    }
+    
+    @Command(name = "export", description = "Export all jobs to a JSON file")
+    static class ExportCommand implements Callable<Integer> {
+        
+        @ParentCommand
+        private StoreCommand parent;
+        
+        @Parameters(
+            index = "0",
+            description = "Target JSON file"
+        )
+        private String file;
+        
+        @Override
+        public Integer call() {
+            try {
+                parent.parent.initializeComponents();
+                
+                PersistenceManager persistenceManager = QueueCtl.getPersistenceManager();
+                int exported = persistenceManager.exportJobs(Paths.get(file));
+                
+                System.out.printf("Exported %d jobs to %s%n", exported, file);
+                
+                return 0;
+            
+            } catch (Exception e) {
+                System.err.println("Error exporting jobs: " + e.getMessage());
+                if (parent.parent.isVerbose()) {
+                    e.printStackTrace();
+                }
+                return 1;
+            }
+        }
+    }
+    
+    @Command(name = "import", description = "Import jobs from a JSON file")
+    static class ImportCommand implements Callable<Integer> {
+        
+        @ParentCommand
+        private StoreCommand parent;
+        
+        @Parameters(
+            index = "0",
+            description = "Source JSON file"
+        )
+        private String file;
+        
+        @Override
+        public Integer call() {
+            try {
+                Path source = Paths.get(file);
+                if (!Files.exists(source)) {
+                    System.err.println("Error: File not found: " + file);
+                    return 1;
+                }
+                
+                parent.parent.initializeComponents();
+                
+                PersistenceManager persistenceManager = QueueCtl.getPersistenceManager();
+                int imported = persistenceManager.importJobs(source);
+                
+                System.out.printf("Imported %d jobs from %s%n", imported, file);
+                System.out.println("Note: Restart workers to pick up imported pending jobs");
+                
+                return 0;
+            
+            } catch (Exception e) {
+                System.err.println("Error importing jobs: " + e.getMessage());
+                if (parent.parent.isVerbose()) {
+                    e.printStackTrace();
+                }
+                return 1;
+            }
+        }
+    }
+    
+    @Command(name = "compact", description = "Snapshot the store and truncate the write-ahead log")
+    static class CompactCommand implements Callable<Integer> {
+        
+        @ParentCommand
+        private StoreCommand parent;
+        
+        @Override
+        public Integer call() {
+            try {
+                parent.parent.initializeComponents();
+                
+                PersistenceManager persistenceManager = QueueCtl.getPersistenceManager();
+                if (persistenceManager.getStorageMode() != StorageMode.WAL) {
+                    System.out.println("Compaction only applies to the wal storage mode");
+                    return 0;
+                }
+                
+                persistenceManager.compact();
+                
+                PersistenceManager.StorageStatistics stats = persistenceManager.getStorageStatistics();
+                System.out.printf("Compaction complete, log size now %s%n", 
+                                StatusCommand.formatBytes(stats.getLogBytes()));
+                
+                return 0;
+                
+            } catch (Exception e) {
+                System.err.println("Error compacting store: " + e.getMessage());
+                if (parent.parent.isVerbose()) {
+                    e.printStackTrace();
+                }
+                return 1;
+            }
+        }
+    }
+    
+    @Command(name = "convert", description = "Convert a job file between JSON and binary")
+    static class ConvertCommand implements Callable<Integer> {
+        
+        @ParentCommand
+        private StoreCommand parent;
+        
+        @Parameters(
+            index = "0",
+            description = "Source job file (JSON or binary)"
+        )
+        private String source;
+        
+        @Parameters(
+            index = "1",
+            description = "Target job file"
+        )
+        private String target;
+        
+        @Option(
+            names = {"--to"},
+            description = "Target format: json, binary (default: the other format of the source)"
+        )
+        private String format;
+        
+        @Override
+        public Integer call() {
+            try {
+                Path sourcePath = Paths.get(source);
+                if (!Files.exists(sourcePath)) {
+                    System.err.println("Error: File not found: " + source);
+                    return 1;
+                }
+                
+                StorageFormat targetFormat;
+                if (format != null) {
+                    try {
+                        targetFormat = StorageFormat.fromString(format);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Error: --to must be one of: json, binary");
+                        return 1;
+                    }
+                } else {
+                    targetFormat = JobCodec.isBinaryFile(sourcePath) ? StorageFormat.JSON : StorageFormat.BINARY;
+                }
+                
+                parent.parent.initializeComponents();
+                
+                PersistenceManager persistenceManager = QueueCtl.getPersistenceManager();
+                int converted = persistenceManager.convertJobsFile(sourcePath, Paths.get(target), targetFormat);
+                
+                System.out.printf("Converted %d jobs to %s (%s, %s -> %s)%n", converted, target, targetFormat,
+                                StatusCommand.formatBytes(Files.size(sourcePath)),
+                                StatusCommand.formatBytes(Files.size(Paths.get(target))));
+                
+                return 0;
+                
+            } catch (Exception e) {
+                System.err.println("Error converting job file: " + e.getMessage());
+                if (parent.parent.isVerbose()) {
+                    e.printStackTrace();
+                }
+                return 1;
+            }
+        }
+    }
+}
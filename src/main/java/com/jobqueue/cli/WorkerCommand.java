@@ -1,11 +1,22 @@
 package com.jobqueue.cli;
 
+import com.jobqueue.cluster.ClusterNode;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.daemon.StatusReport;
+import com.jobqueue.jfr.FlightRecording;
+import com.jobqueue.worker.Worker;
 import com.jobqueue.worker.WorkerManager;
+import com.jobqueue.worker.WorkerMode;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.ParentCommand;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 
 /**
@@ -47,28 +58,82 @@ public class WorkerCommand implements Callable<Integer> {
         )
         private Integer workerCount;
         
+        @Option(
+            names = {"-m", "--mode"},
+            description = "Worker mode: platform or virtual (default: from config)"
+        )
+        private String mode;
+        
+        @Option(
+            names = {"-p", "--prefetch"},
+            description = "Jobs each worker dequeues ahead of the one it runs (default: from config)"
+        )
+        private Integer prefetch;
+        
+        @Option(
+            names = {"--jfr"},
+            arity = "0..1",
+            fallbackValue = "",
+            paramLabel = "FILE",
+            description = "Record a JDK Flight Recording, with the queue's own events, to FILE " +
+                          "(default: queuectl-<pid>.jfr); it is written when the workers stop"
+        )
+        private String jfrFile;
+        
         @Override
         public Integer call() {
             try {
-                parent.parent.initializeComponents();
+                parent.parent.initializeConfig();
+                JobQueueConfig config = QueueCtl.getConfigManager().getConfig();
                 
-                WorkerManager workerManager = QueueCtl.getWorkerManager();
+                WorkerMode workerMode;
+                try {
+                    workerMode = WorkerMode.fromString(mode != null ? mode :
+                                                       QueueCtl.getConfigManager().getConfig().getWorkerMode());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error: mode must be one of: platform, virtual");
+                    return 1;
+                }
                 
-                if (workerManager.isRunning()) {
-                    System.out.println("Workers are already running");
-                    System.out.println("Active workers: " + workerManager.getActiveWorkerCount());
-                    return 0;
+                int count = workerCount != null ? workerCount : config.getWorkerCount();
+                if (prefetch != null) {
+                    if (prefetch < 0 || prefetch > Worker.MAX_PREFETCH) {
+                        System.err.printf("Error: prefetch must be between 0 and %d%n", Worker.MAX_PREFETCH);
+                        return 1;
+                    }
+                    config = config.withWorkerPrefetch(prefetch);
                 }
                 
-                if (workerCount != null) {
-                    workerManager.start(workerCount);
-                } else {
-                    workerManager.start();
+                if (jfrFile != null) {
+                    Path destination = Paths.get(jfrFile.isEmpty()
+                                                 ? "queuectl-" + ProcessHandle.current().pid() + ".jfr"
+                                                 : jfrFile);
+                    // Never closed: the recorder writes the file itself when the process exits
+                    FlightRecording recording = new FlightRecording(destination);
+                    System.out.println("Recording JFR events to " + recording.getDestination());
                 }
                 
+                // The first process for a data file becomes the leader and alone writes the store;
+                // later ones, including any started next to a daemon, lease jobs from it
+                ClusterNode node = new ClusterNode(config);
+                node.start(count, workerMode);
+                Runtime.getRuntime().addShutdownHook(new Thread(node::close, "ClusterShutdown"));
+                WorkerManager workerManager = node.getWorkerManager();
+                
                 System.out.println("Workers started successfully");
+                if (node.isLeader()) {
+                    System.out.println("Cluster role: leader, serving followers on " + node.getClusterAddress());
+                } else {
+                    System.out.println("Cluster role: follower of " +
+                                       node.getLeader().map(Object::toString).orElse("a leader still starting"));
+                }
+                System.out.println("Worker mode: " + workerManager.getWorkerMode());
                 System.out.println("Total workers: " + workerManager.getTotalWorkerCount());
                 System.out.println("Active workers: " + workerManager.getActiveWorkerCount());
+                if (node.getMetricsAddress() != null) {
+                    System.out.println("Serving metrics on http://" + node.getMetricsAddress().getHostString() + ":"
+                                       + node.getMetricsAddress().getPort() + "/metrics");
+                }
                 
                 // Keep the process running
                 System.out.println("Press Ctrl+C to stop workers...");
@@ -101,6 +166,19 @@ public class WorkerCommand implements Callable<Integer> {
         @Override
         public Integer call() {
             try {
+                Optional<DaemonClient> daemon = parent.parent.connectToDaemon();
+                if (daemon.isPresent()) {
+                    try (DaemonClient client = daemon.get()) {
+                        System.out.println("Stopping daemon workers...");
+                        if (!client.stopWorkers()) {
+                            System.out.println("No workers are currently running");
+                        } else {
+                            System.out.println("Workers stopped successfully");
+                        }
+                    }
+                    return 0;
+                }
+                
                 parent.parent.initializeComponents();
                 
                 WorkerManager workerManager = QueueCtl.getWorkerManager();
@@ -135,18 +213,36 @@ public class WorkerCommand implements Callable<Integer> {
         @Override
         public Integer call() {
             try {
-                parent.parent.initializeComponents();
-                
-                WorkerManager workerManager = QueueCtl.getWorkerManager();
+                boolean running;
+                int totalWorkers;
+                int activeWorkers;
+                List<WorkerManager.WorkerStatus> workers;
+                Optional<DaemonClient> daemon = parent.parent.connectToDaemon();
+                if (daemon.isPresent()) {
+                    try (DaemonClient client = daemon.get()) {
+                        StatusReport report = client.status();
+                        running = report.isWorkersRunning();
+                        totalWorkers = report.getTotalWorkers();
+                        activeWorkers = report.getActiveWorkers();
+                        workers = client.workerStatus();
+                    }
+                } else {
+                    parent.parent.initializeComponents();
+                    WorkerManager workerManager = QueueCtl.getWorkerManager();
+                    running = workerManager.isRunning();
+                    totalWorkers = workerManager.getTotalWorkerCount();
+                    activeWorkers = workerManager.getActiveWorkerCount();
+                    workers = workerManager.getWorkerStatus();
+                }
                 
                 System.out.println("Worker Status:");
-                System.out.println("  Running: " + workerManager.isRunning());
-                System.out.println("  Total Workers: " + workerManager.getTotalWorkerCount());
-                System.out.println("  Active Workers: " + workerManager.getActiveWorkerCount());
+                System.out.println("  Running: " + running);
+                System.out.println("  Total Workers: " + totalWorkers);
+                System.out.println("  Active Workers: " + activeWorkers);
                 
-                if (workerManager.getTotalWorkerCount() > 0) {
+                if (totalWorkers > 0) {
                     System.out.println("\nWorker Details:");
-                    workerManager.getWorkerStatus().forEach(status -> {
+                    workers.forEach(status -> {
                         System.out.printf("  %s: %s%s%n", 
                                         status.getWorkerId(),
                                         status.isRunning() ? "RUNNING" : "STOPPED",
@@ -0,0 +1,262 @@
+package com.jobqueue.cluster;
+
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.model.Job;
+import com.jobqueue.model.JobId;
+import com.jobqueue.queue.JobQueue;
+import com.jobqueue.queue.JobSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Job source of a follower node. Jobs are leased from the cluster leader over TCP until this
+ * node is promoted, and from its own queue after that. The jobs its workers are running are
+ * remembered, so their leases are renewed in one request per heartbeat whichever leader holds
+ * them, and are reported to a new leader if the old one dies while they run.
+ * <p>
+ * Each worker thread borrows a connection to the leader from a pool; a connection that fails
+ * is dropped, and the next one is made to whatever process the leader file names by then.
+ */
+public class ClusterJobSource implements JobSource, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterJobSource.class);
+    private static final long RECONNECT_DELAY_MILLIS = 500;
+    
+    private final Path leaderFile;
+    private final String nodeId;
+    private final long reportTimeoutNanos;
+    private final Map<JobId, Job> runningJobs = new ConcurrentHashMap<>();
+    private final Queue<DaemonClient> idleClients = new ConcurrentLinkedQueue<>();
+    private volatile JobQueue localQueue;
+    private volatile boolean closed;
+    
+    public ClusterJobSource(JobQueueConfig config, String nodeId) {
+        this.leaderFile = LeaderInfo.pathFor(config);
+        this.nodeId = nodeId;
+        // Past the lease timeout the leader has reclaimed the job anyway
+        this.reportTimeoutNanos = TimeUnit.SECONDS.toNanos(config.getLeaseTimeoutSeconds());
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The lease is taken in the name of the worker on this node, so the leader can tell the
+     * workers of different nodes apart. While the leader cannot be reached this waits a
+     * little and returns nothing.
+     */
+    @Override
+    public Optional<Job> dequeue(String workerId, long timeout, TimeUnit unit) {
+        String leaseOwner = workerId + "@" + nodeId;
+        Optional<Job> job;
+        JobQueue queue = localQueue;
+        if (queue != null) {
+            job = queue.dequeue(leaseOwner, timeout, unit);
+        } else {
+            long waitMillis = unit.toMillis(timeout);
+            try {
+                job = callLeader(client -> client.leaseJob(leaseOwner, waitMillis));
+            } catch (IOException e) {
+                logger.debug("Cannot reach the cluster leader: {}", e.getMessage());
+                pause(Math.min(waitMillis, RECONNECT_DELAY_MILLIS));
+                return Optional.empty();
+            }
+        }
+        job.ifPresent(leased -> runningJobs.put(leased.getJobId(), leased));
+        return job;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Leased like {@link #dequeue(String, long, TimeUnit)}, in one request to the leader.
+     */
+    @Override
+    public List<Job> dequeueBatch(String workerId, int maxJobs, long timeout, TimeUnit unit) {
+        String leaseOwner = workerId + "@" + nodeId;
+        List<Job> jobs;
+        JobQueue queue = localQueue;
+        if (queue != null) {
+            jobs = queue.dequeueBatch(leaseOwner, maxJobs, timeout, unit);
+        } else {
+            long waitMillis = unit.toMillis(timeout);
+            try {
+                jobs = callLeader(client -> client.leaseJobs(leaseOwner, maxJobs, waitMillis));
+            } catch (IOException e) {
+                logger.debug("Cannot reach the cluster leader: {}", e.getMessage());
+                pause(Math.min(waitMillis, RECONNECT_DELAY_MILLIS));
+                return List.of();
+            }
+        }
+        for (Job leased : jobs) {
+            runningJobs.put(leased.getJobId(), leased);
+        }
+        return jobs;
+    }
+    
+    @Override
+    public boolean markCompleted(Job job, int attempt) {
+        return report(job, queue -> queue.markCompleted(job, attempt),
+                      client -> client.completeLease(job, attempt));
+    }
+    
+    @Override
+    public boolean markFailed(Job job, int attempt, String errorMessage) {
+        return report(job, queue -> queue.markFailed(job, attempt, errorMessage),
+                      client -> client.failLease(job, attempt, errorMessage));
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Leases the leader cannot be told about now are left to expire; the next heartbeat tries again.
+     */
+    @Override
+    public int renewLeases() {
+        if (runningJobs.isEmpty()) {
+            return 0;
+        }
+        List<Job> jobs = new ArrayList<>(runningJobs.values());
+        JobQueue queue = localQueue;
+        if (queue != null) {
+            return queue.renewLeases(jobs);
+        }
+        try {
+            return callLeader(client -> client.renewLeases(jobs));
+        } catch (IOException e) {
+            logger.warn("Failed to renew {} leases with the cluster leader: {}", jobs.size(), e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Jobs the leader cannot be told about now are left for their leases to expire.
+     */
+    @Override
+    public int release(Collection<Job> jobs) {
+        for (Job job : jobs) {
+            runningJobs.remove(job.getJobId(), job);
+        }
+        JobQueue queue = localQueue;
+        if (queue != null) {
+            return queue.release(jobs);
+        }
+        try {
+            return callLeader(client -> client.releaseLeases(jobs));
+        } catch (IOException e) {
+            logger.warn("Failed to return {} unstarted jobs to the cluster leader, their leases will expire: {}",
+                        jobs.size(), e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Lease from this node's own queue from now on, because this node became the leader.
+     * Outcomes of jobs leased from the old leader are reported to the new queue.
+     */
+    public void promote(JobQueue queue) {
+        localQueue = queue;
+        closeIdleClients();
+    }
+    
+    /**
+     * Drop the connections to the leader and stop retrying reports
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeIdleClients();
+    }
+    
+    /**
+     * Report the outcome of a job, retrying through a change of leader until its lease
+     * would have expired
+     */
+    private boolean report(Job job, Predicate<JobQueue> local, LeaderCall<Boolean> remote) {
+        long deadline = System.nanoTime() + reportTimeoutNanos;
+        try {
+            while (true) {
+                JobQueue queue = localQueue;
+                if (queue != null) {
+                    return local.test(queue);
+                }
+                try {
+                    boolean recorded = callLeader(remote);
+                    if (!recorded) {
+                        logger.warn("Leader ignored outcome of job {}: its lease was lost", job.getId());
+                    }
+                    return recorded;
+                } catch (IOException e) {
+                    if (closed || System.nanoTime() - deadline > 0 || !pause(RECONNECT_DELAY_MILLIS)) {
+                        logger.warn("Could not report job {} to the cluster leader, its lease will expire: {}",
+                                    job.getId(), e.getMessage());
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            runningJobs.remove(job.getJobId(), job);
+        }
+    }
+    
+    private <T> T callLeader(LeaderCall<T> call) throws IOException {
+        DaemonClient client = idleClients.poll();
+        if (client == null) {
+            LeaderInfo leader = LeaderInfo.read(leaderFile)
+                    .orElseThrow(() -> new IOException("No cluster leader in " + leaderFile));
+            client = DaemonClient.connect(leader.getAddress(), leader.getToken());
+        }
+        try {
+            T result = call.call(client);
+            idleClients.offer(client);
+            return result;
+        } catch (IOException e) {
+            closeQuietly(client);
+            throw e;
+        }
+    }
+    
+    /**
+     * @return false if interrupted
+     */
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private void closeIdleClients() {
+        DaemonClient client;
+        while ((client = idleClients.poll()) != null) {
+            closeQuietly(client);
+        }
+    }
+    
+    private static void closeQuietly(DaemonClient client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close leader connection", e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface LeaderCall<T> {
+        T call(DaemonClient client) throws IOException;
+    }
+}
@@ -0,0 +1,298 @@
+package com.jobqueue.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.daemon.DaemonProtocol;
+import com.jobqueue.daemon.DaemonRequestHandler;
+import com.jobqueue.daemon.DaemonServer;
+import com.jobqueue.dlq.DLQManager;
+import com.jobqueue.metrics.MetricsRegistry;
+import com.jobqueue.metrics.MetricsServer;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.queue.JobQueue;
+import com.jobqueue.worker.WorkerManager;
+import com.jobqueue.worker.WorkerMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * One of the processes running workers against the same data file.
+ * <p>
+ * The process holding the {@link LeaderElection} lock is the leader. It alone opens the job
+ * store, serves the daemon protocol on the Unix socket for local commands and on a TCP port
+ * for followers, and records that port in the {@link LeaderInfo} file. Every other process is
+ * a follower: its workers lease jobs from the leader through a {@link ClusterJobSource}, and
+ * it waits on the lock in the background. When the leader dies the lock is released, one
+ * follower gets it, loads the store and takes over; jobs the old leader was running are
+ * reclaimed when their leases expire, and the other followers find the new leader through the
+ * leader file.
+ * <p>
+ * With a metrics port configured, every node serves its metrics for Prometheus: its workers'
+ * on any node, and the queue's and the store's on the leader.
+ */
+public class ClusterNode implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterNode.class);
+    private static final String NODE_ID = ProcessHandle.current().pid() + "@" + hostName();
+    
+    private final JobQueueConfig config;
+    private final LeaderElection election;
+    private final ObjectMapper objectMapper = DaemonProtocol.createObjectMapper();
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private WorkerManager workerManager;
+    private ClusterJobSource clusterSource;
+    private PersistenceManager persistenceManager;
+    private JobQueue jobQueue;
+    private DLQManager dlqManager;
+    private DaemonServer localServer;
+    private DaemonServer clusterServer;
+    private MetricsServer metricsServer;
+    private String token;
+    private Thread electionThread;
+    private volatile boolean leader;
+    private volatile boolean closed;
+    
+    public ClusterNode(JobQueueConfig config) {
+        this.config = config;
+        this.election = new LeaderElection(LeaderElection.lockPathFor(config));
+    }
+    
+    /**
+     * Get the ID leases taken by this process carry after the worker's own ID
+     */
+    public static String nodeId() {
+        return NODE_ID;
+    }
+    
+    /**
+     * Start this node's workers as the leader, if no other process is the leader
+     *
+     * @return false if another process is the leader; nothing was started
+     */
+    public synchronized boolean startAsLeader(int workerCount, WorkerMode mode) {
+        if (!election.tryAcquire()) {
+            return false;
+        }
+        openStore();
+        workerManager = new WorkerManager(jobQueue, config);
+        workerManager.start(workerCount, mode);
+        serve();
+        serveMetrics();
+        return true;
+    }
+    
+    /**
+     * Start this node's workers as the leader if no other process is the leader,
+     * otherwise as a follower that takes over when the leader goes away
+     */
+    public synchronized void start(int workerCount, WorkerMode mode) {
+        if (startAsLeader(workerCount, mode)) {
+            return;
+        }
+        clusterSource = new ClusterJobSource(config, NODE_ID);
+        workerManager = new WorkerManager(clusterSource, config);
+        workerManager.start(workerCount, mode);
+        serveMetrics();
+        
+        electionThread = new Thread(this::awaitLeadership, "LeaderElection");
+        electionThread.setDaemon(true);
+        electionThread.start();
+        logger.info("Following cluster leader {}", getLeader().map(LeaderInfo::toString).orElse("(not yet known)"));
+    }
+    
+    /**
+     * Check if this process is the leader
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+    
+    /**
+     * Get the leader as recorded in the leader file
+     */
+    public Optional<LeaderInfo> getLeader() {
+        return LeaderInfo.read(LeaderInfo.pathFor(config));
+    }
+    
+    /**
+     * Get the manager running this node's workers
+     */
+    public WorkerManager getWorkerManager() {
+        return workerManager;
+    }
+    
+    /**
+     * Get the Unix socket local commands reach the leader on, or null on a follower
+     */
+    public Path getSocketPath() {
+        DaemonServer server = localServer;
+        return server != null ? server.getSocketPath() : null;
+    }
+    
+    /**
+     * Get the TCP address followers reach the leader on, or null on a follower
+     */
+    public InetSocketAddress getClusterAddress() {
+        DaemonServer server = clusterServer;
+        return server != null ? server.getTcpAddress() : null;
+    }
+    
+    /**
+     * Get the metrics of this node, whether or not they are served
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+    
+    /**
+     * Get the address metrics are served on, or null if no metrics port is configured
+     */
+    public InetSocketAddress getMetricsAddress() {
+        MetricsServer server = metricsServer;
+        return server != null ? server.getAddress() : null;
+    }
+    
+    /**
+     * Stop serving and stop waiting to become the leader. The lock itself is released only when
+     * the process exits, after the worker manager's shutdown hook has drained the workers, so no
+     * follower takes over a store this process may still write.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (electionThread != null) {
+            // Closing the channel ends the wait on the lock
+            election.close();
+        }
+        if (clusterServer != null) {
+            clusterServer.close();
+            removeLeaderFile();
+        }
+        if (localServer != null) {
+            localServer.close();
+        }
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+    }
+    
+    private void awaitLeadership() {
+        try {
+            election.acquire();
+        } catch (ClosedChannelException e) {
+            return;
+        } catch (IOException e) {
+            logger.error("Leader election failed; this node stays a follower", e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            logger.info("Cluster leader is gone, taking over as leader");
+            openStore();
+            workerManager.attachQueue(jobQueue);
+            clusterSource.promote(jobQueue);
+            serve();
+        }
+    }
+    
+    private void openStore() {
+        persistenceManager = new PersistenceManager(config);
+        jobQueue = new JobQueue(persistenceManager, config);
+        dlqManager = new DLQManager(persistenceManager, jobQueue);
+        persistenceManager.registerMetrics(metricsRegistry);
+        jobQueue.registerMetrics(metricsRegistry);
+    }
+    
+    /**
+     * Register the workers' metrics, and serve all of this node's metrics if a port is configured
+     */
+    private void serveMetrics() {
+        workerManager.registerMetrics(metricsRegistry);
+        metricsRegistry.gauge("queuectl_cluster_leader", "1 if this process is the cluster leader, else 0",
+                              () -> leader ? 1 : 0);
+        if (config.getMetricsPort() > 0) {
+            metricsServer = new MetricsServer(new InetSocketAddress(config.getMetricsBindAddress(),
+                                                                    config.getMetricsPort()), metricsRegistry);
+            metricsServer.start();
+        }
+    }
+    
+    /**
+     * Serve local commands and followers, then tell followers where to find this leader
+     */
+    private void serve() {
+        DaemonRequestHandler handler = new DaemonRequestHandler(persistenceManager, jobQueue, workerManager,
+                                                                dlqManager, config, objectMapper);
+        localServer = new DaemonServer(DaemonProtocol.socketPath(config), handler, objectMapper);
+        localServer.start();
+        
+        token = newToken();
+        clusterServer = new DaemonServer(new InetSocketAddress(config.getClusterBindAddress(), config.getClusterPort()),
+                                         token, handler, objectMapper);
+        clusterServer.start();
+        
+        LeaderInfo info = new LeaderInfo(advertisedHost(), clusterServer.getTcpAddress().getPort(), token,
+                                         ProcessHandle.current().pid());
+        info.write(LeaderInfo.pathFor(config));
+        leader = true;
+        logger.info("Cluster leader serving followers on {}", info);
+    }
+    
+    /**
+     * Remove the leader file, unless a newer leader has already replaced it
+     */
+    private void removeLeaderFile() {
+        Path path = LeaderInfo.pathFor(config);
+        if (getLeader().map(info -> Objects.equals(info.getToken(), token)).orElse(false)) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Failed to remove leader file {}", path, e);
+            }
+        }
+    }
+    
+    /**
+     * Get the host followers should connect to: the bind address, or this host's name when
+     * bound to every interface
+     */
+    private String advertisedHost() {
+        InetAddress address = clusterServer.getTcpAddress().getAddress();
+        return address.isAnyLocalAddress() ? hostName() : address.getHostAddress();
+    }
+    
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
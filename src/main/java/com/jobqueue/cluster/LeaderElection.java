@@ -0,0 +1,87 @@
+package com.jobqueue.cluster;
+
+import com.jobqueue.config.JobQueueConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Elects the cluster leader with an exclusive lock on a file next to the data file.
+ * Whoever holds the lock owns the job store. The operating system drops the lock when the
+ * holder exits, however it exits, so a leader that crashes never has to be detected: the next
+ * process waiting on the lock simply gets it.
+ */
+public class LeaderElection implements Closeable {
+    private static final long OVERLAP_RETRY_MILLIS = 1000;
+    
+    private final Path lockPath;
+    private final FileChannel channel;
+    
+    public LeaderElection(Path lockPath) {
+        this.lockPath = lockPath;
+        try {
+            this.channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open lock file " + lockPath, e);
+        }
+    }
+    
+    /**
+     * Get the lock file for this data file
+     */
+    public static Path lockPathFor(JobQueueConfig config) {
+        return Paths.get(config.getDataFile() + ".lock");
+    }
+    
+    /**
+     * Take the lock if no other process holds it, without waiting
+     *
+     * @return true if this process is now the leader
+     */
+    public boolean tryAcquire() {
+        try {
+            // The lock stays held until the channel is closed
+            return channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            // Another election in this JVM holds it
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to lock " + lockPath, e);
+        }
+    }
+    
+    /**
+     * Wait until this process holds the lock, which happens once the current leader exits
+     *
+     * @throws IOException if the wait was cut short by {@link #close()} or the lock failed
+     */
+    public void acquire() throws IOException, InterruptedException {
+        while (true) {
+            try {
+                channel.lock();
+                return;
+            } catch (OverlappingFileLockException e) {
+                // File locks belong to the whole JVM, so only another process's lock blocks;
+                // one held elsewhere in this JVM has to be polled for
+                Thread.sleep(OVERLAP_RETRY_MILLIS);
+            }
+        }
+    }
+    
+    /**
+     * Release the lock, or stop waiting for it
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close lock file " + lockPath, e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jobqueue.cluster;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobqueue.config.JobQueueConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+
+/**
+ * Where followers find the cluster leader: its TCP address, the token its requests must carry
+ * and its process ID. The leader writes this to a file next to the data file once its port is
+ * bound; the file is readable by its owner only, since the token guards command execution.
+ */
+public class LeaderInfo {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final String host;
+    private final int port;
+    private final String token;
+    private final long pid;
+    
+    @JsonCreator
+    public LeaderInfo(@JsonProperty("host") String host,
+                      @JsonProperty("port") int port,
+                      @JsonProperty("token") String token,
+                      @JsonProperty("pid") long pid) {
+        this.host = host;
+        this.port = port;
+        this.token = token;
+        this.pid = pid;
+    }
+    
+    /**
+     * Get the leader file for this data file
+     */
+    public static Path pathFor(JobQueueConfig config) {
+        return Paths.get(config.getDataFile() + ".leader");
+    }
+    
+    /**
+     * Read the leader file, if there is one
+     */
+    public static Optional<LeaderInfo> read(Path path) {
+        try {
+            return Optional.of(MAPPER.readValue(path.toFile(), LeaderInfo.class));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Write the leader file, replacing it in one step so followers never read half of it
+     */
+    public void write(Path path) {
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Path temp;
+            try {
+                temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp",
+                                            PosixFilePermissions.asFileAttribute(
+                                                    PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException e) {
+                temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            }
+            MAPPER.writeValue(temp.toFile(), this);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write leader file " + path, e);
+        }
+    }
+    
+    public String getHost() {
+        return host;
+    }
+    
+    public int getPort() {
+        return port;
+    }
+    
+    public String getToken() {
+        return token;
+    }
+    
+    public long getPid() {
+        return pid;
+    }
+    
+    @JsonIgnore
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(host, port);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s:%d (pid %d)", host, port, pid);
+    }
+}
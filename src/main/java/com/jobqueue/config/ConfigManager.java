@@ -92,6 +92,78 @@ public class ConfigManager {
         updateConfig(getConfig().withRetryCheckInterval(retryCheckIntervalSeconds));
     }
     
+    public void updateStorageMode(String storageMode) {
+        updateConfig(getConfig().withStorageMode(storageMode));
+    }
+    
+    public void updateStorageFormat(String storageFormat) {
+        updateConfig(getConfig().withStorageFormat(storageFormat));
+    }
+    
+    public void updateCommitBatchSize(int commitBatchSize) {
+        updateConfig(getConfig().withCommitBatchSize(commitBatchSize));
+    }
+    
+    public void updateCommitLinger(long commitLingerMillis) {
+        updateConfig(getConfig().withCommitLinger(commitLingerMillis));
+    }
+    
+    public void updatePendingQueue(String pendingQueue) {
+        updateConfig(getConfig().withPendingQueue(pendingQueue));
+    }
+    
+    public void updatePendingQueueCapacity(int pendingQueueCapacity) {
+        updateConfig(getConfig().withPendingQueueCapacity(pendingQueueCapacity));
+    }
+    
+    public void updateWaitStrategy(String waitStrategy) {
+        updateConfig(getConfig().withWaitStrategy(waitStrategy));
+    }
+    
+    public void updatePriorityAging(long priorityAgingSeconds) {
+        updateConfig(getConfig().withPriorityAgingSeconds(priorityAgingSeconds));
+    }
+    
+    public void updateWorkerMode(String workerMode) {
+        updateConfig(getConfig().withWorkerMode(workerMode));
+    }
+    
+    public void updateMaxOutputBytes(int maxOutputBytes) {
+        updateConfig(getConfig().withMaxOutputBytes(maxOutputBytes));
+    }
+    
+    public void updateOutputDir(String outputDir) {
+        updateConfig(getConfig().withOutputDir(outputDir));
+    }
+    
+    public void updateLeaseTimeout(long leaseTimeoutSeconds) {
+        updateConfig(getConfig().withLeaseTimeoutSeconds(leaseTimeoutSeconds));
+    }
+    
+    public void updateClusterBindAddress(String clusterBindAddress) {
+        updateConfig(getConfig().withClusterBindAddress(clusterBindAddress));
+    }
+    
+    public void updateClusterPort(int clusterPort) {
+        updateConfig(getConfig().withClusterPort(clusterPort));
+    }
+    
+    public void updateStoreShards(int storeShards) {
+        updateConfig(getConfig().withStoreShards(storeShards));
+    }
+    
+    public void updateWorkerPrefetch(int workerPrefetch) {
+        updateConfig(getConfig().withWorkerPrefetch(workerPrefetch));
+    }
+    
+    public void updateMetricsBindAddress(String metricsBindAddress) {
+        updateConfig(getConfig().withMetricsBindAddress(metricsBindAddress));
+    }
+    
+    public void updateMetricsPort(int metricsPort) {
+        updateConfig(getConfig().withMetricsPort(metricsPort));
+    }
+    
     /**
      * Load configuration from file or create default
      */
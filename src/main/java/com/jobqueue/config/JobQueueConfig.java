@@ -1,5 +1,6 @@
 package com.jobqueue.config;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -14,12 +15,35 @@ public class JobQueueConfig {
     private final String dataFile;
     private final long jobTimeoutSeconds;
     private final long retryCheckIntervalSeconds;
+    private final String storageMode;
+    private final int commitBatchSize;
+    private final long commitLingerMillis;
+    private final long compactionLogBytes;
+    private final long compactionLogRecords;
+    private final boolean parallelLoad;
+    private final String storageFormat;
+    private final String pendingQueue;
+    private final int pendingQueueCapacity;
+    private final String waitStrategy;
+    private final long priorityAgingSeconds;
+    private final String workerMode;
+    private final int maxOutputBytes;
+    private final String outputDir;
+    private final long leaseTimeoutSeconds;
+    private final String clusterBindAddress;
+    private final int clusterPort;
+    private final int storeShards;
+    private final int workerPrefetch;
+    private final String metricsBindAddress;
+    private final int metricsPort;
     
     /**
      * Default constructor with sensible defaults
      */
     public JobQueueConfig() {
-        this(3, 2, 3, "jobs.json", 300, 30);
+        this(3, 2, 3, "jobs.json", 300, 30, "json", 512, 0L, 67108864L, 100000L, false, "json",
+             "linked", 65536, "spin_then_park", 30L, "platform", 65536, null, 30L, "127.0.0.1", 0, 1, 0,
+             "127.0.0.1", 0);
     }
     
     /**
@@ -31,13 +55,56 @@ public class JobQueueConfig {
                          @JsonProperty("worker_count") int workerCount,
                          @JsonProperty("data_file") String dataFile,
                          @JsonProperty("job_timeout_seconds") long jobTimeoutSeconds,
-                         @JsonProperty("retry_check_interval_seconds") long retryCheckIntervalSeconds) {
+                         @JsonProperty("retry_check_interval_seconds") long retryCheckIntervalSeconds,
+                         @JsonProperty("storage_mode") String storageMode,
+                         @JsonProperty("commit_batch_size") Integer commitBatchSize,
+                         @JsonProperty("commit_linger_millis") Long commitLingerMillis,
+                         @JsonProperty("compaction_log_bytes") Long compactionLogBytes,
+                         @JsonProperty("compaction_log_records") Long compactionLogRecords,
+                         @JsonProperty("parallel_load") Boolean parallelLoad,
+                         @JsonProperty("storage_format") String storageFormat,
+                         @JsonProperty("pending_queue") String pendingQueue,
+                         @JsonProperty("pending_queue_capacity") Integer pendingQueueCapacity,
+                         @JsonProperty("wait_strategy") String waitStrategy,
+                         @JsonProperty("priority_aging_seconds") Long priorityAgingSeconds,
+                         @JsonProperty("worker_mode") String workerMode,
+                         @JsonProperty("max_output_bytes") Integer maxOutputBytes,
+                         @JsonProperty("output_dir") @JsonAlias("output_spill_dir") String outputDir,
+                         @JsonProperty("lease_timeout_seconds") Long leaseTimeoutSeconds,
+                         @JsonProperty("cluster_bind_address") String clusterBindAddress,
+                         @JsonProperty("cluster_port") Integer clusterPort,
+                         @JsonProperty("store_shards") Integer storeShards,
+                         @JsonProperty("worker_prefetch") Integer workerPrefetch,
+                         @JsonProperty("metrics_bind_address") String metricsBindAddress,
+                         @JsonProperty("metrics_port") Integer metricsPort) {
         this.maxRetries = maxRetries;
         this.backoffBase = backoffBase;
         this.workerCount = workerCount;
         this.dataFile = dataFile;
         this.jobTimeoutSeconds = jobTimeoutSeconds;
         this.retryCheckIntervalSeconds = retryCheckIntervalSeconds;
+        // Older config files predate storage modes and keep the full-file JSON store
+        this.storageMode = storageMode != null ? storageMode : "json";
+        this.commitBatchSize = commitBatchSize != null ? commitBatchSize : 512;
+        this.commitLingerMillis = commitLingerMillis != null ? commitLingerMillis : 0L;
+        this.compactionLogBytes = compactionLogBytes != null ? compactionLogBytes : 67108864L;
+        this.compactionLogRecords = compactionLogRecords != null ? compactionLogRecords : 100000L;
+        this.parallelLoad = parallelLoad != null ? parallelLoad : false;
+        this.storageFormat = storageFormat != null ? storageFormat : "json";
+        this.pendingQueue = pendingQueue != null ? pendingQueue : "linked";
+        this.pendingQueueCapacity = pendingQueueCapacity != null ? pendingQueueCapacity : 65536;
+        this.waitStrategy = waitStrategy != null ? waitStrategy : "spin_then_park";
+        this.priorityAgingSeconds = priorityAgingSeconds != null ? priorityAgingSeconds : 30L;
+        this.workerMode = workerMode != null ? workerMode : "platform";
+        this.maxOutputBytes = maxOutputBytes != null ? maxOutputBytes : 65536;
+        this.outputDir = outputDir;
+        this.leaseTimeoutSeconds = leaseTimeoutSeconds != null ? leaseTimeoutSeconds : 30L;
+        this.clusterBindAddress = clusterBindAddress != null ? clusterBindAddress : "127.0.0.1";
+        this.clusterPort = clusterPort != null ? clusterPort : 0;
+        this.storeShards = storeShards != null ? storeShards : 1;
+        this.workerPrefetch = workerPrefetch != null ? workerPrefetch : 0;
+        this.metricsBindAddress = metricsBindAddress != null ? metricsBindAddress : "127.0.0.1";
+        this.metricsPort = metricsPort != null ? metricsPort : 0;
     }
     
     @JsonProperty("max_retries")
@@ -70,59 +137,481 @@ public class JobQueueConfig {
         return retryCheckIntervalSeconds;
     }
     
+    @JsonProperty("storage_mode")
+    public String getStorageMode() {
+        return storageMode;
+    }
+    
+    @JsonProperty("commit_batch_size")
+    public int getCommitBatchSize() {
+        return commitBatchSize;
+    }
+    
+    @JsonProperty("commit_linger_millis")
+    public long getCommitLingerMillis() {
+        return commitLingerMillis;
+    }
+    
+    @JsonProperty("compaction_log_bytes")
+    public long getCompactionLogBytes() {
+        return compactionLogBytes;
+    }
+    
+    @JsonProperty("compaction_log_records")
+    public long getCompactionLogRecords() {
+        return compactionLogRecords;
+    }
+    
+    @JsonProperty("parallel_load")
+    public boolean isParallelLoad() {
+        return parallelLoad;
+    }
+    
+    @JsonProperty("storage_format")
+    public String getStorageFormat() {
+        return storageFormat;
+    }
+    
+    @JsonProperty("pending_queue")
+    public String getPendingQueue() {
+        return pendingQueue;
+    }
+    
+    @JsonProperty("pending_queue_capacity")
+    public int getPendingQueueCapacity() {
+        return pendingQueueCapacity;
+    }
+    
+    @JsonProperty("wait_strategy")
+    public String getWaitStrategy() {
+        return waitStrategy;
+    }
+    
+    @JsonProperty("priority_aging_seconds")
+    public long getPriorityAgingSeconds() {
+        return priorityAgingSeconds;
+    }
+    
+    @JsonProperty("worker_mode")
+    public String getWorkerMode() {
+        return workerMode;
+    }
+    
+    @JsonProperty("max_output_bytes")
+    public int getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
+    
+    /**
+     * Get the output store directory, or null to keep it next to the data file
+     */
+    @JsonProperty("output_dir")
+    public String getOutputDir() {
+        return outputDir;
+    }
+    
+    @JsonProperty("lease_timeout_seconds")
+    public long getLeaseTimeoutSeconds() {
+        return leaseTimeoutSeconds;
+    }
+    
+    @JsonProperty("cluster_bind_address")
+    public String getClusterBindAddress() {
+        return clusterBindAddress;
+    }
+    
+    @JsonProperty("cluster_port")
+    public int getClusterPort() {
+        return clusterPort;
+    }
+    
+    @JsonProperty("store_shards")
+    public int getStoreShards() {
+        return storeShards;
+    }
+    
+    @JsonProperty("worker_prefetch")
+    public int getWorkerPrefetch() {
+        return workerPrefetch;
+    }
+    
+    @JsonProperty("metrics_bind_address")
+    public String getMetricsBindAddress() {
+        return metricsBindAddress;
+    }
+    
+    @JsonProperty("metrics_port")
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+    
     /**
      * Create a new config with updated max retries
      */
     public JobQueueConfig withMaxRetries(int maxRetries) {
-        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, 
-                                 jobTimeoutSeconds, retryCheckIntervalSeconds);
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
     }
     
     /**
      * Create a new config with updated backoff base
      */
     public JobQueueConfig withBackoffBase(int backoffBase) {
-        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, 
-                                 jobTimeoutSeconds, retryCheckIntervalSeconds);
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
     }
     
     /**
      * Create a new config with updated worker count
      */
     public JobQueueConfig withWorkerCount(int workerCount) {
-        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, 
-                                 jobTimeoutSeconds, retryCheckIntervalSeconds);
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
     }
     
     /**
      * Create a new config with updated data file
      */
     public JobQueueConfig withDataFile(String dataFile) {
-        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, 
-                                 jobTimeoutSeconds, retryCheckIntervalSeconds);
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
     }
     
     /**
      * Create a new config with updated job timeout
      */
     public JobQueueConfig withJobTimeout(long jobTimeoutSeconds) {
-        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, 
-                                 jobTimeoutSeconds, retryCheckIntervalSeconds);
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
     }
     
     /**
      * Create a new config with updated retry check interval
      */
     public JobQueueConfig withRetryCheckInterval(long retryCheckIntervalSeconds) {
-        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, 
-                                 jobTimeoutSeconds, retryCheckIntervalSeconds);
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated storage mode
+     */
+    public JobQueueConfig withStorageMode(String storageMode) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated commit batch size
+     */
+    public JobQueueConfig withCommitBatchSize(int commitBatchSize) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated commit linger time
+     */
+    public JobQueueConfig withCommitLinger(long commitLingerMillis) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated compaction log size threshold
+     */
+    public JobQueueConfig withCompactionLogBytes(long compactionLogBytes) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated compaction log record threshold
+     */
+    public JobQueueConfig withCompactionLogRecords(long compactionLogRecords) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated parallel load flag
+     */
+    public JobQueueConfig withParallelLoad(boolean parallelLoad) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated storage format
+     */
+    public JobQueueConfig withStorageFormat(String storageFormat) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated pending queue implementation
+     */
+    public JobQueueConfig withPendingQueue(String pendingQueue) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated ring buffer capacity
+     */
+    public JobQueueConfig withPendingQueueCapacity(int pendingQueueCapacity) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated consumer wait strategy
+     */
+    public JobQueueConfig withWaitStrategy(String waitStrategy) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated priority aging interval
+     */
+    public JobQueueConfig withPriorityAgingSeconds(long priorityAgingSeconds) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated worker mode
+     */
+    public JobQueueConfig withWorkerMode(String workerMode) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated in-memory output limit per job
+     */
+    public JobQueueConfig withMaxOutputBytes(int maxOutputBytes) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated output store directory
+     */
+    public JobQueueConfig withOutputDir(String outputDir) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated lease timeout
+     */
+    public JobQueueConfig withLeaseTimeoutSeconds(long leaseTimeoutSeconds) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated cluster bind address
+     */
+    public JobQueueConfig withClusterBindAddress(String clusterBindAddress) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated cluster port
+     */
+    public JobQueueConfig withClusterPort(int clusterPort) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated store shard count
+     */
+    public JobQueueConfig withStoreShards(int storeShards) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated worker prefetch depth
+     */
+    public JobQueueConfig withWorkerPrefetch(int workerPrefetch) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated metrics bind address
+     */
+    public JobQueueConfig withMetricsBindAddress(String metricsBindAddress) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
+    }
+    
+    /**
+     * Create a new config with updated metrics port
+     */
+    public JobQueueConfig withMetricsPort(int metricsPort) {
+        return new JobQueueConfig(maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                                 retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                                 commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                                 parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                                 waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                                 outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                                 storeShards, workerPrefetch, metricsBindAddress, metricsPort);
     }
     
     @Override
     public String toString() {
-        return String.format("JobQueueConfig{maxRetries=%d, backoffBase=%d, workerCount=%d, " +
-                           "dataFile='%s', jobTimeoutSeconds=%d, retryCheckIntervalSeconds=%d}",
-                           maxRetries, backoffBase, workerCount, dataFile, 
-                           jobTimeoutSeconds, retryCheckIntervalSeconds);
+        return String.format("JobQueueConfig{maxRetries=%d, backoffBase=%d, workerCount=%d, dataFile='%s', " +
+                           "jobTimeoutSeconds=%d, retryCheckIntervalSeconds=%d, storageMode='%s', " +
+                           "commitBatchSize=%d, commitLingerMillis=%d, compactionLogBytes=%d, " +
+                           "compactionLogRecords=%d, parallelLoad=%s, storageFormat='%s', " +
+                           "pendingQueue='%s', pendingQueueCapacity=%d, waitStrategy='%s', " +
+                           "priorityAgingSeconds=%d, workerMode='%s', maxOutputBytes=%d, outputDir='%s', " +
+                           "leaseTimeoutSeconds=%d, clusterBindAddress='%s', clusterPort=%d, " +
+                           "storeShards=%d, workerPrefetch=%d, metricsBindAddress='%s', metricsPort=%d}",
+                           maxRetries, backoffBase, workerCount, dataFile, jobTimeoutSeconds, 
+                           retryCheckIntervalSeconds, storageMode, commitBatchSize, 
+                           commitLingerMillis, compactionLogBytes, compactionLogRecords, 
+                           parallelLoad, storageFormat, pendingQueue, pendingQueueCapacity, 
+                           waitStrategy, priorityAgingSeconds, workerMode, maxOutputBytes, 
+                           outputDir, leaseTimeoutSeconds, clusterBindAddress, clusterPort, 
+                           storeShards, workerPrefetch, metricsBindAddress, metricsPort);
     }
 }
@@ -0,0 +1,288 @@
+package com.jobqueue.daemon;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.jobqueue.dlq.DLQManager;
+import com.jobqueue.model.Job;
+import com.jobqueue.model.JobState;
+import com.jobqueue.worker.WorkerManager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Client side of the daemon protocol; one connection, one request in flight at a time.
+ */
+public class DaemonClient implements Closeable {
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    /**
+     * A TCP leader that stops answering for this long, beyond a dequeue's own wait, is given up on
+     */
+    private static final int READ_TIMEOUT_MILLIS = (int) DaemonProtocol.MAX_LEASE_WAIT_MILLIS + 10_000;
+    
+    private final Closeable connection;
+    private final String authToken;
+    private final BufferedReader reader;
+    private final BufferedWriter writer;
+    private final ObjectMapper objectMapper;
+    
+    private DaemonClient(Closeable connection, InputStream input, OutputStream output, String authToken) {
+        this.connection = connection;
+        this.authToken = authToken;
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.objectMapper = DaemonProtocol.createObjectMapper();
+    }
+    
+    /**
+     * Connect to the daemon on the given socket, if one is running
+     */
+    public static Optional<DaemonClient> connect(Path socketPath) {
+        if (!Files.exists(socketPath)) {
+            return Optional.empty();
+        }
+        try {
+            SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                channel.connect(UnixDomainSocketAddress.of(socketPath));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return Optional.of(new DaemonClient(channel, Channels.newInputStream(channel),
+                                                Channels.newOutputStream(channel), null));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Connect to a cluster leader's TCP port; every request carries the leader's token
+     *
+     * @throws IOException if the leader cannot be reached
+     */
+    public static DaemonClient connect(InetSocketAddress address, String authToken) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            return new DaemonClient(socket, socket.getInputStream(), socket.getOutputStream(), authToken);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+    
+    public boolean ping() throws IOException {
+        return "pong".equals(call(request(DaemonProtocol.OP_PING)).asText());
+    }
+    
+    public String enqueue(String command, Integer maxRetries, int priority) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_ENQUEUE).put("command", command).put("priority", priority);
+        if (maxRetries != null) {
+            request.put("max_retries", maxRetries);
+        }
+        return call(request).asText();
+    }
+    
+    /**
+     * Enqueue a batch of jobs in one request; the daemon stores them with a single write
+     */
+    public List<String> enqueueAll(List<Job> jobs) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_ENQUEUE_BATCH);
+        ArrayNode specs = request.putArray("jobs");
+        for (Job job : jobs) {
+            specs.addObject()
+                    .put("command", job.getCommand())
+                    .put("max_retries", job.getMaxRetries())
+                    .put("priority", job.getPriority());
+        }
+        
+        List<String> jobIds = new ArrayList<>(jobs.size());
+        call(request).forEach(jobId -> jobIds.add(jobId.asText()));
+        return jobIds;
+    }
+    
+    public JobPage listJobs(JobState state, int offset, int limit) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_LIST)
+                .put("offset", offset)
+                .put("limit", limit);
+        if (state != null) {
+            request.put("state", state.name());
+        }
+        return objectMapper.treeToValue(call(request), JobPage.class);
+    }
+    
+    /**
+     * Get one job as the daemon has it now
+     */
+    public Optional<Job> getJob(String jobId) throws IOException {
+        JsonNode job = call(request(DaemonProtocol.OP_GET).put("job_id", jobId));
+        return job.isNull() ? Optional.empty() : Optional.of(objectMapper.treeToValue(job, Job.class));
+    }
+    
+    public StatusReport status() throws IOException {
+        return objectMapper.treeToValue(call(request(DaemonProtocol.OP_STATUS)), StatusReport.class);
+    }
+    
+    public JobPage deadJobs(int offset, int limit) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_DLQ_LIST)
+                .put("offset", offset)
+                .put("limit", limit);
+        return objectMapper.treeToValue(call(request), JobPage.class);
+    }
+    
+    /**
+     * Retry the given dead jobs, or every dead job when the list is empty
+     */
+    public int retryDeadJobs(List<String> jobIds) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_DLQ_RETRY);
+        jobIds.forEach(request.putArray("job_ids")::add);
+        return call(request).asInt();
+    }
+    
+    public int deleteDeadJobs(List<String> jobIds) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_DLQ_DELETE);
+        jobIds.forEach(request.putArray("job_ids")::add);
+        return call(request).asInt();
+    }
+    
+    /**
+     * Clear dead jobs older than the given number of days, or all of them when null
+     */
+    public int clearDeadJobs(Integer olderThanDays) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_DLQ_CLEAR);
+        if (olderThanDays != null) {
+            request.put("older_than_days", olderThanDays);
+        }
+        return call(request).asInt();
+    }
+    
+    public DLQManager.DLQStatistics dlqStatistics() throws IOException {
+        return objectMapper.treeToValue(call(request(DaemonProtocol.OP_DLQ_STATS)), DLQManager.DLQStatistics.class);
+    }
+    
+    public List<WorkerManager.WorkerStatus> workerStatus() throws IOException {
+        return objectMapper.convertValue(call(request(DaemonProtocol.OP_WORKER_STATUS)),
+                new TypeReference<List<WorkerManager.WorkerStatus>>() {});
+    }
+    
+    /**
+     * Stop the daemon's workers; returns false if none were running
+     */
+    public boolean stopWorkers() throws IOException {
+        return call(request(DaemonProtocol.OP_WORKER_STOP)).asBoolean();
+    }
+    
+    /**
+     * Lease the next job to a worker of this node, letting the leader wait up to the given time for one
+     */
+    public Optional<Job> leaseJob(String workerId, long waitMillis) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_LEASE_DEQUEUE)
+                .put("worker_id", workerId)
+                .put("wait_millis", waitMillis);
+        JsonNode job = call(request);
+        return job.isNull() ? Optional.empty() : Optional.of(objectMapper.treeToValue(job, Job.class));
+    }
+    
+    /**
+     * Lease up to maxJobs jobs from the leader, which waits up to the given time for the first
+     */
+    public List<Job> leaseJobs(String workerId, int maxJobs, long waitMillis) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_LEASE_DEQUEUE_BATCH)
+                .put("worker_id", workerId)
+                .put("max_jobs", maxJobs)
+                .put("wait_millis", waitMillis);
+        return objectMapper.convertValue(call(request), new TypeReference<List<Job>>() {});
+    }
+    
+    /**
+     * Report a leased job as completed; returns false if its lease was lost
+     */
+    public boolean completeLease(Job job, int attempt) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_LEASE_COMPLETE).put("attempt", attempt);
+        request.set("job", objectMapper.valueToTree(job));
+        return call(request).asBoolean();
+    }
+    
+    /**
+     * Report a leased job as failed; returns false if its lease was lost
+     */
+    public boolean failLease(Job job, int attempt, String errorMessage) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_LEASE_FAIL)
+                .put("attempt", attempt)
+                .put("error", errorMessage);
+        request.set("job", objectMapper.valueToTree(job));
+        return call(request).asBoolean();
+    }
+    
+    /**
+     * Renew the leases of jobs this node is still running, in one request
+     */
+    public int renewLeases(Collection<Job> jobs) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_LEASE_RENEW);
+        request.set("jobs", objectMapper.valueToTree(jobs));
+        return call(request).asInt();
+    }
+    
+    /**
+     * Hand back leased jobs this node never started; returns how many the leader took back
+     */
+    public int releaseLeases(Collection<Job> jobs) throws IOException {
+        ObjectNode request = request(DaemonProtocol.OP_LEASE_RELEASE);
+        request.set("jobs", objectMapper.valueToTree(jobs));
+        return call(request).asInt();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        connection.close();
+    }
+    
+    private ObjectNode request(String op) {
+        ObjectNode request = objectMapper.createObjectNode().put("op", op);
+        if (authToken != null) {
+            request.put("token", authToken);
+        }
+        return request;
+    }
+    
+    private synchronized JsonNode call(ObjectNode request) throws IOException {
+        writer.write(objectMapper.writeValueAsString(request));
+        writer.newLine();
+        writer.flush();
+        
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("Daemon closed the connection");
+        }
+        JsonNode response = objectMapper.readTree(line);
+        if (!response.path("ok").asBoolean()) {
+            throw new IOException(response.path("error").asText("Daemon request failed"));
+        }
+        return response.path("result");
+    }
+}
@@ -0,0 +1,69 @@
+package com.jobqueue.daemon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jobqueue.config.JobQueueConfig;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Wire protocol shared by the daemon and its clients.
+ * Each request is one line of JSON with an "op" field and the operation's arguments;
+ * each response is one line of JSON with "ok" and either "result" or "error".
+ * A connection may carry any number of requests, answered in order.
+ * <p>
+ * The lease operations let workers in other processes take jobs from the cluster leader and
+ * report their outcomes; jobs travel as their JSON representation. Requests served over TCP
+ * must carry the leader's token in a "token" field.
+ */
+public final class DaemonProtocol {
+    public static final String OP_PING = "ping";
+    public static final String OP_ENQUEUE = "enqueue";
+    public static final String OP_ENQUEUE_BATCH = "enqueue.batch";
+    public static final String OP_LIST = "list";
+    public static final String OP_GET = "get";
+    public static final String OP_STATUS = "status";
+    public static final String OP_DLQ_LIST = "dlq.list";
+    public static final String OP_DLQ_RETRY = "dlq.retry";
+    public static final String OP_DLQ_DELETE = "dlq.delete";
+    public static final String OP_DLQ_CLEAR = "dlq.clear";
+    public static final String OP_DLQ_STATS = "dlq.stats";
+    public static final String OP_WORKER_STATUS = "worker.status";
+    public static final String OP_WORKER_STOP = "worker.stop";
+    public static final String OP_LEASE_DEQUEUE = "lease.dequeue";
+    public static final String OP_LEASE_DEQUEUE_BATCH = "lease.dequeue.batch";
+    public static final String OP_LEASE_COMPLETE = "lease.complete";
+    public static final String OP_LEASE_FAIL = "lease.fail";
+    public static final String OP_LEASE_RENEW = "lease.renew";
+    public static final String OP_LEASE_RELEASE = "lease.release";
+    
+    /**
+     * Longest time the leader holds a dequeue request open waiting for a job
+     */
+    public static final long MAX_LEASE_WAIT_MILLIS = 5000;
+    
+    /**
+     * Most jobs the leader hands out in answer to one batch dequeue request
+     */
+    public static final int MAX_LEASE_BATCH = 256;
+    
+    private DaemonProtocol() {
+    }
+    
+    /**
+     * Get the socket the daemon for this data file listens on
+     */
+    public static Path socketPath(JobQueueConfig config) {
+        return Paths.get(config.getDataFile() + ".sock");
+    }
+    
+    /**
+     * Create an object mapper that reads and writes protocol messages
+     */
+    public static ObjectMapper createObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        return objectMapper;
+    }
+}
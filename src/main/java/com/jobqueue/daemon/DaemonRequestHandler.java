@@ -0,0 +1,174 @@
+package com.jobqueue.daemon;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.dlq.DLQManager;
+import com.jobqueue.model.Job;
+import com.jobqueue.model.JobState;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.queue.JobQueue;
+import com.jobqueue.worker.WorkerManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes protocol requests against the components owned by the daemon.
+ */
+public class DaemonRequestHandler {
+    private final PersistenceManager persistenceManager;
+    private final JobQueue jobQueue;
+    private final WorkerManager workerManager;
+    private final DLQManager dlqManager;
+    private final JobQueueConfig config;
+    private final ObjectMapper objectMapper;
+    
+    public DaemonRequestHandler(PersistenceManager persistenceManager, JobQueue jobQueue,
+                                WorkerManager workerManager, DLQManager dlqManager,
+                                JobQueueConfig config, ObjectMapper objectMapper) {
+        this.persistenceManager = persistenceManager;
+        this.jobQueue = jobQueue;
+        this.workerManager = workerManager;
+        this.dlqManager = dlqManager;
+        this.config = config;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Execute one request and return its result
+     *
+     * @throws IllegalArgumentException if the request is malformed or the operation unknown
+     */
+    public JsonNode handle(JsonNode request) {
+        String op = request.path("op").asText();
+        switch (op) {
+            case DaemonProtocol.OP_PING:
+                return TextNode.valueOf("pong");
+            
+            case DaemonProtocol.OP_ENQUEUE:
+                return TextNode.valueOf(jobQueue.enqueue(job(request)));
+            
+            case DaemonProtocol.OP_ENQUEUE_BATCH:
+                // Validate the whole batch before anything is stored
+                List<Job> batch = new ArrayList<>();
+                for (JsonNode spec : request.path("jobs")) {
+                    batch.add(job(spec));
+                }
+                ArrayNode jobIds = objectMapper.createArrayNode();
+                jobQueue.enqueueAll(batch).forEach(jobIds::add);
+                return jobIds;
+            
+            case DaemonProtocol.OP_LIST:
+                List<Job> jobs = request.hasNonNull("state")
+                        ? jobQueue.getJobsByState(JobState.valueOf(request.get("state").asText()))
+                        : jobQueue.getAllJobs();
+                return objectMapper.valueToTree(page(jobs, request));
+            
+            case DaemonProtocol.OP_GET:
+                return jobQueue.getJob(request.path("job_id").asText())
+                        .<JsonNode>map(objectMapper::valueToTree)
+                        .orElse(NullNode.getInstance());
+            
+            case DaemonProtocol.OP_STATUS:
+                return objectMapper.valueToTree(
+                        StatusReport.collect(persistenceManager, jobQueue, workerManager, config));
+            
+            case DaemonProtocol.OP_DLQ_LIST:
+                return objectMapper.valueToTree(page(dlqManager.getDeadJobs(), request));
+            
+            case DaemonProtocol.OP_DLQ_RETRY:
+                List<String> retryIds = jobIds(request);
+                return IntNode.valueOf(retryIds.isEmpty()
+                        ? dlqManager.retryAllDeadJobs()
+                        : dlqManager.retryDeadJobs(retryIds));
+            
+            case DaemonProtocol.OP_DLQ_DELETE:
+                return IntNode.valueOf(dlqManager.deleteDeadJobs(jobIds(request)));
+            
+            case DaemonProtocol.OP_DLQ_CLEAR:
+                return IntNode.valueOf(request.hasNonNull("older_than_days")
+                        ? dlqManager.clearOldDeadJobs(request.get("older_than_days").asInt())
+                        : dlqManager.clearAllDeadJobs());
+            
+            case DaemonProtocol.OP_DLQ_STATS:
+                return objectMapper.valueToTree(dlqManager.getStatistics());
+            
+            case DaemonProtocol.OP_WORKER_STATUS:
+                return objectMapper.valueToTree(workerManager.getWorkerStatus());
+            
+            case DaemonProtocol.OP_WORKER_STOP:
+                boolean wasRunning = workerManager.isRunning();
+                if (wasRunning) {
+                    workerManager.stop();
+                }
+                return objectMapper.valueToTree(wasRunning);
+            
+            case DaemonProtocol.OP_LEASE_DEQUEUE:
+                // Long poll: this connection's thread waits for a job, so the follower need not
+                long waitMillis = Math.min(request.path("wait_millis").asLong(0), DaemonProtocol.MAX_LEASE_WAIT_MILLIS);
+                return jobQueue.dequeueRemote(request.path("worker_id").asText(), waitMillis, TimeUnit.MILLISECONDS)
+                        .<JsonNode>map(objectMapper::valueToTree)
+                        .orElse(NullNode.getInstance());
+            
+            case DaemonProtocol.OP_LEASE_DEQUEUE_BATCH:
+                long batchWaitMillis = Math.min(request.path("wait_millis").asLong(0), DaemonProtocol.MAX_LEASE_WAIT_MILLIS);
+                int maxJobs = Math.max(1, Math.min(request.path("max_jobs").asInt(1), DaemonProtocol.MAX_LEASE_BATCH));
+                return objectMapper.valueToTree(jobQueue.dequeueBatchRemote(request.path("worker_id").asText(), maxJobs,
+                                                                            batchWaitMillis, TimeUnit.MILLISECONDS));
+            
+            case DaemonProtocol.OP_LEASE_COMPLETE:
+                return BooleanNode.valueOf(jobQueue.markCompleted(leasedJob(request), request.path("attempt").asInt()));
+            
+            case DaemonProtocol.OP_LEASE_FAIL:
+                return BooleanNode.valueOf(jobQueue.markFailed(leasedJob(request), request.path("attempt").asInt(),
+                                                               request.path("error").asText()));
+            
+            case DaemonProtocol.OP_LEASE_RENEW:
+                List<Job> leased = objectMapper.convertValue(request.path("jobs"), new TypeReference<List<Job>>() {});
+                return IntNode.valueOf(jobQueue.renewLeases(leased));
+            
+            case DaemonProtocol.OP_LEASE_RELEASE:
+                List<Job> unstarted = objectMapper.convertValue(request.path("jobs"), new TypeReference<List<Job>>() {});
+                return IntNode.valueOf(jobQueue.release(unstarted));
+            
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + op);
+        }
+    }
+    
+    private Job job(JsonNode spec) {
+        String command = spec.path("command").asText("");
+        if (command.trim().isEmpty()) {
+            throw new IllegalArgumentException("Command cannot be empty");
+        }
+        return new Job(command, spec.path("max_retries").asInt(config.getMaxRetries()),
+                       spec.path("priority").asInt(Job.DEFAULT_PRIORITY));
+    }
+    
+    private Job leasedJob(JsonNode request) {
+        if (!request.hasNonNull("job")) {
+            throw new IllegalArgumentException("Lease request must contain 'job'");
+        }
+        return objectMapper.convertValue(request.get("job"), Job.class);
+    }
+    
+    private JobPage page(List<Job> jobs, JsonNode request) {
+        return JobPage.of(jobs, request.path("offset").asInt(0), request.path("limit").asInt(Integer.MAX_VALUE));
+    }
+    
+    private List<String> jobIds(JsonNode request) {
+        List<String> jobIds = new ArrayList<>();
+        for (JsonNode jobId : request.path("job_ids")) {
+            jobIds.add(jobId.asText());
+        }
+        return jobIds;
+    }
+}
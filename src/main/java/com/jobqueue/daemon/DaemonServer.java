@@ -0,0 +1,248 @@
+package com.jobqueue.daemon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the daemon protocol on a Unix domain socket, or on a TCP port for cluster followers.
+ * Every connection gets its own thread, so a slow client never holds up the others.
+ * A TCP server answers only requests that carry its token, since anyone who can reach the
+ * port could otherwise enqueue commands to run.
+ */
+public class DaemonServer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DaemonServer.class);
+    
+    private final Path socketPath;
+    private final String authToken;
+    private final DaemonRequestHandler handler;
+    private final ObjectMapper objectMapper;
+    private final AtomicInteger connectionCounter = new AtomicInteger();
+    private final ExecutorService connectionPool;
+    private InetSocketAddress tcpAddress;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptThread;
+    private volatile boolean running;
+    
+    public DaemonServer(Path socketPath, DaemonRequestHandler handler, ObjectMapper objectMapper) {
+        this(socketPath, null, null, handler, objectMapper);
+    }
+    
+    /**
+     * Create a server on a TCP address; port 0 binds any free port
+     */
+    public DaemonServer(InetSocketAddress tcpAddress, String authToken,
+                        DaemonRequestHandler handler, ObjectMapper objectMapper) {
+        this(null, tcpAddress, authToken, handler, objectMapper);
+    }
+    
+    private DaemonServer(Path socketPath, InetSocketAddress tcpAddress, String authToken,
+                         DaemonRequestHandler handler, ObjectMapper objectMapper) {
+        this.socketPath = socketPath;
+        this.tcpAddress = tcpAddress;
+        this.authToken = authToken;
+        this.handler = handler;
+        this.objectMapper = objectMapper;
+        this.connectionPool = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "DaemonConnection-" + connectionCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Bind the socket and start accepting connections
+     *
+     * @throws IllegalStateException if another daemon is already serving this socket
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        
+        if (socketPath != null) {
+            bindUnixSocket();
+        } else {
+            try {
+                serverChannel = ServerSocketChannel.open();
+                serverChannel.bind(tcpAddress);
+                tcpAddress = (InetSocketAddress) serverChannel.getLocalAddress();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to bind daemon port " + tcpAddress, e);
+            }
+        }
+        
+        running = true;
+        acceptThread = new Thread(this::acceptLoop, "DaemonServer");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        logger.info("Daemon listening on {}", socketPath != null ? socketPath : tcpAddress);
+    }
+    
+    private void bindUnixSocket() {
+        try {
+            if (Files.exists(socketPath)) {
+                Optional<DaemonClient> existing = DaemonClient.connect(socketPath);
+                if (existing.isPresent()) {
+                    existing.get().close();
+                    throw new IllegalStateException("A daemon is already listening on " + socketPath);
+                }
+                logger.info("Removing stale daemon socket {}", socketPath);
+                Files.delete(socketPath);
+            }
+            
+            serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+            restrictPermissions();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to bind daemon socket " + socketPath, e);
+        }
+    }
+    
+    /**
+     * Get the socket this server listens on, or null for a TCP server
+     */
+    public Path getSocketPath() {
+        return socketPath;
+    }
+    
+    /**
+     * Get the address a TCP server listens on, with the actual port once started
+     */
+    public InetSocketAddress getTcpAddress() {
+        return tcpAddress;
+    }
+    
+    /**
+     * Stop accepting connections, drop open ones and remove the socket file
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close daemon socket", e);
+        }
+        connectionPool.shutdownNow();
+        try {
+            acceptThread.join(TimeUnit.SECONDS.toMillis(5));
+            connectionPool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (socketPath != null) {
+            try {
+                Files.deleteIfExists(socketPath);
+            } catch (IOException e) {
+                logger.warn("Failed to remove daemon socket {}", socketPath, e);
+            }
+        }
+        logger.info("Daemon stopped");
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                if (socketPath == null) {
+                    // Requests and responses are single small lines; do not hold them back
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                connectionPool.execute(() -> serve(channel));
+            } catch (AsynchronousCloseException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Failed to accept daemon connection", e);
+                }
+            }
+        }
+    }
+    
+    private void serve(SocketChannel channel) {
+        // Closing the channel's streams closes the channel
+        try (BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(
+                     new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.write(objectMapper.writeValueAsString(respond(line)));
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.debug("Daemon connection closed: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private ObjectNode respond(String line) {
+        ObjectNode response = objectMapper.createObjectNode();
+        try {
+            JsonNode request = objectMapper.readTree(line);
+            if (authToken != null && !hasToken(request)) {
+                throw new SecurityException("Missing or invalid token");
+            }
+            JsonNode result = handler.handle(request);
+            response.put("ok", true);
+            response.set("result", result);
+        } catch (Exception e) {
+            logger.debug("Daemon request failed: {}", line, e);
+            response.put("ok", false);
+            response.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        return response;
+    }
+    
+    private boolean hasToken(JsonNode request) {
+        byte[] token = request.path("token").asText().getBytes(StandardCharsets.UTF_8);
+        // Constant time, so the comparison does not leak how much of a guess was right
+        return MessageDigest.isEqual(token, authToken.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Limit the socket to its owner; not every file system supports POSIX permissions
+     */
+    private void restrictPermissions() {
+        try {
+            Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.debug("Could not restrict permissions on {}", socketPath, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.jobqueue.daemon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.jobqueue.model.Job;
+
+import java.util.List;
+
+/**
+ * One page of a job listing together with the size of the full listing.
+ */
+public class JobPage {
+    private final int total;
+    private final List<Job> jobs;
+    
+    @JsonCreator
+    public JobPage(@JsonProperty("total") int total,
+                   @JsonProperty("jobs") List<Job> jobs) {
+        this.total = total;
+        this.jobs = jobs;
+    }
+    
+    /**
+     * Cut a page out of a full listing
+     */
+    public static JobPage of(List<Job> allJobs, int offset, int limit) {
+        int start = Math.min(Math.max(0, offset), allJobs.size());
+        int end = Math.min(start + Math.max(0, limit), allJobs.size());
+        return new JobPage(allJobs.size(), allJobs.subList(start, end));
+    }
+    
+    public int getTotal() {
+        return total;
+    }
+    
+    public List<Job> getJobs() {
+        return jobs;
+    }
+}
@@ -0,0 +1,173 @@
+package com.jobqueue.daemon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.model.JobState;
+import com.jobqueue.persistence.PersistenceManager;
+import com.jobqueue.persistence.StorageMode;
+import com.jobqueue.queue.JobQueue;
+import com.jobqueue.queue.PriorityPendingQueue.LaneStatistics;
+import com.jobqueue.worker.WorkerManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time view of the whole system, as shown by the status command.
+ */
+public class StatusReport {
+    private final Map<JobState, Long> jobStatistics;
+    private final boolean workersRunning;
+    private final int totalWorkers;
+    private final int activeWorkers;
+    private final int pendingInQueue;
+    private final List<LaneStatistics> dequeueLatency;
+    private final StorageMode storageMode;
+    private final LocalDateTime lastSnapshotTime;
+    private final long logBytes;
+    private final long logRecords;
+    private final String dataFile;
+    private final int maxRetries;
+    private final int backoffBase;
+    private final long jobTimeoutSeconds;
+    private final List<PersistenceManager.LockStatistics> lockStatistics;
+    
+    @JsonCreator
+    public StatusReport(@JsonProperty("job_statistics") Map<JobState, Long> jobStatistics,
+                        @JsonProperty("workers_running") boolean workersRunning,
+                        @JsonProperty("total_workers") int totalWorkers,
+                        @JsonProperty("active_workers") int activeWorkers,
+                        @JsonProperty("pending_in_queue") int pendingInQueue,
+                        @JsonProperty("dequeue_latency") List<LaneStatistics> dequeueLatency,
+                        @JsonProperty("storage_mode") StorageMode storageMode,
+                        @JsonProperty("last_snapshot_time") LocalDateTime lastSnapshotTime,
+                        @JsonProperty("log_bytes") long logBytes,
+                        @JsonProperty("log_records") long logRecords,
+                        @JsonProperty("data_file") String dataFile,
+                        @JsonProperty("max_retries") int maxRetries,
+                        @JsonProperty("backoff_base") int backoffBase,
+                        @JsonProperty("job_timeout_seconds") long jobTimeoutSeconds,
+                        @JsonProperty("lock_statistics") List<PersistenceManager.LockStatistics> lockStatistics) {
+        this.jobStatistics = jobStatistics != null ? jobStatistics : new EnumMap<>(JobState.class);
+        this.workersRunning = workersRunning;
+        this.totalWorkers = totalWorkers;
+        this.activeWorkers = activeWorkers;
+        this.pendingInQueue = pendingInQueue;
+        this.dequeueLatency = dequeueLatency != null ? dequeueLatency : List.of();
+        this.storageMode = storageMode;
+        this.lastSnapshotTime = lastSnapshotTime;
+        this.logBytes = logBytes;
+        this.logRecords = logRecords;
+        this.dataFile = dataFile;
+        this.maxRetries = maxRetries;
+        this.backoffBase = backoffBase;
+        this.jobTimeoutSeconds = jobTimeoutSeconds;
+        this.lockStatistics = lockStatistics != null ? lockStatistics : List.of();
+    }
+    
+    /**
+     * Collect a report from the components of this process
+     */
+    public static StatusReport collect(PersistenceManager persistenceManager, JobQueue jobQueue,
+                                       WorkerManager workerManager, JobQueueConfig config) {
+        PersistenceManager.StorageStatistics storage = persistenceManager.getStorageStatistics();
+        return new StatusReport(
+                jobQueue.getStatistics(),
+                workerManager.isRunning(),
+                workerManager.getTotalWorkerCount(),
+                workerManager.getActiveWorkerCount(),
+                jobQueue.getPendingCount(),
+                jobQueue.getLaneStatistics(),
+                storage.getStorageMode(),
+                storage.getLastSnapshotTime(),
+                storage.getLogBytes(),
+                storage.getLogRecords(),
+                config.getDataFile(),
+                config.getMaxRetries(),
+                config.getBackoffBase(),
+                config.getJobTimeoutSeconds(),
+                persistenceManager.getLockStatistics()
+        );
+    }
+    
+    @JsonProperty("job_statistics")
+    public Map<JobState, Long> getJobStatistics() {
+        return jobStatistics;
+    }
+    
+    @JsonProperty("workers_running")
+    public boolean isWorkersRunning() {
+        return workersRunning;
+    }
+    
+    @JsonProperty("total_workers")
+    public int getTotalWorkers() {
+        return totalWorkers;
+    }
+    
+    @JsonProperty("active_workers")
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+    
+    @JsonProperty("pending_in_queue")
+    public int getPendingInQueue() {
+        return pendingInQueue;
+    }
+    
+    @JsonProperty("dequeue_latency")
+    public List<LaneStatistics> getDequeueLatency() {
+        return dequeueLatency;
+    }
+    
+    @JsonProperty("storage_mode")
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+    
+    @JsonProperty("last_snapshot_time")
+    public LocalDateTime getLastSnapshotTime() {
+        return lastSnapshotTime;
+    }
+    
+    @JsonProperty("log_bytes")
+    public long getLogBytes() {
+        return logBytes;
+    }
+    
+    @JsonProperty("log_records")
+    public long getLogRecords() {
+        return logRecords;
+    }
+    
+    @JsonProperty("data_file")
+    public String getDataFile() {
+        return dataFile;
+    }
+    
+    @JsonProperty("max_retries")
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+    
+    @JsonProperty("backoff_base")
+    public int getBackoffBase() {
+        return backoffBase;
+    }
+    
+    @JsonProperty("job_timeout_seconds")
+    public long getJobTimeoutSeconds() {
+        return jobTimeoutSeconds;
+    }
+    
+    /**
+     * Get the store lock timings by operation, busiest first
+     */
+    @JsonProperty("lock_statistics")
+    public List<PersistenceManager.LockStatistics> getLockStatistics() {
+        return lockStatistics;
+    }
+}
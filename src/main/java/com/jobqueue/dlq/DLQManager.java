@@ -1,5 +1,8 @@
 package com.jobqueue.dlq;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.jobqueue.model.CoarseClock;
 import com.jobqueue.model.Job;
 import com.jobqueue.model.JobState;
 import com.jobqueue.persistence.PersistenceManager;
@@ -8,8 +11,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -71,11 +77,10 @@ public class DLQManager {
      * Get dead jobs within a time range
      */
     public List<Job> getDeadJobsByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        long start = startTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long end = endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
         return getDeadJobs().stream()
-                .filter(job -> {
-                    LocalDateTime updatedAt = job.getUpdatedAt();
-                    return updatedAt.isAfter(startTime) && updatedAt.isBefore(endTime);
-                })
+                .filter(job -> job.getUpdatedAtMillis() > start && job.getUpdatedAtMillis() < end)
                 .collect(Collectors.toList());
     }
     
@@ -88,7 +93,7 @@ public class DLQManager {
             Job deadJob = jobOpt.get();
             
             // Create a new job with the same command but reset state
-            Job retryJob = new Job(deadJob.getCommand(), deadJob.getMaxRetries());
+            Job retryJob = new Job(deadJob.getCommand(), deadJob.getMaxRetries(), deadJob.getPriority());
             
             // Enqueue the new job
             String newJobId = jobQueue.enqueue(retryJob);
@@ -189,10 +194,10 @@ public class DLQManager {
      * Clear old dead jobs (older than specified days)
      */
     public int clearOldDeadJobs(int olderThanDays) {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusDays(olderThanDays);
+        long cutoffTime = CoarseClock.currentTimeMillis() - TimeUnit.DAYS.toMillis(olderThanDays);
         
         List<Job> oldDeadJobs = getDeadJobs().stream()
-                .filter(job -> job.getUpdatedAt().isBefore(cutoffTime))
+                .filter(job -> job.getUpdatedAtMillis() < cutoffTime)
                 .collect(Collectors.toList());
         
         List<String> jobIds = oldDeadJobs.stream()
@@ -217,11 +222,11 @@ public class DLQManager {
         
         // Find oldest and newest dead jobs
         Job oldest = deadJobs.stream()
-                .min((j1, j2) -> j1.getUpdatedAt().compareTo(j2.getUpdatedAt()))
+                .min(Comparator.comparingLong(Job::getUpdatedAtMillis))
                 .orElse(null);
         
         Job newest = deadJobs.stream()
-                .max((j1, j2) -> j1.getUpdatedAt().compareTo(j2.getUpdatedAt()))
+                .max(Comparator.comparingLong(Job::getUpdatedAtMillis))
                 .orElse(null);
         
         // Count jobs by error type (simplified)
@@ -261,28 +266,35 @@ public class DLQManager {
         private final LocalDateTime newestJobTime;
         private final Long timeoutErrorCount;
         
-        public DLQStatistics(int totalDeadJobs, LocalDateTime oldestJobTime, 
-                           LocalDateTime newestJobTime, Long timeoutErrorCount) {
+        @JsonCreator
+        public DLQStatistics(@JsonProperty("total_dead_jobs") int totalDeadJobs,
+                           @JsonProperty("oldest_job_time") LocalDateTime oldestJobTime, 
+                           @JsonProperty("newest_job_time") LocalDateTime newestJobTime,
+                           @JsonProperty("timeout_error_count") Long timeoutErrorCount) {
             this.totalDeadJobs = totalDeadJobs;
             this.oldestJobTime = oldestJobTime;
             this.newestJobTime = newestJobTime;
             this.timeoutErrorCount = timeoutErrorCount;
         }
         
+        @JsonProperty("total_dead_jobs")
         public int getTotalDeadJobs() {
             return totalDeadJobs;
         }
         
+        @JsonProperty("oldest_job_time")
         public LocalDateTime getOldestJobTime() {
             return oldestJobTime;
         }
         
+        @JsonProperty("newest_job_time")
         public LocalDateTime getNewestJobTime() {
             return newestJobTime;
         }
         
+        @JsonProperty("timeout_error_count")
         public long getTimeoutErrorCount() {
-            return timeoutErrorCount;
+            return timeoutErrorCount != null ? timeoutErrorCount : 0;
         }
         
         @Override
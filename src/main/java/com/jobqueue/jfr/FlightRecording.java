@@ -0,0 +1,76 @@
+package com.jobqueue.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * A JDK Flight Recorder recording of this process: the JDK's default event settings, which
+ * are meant to run in production at about one percent overhead, plus the queue's own events.
+ * The recording is written to its file when closed, or when the JVM exits, however it exits
+ * short of being killed.
+ */
+public class FlightRecording implements Closeable {
+    private static final List<Class<? extends Event>> EVENT_TYPES = List.of(
+            JobEnqueuedEvent.class,
+            JobDequeuedEvent.class,
+            JobExecutedEvent.class,
+            PersistFlushEvent.class,
+            LockWaitEvent.class);
+    
+    private final Recording recording;
+    private final Path destination;
+    
+    /**
+     * Start recording
+     *
+     * @param destination the file the recording is written to
+     */
+    public FlightRecording(Path destination) {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Java Flight Recorder is not available in this JVM");
+        }
+        this.destination = destination.toAbsolutePath();
+        try {
+            this.recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Failed to load the default JFR settings", e);
+        }
+        recording.setName("queuectl");
+        for (Class<? extends Event> type : EVENT_TYPES) {
+            recording.enable(type);
+        }
+        recording.setToDisk(true);
+        recording.setDumpOnExit(true);
+        try {
+            recording.setDestination(this.destination);
+        } catch (IOException e) {
+            recording.close();
+            throw new RuntimeException("Cannot write JFR recording to " + this.destination, e);
+        }
+        recording.start();
+    }
+    
+    /**
+     * Get the file the recording is written to
+     */
+    public Path getDestination() {
+        return destination;
+    }
+    
+    /**
+     * Stop recording and write the file
+     */
+    @Override
+    public void close() {
+        recording.stop();
+        recording.close();
+    }
+}
@@ -0,0 +1,39 @@
+package com.jobqueue.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A job, or a batch of jobs, was leased to a worker. The duration is the time to mark the jobs
+ * processing and save them; the wait for a job to become available is not included.
+ */
+@Name("com.jobqueue.JobDequeued")
+@Label("Job Dequeued")
+@Category({"QueueCtl", "Jobs"})
+@StackTrace(false)
+public class JobDequeuedEvent extends Event {
+    @Label("Job ID")
+    @Description("The job, or the first job of a batch")
+    public String jobId;
+    
+    @Label("Job Count")
+    public int jobCount;
+    
+    @Label("Worker ID")
+    @Description("Lease owner; workers in other processes carry their node's ID")
+    public String workerId;
+    
+    @Label("Attempt")
+    @Description("Failed attempts before this one, of the first job of a batch")
+    public int attempt;
+    
+    @Label("Queue Wait")
+    @Description("Time from the job becoming pending until it was dequeued, the longest of a batch")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueWait;
+}
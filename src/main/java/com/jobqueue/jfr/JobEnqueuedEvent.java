@@ -0,0 +1,29 @@
+package com.jobqueue.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A job, or a batch of jobs, was saved to the store and queued. The duration is the time the
+ * save took.
+ */
+@Name("com.jobqueue.JobEnqueued")
+@Label("Job Enqueued")
+@Category({"QueueCtl", "Jobs"})
+@StackTrace(false)
+public class JobEnqueuedEvent extends Event {
+    @Label("Job ID")
+    @Description("The job, or the first job of a batch")
+    public String jobId;
+    
+    @Label("Job Count")
+    public int jobCount;
+    
+    @Label("Priority")
+    @Description("The job's priority, or the first job's of a batch")
+    public int priority;
+}
@@ -0,0 +1,44 @@
+package com.jobqueue.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A job's command ran. The duration covers the whole attempt, split into the time to start the
+ * process and the time it then ran until it exited or was killed.
+ */
+@Name("com.jobqueue.JobExecuted")
+@Label("Job Executed")
+@Category({"QueueCtl", "Jobs"})
+@StackTrace(false)
+public class JobExecutedEvent extends Event {
+    @Label("Job ID")
+    public String jobId;
+    
+    @Label("Fork Duration")
+    @Description("Time spent in ProcessBuilder.start")
+    @Timespan(Timespan.NANOSECONDS)
+    public long forkDuration;
+    
+    @Label("Exec Duration")
+    @Description("Time from the process starting until its outcome was known")
+    @Timespan(Timespan.NANOSECONDS)
+    public long execDuration;
+    
+    @Label("Exit Code")
+    @Description("-1 if the process timed out or never ran")
+    public int exitCode;
+    
+    @Label("Success")
+    public boolean success;
+    
+    @Label("Output Bytes")
+    @DataAmount
+    public long outputBytes;
+}
@@ -0,0 +1,39 @@
+package com.jobqueue.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A thread had to wait for one of the queue's or the store's locks. Only acquisitions that
+ * found the lock held are recorded; the stack trace shows who waited.
+ */
+@Name("com.jobqueue.LockWait")
+@Label("Lock Wait")
+@Category({"QueueCtl", "Locks"})
+public class LockWaitEvent extends Event {
+    @Label("Lock")
+    public String lockName;
+    
+    /**
+     * Take an exclusive lock, recording an event if it was held by another thread. An
+     * uncontended acquisition costs one {@link Lock#tryLock()} more than {@link Lock#lock()}.
+     * Not for read locks, whose tryLock jumps ahead of queued writers.
+     */
+    public static void lock(Lock lock, String lockName) {
+        if (lock.tryLock()) {
+            return;
+        }
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        lock.lock();
+        event.end();
+        if (event.shouldCommit()) {
+            event.lockName = lockName;
+            event.commit();
+        }
+    }
+}
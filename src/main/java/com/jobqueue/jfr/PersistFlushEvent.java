@@ -0,0 +1,39 @@
+package com.jobqueue.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Job store changes were written to disk: a whole data file rewritten, a group of write-ahead
+ * log records synced, or a snapshot written. Serialization is part of the duration; the JDK's
+ * own file write events show how much of it was I/O.
+ */
+@Name("com.jobqueue.PersistFlush")
+@Label("Persist Flush")
+@Category({"QueueCtl", "Persistence"})
+@StackTrace(false)
+public class PersistFlushEvent extends Event {
+    public static final String DATA_FILE = "data file";
+    public static final String LOG = "log";
+    public static final String SNAPSHOT = "snapshot";
+    
+    @Label("Kind")
+    @Description("data file, log or snapshot")
+    public String kind;
+    
+    @Label("Path")
+    public String path;
+    
+    @Label("Records")
+    @Description("Jobs written to a data file or snapshot, or log records synced")
+    public int records;
+    
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,24 @@
+package com.jobqueue.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up, such as the number of jobs enqueued since the process started.
+ * Backed by a {@link LongAdder}, so threads incrementing it at once do not contend on one
+ * memory location and no increment allocates.
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+    
+    public void increment() {
+        count.increment();
+    }
+    
+    public void add(long amount) {
+        count.add(amount);
+    }
+    
+    public long get() {
+        return count.sum();
+    }
+}
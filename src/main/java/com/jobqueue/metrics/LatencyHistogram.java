@@ -0,0 +1,165 @@
+package com.jobqueue.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of durations over fixed buckets, in the shape of a Prometheus histogram. The
+ * default buckets run from 100 µs to 5 minutes; finer ones can be given for short durations
+ * such as lock waits. Each bucket and the running sum is a {@link LongAdder}, so recording
+ * is a binary search over the bounds and a few striped updates, with no allocation and no
+ * lock. Buckets count only their own range; they are made cumulative when exported.
+ */
+public final class LatencyHistogram {
+    private static final double[] DEFAULT_BOUNDS_SECONDS = {
+        0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1,
+        0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300
+    };
+    
+    private final double[] boundsSeconds;
+    private final long[] boundsNanos;
+    // One more bucket than bounds, for durations past the last bound
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    
+    public LatencyHistogram() {
+        this(DEFAULT_BOUNDS_SECONDS);
+    }
+    
+    /**
+     * @param boundsSeconds the upper bounds of the buckets in seconds, ascending
+     */
+    public LatencyHistogram(double... boundsSeconds) {
+        this.boundsSeconds = boundsSeconds.clone();
+        this.boundsNanos = new long[boundsSeconds.length];
+        for (int i = 0; i < boundsSeconds.length; i++) {
+            boundsNanos[i] = Math.round(boundsSeconds[i] * TimeUnit.SECONDS.toNanos(1));
+            if (i > 0 && boundsNanos[i] <= boundsNanos[i - 1]) {
+                throw new IllegalArgumentException("Histogram bounds must be ascending: "
+                                                   + Arrays.toString(boundsSeconds));
+            }
+        }
+        this.buckets = new LongAdder[boundsNanos.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Record one duration; negative ones, from clocks stepping back, count as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[bucketOf(value)].increment();
+        sumNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+    
+    /**
+     * Record the time elapsed since a {@link System#nanoTime()} reading
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Add everything recorded by another histogram with the same buckets
+     */
+    public void add(LatencyHistogram other) {
+        if (!Arrays.equals(boundsNanos, other.boundsNanos)) {
+            throw new IllegalArgumentException("Cannot add histograms with different buckets");
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i].add(other.buckets[i].sum());
+        }
+        sumNanos.add(other.sumNanos.sum());
+        maxNanos.accumulate(other.maxNanos.get());
+    }
+    
+    /**
+     * Get the number of durations recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+    
+    /**
+     * Get the total of all durations recorded
+     */
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+    
+    /**
+     * Get the longest duration recorded, or 0 if none was
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+    
+    /**
+     * Get an upper bound of the given percentile: the upper bound of the bucket it falls in,
+     * or the longest duration if that is smaller or it falls past the last bound
+     *
+     * @param percentile between 0 and 100
+     * @return the bound, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = getBucketCounts();
+        long total = Arrays.stream(counts).sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulative = 0;
+        for (int i = 0; i < boundsNanos.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(boundsNanos[i], getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+    
+    /**
+     * Get the upper bounds of the buckets in seconds, excluding the unbounded last one
+     */
+    double[] getBoundsSeconds() {
+        return boundsSeconds.clone();
+    }
+    
+    /**
+     * Get the number of durations in each bucket, the unbounded one last
+     */
+    long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+    
+    /**
+     * Find the first bucket whose upper bound is at least the value
+     */
+    private int bucketOf(long nanos) {
+        int low = 0;
+        int high = boundsNanos.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (boundsNanos[middle] < nanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
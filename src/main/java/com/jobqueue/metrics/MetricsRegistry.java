@@ -0,0 +1,126 @@
+package com.jobqueue.metrics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The metrics of one process, by name, rendered in the Prometheus text exposition format.
+ * <p>
+ * Components own their counters and histograms and update them on their own hot paths; they
+ * register them here under a name once, so a scrape reads them without the components knowing
+ * about it. Gauges are read from their components at scrape time. Registering a name again
+ * replaces the earlier metric, so a component that is rebuilt can register afresh.
+ */
+public class MetricsRegistry {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+    
+    /**
+     * Register a counter; by convention its name ends in {@code _total}
+     */
+    public synchronized void counter(String name, String help, Counter counter) {
+        metrics.put(name, new Metric(name, help, "counter", out -> sample(out, name, "", counter.get())));
+    }
+    
+    /**
+     * Register a value read whenever the metrics are scraped
+     */
+    public synchronized void gauge(String name, String help, LongSupplier value) {
+        metrics.put(name, new Metric(name, help, "gauge", out -> sample(out, name, "", value.getAsLong())));
+    }
+    
+    /**
+     * Register a set of values read whenever the metrics are scraped, one sample per key, with
+     * the key as the value of the given label
+     */
+    public synchronized void gauge(String name, String help, String label, Supplier<Map<String, Long>> values) {
+        metrics.put(name, new Metric(name, help, "gauge", out -> {
+            for (Map.Entry<String, Long> entry : values.get().entrySet()) {
+                sample(out, name, label(label, entry.getKey()), entry.getValue());
+            }
+        }));
+    }
+    
+    /**
+     * Register a histogram of durations, exported in seconds; by convention its name ends in
+     * {@code _seconds}
+     */
+    public synchronized void histogram(String name, String help, LatencyHistogram histogram) {
+        metrics.put(name, new Metric(name, help, "histogram", out -> {
+            double[] bounds = histogram.getBoundsSeconds();
+            long[] counts = histogram.getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String le = i < bounds.length
+                        ? BigDecimal.valueOf(bounds[i]).stripTrailingZeros().toPlainString()
+                        : "+Inf";
+                sample(out, name + "_bucket", label("le", le), cumulative);
+            }
+            out.append(name).append("_sum ").append(histogram.getSumNanos() / NANOS_PER_SECOND).append('\n');
+            sample(out, name + "_count", "", cumulative);
+        }));
+    }
+    
+    /**
+     * Check if a metric is registered under the name
+     */
+    public synchronized boolean contains(String name) {
+        return metrics.containsKey(name);
+    }
+    
+    /**
+     * Render every metric in the Prometheus text format, version 0.0.4
+     */
+    public String render() {
+        List<Metric> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(metrics.values());
+        }
+        StringBuilder out = new StringBuilder();
+        for (Metric metric : snapshot) {
+            out.append("# HELP ").append(metric.name).append(' ').append(escapeHelp(metric.help)).append('\n');
+            out.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+            metric.writer.write(out);
+        }
+        return out.toString();
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+    
+    private static String label(String name, String value) {
+        return "{" + name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"}";
+    }
+    
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+    
+    private static class Metric {
+        final String name;
+        final String help;
+        final String type;
+        final SampleWriter writer;
+        
+        Metric(String name, String help, String type, SampleWriter writer) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.writer = writer;
+        }
+    }
+    
+    @FunctionalInterface
+    private interface SampleWriter {
+        void write(StringBuilder out);
+    }
+}
@@ -0,0 +1,105 @@
+package com.jobqueue.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link MetricsRegistry} over HTTP at {@code /metrics} for Prometheus to scrape,
+ * using the HTTP server built into the JDK. Requests are handled one at a time on a single
+ * daemon thread; a scrape is small and infrequent.
+ */
+public class MetricsServer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private final InetSocketAddress address;
+    private final MetricsRegistry registry;
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public MetricsServer(InetSocketAddress address, MetricsRegistry registry) {
+        this.address = address;
+        this.registry = registry;
+    }
+    
+    /**
+     * Bind to the address and start serving
+     */
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        
+        HttpServer httpServer;
+        try {
+            httpServer = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to bind metrics endpoint to " + address, e);
+        }
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "MetricsServer");
+            t.setDaemon(true);
+            return t;
+        });
+        httpServer.createContext("/metrics", exchange -> serve(exchange, registry));
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        server = httpServer;
+        InetSocketAddress bound = httpServer.getAddress();
+        logger.info("Serving metrics on http://{}:{}/metrics", bound.getHostString(), bound.getPort());
+    }
+    
+    /**
+     * Get the address actually bound, with the port chosen if 0 was asked for
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server != null ? server.getAddress() : address;
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+    
+    private static void serve(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body;
+            try {
+                body = registry.render().getBytes(StandardCharsets.UTF_8);
+            } catch (RuntimeException e) {
+                // A gauge whose component failed; the scrape fails rather than showing gaps
+                logger.warn("Failed to render metrics", e);
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
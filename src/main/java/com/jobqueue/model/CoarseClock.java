@@ -0,0 +1,39 @@
+package com.jobqueue.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wall clock in epoch milliseconds, read from a field a background thread refreshes about
+ * once a millisecond. Job transitions stamp their times from it, so a state change costs a
+ * volatile read rather than a clock call and an allocation. The ticker is a daemon thread
+ * started on first use.
+ */
+public final class CoarseClock {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private static volatile long currentMillis = System.currentTimeMillis();
+    
+    static {
+        Thread ticker = new Thread(CoarseClock::tick, "CoarseClock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+    
+    private CoarseClock() {
+    }
+    
+    /**
+     * Get the current time in epoch milliseconds, at most about a millisecond stale
+     */
+    public static long currentTimeMillis() {
+        return currentMillis;
+    }
+    
+    private static void tick() {
+        while (true) {
+            LockSupport.parkNanos(TICK_NANOS);
+            currentMillis = System.currentTimeMillis();
+        }
+    }
+}
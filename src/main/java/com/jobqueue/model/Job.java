@@ -2,53 +2,80 @@ package com.jobqueue.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.time.ZoneId;
 
 /**
  * Represents a job in the queue system.
  * Contains all necessary information for job execution, tracking, and persistence.
+ * <p>
+ * Times are held as epoch milliseconds, 0 when unset, and stamped from the {@link CoarseClock}.
+ * They become {@link LocalDateTime}s in the system time zone only at the JSON boundary and
+ * for display, so job files keep their format while ordering and expiry in memory are immune
+ * to daylight saving changes.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Job {
-    private final String id;
+    /**
+     * Priorities run from MIN_PRIORITY to MAX_PRIORITY; higher priorities are dequeued first
+     */
+    public static final int MIN_PRIORITY = 0;
+    public static final int MAX_PRIORITY = 9;
+    public static final int DEFAULT_PRIORITY = 5;
+    
+    private final JobId id;
     private final String command;
     private JobState state;
     private int attempts;
     private final int maxRetries;
+    private final int priority;
     
-    @JsonSerialize(using = LocalDateTimeSerializer.class)
-    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
-    private final LocalDateTime createdAt;
-    
-    @JsonSerialize(using = LocalDateTimeSerializer.class)
-    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
-    private LocalDateTime updatedAt;
-    
+    private final long createdAtMillis;
+    private long updatedAtMillis;
     private String errorMessage;
-    private LocalDateTime nextRetryAt;
+    private long nextRetryAtMillis;
+    private String workerId;
+    private long leaseExpiresAtMillis;
+    // Not stored: when the job last entered a pending queue, on the System.nanoTime() clock
+    private long enqueuedNanos;
     
     /**
      * Constructor for creating a new job
      */
     public Job(String command, int maxRetries) {
-        this(UUID.randomUUID().toString(), command, JobState.PENDING, 0, maxRetries, 
-             LocalDateTime.now(), LocalDateTime.now(), null, null);
+        this(command, maxRetries, DEFAULT_PRIORITY);
+    }
+    
+    /**
+     * Constructor for creating a new job with a priority
+     *
+     * @throws IllegalArgumentException if the priority is out of range
+     */
+    public Job(String command, int maxRetries, int priority) {
+        this(JobId.generate(), command, JobState.PENDING, 0, maxRetries, 
+             checkPriority(priority), CoarseClock.currentTimeMillis());
     }
     
     /**
      * Constructor for creating a job with specific ID (useful for testing)
      */
     public Job(String id, String command, int maxRetries) {
-        this(id, command, JobState.PENDING, 0, maxRetries, 
-             LocalDateTime.now(), LocalDateTime.now(), null, null);
+        this(JobId.parse(id), command, JobState.PENDING, 0, maxRetries, DEFAULT_PRIORITY,
+             CoarseClock.currentTimeMillis());
+    }
+    
+    private Job(JobId id, String command, JobState state, int attempts, int maxRetries, int priority,
+                long createdAtMillis) {
+        this(id, command, state, attempts, maxRetries, priority, createdAtMillis, createdAtMillis,
+             null, 0, null, 0);
     }
     
     /**
@@ -60,23 +87,51 @@ public class Job {
                @JsonProperty("state") JobState state,
                @JsonProperty("attempts") int attempts,
                @JsonProperty("max_retries") int maxRetries,
+               @JsonProperty("priority") Integer priority,
                @JsonProperty("created_at") LocalDateTime createdAt,
                @JsonProperty("updated_at") LocalDateTime updatedAt,
                @JsonProperty("error_message") String errorMessage,
-               @JsonProperty("next_retry_at") LocalDateTime nextRetryAt) {
+               @JsonProperty("next_retry_at") LocalDateTime nextRetryAt,
+               @JsonProperty("worker_id") String workerId,
+               @JsonProperty("lease_expires_at") LocalDateTime leaseExpiresAt) {
+        this(JobId.parse(id), command, state, attempts, maxRetries, priority != null ? priority : DEFAULT_PRIORITY,
+             toEpochMillis(createdAt), toEpochMillis(updatedAt), errorMessage, toEpochMillis(nextRetryAt),
+             workerId, toEpochMillis(leaseExpiresAt));
+    }
+    
+    /**
+     * Full constructor with times in epoch milliseconds, 0 for unset ones
+     */
+    public Job(JobId id, String command, JobState state, int attempts, int maxRetries, int priority,
+               long createdAtMillis, long updatedAtMillis, String errorMessage, long nextRetryAtMillis,
+               String workerId, long leaseExpiresAtMillis) {
         this.id = id;
         this.command = command;
         this.state = state;
         this.attempts = attempts;
         this.maxRetries = maxRetries;
-        this.createdAt = createdAt;
-        this.updatedAt = updatedAt;
+        this.priority = priority;
+        this.createdAtMillis = createdAtMillis;
+        this.updatedAtMillis = updatedAtMillis;
         this.errorMessage = errorMessage;
-        this.nextRetryAt = nextRetryAt;
+        this.nextRetryAtMillis = nextRetryAtMillis;
+        this.workerId = workerId;
+        this.leaseExpiresAtMillis = leaseExpiresAtMillis;
     }
     
     // Getters
+    /**
+     * Get the ID as text, rendered on every call
+     */
     public String getId() {
+        return id.toString();
+    }
+    
+    /**
+     * Get the ID, which the store and the queue key jobs by
+     */
+    @JsonIgnore
+    public JobId getJobId() {
         return id;
     }
     
@@ -97,14 +152,32 @@ public class Job {
         return maxRetries;
     }
     
+    public int getPriority() {
+        return priority;
+    }
+    
     @JsonProperty("created_at")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return toLocalDateTime(createdAtMillis);
+    }
+    
+    @JsonIgnore
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
     }
     
     @JsonProperty("updated_at")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
     public LocalDateTime getUpdatedAt() {
-        return updatedAt;
+        return toLocalDateTime(updatedAtMillis);
+    }
+    
+    @JsonIgnore
+    public long getUpdatedAtMillis() {
+        return updatedAtMillis;
     }
     
     @JsonProperty("error_message")
@@ -114,41 +187,116 @@ public class Job {
     
     @JsonProperty("next_retry_at")
     public LocalDateTime getNextRetryAt() {
-        return nextRetryAt;
+        return toLocalDateTime(nextRetryAtMillis);
+    }
+    
+    /**
+     * Get the earliest time a failed job is retried, or 0 for right away
+     */
+    @JsonIgnore
+    public long getNextRetryAtMillis() {
+        return nextRetryAtMillis;
+    }
+    
+    /**
+     * Get the worker holding the job's lease while it is processing
+     */
+    @JsonProperty("worker_id")
+    public String getWorkerId() {
+        return workerId;
+    }
+    
+    /**
+     * Get the time the lease runs out unless the worker renews it
+     */
+    @JsonProperty("lease_expires_at")
+    public LocalDateTime getLeaseExpiresAt() {
+        return toLocalDateTime(leaseExpiresAtMillis);
+    }
+    
+    /**
+     * Get the time the lease runs out in epoch milliseconds, or 0 without a lease
+     */
+    @JsonIgnore
+    public long getLeaseExpiresAtMillis() {
+        return leaseExpiresAtMillis;
+    }
+    
+    /**
+     * Get when the job last entered a pending queue, in {@link System#nanoTime()} units
+     */
+    @JsonIgnore
+    public long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+    
+    /**
+     * Record when the job entered a pending queue; only the queue sets this and it is not stored
+     */
+    @JsonIgnore
+    public void setEnqueuedNanos(long enqueuedNanos) {
+        this.enqueuedNanos = enqueuedNanos;
     }
     
     // State modification methods
     public void markAsProcessing() {
+        markAsProcessing(null, 0);
+    }
+    
+    /**
+     * Mark the job as processing under a lease held by a worker
+     *
+     * @param leaseExpiresAtMillis the end of the lease in epoch milliseconds, or 0 for none
+     */
+    public void markAsProcessing(String workerId, long leaseExpiresAtMillis) {
         this.state = JobState.PROCESSING;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAtMillis = CoarseClock.currentTimeMillis();
+        this.workerId = workerId;
+        this.leaseExpiresAtMillis = leaseExpiresAtMillis;
+    }
+    
+    /**
+     * Extend the lease of a processing job to the given epoch milliseconds
+     */
+    public void renewLease(long leaseExpiresAtMillis) {
+        this.leaseExpiresAtMillis = leaseExpiresAtMillis;
     }
     
     public void markAsCompleted() {
         this.state = JobState.COMPLETED;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAtMillis = CoarseClock.currentTimeMillis();
         this.errorMessage = null;
-        this.nextRetryAt = null;
+        this.nextRetryAtMillis = 0;
+        releaseLease();
     }
     
-    public void markAsFailed(String errorMessage, LocalDateTime nextRetryAt) {
+    /**
+     * Mark the job as failed
+     *
+     * @param nextRetryAtMillis the earliest retry in epoch milliseconds, or 0 for right away
+     */
+    public void markAsFailed(String errorMessage, long nextRetryAtMillis) {
         this.state = JobState.FAILED;
         this.attempts++;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAtMillis = CoarseClock.currentTimeMillis();
         this.errorMessage = errorMessage;
-        this.nextRetryAt = nextRetryAt;
+        this.nextRetryAtMillis = nextRetryAtMillis;
+        releaseLease();
     }
     
     public void markAsDead(String errorMessage) {
         this.state = JobState.DEAD;
-        this.updatedAt = LocalDateTime.now();
+        this.updatedAtMillis = CoarseClock.currentTimeMillis();
         this.errorMessage = errorMessage;
-        this.nextRetryAt = null;
+        this.nextRetryAtMillis = 0;
+        releaseLease();
     }
     
     public void resetForRetry() {
         this.state = JobState.PENDING;
-        this.updatedAt = LocalDateTime.now();
-        this.nextRetryAt = null;
+        this.updatedAtMillis = CoarseClock.currentTimeMillis();
+        this.nextRetryAtMillis = 0;
+        releaseLease();
     }
     
     /**
@@ -162,7 +310,30 @@ public class Job {
      * Check if the job is ready for retry (time-based)
      */
     public boolean isReadyForRetry() {
-        return nextRetryAt == null || LocalDateTime.now().isAfter(nextRetryAt);
+        return isReadyForRetry(CoarseClock.currentTimeMillis());
+    }
+    
+    /**
+     * Check if the job is ready for retry at the given epoch milliseconds
+     */
+    public boolean isReadyForRetry(long nowMillis) {
+        return nextRetryAtMillis == 0 || nowMillis >= nextRetryAtMillis;
+    }
+    
+    /**
+     * Check if the lease has run out; a processing job without a lease counts as expired
+     */
+    public boolean isLeaseExpired() {
+        return leaseExpiresAtMillis == 0 || CoarseClock.currentTimeMillis() >= leaseExpiresAtMillis;
+    }
+    
+    /**
+     * Create an exact copy of this job, e.g. for a point-in-time snapshot
+     */
+    public Job copy() {
+        return new Job(this.id, this.command, this.state, this.attempts, 
+                      this.maxRetries, this.priority, this.createdAtMillis, this.updatedAtMillis, 
+                      this.errorMessage, this.nextRetryAtMillis, this.workerId, this.leaseExpiresAtMillis);
     }
     
     /**
@@ -170,28 +341,57 @@ public class Job {
      */
     public Job copyForRetry() {
         Job copy = new Job(this.id, this.command, this.state, this.attempts, 
-                          this.maxRetries, this.createdAt, this.updatedAt, 
-                          this.errorMessage, this.nextRetryAt);
+                          this.maxRetries, this.priority, this.createdAtMillis, this.updatedAtMillis, 
+                          this.errorMessage, this.nextRetryAtMillis, this.workerId, this.leaseExpiresAtMillis);
         copy.resetForRetry();
         return copy;
     }
     
+    /**
+     * Check whether a priority is within the supported range
+     */
+    public static boolean isValidPriority(int priority) {
+        return priority >= MIN_PRIORITY && priority <= MAX_PRIORITY;
+    }
+    
+    private void releaseLease() {
+        this.workerId = null;
+        this.leaseExpiresAtMillis = 0;
+    }
+    
+    private static long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+    
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return epochMillis != 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+                                : null;
+    }
+    
+    private static int checkPriority(int priority) {
+        if (!isValidPriority(priority)) {
+            throw new IllegalArgumentException(String.format("Priority must be between %d and %d",
+                                                             MIN_PRIORITY, MAX_PRIORITY));
+        }
+        return priority;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Job job = (Job) o;
-        return Objects.equals(id, job.id);
+        return id.equals(job.id);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return id.hashCode();
     }
     
     @Override
     public String toString() {
-        return String.format("Job{id='%s', command='%s', state=%s, attempts=%d/%d, createdAt=%s}", 
-                           id, command, state, attempts, maxRetries, createdAt);
+        return String.format("Job{id='%s', command='%s', state=%s, attempts=%d/%d, priority=%d, createdAt=%s}", 
+                           id, command, state, attempts, maxRetries, priority, getCreatedAt());
     }
 }
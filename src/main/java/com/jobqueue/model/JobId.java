@@ -0,0 +1,234 @@
+package com.jobqueue.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Job identifier held as 128 bits in two longs and rendered as text only for display and
+ * serialization.
+ * <p>
+ * New IDs are laid out like a version 7 UUID: 48 bits of epoch milliseconds from the
+ * {@link CoarseClock}, a 12-bit counter and 62 random bits. The counter restarts at a random
+ * value in the lower half of its range each millisecond and counts up for every ID the same
+ * thread makes in that millisecond, borrowing the next millisecond if it runs out, so each
+ * thread's IDs are strictly increasing. IDs therefore sort roughly in creation order across
+ * threads. The random bits come from {@link ThreadLocalRandom}, so no thread contends on a
+ * shared {@code SecureRandom}; the IDs name jobs and are not secrets.
+ * <p>
+ * IDs of existing jobs parse from their text: canonical UUIDs, such as the random ones earlier
+ * versions made, become two longs and render back to the same text, and any other text is
+ * kept as it is. Hash codes equal those of the text, so jobs land in the same store shard as
+ * they did when IDs were strings.
+ */
+public final class JobId implements Comparable<JobId> {
+    private static final int COUNTER_BITS = 12;
+    private static final int COUNTER_MAX = (1 << COUNTER_BITS) - 1;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final int TEXT_LENGTH = 36;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] HEX_VALUES = new byte[128];
+    // Where the 32 hex digits sit in the text, around the dashes
+    private static final int[] DIGIT_POSITIONS = new int[32];
+    
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < HEX_DIGITS.length; i++) {
+            HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+        }
+        for (int i = 0, position = 0; i < DIGIT_POSITIONS.length; i++, position++) {
+            if (position == 8 || position == 13 || position == 18 || position == 23) {
+                position++;
+            }
+            DIGIT_POSITIONS[i] = position;
+        }
+    }
+    
+    private static final ThreadLocal<Sequence> SEQUENCE = ThreadLocal.withInitial(Sequence::new);
+    
+    private final long high;
+    private final long low;
+    // Only for IDs that are not UUIDs
+    private final String text;
+    private int hash;
+    
+    private JobId(long high, long low, String text) {
+        this.high = high;
+        this.low = low;
+        this.text = text;
+    }
+    
+    /**
+     * Make a new time-ordered ID
+     */
+    public static JobId generate() {
+        return SEQUENCE.get().next();
+    }
+    
+    /**
+     * Get the ID with the given 128 bits
+     */
+    public static JobId of(long high, long low) {
+        return new JobId(high, low, null);
+    }
+    
+    /**
+     * Get the ID a text stands for: two longs for a canonical lower-case UUID, the text itself
+     * otherwise
+     */
+    public static JobId parse(String text) {
+        if (text.length() != TEXT_LENGTH || text.charAt(8) != '-' || text.charAt(13) != '-'
+                || text.charAt(18) != '-' || text.charAt(23) != '-') {
+            return new JobId(0, 0, text);
+        }
+        long high = 0;
+        long low = 0;
+        // Any character that is not a lower-case hex digit turns this negative
+        int invalid = 0;
+        for (int i = 0; i < 16; i++) {
+            int value = hexValue(text.charAt(DIGIT_POSITIONS[i]));
+            invalid |= value;
+            high = (high << 4) | (value & 0xF);
+        }
+        for (int i = 16; i < 32; i++) {
+            int value = hexValue(text.charAt(DIGIT_POSITIONS[i]));
+            invalid |= value;
+            low = (low << 4) | (value & 0xF);
+        }
+        return invalid < 0 ? new JobId(0, 0, text) : new JobId(high, low, null);
+    }
+    
+    /**
+     * Check whether this ID is 128 bits rather than free text
+     */
+    public boolean isBinary() {
+        return text == null;
+    }
+    
+    /**
+     * Get the upper 64 bits; 0 for a free-text ID
+     */
+    public long getHigh() {
+        return high;
+    }
+    
+    /**
+     * Get the lower 64 bits; 0 for a free-text ID
+     */
+    public long getLow() {
+        return low;
+    }
+    
+    /**
+     * Get the epoch milliseconds a generated ID was made at; 0 for IDs that carry no time
+     */
+    public long getTimestampMillis() {
+        return text == null && (high & 0xF000L) == VERSION_7 ? high >>> 16 : 0;
+    }
+    
+    /**
+     * Order 128-bit IDs by their unsigned value, which for generated ones is creation order,
+     * and place free-text IDs after them in text order
+     */
+    @Override
+    public int compareTo(JobId other) {
+        if (text != null || other.text != null) {
+            if (text == null) {
+                return -1;
+            }
+            return other.text == null ? 1 : text.compareTo(other.text);
+        }
+        int result = Long.compareUnsigned(high, other.high);
+        return result != 0 ? result : Long.compareUnsigned(low, other.low);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof JobId)) return false;
+        JobId other = (JobId) o;
+        return text == null ? other.text == null && high == other.high && low == other.low
+                            : text.equals(other.text);
+    }
+    
+    /**
+     * Get the hash code of the text, computed without rendering it
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = text != null ? text.hashCode() : textHash();
+            hash = h;
+        }
+        return h;
+    }
+    
+    /**
+     * Render the ID, as canonical UUID text unless it is free text
+     */
+    @Override
+    public String toString() {
+        if (text != null) {
+            return text;
+        }
+        byte[] chars = new byte[TEXT_LENGTH];
+        chars[8] = chars[13] = chars[18] = chars[23] = '-';
+        for (int i = 0; i < DIGIT_POSITIONS.length; i++) {
+            chars[DIGIT_POSITIONS[i]] = HEX_DIGITS[nibble(i)];
+        }
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+    
+    private int textHash() {
+        int h = 0;
+        for (int i = 0; i < 32; i++) {
+            if (i == 8 || i == 12 || i == 16 || i == 20) {
+                h = 31 * h + '-';
+            }
+            h = 31 * h + HEX_DIGITS[nibble(i)];
+        }
+        return h;
+    }
+    
+    /**
+     * Get the value of a lower-case hex digit, or -1
+     */
+    private static int hexValue(char c) {
+        return c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+    }
+    
+    /**
+     * Get the i-th hex digit from the most significant end
+     */
+    private int nibble(int i) {
+        long bits = i < 16 ? high : low;
+        return (int) (bits >>> (60 - 4 * (i & 15))) & 0xF;
+    }
+    
+    /**
+     * Per-thread state of the generator
+     */
+    private static final class Sequence {
+        private long lastMillis;
+        private int counter;
+        
+        JobId next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now = CoarseClock.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                counter = random.nextInt(COUNTER_MAX / 2);
+            } else if (++counter > COUNTER_MAX) {
+                // Out of IDs for this millisecond: take the next one
+                lastMillis++;
+                counter = random.nextInt(COUNTER_MAX / 2);
+            }
+            long high = (lastMillis << 16) | VERSION_7 | counter;
+            long low = VARIANT_RFC | (random.nextLong() & RANDOM_MASK);
+            return new JobId(high, low, null);
+        }
+    }
+}
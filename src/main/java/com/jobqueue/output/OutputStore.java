@@ -0,0 +1,632 @@
+package com.jobqueue.output;
+
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.model.JobId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only, compressed store of job output.
+ * Output is written in Deflate-compressed blocks to numbered segment files, and every record
+ * gets an entry in the segment's index file (job ID, attempt and offset), so a reader finds one
+ * job's records without decompressing anyone else's. Each attempt ends with a finish record
+ * carrying its exit code.
+ * <p>
+ * Every store writes its own segments under a writer ID made of the time it was opened and
+ * 48 random bits ({@code segment-<writer>-N.log} and {@code .idx}), so nodes on any number of
+ * hosts can share the directory without ever appending to the same file. A store always starts
+ * a new segment, so a record torn by a crash is never appended to.
+ * <p>
+ * Readers only follow index entries, which are written after the record they point to, and
+ * keep re-reading the index of every segment that may still grow. Whether a writer is still
+ * appending is read from the directory itself, so it looks the same from every host: a segment
+ * is done once its writer has started a later one, or once its index has not changed for ten
+ * minutes. A writer that has been idle for five minutes starts a new segment before appending
+ * again, which leaves room for the writer's and the reader's clocks to differ by five minutes.
+ * Records found together are returned in attempt order, then in the order their writers
+ * started, so a job retried on another node reads in the order it ran. Segments named
+ * {@code segment-N} by earlier versions, which had one writer, are still read.
+ */
+public class OutputStore implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(OutputStore.class);
+    
+    static final int RECORD_MAGIC = 0x514F5554; // "QOUT"
+    static final byte TYPE_BLOCK = 1;
+    static final byte TYPE_FINISH = 2;
+    
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final long BLOCK_FLUSH_NANOS = 1_000_000_000L;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(?:([0-9a-f]{24})-)?(\\d+)\\.log");
+    private static final long SEGMENT_QUIET_MILLIS = 10 * 60 * 1000L;
+    private static final long WRITER_IDLE_NANOS = SEGMENT_QUIET_MILLIS / 2 * 1_000_000L;
+    private static final long CLOCK_SKEW_MILLIS = 5 * 60 * 1000L;
+    private static final int INDEX_BUFFER_BYTES = 64 * 1024;
+    
+    private final Path directory;
+    // Opening time first, so writers list in the order they started
+    private final String writerId = String.format("%012x%012x", System.currentTimeMillis(),
+                                                  new SecureRandom().nextLong() & 0xFFFF_FFFF_FFFFL);
+    private final Object writeLock = new Object();
+    private FileChannel segment;
+    private FileChannel index;
+    private Segment current;
+    private long lastAppendNanos;
+    
+    public OutputStore(Path directory) {
+        this.directory = directory;
+    }
+    
+    /**
+     * Get the output store directory for a configuration: the configured one, or one next to the data file
+     */
+    public static Path directoryFor(JobQueueConfig config) {
+        return config.getOutputDir() != null ? Paths.get(config.getOutputDir())
+                : Paths.get(config.getDataFile() + ".output");
+    }
+    
+    /**
+     * Get the directory holding the segments
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    /**
+     * Open a stream for one attempt's output. Bytes are compressed a block at a time; a block is
+     * written when it fills up, on {@link OutputStream#flush()} once it is a second old, and on close.
+     */
+    public OutputStream openOutput(String jobId, int attempt) {
+        return new BlockWriter(jobId, attempt);
+    }
+    
+    /**
+     * Record that an attempt has ended
+     *
+     * @param finalAttempt true if the job will not run again
+     */
+    public void finish(String jobId, int attempt, int exitCode, boolean finalAttempt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = writeHeader(bytes, TYPE_FINISH, jobId, attempt);
+        out.writeInt(exitCode);
+        out.writeBoolean(finalAttempt);
+        append(jobId, attempt, bytes.toByteArray());
+    }
+    
+    /**
+     * Read a job's records from the beginning. The cursor picks up records appended after it
+     * reached the end, so it can be polled to follow a running job.
+     */
+    public Cursor cursor(String jobId) {
+        return new Cursor(jobId);
+    }
+    
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            closeSegment();
+        }
+    }
+    
+    private void append(String jobId, int attempt, byte[] record) throws IOException {
+        synchronized (writeLock) {
+            // After a long pause readers may have taken the segment for done
+            long now = System.nanoTime();
+            if (segment == null || segment.size() >= SEGMENT_BYTES || now - lastAppendNanos >= WRITER_IDLE_NANOS) {
+                rollSegment();
+            }
+            lastAppendNanos = now;
+            long offset = segment.size();
+            writeFully(segment, ByteBuffer.wrap(record));
+            
+            // The index entry goes last, so readers never see a record before it is complete
+            byte[] id = jobId.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer entry = ByteBuffer.allocate(2 + id.length + 4 + 8);
+            entry.putShort((short) id.length).put(id).putInt(attempt).putLong(offset).flip();
+            writeFully(index, entry);
+        }
+    }
+    
+    private void rollSegment() throws IOException {
+        closeSegment();
+        Files.createDirectories(directory);
+        current = new Segment(writerId, current != null ? current.number + 1 : 1);
+        segment = FileChannel.open(current.logPath(directory),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        index = FileChannel.open(current.indexPath(directory),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        logger.debug("Opened output segment {}", current);
+    }
+    
+    private void closeSegment() {
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+            if (index != null) {
+                index.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close output segment {}", current, e);
+        }
+        segment = null;
+        index = null;
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        channel.position(channel.size());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    private static DataOutputStream writeHeader(ByteArrayOutputStream bytes, byte type, String jobId, int attempt)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(RECORD_MAGIC);
+        out.writeByte(type);
+        out.writeUTF(jobId);
+        out.writeInt(attempt);
+        out.writeLong(System.currentTimeMillis());
+        return out;
+    }
+    
+    /**
+     * List the segments in the directory: earlier versions' segments first, then each writer's in order
+     */
+    static List<Segment> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(match -> new Segment(match.group(1), Long.parseLong(match.group(2))))
+                    .sorted()
+                    .toList();
+        }
+    }
+    
+    /**
+     * One segment file and its index. Segments written by earlier versions have no writer ID.
+     */
+    static final class Segment implements Comparable<Segment> {
+        private static final Comparator<Segment> ORDER = Comparator
+                .comparing((Segment s) -> s.writer, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparingLong(s -> s.number);
+        
+        private final String writer;
+        private final long number;
+        
+        Segment(String writer, long number) {
+            this.writer = writer;
+            this.number = number;
+        }
+        
+        boolean isLegacy() {
+            return writer == null;
+        }
+        
+        boolean sameWriter(Segment other) {
+            return Objects.equals(writer, other.writer);
+        }
+        
+        Path logPath(Path directory) {
+            return directory.resolve(this + ".log");
+        }
+        
+        Path indexPath(Path directory) {
+            return directory.resolve(this + ".idx");
+        }
+        
+        @Override
+        public int compareTo(Segment other) {
+            return ORDER.compare(this, other);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Segment)) {
+                return false;
+            }
+            Segment other = (Segment) o;
+            return Objects.equals(writer, other.writer) && number == other.number;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(writer) * 31 + Long.hashCode(number);
+        }
+        
+        @Override
+        public String toString() {
+            return isLegacy() ? String.format("%s%06d", SEGMENT_PREFIX, number)
+                    : String.format("%s%s-%06d", SEGMENT_PREFIX, writer, number);
+        }
+    }
+    
+    /**
+     * Buffers one attempt's output and appends it as compressed blocks
+     */
+    private class BlockWriter extends OutputStream {
+        private final String jobId;
+        private final int attempt;
+        private final byte[] block = new byte[BLOCK_BYTES];
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private int blockLength;
+        private long blockStartNanos;
+        private boolean closed;
+        
+        BlockWriter(String jobId, int attempt) {
+            this.jobId = jobId;
+            this.attempt = attempt;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (blockLength == 0) {
+                    blockStartNanos = System.nanoTime();
+                }
+                int n = Math.min(length, block.length - blockLength);
+                System.arraycopy(bytes, offset, block, blockLength, n);
+                blockLength += n;
+                offset += n;
+                length -= n;
+                if (blockLength == block.length) {
+                    writeBlock();
+                }
+            }
+        }
+        
+        /**
+         * Write the pending block if it has waited a second; called often by an idle producer
+         */
+        @Override
+        public void flush() throws IOException {
+            if (blockLength > 0 && System.nanoTime() - blockStartNanos >= BLOCK_FLUSH_NANOS) {
+                writeBlock();
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (blockLength > 0) {
+                    writeBlock();
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        
+        private void writeBlock() throws IOException {
+            deflater.reset();
+            deflater.setInput(block, 0, blockLength);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(blockLength / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                compressed.write(chunk, 0, n);
+            }
+            
+            CRC32 crc = new CRC32();
+            crc.update(block, 0, blockLength);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(compressed.size() + 64);
+            DataOutputStream out = writeHeader(bytes, TYPE_BLOCK, jobId, attempt);
+            out.writeInt(blockLength);
+            out.writeInt((int) crc.getValue());
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+            append(jobId, attempt, bytes.toByteArray());
+            blockLength = 0;
+        }
+    }
+    
+    /**
+     * One record of a job's output
+     */
+    public static class Record {
+        private final int attempt;
+        private final long timestamp;
+        private final byte[] data;
+        private final boolean finish;
+        private final int exitCode;
+        private final boolean finalAttempt;
+        
+        Record(int attempt, long timestamp, byte[] data, boolean finish, int exitCode, boolean finalAttempt) {
+            this.attempt = attempt;
+            this.timestamp = timestamp;
+            this.data = data;
+            this.finish = finish;
+            this.exitCode = exitCode;
+            this.finalAttempt = finalAttempt;
+        }
+        
+        /**
+         * Get the attempt the record belongs to, counting from 0
+         */
+        public int getAttempt() {
+            return attempt;
+        }
+        
+        public long getTimestamp() {
+            return timestamp;
+        }
+        
+        /**
+         * Get the decompressed output, empty for a finish record
+         */
+        public byte[] getData() {
+            return data;
+        }
+        
+        /**
+         * Check whether this record marks the end of an attempt
+         */
+        public boolean isFinish() {
+            return finish;
+        }
+        
+        public int getExitCode() {
+            return exitCode;
+        }
+        
+        /**
+         * Check whether the job will not run again after this attempt
+         */
+        public boolean isFinalAttempt() {
+            return finalAttempt;
+        }
+    }
+    
+    /**
+     * Where one of a job's records is
+     */
+    private static final class Location {
+        private final Segment segment;
+        private final int attempt;
+        private final long offset;
+        
+        Location(Segment segment, int attempt, long offset) {
+            this.segment = segment;
+            this.attempt = attempt;
+            this.offset = offset;
+        }
+    }
+    
+    /**
+     * Walks one job's records through the segment indexes. Index entries are matched on the
+     * job ID's bytes, and segments that were done before the job was created are not read at
+     * all, so a lookup reads the indexes written since then rather than all stored output.
+     * Close the cursor to release the segment it last read from.
+     */
+    public class Cursor implements Closeable {
+        private final byte[] jobId;
+        private final long createdMillis;
+        private final Deque<Location> pending = new ArrayDeque<>();
+        private final Map<Segment, Long> indexPositions = new HashMap<>();
+        private final Set<Segment> sealed = new HashSet<>();
+        private byte[] entryId = new byte[64];
+        private Segment openSegment;
+        private FileChannel openChannel;
+        
+        Cursor(String jobId) {
+            this.jobId = jobId.getBytes(StandardCharsets.UTF_8);
+            this.createdMillis = JobId.parse(jobId).getTimestampMillis();
+        }
+        
+        /**
+         * Get the next record, or null if none has been written yet
+         */
+        public Record next() throws IOException {
+            if (pending.isEmpty() && !scanIndexes()) {
+                return null;
+            }
+            Location location = pending.poll();
+            return readRecord(location.segment, location.offset);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (openChannel != null) {
+                openChannel.close();
+                openChannel = null;
+                openSegment = null;
+            }
+        }
+        
+        /**
+         * Read new entries from every index that may have grown since the last scan
+         *
+         * @return false if there was nothing new
+         */
+        private boolean scanIndexes() throws IOException {
+            List<Segment> segments = listSegments(directory);
+            List<Location> found = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                if (sealed.contains(segment)) {
+                    continue;
+                }
+                // A segment stops growing once its writer has moved on or gone quiet; decide that
+                // before reading it, so this last read catches its final entries
+                long modified = lastModified(segment);
+                boolean done = (i + 1 < segments.size()
+                                && (segment.isLegacy() || segment.sameWriter(segments.get(i + 1))))
+                        || now - modified >= SEGMENT_QUIET_MILLIS;
+                // Nothing in a segment done before the job was created can be the job's
+                if (!done || createdMillis == 0 || modified >= createdMillis - CLOCK_SKEW_MILLIS) {
+                    readIndexEntries(segment, found);
+                }
+                if (done) {
+                    sealed.add(segment);
+                    indexPositions.remove(segment);
+                }
+            }
+            // Attempts of one job may run on different writers; the sort is stable within a writer
+            found.sort(Comparator.comparingInt(location -> location.attempt));
+            pending.addAll(found);
+            return !found.isEmpty();
+        }
+        
+        /**
+         * Get when a segment's index last changed; far in the future if its writer has yet to create it
+         */
+        private long lastModified(Segment segment) throws IOException {
+            try {
+                return Files.getLastModifiedTime(segment.indexPath(directory)).toMillis();
+            } catch (NoSuchFileException e) {
+                return Long.MAX_VALUE;
+            }
+        }
+        
+        private void readIndexEntries(Segment segment, List<Location> found) throws IOException {
+            Path indexFile = segment.indexPath(directory);
+            if (!Files.exists(indexFile)) {
+                return;
+            }
+            long position = indexPositions.getOrDefault(segment, 0L);
+            try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+                if (channel.size() <= position) {
+                    return;
+                }
+                channel.position(position);
+                DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(Channels.newInputStream(channel), INDEX_BUFFER_BYTES));
+                while (true) {
+                    int length;
+                    int attempt;
+                    long offset;
+                    try {
+                        length = in.readUnsignedShort();
+                        if (length > entryId.length) {
+                            entryId = new byte[length];
+                        }
+                        in.readFully(entryId, 0, length);
+                        // Earlier versions' entries carry no attempt, and their records came from one writer
+                        attempt = segment.isLegacy() ? -1 : in.readInt();
+                        offset = in.readLong();
+                    } catch (EOFException e) {
+                        // A partly written entry is picked up on the next scan
+                        break;
+                    }
+                    position += 2 + length + (segment.isLegacy() ? 0 : 4) + 8;
+                    if (Arrays.equals(entryId, 0, length, jobId, 0, jobId.length)) {
+                        found.add(new Location(segment, attempt, offset));
+                    }
+                }
+            }
+            indexPositions.put(segment, position);
+        }
+        
+        private Record readRecord(Segment segment, long offset) throws IOException {
+            // A job's records mostly sit in a few segments, so keep the last one open
+            if (!segment.equals(openSegment)) {
+                close();
+                openChannel = FileChannel.open(segment.logPath(directory), StandardOpenOption.READ);
+                openSegment = segment;
+            }
+            openChannel.position(offset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(openChannel)));
+            if (in.readInt() != RECORD_MAGIC) {
+                throw new IOException("Corrupt output record in " + segment + " at " + offset);
+            }
+            byte type = in.readByte();
+            in.readUTF();
+            int attempt = in.readInt();
+            long timestamp = in.readLong();
+            if (type == TYPE_FINISH) {
+                return new Record(attempt, timestamp, new byte[0], true, in.readInt(), in.readBoolean());
+            }
+            
+            int length = in.readInt();
+            int expectedCrc = in.readInt();
+            byte[] compressed = new byte[in.readInt()];
+            in.readFully(compressed);
+            byte[] data = inflate(compressed, length);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Checksum mismatch in output " + segment + " at " + offset);
+            }
+            return new Record(attempt, timestamp, data, false, 0, false);
+        }
+        
+        private byte[] inflate(byte[] compressed, int length) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                byte[] data = new byte[length];
+                int read = 0;
+                while (read < length && !inflater.finished()) {
+                    int n = inflater.inflate(data, read, length - read);
+                    if (n == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    read += n;
+                }
+                if (read != length) {
+                    throw new IOException("Truncated output block");
+                }
+                return data;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt output block", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
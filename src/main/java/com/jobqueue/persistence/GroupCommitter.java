@@ -0,0 +1,152 @@
+package com.jobqueue.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit pipeline for durable writes.
+ * Any number of threads submit entries; a single flusher thread writes them
+ * in batches and completes each caller's future once its batch is durable.
+ */
+public class GroupCommitter<T> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitter.class);
+    
+    private final BlockingQueue<PendingCommit<T>> commitQueue = new LinkedBlockingQueue<>();
+    private final BatchWriter<T> writer;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final Thread flusher;
+    private volatile boolean running = true;
+    
+    /**
+     * Writes and syncs one batch of entries
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> entries) throws IOException;
+    }
+    
+    public GroupCommitter(String name, BatchWriter<T> writer, int maxBatchSize, long maxLingerMillis) {
+        this.writer = writer;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLingerMillis));
+        this.flusher = new Thread(this::runFlusher, name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+    
+    /**
+     * Queue an entry for the next batch.
+     * The returned future completes when the entry is durable.
+     */
+    public CompletableFuture<Void> submit(T entry) {
+        if (!running) {
+            throw new IllegalStateException("Group committer is closed");
+        }
+        PendingCommit<T> commit = new PendingCommit<>(entry);
+        commitQueue.add(commit);
+        // A close() racing with this submit may have let the flusher exit before the entry
+        // arrived; take it back and fail it rather than leave its future pending forever
+        if (!running && commitQueue.remove(commit)) {
+            commit.future.completeExceptionally(new IllegalStateException("Group committer is closed"));
+        }
+        return commit.future;
+    }
+    
+    /**
+     * Flush everything already submitted and stop the flusher thread
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for {} to finish", flusher.getName());
+        }
+    }
+    
+    private void runFlusher() {
+        List<PendingCommit<T>> batch = new ArrayList<>(maxBatchSize);
+        
+        while (running || !commitQueue.isEmpty()) {
+            try {
+                PendingCommit<T> first = commitQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                
+                batch.add(first);
+                commitQueue.drainTo(batch, maxBatchSize - batch.size());
+                
+                // Optionally wait a little longer so more writers can share the sync
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < maxBatchSize && maxLingerNanos > 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingCommit<T> next = commitQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    commitQueue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                
+                flush(batch);
+            
+            } catch (InterruptedException e) {
+                // Keep draining; callers are blocked on their futures
+                logger.debug("{} interrupted", flusher.getName());
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void flush(List<PendingCommit<T>> batch) {
+        List<T> entries = new ArrayList<>(batch.size());
+        for (PendingCommit<T> commit : batch) {
+            entries.add(commit.entry);
+        }
+        
+        try {
+            writer.write(entries);
+            for (PendingCommit<T> commit : batch) {
+                commit.future.complete(null);
+            }
+            logger.debug("Committed batch of {} entries", entries.size());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to commit batch of {} entries", entries.size(), e);
+            for (PendingCommit<T> commit : batch) {
+                commit.future.completeExceptionally(e);
+            }
+        }
+    }
+    
+    /**
+     * An entry waiting for its batch to become durable
+     */
+    private static class PendingCommit<T> {
+        private final T entry;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        PendingCommit(T entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.jobqueue.persistence;
+
+import com.jobqueue.model.Job;
+import com.jobqueue.model.JobId;
+import com.jobqueue.model.JobState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary encoding of jobs.
+ * A record is a state byte, a presence byte for the optional fields, varint counters
+ * (the priority only when it differs from the default),
+ * zigzag varint epoch-millis timestamps and length-prefixed UTF-8 strings.
+ * A job file is a magic number and a format version followed by length-prefixed records,
+ * so it can be told apart from a JSON job file by its first bytes.
+ * UUID job IDs are stored as their 16 bytes, other IDs as strings.
+ * Timestamps are epoch milliseconds. Older versions are still read: version 2 stored every
+ * ID as a string, and version 1 also stored local wall-clock time as if it were UTC, which
+ * is converted through the system time zone.
+ */
+public class JobCodec {
+    public static final int FILE_MAGIC = 0x514A4F42; // "QJOB"
+    public static final byte FORMAT_VERSION = 3;
+    public static final byte TEXT_ID_FORMAT_VERSION = 2;
+    public static final byte WALL_CLOCK_FORMAT_VERSION = 1;
+    
+    private static final int FILE_HEADER_SIZE = 5;
+    
+    private static final int HAS_CREATED_AT = 1;
+    private static final int HAS_UPDATED_AT = 1 << 1;
+    private static final int HAS_ERROR_MESSAGE = 1 << 2;
+    private static final int HAS_NEXT_RETRY_AT = 1 << 3;
+    private static final int HAS_PRIORITY = 1 << 4;
+    private static final int HAS_WORKER_ID = 1 << 5;
+    private static final int HAS_LEASE_EXPIRES_AT = 1 << 6;
+    // Since version 3; earlier versions never set it
+    private static final int BINARY_ID = 1 << 7;
+    
+    // The ordinal of each state is part of the format: only ever append new states
+    private static final JobState[] STATES = JobState.values();
+    
+    /**
+     * Encode one job as a record
+     */
+    public byte[] encode(Job job) {
+        Output out = new Output(64 + job.getCommand().length());
+        writeRecord(out, job);
+        return out.toByteArray();
+    }
+    
+    /**
+     * Decode one record written by {@link #encode(Job)}
+     */
+    public Job decode(byte[] record) throws IOException {
+        return decode(ByteBuffer.wrap(record), FORMAT_VERSION);
+    }
+    
+    /**
+     * Decode one record of the given format version, advancing the buffer past it
+     */
+    public Job decode(ByteBuffer buffer, int version) throws IOException {
+        if (version < WALL_CLOCK_FORMAT_VERSION || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported job format version " + version);
+        }
+        try {
+            int stateCode = buffer.get() & 0xFF;
+            if (stateCode >= STATES.length) {
+                throw new IOException("Unknown job state code " + stateCode);
+            }
+            int present = buffer.get() & 0xFF;
+            if ((present & BINARY_ID) != 0 && version < FORMAT_VERSION) {
+                throw new IOException("Binary job ID in a version " + version + " record");
+            }
+            int attempts = (int) readVarLong(buffer);
+            int maxRetries = (int) readVarLong(buffer);
+            int priority = (present & HAS_PRIORITY) != 0 ? (int) readVarLong(buffer) : Job.DEFAULT_PRIORITY;
+            long createdAt = (present & HAS_CREATED_AT) != 0 ? readTime(buffer, version) : 0;
+            long updatedAt = (present & HAS_UPDATED_AT) != 0 ? readTime(buffer, version) : 0;
+            long nextRetryAt = (present & HAS_NEXT_RETRY_AT) != 0 ? readTime(buffer, version) : 0;
+            long leaseExpiresAt = (present & HAS_LEASE_EXPIRES_AT) != 0 ? readTime(buffer, version) : 0;
+            JobId id = (present & BINARY_ID) != 0 ? JobId.of(buffer.getLong(), buffer.getLong())
+                                                  : JobId.parse(readString(buffer));
+            String command = readString(buffer);
+            String errorMessage = (present & HAS_ERROR_MESSAGE) != 0 ? readString(buffer) : null;
+            String workerId = (present & HAS_WORKER_ID) != 0 ? readString(buffer) : null;
+            
+            return new Job(id, command, STATES[stateCode], attempts, maxRetries, priority,
+                           createdAt, updatedAt, errorMessage, nextRetryAt, workerId, leaseExpiresAt);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated job record", e);
+        }
+    }
+    
+    /**
+     * Write a complete job file: header, then one length-prefixed record per job
+     */
+    public void writeFile(OutputStream stream, Collection<Job> jobs) throws IOException {
+        OutputStream out = new BufferedOutputStream(stream, 64 * 1024);
+        out.write(new byte[] {
+            (byte) (FILE_MAGIC >>> 24), (byte) (FILE_MAGIC >>> 16),
+            (byte) (FILE_MAGIC >>> 8), (byte) FILE_MAGIC, FORMAT_VERSION
+        });
+        
+        Output record = new Output(256);
+        Output length = new Output(5);
+        for (Job job : jobs) {
+            record.reset();
+            writeRecord(record, job);
+            length.reset();
+            length.writeVarLong(record.size());
+            out.write(length.buffer, 0, length.size());
+            out.write(record.buffer, 0, record.size());
+        }
+        out.flush();
+    }
+    
+    /**
+     * Read every record of a job file into the sink and return the number read
+     */
+    public int readFile(InputStream stream, Consumer<Job> sink) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+        int magic;
+        try {
+            magic = in.readInt();
+        } catch (EOFException e) {
+            return 0;
+        }
+        if (magic != FILE_MAGIC) {
+            throw new IOException("Not a binary job file");
+        }
+        int version = in.readUnsignedByte();
+        
+        byte[] record = new byte[256];
+        int count = 0;
+        int length;
+        while ((length = readVarInt(in)) >= 0) {
+            if (length > record.length) {
+                record = new byte[Math.max(length, record.length * 2)];
+            }
+            in.readFully(record, 0, length);
+            sink.accept(decode(ByteBuffer.wrap(record, 0, length), version));
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * Check whether a file starts with the binary job file header
+     */
+    public static boolean isBinaryFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(FILE_HEADER_SIZE);
+            return header.length == FILE_HEADER_SIZE
+                    && ByteBuffer.wrap(header).getInt() == FILE_MAGIC;
+        }
+    }
+    
+    private void writeRecord(Output out, Job job) {
+        int present = 0;
+        if (job.getCreatedAtMillis() != 0) present |= HAS_CREATED_AT;
+        if (job.getUpdatedAtMillis() != 0) present |= HAS_UPDATED_AT;
+        if (job.getErrorMessage() != null) present |= HAS_ERROR_MESSAGE;
+        if (job.getNextRetryAtMillis() != 0) present |= HAS_NEXT_RETRY_AT;
+        if (job.getPriority() != Job.DEFAULT_PRIORITY) present |= HAS_PRIORITY;
+        if (job.getWorkerId() != null) present |= HAS_WORKER_ID;
+        if (job.getLeaseExpiresAtMillis() != 0) present |= HAS_LEASE_EXPIRES_AT;
+        if (job.getJobId().isBinary()) present |= BINARY_ID;
+        
+        out.writeByte(job.getState().ordinal());
+        out.writeByte(present);
+        out.writeVarLong(job.getAttempts());
+        out.writeVarLong(job.getMaxRetries());
+        if (job.getPriority() != Job.DEFAULT_PRIORITY) out.writeVarLong(job.getPriority());
+        if (job.getCreatedAtMillis() != 0) writeTime(out, job.getCreatedAtMillis());
+        if (job.getUpdatedAtMillis() != 0) writeTime(out, job.getUpdatedAtMillis());
+        if (job.getNextRetryAtMillis() != 0) writeTime(out, job.getNextRetryAtMillis());
+        if (job.getLeaseExpiresAtMillis() != 0) writeTime(out, job.getLeaseExpiresAtMillis());
+        if (job.getJobId().isBinary()) {
+            out.writeLong(job.getJobId().getHigh());
+            out.writeLong(job.getJobId().getLow());
+        } else {
+            out.writeString(job.getId());
+        }
+        out.writeString(job.getCommand());
+        if (job.getErrorMessage() != null) out.writeString(job.getErrorMessage());
+        if (job.getWorkerId() != null) out.writeString(job.getWorkerId());
+    }
+    
+    private void writeTime(Output out, long millis) {
+        out.writeVarLong((millis << 1) ^ (millis >> 63));
+    }
+    
+    private long readTime(ByteBuffer buffer, int version) throws IOException {
+        long zigzag = readVarLong(buffer);
+        long millis = (zigzag >>> 1) ^ -(zigzag & 1);
+        if (version == WALL_CLOCK_FORMAT_VERSION) {
+            LocalDateTime wallClock = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+            return wallClock.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return millis;
+    }
+    
+    private String readString(ByteBuffer buffer) throws IOException {
+        long length = readVarLong(buffer);
+        if (length > buffer.remaining()) {
+            throw new IOException("Truncated job record");
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                               (int) length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + (int) length);
+        } else {
+            byte[] bytes = new byte[(int) length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+    
+    private long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in job record");
+    }
+    
+    /**
+     * Read a record length, or -1 at a clean end of file
+     */
+    private int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Truncated record length");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed record length");
+    }
+    
+    /**
+     * Growable byte buffer for building records
+     */
+    private static class Output {
+        private byte[] buffer;
+        private int size;
+        
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+        
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+        
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+        
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+        
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        void reset() {
+            size = 0;
+        }
+        
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+        
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(size + extra, buffer.length * 2));
+            }
+        }
+    }
+}
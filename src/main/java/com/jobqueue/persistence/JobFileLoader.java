@@ -0,0 +1,222 @@
+package com.jobqueue.persistence;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.jobqueue.model.Job;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streams jobs out of a job file one record at a time.
+ * Binary job files are recognised by their header and decoded sequentially.
+ * For JSON files the sequential mode binds each array element straight from the file; the parallel mode
+ * memory-maps the file, finds the element boundaries in one cheap pass and binds
+ * contiguous ranges of elements on several threads.
+ */
+public class JobFileLoader {
+    private static final Logger logger = LoggerFactory.getLogger(JobFileLoader.class);
+    
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    
+    private final ObjectMapper objectMapper;
+    private final ObjectReader jobReader;
+    private final JobCodec jobCodec = new JobCodec();
+    private final int threads;
+    
+    public JobFileLoader(ObjectMapper objectMapper, int threads) {
+        this.objectMapper = objectMapper;
+        this.jobReader = objectMapper.readerFor(Job.class);
+        this.threads = Math.max(1, threads);
+    }
+    
+    /**
+     * Load every job in the file into the sink and return the number loaded.
+     * The sink must be thread-safe when more than one thread is configured.
+     */
+    public int load(Path file, Consumer<Job> sink) throws IOException {
+        if (JobCodec.isBinaryFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                return jobCodec.readFile(in, sink);
+            }
+        }
+        
+        long size = Files.size(file);
+        if (threads > 1 && size > 0 && size <= Integer.MAX_VALUE) {
+            return loadParallel(file, size, sink);
+        }
+        return loadSequential(file, sink);
+    }
+    
+    /**
+     * Reset the peak usage of the heap memory pools
+     */
+    public static void resetPeakHeapUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+    
+    /**
+     * Get the peak heap usage since the last reset, summed over the heap memory pools
+     */
+    public static long getPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+    
+    private int loadSequential(Path file, Consumer<Job> sink) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            return readArray(in, sink);
+        }
+    }
+    
+    private int loadParallel(Path file, long size, Consumer<Job> sink) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        
+        // First pass: only tokenize, recording where each array element starts and ends
+        long[] bounds = new long[1024];
+        int count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(
+                new ByteBufferBackedInputStream(mapped.duplicate()))) {
+            if (!expectArray(parser)) {
+                return 0;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                if (2 * count + 2 > bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                bounds[2 * count] = parser.getTokenLocation().getByteOffset();
+                parser.skipChildren();
+                bounds[2 * count + 1] = parser.getCurrentLocation().getByteOffset();
+                count++;
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IOException("Unexpected token " + token + " in " + file);
+            }
+        }
+        
+        if (count == 0) {
+            return 0;
+        }
+        
+        // Second pass: bind contiguous ranges of elements on the worker threads
+        int chunks = Math.min(count, threads * CHUNKS_PER_THREAD);
+        int perChunk = (count + chunks - 1) / chunks;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "JobLoader");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int first = 0; first < count; first += perChunk) {
+                int last = Math.min(count, first + perChunk) - 1;
+                int start = (int) bounds[2 * first];
+                int end = (int) bounds[2 * last + 1];
+                results.add(executor.submit(() -> readRange(mapped, start, end, sink)));
+            }
+            
+            int loaded = 0;
+            for (Future<Integer> result : results) {
+                loaded += result.get();
+            }
+            logger.debug("Loaded {} jobs from {} in {} chunks on {} threads", loaded, file, results.size(), threads);
+            return loaded;
+        
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + file, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to load " + file, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Bind the elements between two byte offsets by parsing them as their own array
+     */
+    private int readRange(MappedByteBuffer mapped, int start, int end, Consumer<Job> sink) throws IOException {
+        ByteBuffer slice = mapped.duplicate();
+        slice.position(start).limit(end);
+        InputStream in = new SequenceInputStream(new ByteArrayInputStream(ARRAY_START),
+                new SequenceInputStream(new ByteBufferBackedInputStream(slice.slice()),
+                                        new ByteArrayInputStream(ARRAY_END)));
+        return readArray(in, sink);
+    }
+    
+    private int readArray(InputStream in, Consumer<Job> sink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (!expectArray(parser)) {
+                return 0;
+            }
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                sink.accept(jobReader.readValue(parser));
+                count++;
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IOException("Unexpected token " + token + " after " + count + " jobs");
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * Position the parser on the opening bracket; an empty file holds no jobs
+     */
+    private boolean expectArray(JsonParser parser) throws IOException {
+        JsonToken first = parser.nextToken();
+        if (first == null) {
+            return false;
+        }
+        if (first != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a JSON array of jobs but found " + first);
+        }
+        return true;
+    }
+}
@@ -1,9 +1,15 @@
 package com.jobqueue.persistence;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.metrics.LatencyHistogram;
+import com.jobqueue.metrics.MetricsRegistry;
+import com.jobqueue.model.CoarseClock;
 import com.jobqueue.model.Job;
+import com.jobqueue.model.JobId;
 import com.jobqueue.model.JobState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,59 +21,115 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Manages persistence of jobs to JSON file storage.
  * Provides thread-safe operations for job storage and retrieval.
+ * Files are written in the configured storage format (JSON or the compact binary
+ * {@link JobCodec} format) and read in either, so the format can change under existing data.
+ * In WAL mode every change is appended to a write-ahead log next to the data file
+ * instead of rewriting the whole file; the JSON format stays available for import and export.
+ * Log appends go through a group committer: callers enqueue their record while holding the
+ * write lock, then wait for durability after releasing it, so concurrent writers share one sync.
+ * Once the log passes the configured size or record count, a background compactor writes a
+ * snapshot and drops the segments it covers.
+ * <p>
+ * The store is split into one or more {@link StoreShard}s by a hash of the job ID. Each shard
+ * has its own lock, data file and log, so writes to different shards run in parallel and
+ * reads of one shard never wait on writes to another; queries over all jobs visit every shard
+ * and merge the results. With one shard the data file is used as is; with more, shard K lives
+ * in {@code <data file>.shard-K-of-N} and the shard count is recorded next to them, so that
+ * jobs are redistributed when the count changes.
  */
 public class PersistenceManager {
     private static final Logger logger = LoggerFactory.getLogger(PersistenceManager.class);
+    public static final int MAX_SHARDS = 256;
     
     private final ObjectMapper objectMapper;
     private final String dataFile;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Map<String, Job> jobCache = new ConcurrentHashMap<>();
+    private final StorageMode storageMode;
+    private final StorageFormat storageFormat;
+    private final JobFileLoader jobFileLoader;
+    private final JobCodec jobCodec = new JobCodec();
+    private final StoreShard[] shards;
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
     
     public PersistenceManager(String dataFile) {
-        this.dataFile = dataFile;
+        this(new JobQueueConfig().withDataFile(dataFile));
+    }
+    
+    public PersistenceManager(JobQueueConfig config) {
+        this.dataFile = config.getDataFile();
+        this.storageMode = StorageMode.fromString(config.getStorageMode());
+        this.storageFormat = StorageFormat.fromString(config.getStorageFormat());
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.jobFileLoader = new JobFileLoader(objectMapper,
+                config.isParallelLoad() ? Runtime.getRuntime().availableProcessors() : 1);
+        
+        int shardCount = config.getStoreShards();
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Store shard count must be between 1 and " + MAX_SHARDS
+                                               + ": " + shardCount);
+        }
+        this.shards = new StoreShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new StoreShard(config, shardDataFile(dataFile, i, shardCount),
+                                       shardCount == 1 ? "" : "-" + i, objectMapper, jobFileLoader);
+        }
         
-        // Load existing jobs into cache
-        loadJobs();
+        int previousShardCount = readShardCount();
+        if (previousShardCount != shardCount) {
+            reshard(config, previousShardCount);
+        }
     }
     
     /**
      * Save a job to storage
      */
     public void saveJob(Job job) {
-        lock.writeLock().lock();
-        try {
-            jobCache.put(job.getId(), job);
-            persistToFile();
-            logger.debug("Job saved: {}", job.getId());
-        } finally {
-            lock.writeLock().unlock();
-        }
+        long start = System.nanoTime();
+        StoreShard.awaitCommit(shardFor(job.getJobId()).saveJobs(List.of(job), StoreOperation.SAVE_JOB));
+        writeLatency.recordSince(start);
+        logger.debug("Job saved: {}", job.getJobId());
     }
     
     /**
-     * Save multiple jobs to storage
+     * Save multiple jobs to storage. Jobs on different shards are written in parallel,
+     * each shard's part as one write.
      */
     public void saveJobs(Collection<Job> jobs) {
-        lock.writeLock().lock();
-        try {
+        long start = System.nanoTime();
+        writeToShards(jobs);
+        writeLatency.recordSince(start);
+        logger.debug("Saved {} jobs to storage", jobs.size());
+    }
+    
+    /**
+     * Write jobs to their shards and wait until they are durable; also used while the
+     * constructor reshards, so it must not call anything a subclass could override
+     */
+    private void writeToShards(Collection<Job> jobs) {
+        if (shards.length == 1) {
+            StoreShard.awaitCommit(shards[0].saveJobs(jobs, StoreOperation.SAVE_JOBS));
+        } else {
+            List<List<Job>> byShard = new ArrayList<>(shards.length);
+            for (int i = 0; i < shards.length; i++) {
+                byShard.add(new ArrayList<>());
+            }
             for (Job job : jobs) {
-                jobCache.put(job.getId(), job);
+                byShard.get(shardIndex(job.getJobId())).add(job);
+            }
+            List<CompletableFuture<Void>> commits = new ArrayList<>(shards.length);
+            for (int i = 0; i < shards.length; i++) {
+                if (!byShard.get(i).isEmpty()) {
+                    commits.add(shards[i].saveJobs(byShard.get(i), StoreOperation.SAVE_JOBS));
+                }
             }
-            persistToFile();
-            logger.debug("Saved {} jobs to storage", jobs.size());
-        } finally {
-            lock.writeLock().unlock();
+            commits.forEach(StoreShard::awaitCommit);
         }
     }
     
@@ -75,55 +137,79 @@ public class PersistenceManager {
      * Get a job by ID
      */
     public Optional<Job> getJob(String jobId) {
-        lock.readLock().lock();
-        try {
-            return Optional.ofNullable(jobCache.get(jobId));
-        } finally {
-            lock.readLock().unlock();
-        }
+        return getJob(JobId.parse(jobId));
+    }
+    
+    /**
+     * Get a job by ID
+     */
+    public Optional<Job> getJob(JobId jobId) {
+        return Optional.ofNullable(shardFor(jobId).getJob(jobId));
     }
     
     /**
-     * Get all jobs
+     * Get all jobs in ID order, which for generated IDs is roughly the order they were created
      */
     public List<Job> getAllJobs() {
-        lock.readLock().lock();
-        try {
-            return new ArrayList<>(jobCache.values());
-        } finally {
-            lock.readLock().unlock();
+        if (shards.length == 1) {
+            List<Job> jobs = new ArrayList<>();
+            shards[0].collectAllJobs(jobs);
+            return jobs;
         }
+        
+        // Each shard lists its jobs in ID order; merge the lists
+        List<List<Job>> byShard = new ArrayList<>(shards.length);
+        int total = 0;
+        for (StoreShard shard : shards) {
+            List<Job> jobs = new ArrayList<>();
+            shard.collectAllJobs(jobs);
+            byShard.add(jobs);
+            total += jobs.size();
+        }
+        List<Job> merged = new ArrayList<>(total);
+        int[] positions = new int[byShard.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(byShard.size(),
+                Comparator.comparing(shard -> byShard.get(shard).get(positions[shard]).getJobId()));
+        for (int i = 0; i < byShard.size(); i++) {
+            if (!byShard.get(i).isEmpty()) {
+                heads.add(i);
+            }
+        }
+        while (!heads.isEmpty()) {
+            int shard = heads.poll();
+            merged.add(byShard.get(shard).get(positions[shard]++));
+            if (positions[shard] < byShard.get(shard).size()) {
+                heads.add(shard);
+            }
+        }
+        return merged;
     }
     
     /**
-     * Get jobs by state
+     * Get jobs by state, oldest first
      */
     public List<Job> getJobsByState(JobState state) {
-        lock.readLock().lock();
-        try {
-            return jobCache.values().stream()
-                    .filter(job -> job.getState() == state)
-                    .collect(Collectors.toList());
-        } finally {
-            lock.readLock().unlock();
+        List<Job> jobs = new ArrayList<>();
+        for (StoreShard shard : shards) {
+            shard.collectJobsByState(state, jobs);
         }
+        if (shards.length > 1) {
+            // Each shard keeps its jobs in the order they entered the state; merge by age
+            jobs.sort(Comparator.comparingLong(Job::getCreatedAtMillis));
+        }
+        return jobs;
     }
     
     /**
      * Get jobs ready for retry
      */
     public List<Job> getJobsReadyForRetry() {
-        lock.readLock().lock();
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            return jobCache.values().stream()
-                    .filter(job -> job.getState() == JobState.FAILED)
-                    .filter(job -> job.canRetry())
-                    .filter(job -> job.getNextRetryAt() == null || now.isAfter(job.getNextRetryAt()))
-                    .collect(Collectors.toList());
-        } finally {
-            lock.readLock().unlock();
+        long now = CoarseClock.currentTimeMillis();
+        List<Job> jobs = new ArrayList<>();
+        for (StoreShard shard : shards) {
+            shard.collectJobsReadyForRetry(now, jobs);
         }
+        return jobs;
     }
     
     /**
@@ -165,142 +251,317 @@ public class PersistenceManager {
      * Delete a job from storage
      */
     public boolean deleteJob(String jobId) {
-        lock.writeLock().lock();
-        try {
-            Job removed = jobCache.remove(jobId);
-            if (removed != null) {
-                persistToFile();
-                logger.debug("Job deleted: {}", jobId);
-                return true;
-            }
+        JobId id = JobId.parse(jobId);
+        CompletableFuture<Void> commit = shardFor(id).deleteJob(id);
+        if (commit == null) {
             return false;
-        } finally {
-            lock.writeLock().unlock();
         }
+        StoreShard.awaitCommit(commit);
+        return true;
     }
     
     /**
      * Delete jobs by state
      */
     public int deleteJobsByState(JobState state) {
-        lock.writeLock().lock();
-        try {
-            List<String> toDelete = jobCache.values().stream()
-                    .filter(job -> job.getState() == state)
-                    .map(Job::getId)
-                    .collect(Collectors.toList());
-            
-            toDelete.forEach(jobCache::remove);
-            
-            if (!toDelete.isEmpty()) {
-                persistToFile();
-                logger.info("Deleted {} jobs with state {}", toDelete.size(), state);
-            }
-            
-            return toDelete.size();
-        } finally {
-            lock.writeLock().unlock();
+        List<JobId> deleted = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> commits = new ArrayList<>(shards.length);
+        for (StoreShard shard : shards) {
+            commits.add(shard.deleteJobsByState(state, deleted::add));
         }
+        commits.forEach(StoreShard::awaitCommit);
+        if (!deleted.isEmpty()) {
+            logger.info("Deleted {} jobs with state {}", deleted.size(), state);
+        }
+        return deleted.size();
     }
     
     /**
-     * Get job statistics
+     * Get job statistics; states without jobs are left out
      */
     public Map<JobState, Long> getJobStatistics() {
-        lock.readLock().lock();
-        try {
-            return jobCache.values().stream()
-                    .collect(Collectors.groupingBy(
-                            Job::getState,
-                            Collectors.counting()
-                    ));
-        } finally {
-            lock.readLock().unlock();
+        Map<JobState, Long> statistics = new EnumMap<>(JobState.class);
+        for (JobState state : JobState.values()) {
+            long count = getJobCount(state);
+            if (count > 0) {
+                statistics.put(state, count);
+            }
         }
+        return statistics;
+    }
+    
+    /**
+     * Get the number of jobs in the given state
+     */
+    public long getJobCount(JobState state) {
+        long count = 0;
+        for (StoreShard shard : shards) {
+            count += shard.getJobCount(state);
+        }
+        return count;
     }
     
     /**
      * Clear all jobs (useful for testing)
      */
     public void clearAllJobs() {
-        lock.writeLock().lock();
+        List<CompletableFuture<Void>> commits = new ArrayList<>(shards.length);
+        for (StoreShard shard : shards) {
+            commits.add(shard.clearAllJobs());
+        }
+        commits.forEach(StoreShard::awaitCommit);
+        logger.info("All jobs cleared from storage");
+    }
+    
+    /**
+     * Export all jobs to a JSON file in the data file format
+     */
+    public int exportJobs(Path target) {
+        List<Job> jobs = getAllJobs();
         try {
-            jobCache.clear();
-            persistToFile();
-            logger.info("All jobs cleared from storage");
-        } finally {
-            lock.writeLock().unlock();
+            StoreShard.writeJobsFile(target, jobs, StorageFormat.JSON, objectMapper, jobCodec);
+            logger.info("Exported {} jobs to {}", jobs.size(), target);
+            return jobs.size();
+        } catch (IOException e) {
+            logger.error("Failed to export jobs to {}", target, e);
+            throw new RuntimeException("Failed to export jobs", e);
         }
     }
     
     /**
-     * Load jobs from file into cache
+     * Import jobs from a JSON file in the data file format, replacing jobs with the same ID
      */
-    private void loadJobs() {
-        Path filePath = Paths.get(dataFile);
-        
-        if (!Files.exists(filePath)) {
-            logger.info("Data file {} does not exist, starting with empty job queue", dataFile);
-            return;
+    public int importJobs(Path source) {
+        try {
+            List<Job> jobs = readJobsFile(source);
+            if (!jobs.isEmpty()) {
+                saveJobs(jobs);
+            }
+            logger.info("Imported {} jobs from {}", jobs.size(), source);
+            return jobs.size();
+        } catch (IOException e) {
+            logger.error("Failed to import jobs from {}", source, e);
+            throw new RuntimeException("Failed to import jobs", e);
         }
-        
+    }
+    
+    /**
+     * Convert a job file to the given format without touching the store
+     * 
+     * @return the number of jobs converted
+     */
+    public int convertJobsFile(Path source, Path target, StorageFormat format) {
         try {
-            String content = Files.readString(filePath);
-            if (content.trim().isEmpty()) {
-                logger.info("Data file {} is empty, starting with empty job queue", dataFile);
-                return;
+            List<Job> jobs = readJobsFile(source);
+            StoreShard.writeJobsFile(target, jobs, format, objectMapper, jobCodec);
+            logger.info("Converted {} jobs from {} to {} ({})", jobs.size(), source, target, format);
+            return jobs.size();
+        } catch (IOException e) {
+            logger.error("Failed to convert {} to {}", source, target, e);
+            throw new RuntimeException("Failed to convert job file", e);
+        }
+    }
+    
+    /**
+     * Write a snapshot of every shard's current jobs and drop the log segments it covers.
+     * Each shard's write lock is held only to cut its log and copy its jobs, not while serializing.
+     */
+    public void compact() {
+        for (StoreShard shard : shards) {
+            shard.compact();
+        }
+    }
+    
+    /**
+     * Get storage statistics: snapshot age and log size. With several shards the log sizes
+     * are added up and the time is that of the oldest snapshot, or of the latest data file
+     * write outside WAL mode.
+     */
+    public StorageStatistics getStorageStatistics() {
+        if (shards.length == 1) {
+            return shards[0].getStorageStatistics();
+        }
+        LocalDateTime time = null;
+        long logBytes = 0;
+        long logRecords = 0;
+        for (StoreShard shard : shards) {
+            StorageStatistics statistics = shard.getStorageStatistics();
+            LocalDateTime shardTime = statistics.getLastSnapshotTime();
+            if (time == null || (shardTime != null && (storageMode == StorageMode.WAL
+                    ? shardTime.isBefore(time) : shardTime.isAfter(time)))) {
+                time = shardTime;
             }
-            
-            List<Job> jobs = objectMapper.readValue(content, new TypeReference<List<Job>>() {});
-            
-            for (Job job : jobs) {
-                jobCache.put(job.getId(), job);
+            logBytes += statistics.getLogBytes();
+            logRecords += statistics.getLogRecords();
+        }
+        return new StorageStatistics(storageMode, time, logBytes, logRecords);
+    }
+    
+    /**
+     * Get how long each kind of store operation has waited for and held the shard locks since
+     * the store was opened, over all shards. Operations that held the locks longest in all
+     * come first: those are the ones the others wait for.
+     */
+    public List<LockStatistics> getLockStatistics() {
+        List<LockStatistics> statistics = new ArrayList<>();
+        for (StoreOperation operation : StoreOperation.values()) {
+            for (boolean write : new boolean[] {false, true}) {
+                LatencyHistogram waits = StoreLock.newHistogram();
+                LatencyHistogram holds = StoreLock.newHistogram();
+                long contended = 0;
+                for (StoreShard shard : shards) {
+                    contended += shard.collectLockTimings(operation, write, waits, holds);
+                }
+                if (waits.getCount() > 0) {
+                    statistics.add(LockStatistics.of(operation.getValue(), write ? "write" : "read",
+                                                     contended, waits, holds));
+                }
             }
-            
-            logger.info("Loaded {} jobs from {}", jobs.size(), dataFile);
-            
-            // Log statistics
-            Map<JobState, Long> stats = getJobStatistics();
-            logger.info("Job statistics: {}", stats);
-            
-        } catch (IOException e) {
-            logger.error("Failed to load jobs from {}", dataFile, e);
-            throw new RuntimeException("Failed to load jobs from storage", e);
         }
+        statistics.sort(Comparator.comparingDouble(LockStatistics::getTotalHoldMillis).reversed());
+        return statistics;
     }
     
     /**
-     * Persist current job cache to file
+     * Register the store's metrics: the number of jobs in each state, read from the state
+     * index, and how long saves take until they are durable
      */
-    private void persistToFile() {
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("queuectl_jobs", "Jobs in the store by state", "state", () -> {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (JobState state : JobState.values()) {
+                counts.put(state.getValue(), getJobCount(state));
+            }
+            return counts;
+        });
+        registry.histogram("queuectl_store_write_seconds",
+                           "Time for a save to the job store to be committed", writeLatency);
+    }
+    
+    /**
+     * Flush and close the write-ahead logs, if they are in use
+     */
+    public void close() {
+        for (StoreShard shard : shards) {
+            shard.close();
+        }
+    }
+    
+    /**
+     * Get the number of shards the store is split into
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+    
+    /**
+     * Get the shard a job is stored in
+     */
+    public int shardOf(JobId jobId) {
+        return shardIndex(jobId);
+    }
+    
+    private int shardIndex(JobId jobId) {
+        // The hash of an ID is that of its text, so shards keep the jobs they had
+        return shards.length == 1 ? 0 : Math.floorMod(jobId.hashCode(), shards.length);
+    }
+    
+    private StoreShard shardFor(JobId jobId) {
+        return shards[shardIndex(jobId)];
+    }
+    
+    /**
+     * Get the data file of one shard of a store split into the given number of shards
+     */
+    private static String shardDataFile(String dataFile, int shard, int shardCount) {
+        // The count is part of the name so a new layout never opens files of the old one
+        return shardCount == 1 ? dataFile : dataFile + ".shard-" + shard + "-of-" + shardCount;
+    }
+    
+    /**
+     * Get the number of shards the jobs on disk are split into; a store without a record
+     * of it has never been sharded
+     */
+    private int readShardCount() {
+        Path path = Paths.get(dataFile + ".shards");
+        if (!Files.exists(path)) {
+            return 1;
+        }
         try {
-            // Ensure parent directory exists
-            Path filePath = Paths.get(dataFile);
-            Path parentDir = filePath.getParent();
-            if (parentDir != null && !Files.exists(parentDir)) {
-                Files.createDirectories(parentDir);
+            return Integer.parseInt(Files.readString(path).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new RuntimeException("Failed to read store shard count from " + path, e);
+        }
+    }
+    
+    private void writeShardCount() throws IOException {
+        Path path = Paths.get(dataFile + ".shards");
+        if (shards.length == 1) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        Path tempFile = Paths.get(path + ".tmp");
+        Files.writeString(tempFile, Integer.toString(shards.length));
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Move the jobs of a store split into a different number of shards into this one, then
+     * record the new count and remove the old files. Interrupted part way, this simply runs
+     * again on the next start: saving a job that was already moved overwrites it.
+     */
+    private void reshard(JobQueueConfig config, int previousShardCount) {
+        logger.info("Redistributing jobs from {} to {} store shards", previousShardCount, shards.length);
+        try {
+            List<Job> jobs = new ArrayList<>();
+            List<String> oldFiles = new ArrayList<>();
+            for (int i = 0; i < previousShardCount; i++) {
+                String oldFile = shardDataFile(dataFile, i, previousShardCount);
+                oldFiles.add(oldFile);
+                if (Files.exists(Paths.get(oldFile)) || Files.exists(StoreShard.walDirectory(oldFile))) {
+                    StoreShard oldShard = new StoreShard(config, oldFile, "-old-" + i, objectMapper, jobFileLoader);
+                    oldShard.collectAllJobs(jobs);
+                    oldShard.close();
+                }
+            }
+            if (!jobs.isEmpty()) {
+                writeToShards(jobs);
+            }
+            writeShardCount();
+            for (String oldFile : oldFiles) {
+                deleteStoreFiles(oldFile);
             }
-            
-            // Write to temporary file first for atomic operation
-            Path tempFile = Paths.get(dataFile + ".tmp");
-            
-            List<Job> jobs = new ArrayList<>(jobCache.values());
-            String json = objectMapper.writerWithDefaultPrettyPrinter()
-                                    .writeValueAsString(jobs);
-            
-            Files.writeString(tempFile, json);
-            
-            // Atomic move to final location
-            Files.move(tempFile, filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            logger.debug("Persisted {} jobs to {}", jobs.size(), dataFile);
-            
+            logger.info("Moved {} jobs into {} store shards", jobs.size(), shards.length);
         } catch (IOException e) {
-            logger.error("Failed to persist jobs to {}", dataFile, e);
-            throw new RuntimeException("Failed to persist jobs to storage", e);
+            throw new RuntimeException("Failed to redistribute jobs across store shards", e);
         }
     }
     
+    /**
+     * Delete a data file along with its temporary file and write-ahead log
+     */
+    private static void deleteStoreFiles(String file) throws IOException {
+        Files.deleteIfExists(Paths.get(file));
+        Files.deleteIfExists(Paths.get(file + ".tmp"));
+        Path walDirectory = StoreShard.walDirectory(file);
+        if (Files.exists(walDirectory)) {
+            try (Stream<Path> paths = Files.walk(walDirectory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Read a job file in either format; an empty file holds no jobs
+     */
+    private List<Job> readJobsFile(Path filePath) throws IOException {
+        List<Job> jobs = Collections.synchronizedList(new ArrayList<>());
+        jobFileLoader.load(filePath, jobs::add);
+        return jobs;
+    }
+    
     /**
      * Get the data file path
      */
@@ -308,15 +569,206 @@ public class PersistenceManager {
         return dataFile;
     }
     
+    /**
+     * Get the storage mode
+     */
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+    
+    /**
+     * Get the storage format
+     */
+    public StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+    
     /**
      * Get the number of jobs in cache
      */
     public int getJobCount() {
-        lock.readLock().lock();
-        try {
-            return jobCache.size();
-        } finally {
-            lock.readLock().unlock();
+        int count = 0;
+        for (StoreShard shard : shards) {
+            count += shard.getJobCount();
+        }
+        return count;
+    }
+    
+    /**
+     * Storage statistics
+     */
+    public static class StorageStatistics {
+        private final StorageMode storageMode;
+        private final LocalDateTime lastSnapshotTime;
+        private final long logBytes;
+        private final long logRecords;
+        
+        public StorageStatistics(StorageMode storageMode, LocalDateTime lastSnapshotTime, 
+                                 long logBytes, long logRecords) {
+            this.storageMode = storageMode;
+            this.lastSnapshotTime = lastSnapshotTime;
+            this.logBytes = logBytes;
+            this.logRecords = logRecords;
+        }
+        
+        public StorageMode getStorageMode() {
+            return storageMode;
+        }
+        
+        public LocalDateTime getLastSnapshotTime() {
+            return lastSnapshotTime;
+        }
+        
+        public long getLogBytes() {
+            return logBytes;
+        }
+        
+        public long getLogRecords() {
+            return logRecords;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("StorageStatistics{storageMode=%s, lastSnapshotTime=%s, " +
+                               "logBytes=%d, logRecords=%d}",
+                               storageMode, lastSnapshotTime, logBytes, logRecords);
+        }
+    }
+    
+    /**
+     * Lock timings of one kind of store operation, in one lock mode, over all shards.
+     * Percentiles are upper bounds, from histogram buckets.
+     */
+    public static class LockStatistics {
+        private final String operation;
+        private final String mode;
+        private final long acquisitions;
+        private final long contended;
+        private final double meanWaitMicros;
+        private final double p99WaitMicros;
+        private final double maxWaitMicros;
+        private final double totalWaitMillis;
+        private final double meanHoldMicros;
+        private final double p99HoldMicros;
+        private final double maxHoldMicros;
+        private final double totalHoldMillis;
+        
+        @JsonCreator
+        public LockStatistics(@JsonProperty("operation") String operation,
+                              @JsonProperty("mode") String mode,
+                              @JsonProperty("acquisitions") long acquisitions,
+                              @JsonProperty("contended") long contended,
+                              @JsonProperty("mean_wait_micros") double meanWaitMicros,
+                              @JsonProperty("p99_wait_micros") double p99WaitMicros,
+                              @JsonProperty("max_wait_micros") double maxWaitMicros,
+                              @JsonProperty("total_wait_millis") double totalWaitMillis,
+                              @JsonProperty("mean_hold_micros") double meanHoldMicros,
+                              @JsonProperty("p99_hold_micros") double p99HoldMicros,
+                              @JsonProperty("max_hold_micros") double maxHoldMicros,
+                              @JsonProperty("total_hold_millis") double totalHoldMillis) {
+            this.operation = operation;
+            this.mode = mode;
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.meanWaitMicros = meanWaitMicros;
+            this.p99WaitMicros = p99WaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+            this.totalWaitMillis = totalWaitMillis;
+            this.meanHoldMicros = meanHoldMicros;
+            this.p99HoldMicros = p99HoldMicros;
+            this.maxHoldMicros = maxHoldMicros;
+            this.totalHoldMillis = totalHoldMillis;
+        }
+        
+        static LockStatistics of(String operation, String mode, long contended,
+                                 LatencyHistogram waits, LatencyHistogram holds) {
+            long acquisitions = waits.getCount();
+            return new LockStatistics(operation, mode, acquisitions, contended,
+                                      waits.getSumNanos() / (double) acquisitions / 1_000,
+                                      waits.getPercentileNanos(99) / 1_000.0,
+                                      waits.getMaxNanos() / 1_000.0,
+                                      waits.getSumNanos() / 1_000_000.0,
+                                      holds.getCount() == 0 ? 0
+                                              : holds.getSumNanos() / (double) holds.getCount() / 1_000,
+                                      holds.getPercentileNanos(99) / 1_000.0,
+                                      holds.getMaxNanos() / 1_000.0,
+                                      holds.getSumNanos() / 1_000_000.0);
+        }
+        
+        /**
+         * Get the {@link PersistenceManager} method the lock was taken for
+         */
+        @JsonProperty("operation")
+        public String getOperation() {
+            return operation;
+        }
+        
+        /**
+         * Get the lock mode: read or write
+         */
+        @JsonProperty("mode")
+        public String getMode() {
+            return mode;
+        }
+        
+        @JsonProperty("acquisitions")
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+        
+        /**
+         * Get how many acquisitions found the lock taken and had to wait
+         */
+        @JsonProperty("contended")
+        public long getContended() {
+            return contended;
+        }
+        
+        @JsonProperty("mean_wait_micros")
+        public double getMeanWaitMicros() {
+            return meanWaitMicros;
+        }
+        
+        @JsonProperty("p99_wait_micros")
+        public double getP99WaitMicros() {
+            return p99WaitMicros;
+        }
+        
+        @JsonProperty("max_wait_micros")
+        public double getMaxWaitMicros() {
+            return maxWaitMicros;
+        }
+        
+        @JsonProperty("total_wait_millis")
+        public double getTotalWaitMillis() {
+            return totalWaitMillis;
+        }
+        
+        @JsonProperty("mean_hold_micros")
+        public double getMeanHoldMicros() {
+            return meanHoldMicros;
+        }
+        
+        @JsonProperty("p99_hold_micros")
+        public double getP99HoldMicros() {
+            return p99HoldMicros;
+        }
+        
+        @JsonProperty("max_hold_micros")
+        public double getMaxHoldMicros() {
+            return maxHoldMicros;
+        }
+        
+        @JsonProperty("total_hold_millis")
+        public double getTotalHoldMillis() {
+            return totalHoldMillis;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("LockStatistics{operation=%s, mode=%s, acquisitions=%d, contended=%d, " +
+                               "meanWaitMicros=%.2f, meanHoldMicros=%.2f}",
+                               operation, mode, acquisitions, contended, meanWaitMicros, meanHoldMicros);
         }
     }
 }
@@ -0,0 +1,43 @@
+package com.jobqueue.persistence;
+
+/**
+ * Represents the available file formats for stored jobs.
+ */
+public enum StorageFormat {
+    /**
+     * Pretty-printed JSON with ISO timestamps
+     */
+    JSON("json"),
+    
+    /**
+     * Compact binary records, see {@link JobCodec}
+     */
+    BINARY("binary");
+    
+    private final String value;
+    
+    StorageFormat(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    /**
+     * Convert string value to StorageFormat enum
+     */
+    public static StorageFormat fromString(String value) {
+        for (StorageFormat format : StorageFormat.values()) {
+            if (format.value.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown storage format: " + value);
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
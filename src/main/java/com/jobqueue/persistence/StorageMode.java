@@ -0,0 +1,43 @@
+package com.jobqueue.persistence;
+
+/**
+ * Represents the available storage modes for the job store.
+ */
+public enum StorageMode {
+    /**
+     * Every change rewrites the whole data file
+     */
+    JSON("json"),
+    
+    /**
+     * Every change appends one record to a write-ahead log
+     */
+    WAL("wal");
+    
+    private final String value;
+    
+    StorageMode(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    /**
+     * Convert string value to StorageMode enum
+     */
+    public static StorageMode fromString(String value) {
+        for (StorageMode mode : StorageMode.values()) {
+            if (mode.value.equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown storage mode: " + value);
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
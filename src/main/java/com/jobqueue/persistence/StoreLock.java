@@ -0,0 +1,135 @@
+package com.jobqueue.persistence;
+
+import com.jobqueue.jfr.LockWaitEvent;
+import com.jobqueue.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The read-write lock of one store shard, timed per {@link StoreOperation}: how long each
+ * acquisition waited for the lock, how long the lock was then held, and how many acquisitions
+ * found it taken. Most waits and holds are far shorter than a job store write, so the
+ * histograms start at one microsecond.
+ * <p>
+ * Each shard times its own lock, so recording adds no contention between shards; the
+ * {@link PersistenceManager} merges the shards' timings when asked. Waits that had to block
+ * are also recorded as {@link LockWaitEvent}s for Flight Recorder.
+ */
+class StoreLock {
+    private static final double[] BOUNDS_SECONDS = {
+        0.000001, 0.0000025, 0.000005, 0.00001, 0.000025, 0.00005, 0.0001, 0.00025, 0.0005,
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final String name;
+    private final Timings[] readTimings = newTimings();
+    private final Timings[] writeTimings = newTimings();
+    
+    /**
+     * @param name the lock's name in Flight Recorder events
+     */
+    StoreLock(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Create an empty histogram with the buckets lock timings are recorded in
+     */
+    static LatencyHistogram newHistogram() {
+        return new LatencyHistogram(BOUNDS_SECONDS);
+    }
+    
+    /**
+     * Take the read lock for an operation
+     *
+     * @return the {@link System#nanoTime()} it was taken at, to pass to {@link #unlockRead}
+     */
+    long lockRead(StoreOperation operation) {
+        long start = System.nanoTime();
+        // Not tryLock: a read tryLock jumps ahead of queued writers and could starve them
+        if (!lock.isWriteLocked() && !lock.hasQueuedThreads()) {
+            lock.readLock().lock();
+            return recordWait(readTimings[operation.ordinal()], start, false);
+        }
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        lock.readLock().lock();
+        event.end();
+        commit(event, "read", operation);
+        return recordWait(readTimings[operation.ordinal()], start, true);
+    }
+    
+    void unlockRead(StoreOperation operation, long lockedAt) {
+        long held = System.nanoTime() - lockedAt;
+        lock.readLock().unlock();
+        readTimings[operation.ordinal()].hold.record(held);
+    }
+    
+    /**
+     * Take the write lock for an operation
+     *
+     * @return the {@link System#nanoTime()} it was taken at, to pass to {@link #unlockWrite}
+     */
+    long lockWrite(StoreOperation operation) {
+        long start = System.nanoTime();
+        if (lock.writeLock().tryLock()) {
+            return recordWait(writeTimings[operation.ordinal()], start, false);
+        }
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        lock.writeLock().lock();
+        event.end();
+        commit(event, "write", operation);
+        return recordWait(writeTimings[operation.ordinal()], start, true);
+    }
+    
+    void unlockWrite(StoreOperation operation, long lockedAt) {
+        long held = System.nanoTime() - lockedAt;
+        lock.writeLock().unlock();
+        writeTimings[operation.ordinal()].hold.record(held);
+    }
+    
+    /**
+     * Add this lock's timings of an operation to the given histograms
+     *
+     * @return how many of the acquisitions found the lock taken
+     */
+    long collect(StoreOperation operation, boolean write, LatencyHistogram waits, LatencyHistogram holds) {
+        Timings timings = (write ? writeTimings : readTimings)[operation.ordinal()];
+        waits.add(timings.wait);
+        holds.add(timings.hold);
+        return timings.contended.sum();
+    }
+    
+    private static long recordWait(Timings timings, long start, boolean contended) {
+        long now = System.nanoTime();
+        timings.wait.record(now - start);
+        if (contended) {
+            timings.contended.increment();
+        }
+        return now;
+    }
+    
+    private void commit(LockWaitEvent event, String mode, StoreOperation operation) {
+        if (event.shouldCommit()) {
+            event.lockName = name + " " + mode + " (" + operation + ")";
+            event.commit();
+        }
+    }
+    
+    private static Timings[] newTimings() {
+        Timings[] timings = new Timings[StoreOperation.values().length];
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = new Timings();
+        }
+        return timings;
+    }
+    
+    private static class Timings {
+        final LatencyHistogram wait = newHistogram();
+        final LatencyHistogram hold = newHistogram();
+        final LongAdder contended = new LongAdder();
+    }
+}
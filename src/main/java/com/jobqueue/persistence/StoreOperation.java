@@ -0,0 +1,34 @@
+package com.jobqueue.persistence;
+
+/**
+ * The store operations that take a shard's lock, named after the {@link PersistenceManager}
+ * methods they serve, so lock timings can be told apart by caller.
+ */
+enum StoreOperation {
+    SAVE_JOB("saveJob"),
+    SAVE_JOBS("saveJobs"),
+    GET_JOB("getJob"),
+    GET_ALL_JOBS("getAllJobs"),
+    GET_JOBS_BY_STATE("getJobsByState"),
+    GET_JOBS_READY_FOR_RETRY("getJobsReadyForRetry"),
+    GET_JOB_COUNT("getJobCount"),
+    DELETE_JOB("deleteJob"),
+    DELETE_JOBS_BY_STATE("deleteJobsByState"),
+    CLEAR_ALL_JOBS("clearAllJobs"),
+    COMPACT("compact");
+    
+    private final String value;
+    
+    StoreOperation(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
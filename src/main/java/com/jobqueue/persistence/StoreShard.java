@@ -0,0 +1,619 @@
+package com.jobqueue.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.jfr.PersistFlushEvent;
+import com.jobqueue.metrics.LatencyHistogram;
+import com.jobqueue.model.Job;
+import com.jobqueue.model.JobId;
+import com.jobqueue.model.JobState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * One partition of the job store: the jobs whose IDs hash to it, with its own lock, its own
+ * data file and, in WAL mode, its own write-ahead log, group committer and compactor.
+ * <p>
+ * Writes return their commit instead of waiting for it, so the {@link PersistenceManager}
+ * can start a change on several shards and wait for all of them at once. The lock is held
+ * only to update the cache and index and enqueue the log record, never while waiting.
+ * A per-state index of job IDs and per-state counters is kept alongside the cache and
+ * updated on every save and delete, so state queries cost O(result size) and statistics O(1).
+ * The lock is a {@link StoreLock}, which times every acquisition by operation.
+ */
+class StoreShard {
+    private static final Logger logger = LoggerFactory.getLogger(StoreShard.class);
+    static final CompletableFuture<Void> COMMITTED = CompletableFuture.completedFuture(null);
+    
+    private final String dataFile;
+    private final StorageMode storageMode;
+    private final StorageFormat storageFormat;
+    private final ObjectMapper objectMapper;
+    private final WriteAheadLog writeAheadLog;
+    private final JobFileLoader jobFileLoader;
+    private final JobCodec jobCodec = new JobCodec();
+    private final GroupCommitter<byte[]> groupCommitter;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    private final long compactionLogBytes;
+    private final long compactionLogRecords;
+    private final StoreLock lock;
+    // Ordered by ID so listings come out sorted without sorting
+    private final NavigableMap<JobId, Job> jobCache = new ConcurrentSkipListMap<>();
+    private final Map<JobState, Set<JobId>> stateIndex = new EnumMap<>(JobState.class);
+    private final Map<JobId, JobState> indexedStates = new HashMap<>();
+    private final AtomicLongArray stateCounts = new AtomicLongArray(JobState.values().length);
+    
+    /**
+     * @param dataFile the data file of this shard
+     * @param threadSuffix appended to the names of this shard's background threads
+     */
+    StoreShard(JobQueueConfig config, String dataFile, String threadSuffix,
+               ObjectMapper objectMapper, JobFileLoader jobFileLoader) {
+        this.dataFile = dataFile;
+        this.lock = new StoreLock("StoreShard lock " + dataFile);
+        this.storageMode = StorageMode.fromString(config.getStorageMode());
+        this.storageFormat = StorageFormat.fromString(config.getStorageFormat());
+        this.compactionLogBytes = config.getCompactionLogBytes();
+        this.compactionLogRecords = config.getCompactionLogRecords();
+        this.objectMapper = objectMapper;
+        this.jobFileLoader = jobFileLoader;
+        for (JobState state : JobState.values()) {
+            stateIndex.put(state, new LinkedHashSet<>());
+        }
+        
+        if (storageMode == StorageMode.WAL) {
+            this.writeAheadLog = new WriteAheadLog(walDirectory(dataFile), objectMapper, storageFormat);
+            recoverFromLog();
+            this.groupCommitter = new GroupCommitter<>("WalFlusher" + threadSuffix, writeAheadLog::write,
+                    config.getCommitBatchSize(), config.getCommitLingerMillis());
+            this.compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "WalCompactor" + threadSuffix);
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.writeAheadLog = null;
+            this.groupCommitter = null;
+            this.compactor = null;
+            // Load existing jobs into cache
+            loadJobs();
+        }
+    }
+    
+    /**
+     * Get the write-ahead log directory of a data file
+     */
+    static Path walDirectory(String dataFile) {
+        return Paths.get(dataFile + ".wal");
+    }
+    
+    /**
+     * Save jobs that all belong to this shard
+     *
+     * @param operation {@link StoreOperation#SAVE_JOB} or {@link StoreOperation#SAVE_JOBS},
+     *                  for the lock timings
+     * @return the commit to wait for, without holding any lock
+     */
+    CompletableFuture<Void> saveJobs(Collection<Job> jobs, StoreOperation operation) {
+        long lockedAt = lock.lockWrite(operation);
+        try {
+            for (Job job : jobs) {
+                jobCache.put(job.getJobId(), job);
+                indexJob(job);
+            }
+            CompletableFuture<Void> commit = persistSaves(jobs);
+            logger.debug("Saved {} jobs to {}", jobs.size(), dataFile);
+            return commit;
+        } finally {
+            lock.unlockWrite(operation, lockedAt);
+        }
+    }
+    
+    Job getJob(JobId jobId) {
+        long lockedAt = lock.lockRead(StoreOperation.GET_JOB);
+        try {
+            return jobCache.get(jobId);
+        } finally {
+            lock.unlockRead(StoreOperation.GET_JOB, lockedAt);
+        }
+    }
+    
+    /**
+     * Add every job to the target in ID order
+     */
+    void collectAllJobs(Collection<Job> target) {
+        long lockedAt = lock.lockRead(StoreOperation.GET_ALL_JOBS);
+        try {
+            target.addAll(jobCache.values());
+        } finally {
+            lock.unlockRead(StoreOperation.GET_ALL_JOBS, lockedAt);
+        }
+    }
+    
+    void collectJobsByState(JobState state, Collection<Job> target) {
+        long lockedAt = lock.lockRead(StoreOperation.GET_JOBS_BY_STATE);
+        try {
+            for (JobId jobId : stateIndex.get(state)) {
+                target.add(jobCache.get(jobId));
+            }
+        } finally {
+            lock.unlockRead(StoreOperation.GET_JOBS_BY_STATE, lockedAt);
+        }
+    }
+    
+    void collectJobsReadyForRetry(long nowMillis, Collection<Job> target) {
+        long lockedAt = lock.lockRead(StoreOperation.GET_JOBS_READY_FOR_RETRY);
+        try {
+            stateIndex.get(JobState.FAILED).stream()
+                    .map(jobCache::get)
+                    .filter(job -> job.canRetry())
+                    .filter(job -> job.isReadyForRetry(nowMillis))
+                    .forEach(target::add);
+        } finally {
+            lock.unlockRead(StoreOperation.GET_JOBS_READY_FOR_RETRY, lockedAt);
+        }
+    }
+    
+    /**
+     * @return the commit to wait for, or null if there was no such job
+     */
+    CompletableFuture<Void> deleteJob(JobId jobId) {
+        long lockedAt = lock.lockWrite(StoreOperation.DELETE_JOB);
+        try {
+            Job removed = jobCache.remove(jobId);
+            if (removed == null) {
+                return null;
+            }
+            unindexJob(jobId);
+            CompletableFuture<Void> commit = persistDeletes(List.of(jobId));
+            logger.debug("Job deleted: {}", jobId);
+            return commit;
+        } finally {
+            lock.unlockWrite(StoreOperation.DELETE_JOB, lockedAt);
+        }
+    }
+    
+    /**
+     * @param deleted receives the IDs of the deleted jobs
+     * @return the commit to wait for
+     */
+    CompletableFuture<Void> deleteJobsByState(JobState state, Consumer<JobId> deleted) {
+        long lockedAt = lock.lockWrite(StoreOperation.DELETE_JOBS_BY_STATE);
+        try {
+            List<JobId> toDelete = new ArrayList<>(stateIndex.get(state));
+            if (toDelete.isEmpty()) {
+                return COMMITTED;
+            }
+            for (JobId jobId : toDelete) {
+                jobCache.remove(jobId);
+                unindexJob(jobId);
+                deleted.accept(jobId);
+            }
+            return persistDeletes(toDelete);
+        } finally {
+            lock.unlockWrite(StoreOperation.DELETE_JOBS_BY_STATE, lockedAt);
+        }
+    }
+    
+    long getJobCount(JobState state) {
+        return stateCounts.get(state.ordinal());
+    }
+    
+    int getJobCount() {
+        long lockedAt = lock.lockRead(StoreOperation.GET_JOB_COUNT);
+        try {
+            // The index holds one entry per job and, unlike the cache, counts them in O(1)
+            return indexedStates.size();
+        } finally {
+            lock.unlockRead(StoreOperation.GET_JOB_COUNT, lockedAt);
+        }
+    }
+    
+    /**
+     * @return the commit to wait for
+     */
+    CompletableFuture<Void> clearAllJobs() {
+        long lockedAt = lock.lockWrite(StoreOperation.CLEAR_ALL_JOBS);
+        try {
+            jobCache.clear();
+            rebuildStateIndex();
+            if (writeAheadLog != null) {
+                return submitToLog(writeAheadLog::encodeClear);
+            }
+            persistToFile();
+            return COMMITTED;
+        } finally {
+            lock.unlockWrite(StoreOperation.CLEAR_ALL_JOBS, lockedAt);
+        }
+    }
+    
+    /**
+     * Write a snapshot of the current jobs and drop the log segments it covers.
+     * The write lock is held only to cut the log and copy the jobs, not while serializing.
+     */
+    void compact() {
+        if (writeAheadLog == null) {
+            return;
+        }
+        
+        long coveredSegment;
+        long coveredRecords;
+        List<Job> snapshot;
+        
+        long lockedAt = lock.lockWrite(StoreOperation.COMPACT);
+        try {
+            coveredRecords = writeAheadLog.getLogRecords();
+            coveredSegment = writeAheadLog.rotate();
+            snapshot = new ArrayList<>(jobCache.size());
+            for (Job job : jobCache.values()) {
+                snapshot.add(job.copy());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to rotate write-ahead log {}", writeAheadLog.getDirectory(), e);
+            throw new RuntimeException("Failed to compact storage", e);
+        } finally {
+            lock.unlockWrite(StoreOperation.COMPACT, lockedAt);
+        }
+        
+        try {
+            writeAheadLog.writeSnapshot(coveredSegment, snapshot);
+            writeAheadLog.resetRecordCount(coveredRecords);
+        } catch (IOException e) {
+            logger.error("Failed to write snapshot to {}", writeAheadLog.getDirectory(), e);
+            throw new RuntimeException("Failed to compact storage", e);
+        }
+    }
+    
+    /**
+     * Add this shard's lock timings of an operation to the given histograms
+     *
+     * @return how many of the acquisitions found the lock taken
+     */
+    long collectLockTimings(StoreOperation operation, boolean write,
+                            LatencyHistogram waits, LatencyHistogram holds) {
+        return lock.collect(operation, write, waits, holds);
+    }
+    
+    /**
+     * Get this shard's snapshot age, or data file age outside WAL mode, and log size
+     */
+    PersistenceManager.StorageStatistics getStorageStatistics() {
+        if (writeAheadLog == null) {
+            Path filePath = Paths.get(dataFile);
+            LocalDateTime lastWrite = null;
+            try {
+                if (Files.exists(filePath)) {
+                    lastWrite = LocalDateTime.ofInstant(Files.getLastModifiedTime(filePath).toInstant(),
+                                                        ZoneId.systemDefault());
+                }
+            } catch (IOException e) {
+                logger.debug("Could not read modification time of {}", dataFile, e);
+            }
+            return new PersistenceManager.StorageStatistics(storageMode, lastWrite, 0, 0);
+        }
+        
+        LocalDateTime snapshotTime = writeAheadLog.getLastSnapshotTime() != null
+                ? LocalDateTime.ofInstant(writeAheadLog.getLastSnapshotTime(), ZoneId.systemDefault())
+                : null;
+        return new PersistenceManager.StorageStatistics(storageMode, snapshotTime,
+                                                        writeAheadLog.getLogBytes(), writeAheadLog.getLogRecords());
+    }
+    
+    /**
+     * Flush and close the write-ahead log, if one is in use
+     */
+    void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                if (!compactor.awaitTermination(60, TimeUnit.SECONDS)) {
+                    logger.warn("WalCompactor did not finish within 60 seconds");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (groupCommitter != null) {
+            groupCommitter.close();
+        }
+        if (writeAheadLog != null) {
+            try {
+                writeAheadLog.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close write-ahead log", e);
+            }
+        }
+    }
+    
+    /**
+     * Wait until a change is durable; call without holding the lock
+     */
+    static void awaitCommit(CompletableFuture<Void> commit) {
+        try {
+            commit.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to persist jobs to storage", e.getCause());
+        }
+    }
+    
+    /**
+     * Write a job file through a temporary file and an atomic move
+     */
+    static void writeJobsFile(Path filePath, List<Job> jobs, StorageFormat format,
+                              ObjectMapper objectMapper, JobCodec jobCodec) throws IOException {
+        // Ensure parent directory exists
+        Path parentDir = filePath.toAbsolutePath().getParent();
+        if (parentDir != null && !Files.exists(parentDir)) {
+            Files.createDirectories(parentDir);
+        }
+        
+        // Write to temporary file first for atomic operation
+        Path tempFile = Paths.get(filePath + ".tmp");
+        
+        if (format == StorageFormat.BINARY) {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                jobCodec.writeFile(out, jobs);
+            }
+        } else {
+            String json = objectMapper.writerWithDefaultPrettyPrinter()
+                                    .writeValueAsString(jobs);
+            
+            Files.writeString(tempFile, json);
+        }
+        
+        // Atomic move to final location
+        Files.move(tempFile, filePath, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * Load jobs from file into cache
+     */
+    private void loadJobs() {
+        Path filePath = Paths.get(dataFile);
+        
+        if (!Files.exists(filePath)) {
+            logger.info("Data file {} does not exist, starting with empty job queue", dataFile);
+            return;
+        }
+        
+        try {
+            long startTime = System.nanoTime();
+            JobFileLoader.resetPeakHeapUsage();
+            
+            int loaded = jobFileLoader.load(filePath, job -> jobCache.put(job.getJobId(), job));
+            if (loaded == 0) {
+                logger.info("Data file {} is empty, starting with empty job queue", dataFile);
+                return;
+            }
+            
+            logger.info("Loaded {} jobs from {} in {} ms (peak heap {} MB)", loaded, dataFile,
+                       TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                       JobFileLoader.getPeakHeapUsage() / (1024 * 1024));
+            
+            rebuildStateIndex();
+            
+            // Log statistics
+            logger.info("Job statistics: {}", statistics());
+        
+        } catch (IOException e) {
+            logger.error("Failed to load jobs from {}", dataFile, e);
+            throw new RuntimeException("Failed to load jobs from storage", e);
+        }
+    }
+    
+    /**
+     * Rebuild the cache from the latest snapshot plus the log records after it.
+     * The first start in WAL mode seeds the log directory from the existing data file.
+     */
+    private void recoverFromLog() {
+        try {
+            long startTime = System.nanoTime();
+            JobFileLoader.resetPeakHeapUsage();
+            
+            Optional<Path> snapshot = writeAheadLog.latestSnapshot();
+            if (snapshot.isPresent()) {
+                int loaded = jobFileLoader.load(snapshot.get(), job -> jobCache.put(job.getJobId(), job));
+                logger.info("Loaded {} jobs from snapshot {}", loaded, snapshot.get());
+            } else {
+                loadJobs();
+                writeAheadLog.writeSnapshot(0, new ArrayList<>(jobCache.values()));
+            }
+            
+            int replayed = writeAheadLog.replay(new WriteAheadLog.RecordHandler() {
+                @Override
+                public void onSave(Job job) {
+                    jobCache.put(job.getJobId(), job);
+                }
+                
+                @Override
+                public void onDelete(JobId jobId) {
+                    jobCache.remove(jobId);
+                }
+                
+                @Override
+                public void onClear() {
+                    jobCache.clear();
+                }
+            });
+            
+            writeAheadLog.open();
+            rebuildStateIndex();
+            
+            logger.info("Recovered {} jobs ({} log records replayed) in {} ms (peak heap {} MB)",
+                       jobCache.size(), replayed,
+                       TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                       JobFileLoader.getPeakHeapUsage() / (1024 * 1024));
+            logger.info("Job statistics: {}", statistics());
+        
+        } catch (IOException e) {
+            logger.error("Failed to recover jobs from write-ahead log {}", writeAheadLog.getDirectory(), e);
+            throw new RuntimeException("Failed to load jobs from storage", e);
+        }
+    }
+    
+    private Map<JobState, Long> statistics() {
+        return Arrays.stream(JobState.values())
+                .filter(state -> getJobCount(state) > 0)
+                .collect(Collectors.toMap(state -> state, this::getJobCount,
+                                          (a, b) -> a, () -> new EnumMap<>(JobState.class)));
+    }
+    
+    /**
+     * Move a saved job to the index set of its current state.
+     * Must be called with the write lock held.
+     */
+    private void indexJob(Job job) {
+        JobState state = job.getState();
+        JobState previous = indexedStates.put(job.getJobId(), state);
+        if (previous == state) {
+            return;
+        }
+        if (previous != null) {
+            stateIndex.get(previous).remove(job.getJobId());
+            stateCounts.decrementAndGet(previous.ordinal());
+        }
+        stateIndex.get(state).add(job.getJobId());
+        stateCounts.incrementAndGet(state.ordinal());
+    }
+    
+    /**
+     * Drop a deleted job from the index.
+     * Must be called with the write lock held.
+     */
+    private void unindexJob(JobId jobId) {
+        JobState previous = indexedStates.remove(jobId);
+        if (previous != null) {
+            stateIndex.get(previous).remove(jobId);
+            stateCounts.decrementAndGet(previous.ordinal());
+        }
+    }
+    
+    /**
+     * Rebuild the index from the cache after bulk loading
+     */
+    private void rebuildStateIndex() {
+        indexedStates.clear();
+        for (JobState state : JobState.values()) {
+            stateIndex.get(state).clear();
+            stateCounts.set(state.ordinal(), 0);
+        }
+        for (Job job : jobCache.values()) {
+            indexJob(job);
+        }
+    }
+    
+    /**
+     * Persist saved jobs according to the storage mode.
+     * Must be called with the write lock held so log order matches cache order.
+     */
+    private CompletableFuture<Void> persistSaves(Collection<Job> jobs) {
+        if (writeAheadLog != null) {
+            return submitToLog(() -> writeAheadLog.encodeSaves(jobs));
+        }
+        persistToFile();
+        return COMMITTED;
+    }
+    
+    /**
+     * Persist deleted job IDs according to the storage mode.
+     * Must be called with the write lock held so log order matches cache order.
+     */
+    private CompletableFuture<Void> persistDeletes(Collection<JobId> jobIds) {
+        if (writeAheadLog != null) {
+            return submitToLog(() -> writeAheadLog.encodeDeletes(jobIds));
+        }
+        persistToFile();
+        return COMMITTED;
+    }
+    
+    /**
+     * Encode a log record and hand it to the group committer
+     */
+    private CompletableFuture<Void> submitToLog(LogRecordEncoder encoder) {
+        CompletableFuture<Void> commit;
+        try {
+            commit = groupCommitter.submit(encoder.encode());
+        } catch (IOException e) {
+            logger.error("Failed to encode write-ahead log record", e);
+            throw new RuntimeException("Failed to persist jobs to storage", e);
+        }
+        scheduleCompactionIfNeeded();
+        return commit;
+    }
+    
+    /**
+     * Start a background compaction once the log passes its size or record threshold
+     */
+    private void scheduleCompactionIfNeeded() {
+        if (writeAheadLog.getLogBytes() < compactionLogBytes
+                && writeAheadLog.getLogRecords() < compactionLogRecords) {
+            return;
+        }
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (RuntimeException e) {
+                    logger.error("Background compaction failed", e);
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Persist current job cache to file
+     */
+    private void persistToFile() {
+        try {
+            PersistFlushEvent event = new PersistFlushEvent();
+            event.begin();
+            List<Job> jobs = new ArrayList<>(jobCache.values());
+            Path filePath = Paths.get(dataFile);
+            writeJobsFile(filePath, jobs, storageFormat, objectMapper, jobCodec);
+            event.end();
+            if (event.shouldCommit()) {
+                event.kind = PersistFlushEvent.DATA_FILE;
+                event.path = dataFile;
+                event.records = jobs.size();
+                event.bytes = Files.size(filePath);
+                event.commit();
+            }
+            logger.debug("Persisted {} jobs to {}", jobs.size(), dataFile);
+        
+        } catch (IOException e) {
+            logger.error("Failed to persist jobs to {}", dataFile, e);
+            throw new RuntimeException("Failed to persist jobs to storage", e);
+        }
+    }
+    
+    /**
+     * Produces the bytes of one write-ahead log submission
+     */
+    @FunctionalInterface
+    private interface LogRecordEncoder {
+        byte[] encode() throws IOException;
+    }
+}
@@ -0,0 +1,463 @@
+package com.jobqueue.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobqueue.jfr.PersistFlushEvent;
+import com.jobqueue.model.Job;
+import com.jobqueue.model.JobId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of job store changes.
+ * Each save, delete or clear is written as one length-prefixed, checksummed record
+ * to the current segment file. Snapshots are named after the last segment they cover,
+ * so recovery loads the newest snapshot and replays only the segments after it.
+ * Segment rotation and appends are synchronized, so a snapshot can be cut at a segment
+ * boundary while the group committer keeps writing.
+ * Saves and snapshots are written in the configured storage format; replay and recovery
+ * accept either format, so the format can be switched on an existing log.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+    
+    private static final int SEGMENT_MAGIC = 0x5157414C; // "QWAL"
+    private static final byte SEGMENT_VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 5;
+    private static final int RECORD_HEADER_SIZE = 9;
+    
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_CLEAR = 3;
+    // Binary saves in older job formats: wall-clock times, then epoch millis with text IDs
+    private static final byte OP_SAVE_BINARY_WALL_CLOCK = 4;
+    private static final byte OP_SAVE_BINARY_TEXT_ID = 5;
+    private static final byte OP_SAVE_BINARY = 6;
+    
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_PATTERN = Pattern.compile("snapshot-(\\d+)\\.(?:json|bin)");
+    
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final StorageFormat storageFormat;
+    private final JobCodec jobCodec = new JobCodec();
+    private FileChannel segmentChannel;
+    private long segmentId;
+    private final AtomicLong logBytes = new AtomicLong();
+    private final AtomicLong logRecords = new AtomicLong();
+    private volatile Instant lastSnapshotTime;
+    
+    /**
+     * Callback for records read back during replay
+     */
+    public interface RecordHandler {
+        void onSave(Job job);
+        
+        void onDelete(JobId jobId);
+        
+        void onClear();
+    }
+    
+    public WriteAheadLog(Path directory, ObjectMapper objectMapper, StorageFormat storageFormat) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.storageFormat = storageFormat;
+    }
+    
+    /**
+     * Get the newest complete snapshot, if any
+     */
+    public Optional<Path> latestSnapshot() throws IOException {
+        List<Long> ids = listIds(SNAPSHOT_PATTERN);
+        if (ids.isEmpty()) {
+            return Optional.empty();
+        }
+        Path snapshot = existingSnapshotPath(ids.get(ids.size() - 1));
+        lastSnapshotTime = Files.getLastModifiedTime(snapshot).toInstant();
+        return Optional.of(snapshot);
+    }
+    
+    /**
+     * Replay every segment newer than the latest snapshot, in order
+     */
+    public int replay(RecordHandler handler) throws IOException {
+        long coveredSegment = latestSnapshotId();
+        int replayed = 0;
+        for (long id : listIds(SEGMENT_PATTERN)) {
+            if (id > coveredSegment) {
+                replayed += replaySegment(segmentPath(id), handler);
+                logBytes.addAndGet(Files.size(segmentPath(id)));
+            }
+        }
+        logRecords.addAndGet(replayed);
+        return replayed;
+    }
+    
+    /**
+     * Open a fresh segment for appending.
+     * Recovery never appends to an old segment, so a torn tail record stays where it was.
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        
+        long lastId = Math.max(latestSnapshotId(), listIds(SEGMENT_PATTERN).stream()
+                .mapToLong(Long::longValue).max().orElse(0L));
+        
+        // Segments holding nothing but a header (e.g. from short CLI runs) are not worth keeping
+        for (long id : listIds(SEGMENT_PATTERN)) {
+            if (Files.size(segmentPath(id)) <= SEGMENT_HEADER_SIZE) {
+                logBytes.addAndGet(-Files.size(segmentPath(id)));
+                Files.delete(segmentPath(id));
+            }
+        }
+        
+        openSegment(lastId + 1);
+        
+        logger.info("Write-ahead log opened at {} (segment {})", directory, segmentId);
+    }
+    
+    /**
+     * Close the current segment and start appending to the next one
+     * 
+     * @return the ID of the segment that was closed
+     */
+    public synchronized long rotate() throws IOException {
+        long closedSegment = segmentId;
+        segmentChannel.force(true);
+        segmentChannel.close();
+        openSegment(closedSegment + 1);
+        logger.debug("Write-ahead log rotated to segment {}", segmentId);
+        return closedSegment;
+    }
+    
+    /**
+     * Encode one save record per job
+     */
+    public byte[] encodeSaves(Collection<Job> jobs) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (Job job : jobs) {
+            if (storageFormat == StorageFormat.BINARY) {
+                encodeRecord(buffer, OP_SAVE_BINARY, jobCodec.encode(job));
+            } else {
+                encodeRecord(buffer, OP_SAVE, objectMapper.writeValueAsBytes(job));
+            }
+        }
+        logRecords.addAndGet(jobs.size());
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Encode one delete record per job ID
+     */
+    public byte[] encodeDeletes(Collection<JobId> jobIds) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (JobId jobId : jobIds) {
+            encodeRecord(buffer, OP_DELETE, jobId.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        logRecords.addAndGet(jobIds.size());
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Encode a record that removes every job
+     */
+    public byte[] encodeClear() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        encodeRecord(buffer, OP_CLEAR, new byte[0]);
+        logRecords.incrementAndGet();
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Append already encoded records in order and sync once for all of them
+     */
+    public synchronized void write(List<byte[]> records) throws IOException {
+        if (segmentChannel == null) {
+            throw new IllegalStateException("Write-ahead log is not open");
+        }
+        PersistFlushEvent event = new PersistFlushEvent();
+        event.begin();
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        long bytes = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(records.get(i));
+            bytes += buffers[i].remaining();
+        }
+        while (hasRemaining(buffers)) {
+            segmentChannel.write(buffers);
+        }
+        segmentChannel.force(false);
+        logBytes.addAndGet(bytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = PersistFlushEvent.LOG;
+            event.path = segmentPath(segmentId).toString();
+            event.records = records.size();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Write a snapshot covering every segment up to and including coveredSegment,
+     * then drop the files it makes obsolete.
+     * Segments at or below coveredSegment must no longer be written to.
+     */
+    public void writeSnapshot(long coveredSegment, Collection<Job> jobs) throws IOException {
+        PersistFlushEvent event = new PersistFlushEvent();
+        event.begin();
+        Files.createDirectories(directory);
+        Path target = snapshotPath(coveredSegment, storageFormat);
+        Path tempFile = directory.resolve(target.getFileName() + ".tmp");
+        
+        if (storageFormat == StorageFormat.BINARY) {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                jobCodec.writeFile(out, jobs);
+            }
+        } else {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), jobs);
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = PersistFlushEvent.SNAPSHOT;
+            event.path = target.toString();
+            event.records = jobs.size();
+            event.bytes = Files.size(target);
+            event.commit();
+        }
+        
+        for (long id : listIds(SNAPSHOT_PATTERN)) {
+            if (id < coveredSegment) {
+                Files.deleteIfExists(snapshotPath(id, StorageFormat.JSON));
+                Files.deleteIfExists(snapshotPath(id, StorageFormat.BINARY));
+            }
+        }
+        // A snapshot of the same segment in the other format is now stale
+        Files.deleteIfExists(snapshotPath(coveredSegment, otherFormat()));
+        long coveredBytes = 0;
+        for (long id : listIds(SEGMENT_PATTERN)) {
+            if (id <= coveredSegment) {
+                coveredBytes += Files.size(segmentPath(id));
+                Files.deleteIfExists(segmentPath(id));
+            }
+        }
+        logBytes.addAndGet(-coveredBytes);
+        lastSnapshotTime = Instant.now();
+        
+        logger.info("Wrote snapshot of {} jobs covering segment {}", jobs.size(), coveredSegment);
+    }
+    
+    /**
+     * Reset the record count once a snapshot has absorbed the records counted so far
+     */
+    public void resetRecordCount(long coveredRecords) {
+        logRecords.addAndGet(-coveredRecords);
+    }
+    
+    /**
+     * Get the total size of the live log segments in bytes
+     */
+    public long getLogBytes() {
+        return logBytes.get();
+    }
+    
+    /**
+     * Get the number of records written since the last snapshot
+     */
+    public long getLogRecords() {
+        return logRecords.get();
+    }
+    
+    /**
+     * Get the time the latest snapshot was written, or null if there is none
+     */
+    public Instant getLastSnapshotTime() {
+        return lastSnapshotTime;
+    }
+    
+    /**
+     * Get the segment currently being appended to
+     */
+    public synchronized long getSegmentId() {
+        return segmentId;
+    }
+    
+    /**
+     * Get the log directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (segmentChannel != null && segmentChannel.isOpen()) {
+            segmentChannel.force(true);
+            segmentChannel.close();
+        }
+    }
+    
+    private void openSegment(long id) throws IOException {
+        segmentId = id;
+        segmentChannel = FileChannel.open(segmentPath(segmentId),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        header.putInt(SEGMENT_MAGIC).put(SEGMENT_VERSION).flip();
+        writeFully(header);
+        segmentChannel.force(true);
+        logBytes.addAndGet(SEGMENT_HEADER_SIZE);
+    }
+    
+    private boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            segmentChannel.write(buffer);
+        }
+    }
+    
+    private void encodeRecord(ByteArrayOutputStream buffer, byte op, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(payload);
+        
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.writeByte(op);
+        out.write(payload);
+    }
+    
+    private int replaySegment(Path segment, RecordHandler handler) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        if (data.remaining() < SEGMENT_HEADER_SIZE || data.getInt() != SEGMENT_MAGIC) {
+            logger.warn("Skipping {}: not a write-ahead log segment", segment);
+            return 0;
+        }
+        byte version = data.get();
+        if (version != SEGMENT_VERSION) {
+            throw new IOException("Unsupported write-ahead log version " + version + " in " + segment);
+        }
+        
+        int count = 0;
+        while (data.remaining() >= RECORD_HEADER_SIZE) {
+            int start = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            byte op = data.get();
+            
+            if (length < 0 || length > data.remaining()) {
+                logger.warn("Truncated record at offset {} in {}, ignoring the rest of the segment", start, segment);
+                return count;
+            }
+            
+            byte[] payload = new byte[length];
+            data.get(payload);
+            
+            CRC32 crc = new CRC32();
+            crc.update(op);
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("Corrupt record at offset {} in {}, ignoring the rest of the segment", start, segment);
+                return count;
+            }
+            
+            switch (op) {
+                case OP_SAVE:
+                    handler.onSave(objectMapper.readValue(payload, Job.class));
+                    break;
+                case OP_SAVE_BINARY:
+                    handler.onSave(jobCodec.decode(payload));
+                    break;
+                case OP_SAVE_BINARY_TEXT_ID:
+                    handler.onSave(jobCodec.decode(ByteBuffer.wrap(payload), JobCodec.TEXT_ID_FORMAT_VERSION));
+                    break;
+                case OP_SAVE_BINARY_WALL_CLOCK:
+                    handler.onSave(jobCodec.decode(ByteBuffer.wrap(payload), JobCodec.WALL_CLOCK_FORMAT_VERSION));
+                    break;
+                case OP_DELETE:
+                    handler.onDelete(JobId.parse(new String(payload, StandardCharsets.UTF_8)));
+                    break;
+                case OP_CLEAR:
+                    handler.onClear();
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + op + " in " + segment);
+            }
+            count++;
+        }
+        return count;
+    }
+    
+    private long latestSnapshotId() throws IOException {
+        List<Long> ids = listIds(SNAPSHOT_PATTERN);
+        return ids.isEmpty() ? 0L : ids.get(ids.size() - 1);
+    }
+    
+    private List<Long> listIds(Pattern pattern) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return ids;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+    
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("segment-%06d.log", id));
+    }
+    
+    private Path snapshotPath(long id, StorageFormat format) {
+        String extension = format == StorageFormat.BINARY ? "bin" : "json";
+        return directory.resolve(String.format("snapshot-%06d.%s", id, extension));
+    }
+    
+    private Path existingSnapshotPath(long id) {
+        Path current = snapshotPath(id, storageFormat);
+        return Files.exists(current) ? current : snapshotPath(id, otherFormat());
+    }
+    
+    private StorageFormat otherFormat() {
+        return storageFormat == StorageFormat.BINARY ? StorageFormat.JSON : StorageFormat.BINARY;
+    }
+}
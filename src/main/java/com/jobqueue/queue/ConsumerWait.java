@@ -0,0 +1,95 @@
+package com.jobqueue.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Makes the consumers of a non-blocking queue wait for items according to a {@link WaitStrategy}.
+ * Producers call {@link #signal()} after every offer; it only takes the lock while a consumer is parked.
+ */
+final class ConsumerWait {
+    private static final int SPIN_LIMIT = 1000;
+    
+    private final WaitStrategy waitStrategy;
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition notEmpty = waitLock.newCondition();
+    
+    ConsumerWait(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+    
+    /**
+     * Poll until an item arrives or the timeout passes
+     *
+     * @param pollNow takes an item without waiting, or returns null
+     * @param isEmpty tells whether there is nothing left to take
+     */
+    <T> T poll(Supplier<T> pollNow, BooleanSupplier isEmpty, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        T item = pollNow.get();
+        if (item != null) {
+            return item;
+        }
+        
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int spins = 0;
+        while ((item = pollNow.get()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            
+            if (waitStrategy == WaitStrategy.YIELD) {
+                Thread.yield();
+            } else if (waitStrategy == WaitStrategy.SPIN_THEN_PARK && spins < SPIN_LIMIT) {
+                spins++;
+                Thread.onSpinWait();
+            } else {
+                park(isEmpty, remaining);
+            }
+        }
+        return item;
+    }
+    
+    /**
+     * Wake one parked consumer, if any
+     */
+    void signal() {
+        if (waiters.get() > 0) {
+            waitLock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Park until a producer signals or the timeout passes. The waiter count is raised before
+     * the emptiness re-check, and producers read it after publishing, so no signal is lost.
+     */
+    private void park(BooleanSupplier isEmpty, long timeoutNanos) throws InterruptedException {
+        waitLock.lockInterruptibly();
+        try {
+            waiters.incrementAndGet();
+            try {
+                if (isEmpty.getAsBoolean()) {
+                    notEmpty.awaitNanos(timeoutNanos);
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+}
@@ -1,36 +1,102 @@
 package com.jobqueue.queue;
 
 import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.jfr.JobDequeuedEvent;
+import com.jobqueue.jfr.JobEnqueuedEvent;
+import com.jobqueue.jfr.LockWaitEvent;
+import com.jobqueue.metrics.Counter;
+import com.jobqueue.metrics.LatencyHistogram;
+import com.jobqueue.metrics.MetricsRegistry;
+import com.jobqueue.model.CoarseClock;
 import com.jobqueue.model.Job;
+import com.jobqueue.model.JobId;
 import com.jobqueue.model.JobState;
 import com.jobqueue.persistence.PersistenceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Thread-safe job queue that manages job lifecycle and persistence.
  * Handles job enqueuing, dequeuing, retries, and dead letter queue management.
+ * Failed jobs are scheduled on a timing wheel keyed by their next retry time, so each
+ * becomes pending again within one tick of being due instead of waiting for a poll.
+ * <p>
+ * A dequeued job is leased to its worker until the lease expires. Leases are renewed in
+ * batches while the job runs, and a second timing wheel keyed by lease expiry fails jobs whose
+ * lease ran out (their worker died) into the retry path, so they are never stuck processing.
+ * Leases handed to workers in other processes are renewed by those workers' nodes, never
+ * by this queue, so a follower that dies has its jobs reclaimed like a dead local worker.
+ * <p>
+ * When the store is split into shards, each shard gets its own pending queue and every worker
+ * a home shard picked by its ID. A worker takes jobs from its home shard first and steals from
+ * the others when that is empty, so workers mostly stay out of each other's way without any
+ * shard's jobs going unserved.
+ * <p>
+ * Changes to a stored job are made under a lock striped by job ID. These are
+ * {@link ReentrantLock}s rather than monitors because the changes wait on the store, and a
+ * virtual worker waiting inside a monitor pins its carrier thread; with every carrier pinned
+ * behind a store lock held by an unmounted virtual thread, the queue would deadlock.
  */
-public class JobQueue {
+public class JobQueue implements JobSource {
     private static final Logger logger = LoggerFactory.getLogger(JobQueue.class);
+    private static final long RETRY_TICK_MILLIS = 10;
+    private static final int RETRY_WHEEL_SIZE = 512;
+    private static final long LEASE_TICK_MILLIS = 100;
+    private static final int LEASE_WHEEL_SIZE = 1024;
+    private static final long STEAL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int JOB_LOCK_STRIPES = 64;
+    private static final String JOB_LOCK_NAME = "JobQueue job lock";
+    private static final String RETRY_LOCK_NAME = "JobQueue retry lock";
     
     private final PersistenceManager persistenceManager;
     private final JobQueueConfig config;
-    private final BlockingQueue<Job> pendingJobs = new LinkedBlockingQueue<>();
+    private final List<PriorityPendingQueue<Job>> pendingShards;
     private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private final AtomicBoolean retryTimerStarted = new AtomicBoolean(false);
+    private final AtomicBoolean leaseReaperStarted = new AtomicBoolean(false);
+    private final TimingWheel<JobId> retryTimer;
+    private final TimingWheel<JobId> leaseReaper;
+    private final Map<JobId, Job> leasedJobs = new ConcurrentHashMap<>();
+    private final ReentrantLock[] jobLocks = new ReentrantLock[JOB_LOCK_STRIPES];
+    private final ReentrantLock retryLock = new ReentrantLock();
+    private final LongAdder stolenJobs = new LongAdder();
+    private final Counter enqueuedJobs = new Counter();
+    private final Counter dequeuedJobs = new Counter();
+    private final Counter completedJobs = new Counter();
+    private final Counter failedJobs = new Counter();
+    private final Counter deadJobs = new Counter();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
     
+    // The timer callbacks only run once initialize() starts the wheels
+    @SuppressWarnings("this-escape")
     public JobQueue(PersistenceManager persistenceManager, JobQueueConfig config) {
         this.persistenceManager = persistenceManager;
         this.config = config;
+        this.pendingShards = new ArrayList<>(persistenceManager.getShardCount());
+        for (int i = 0; i < persistenceManager.getShardCount(); i++) {
+            pendingShards.add(createPendingQueue(config));
+        }
+        this.retryTimer = new TimingWheel<>("RetryTimer", RETRY_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                                            RETRY_WHEEL_SIZE, this::retryIfDue);
+        this.leaseReaper = new TimingWheel<>("LeaseReaper", LEASE_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                                             LEASE_WHEEL_SIZE, this::reclaimIfExpired);
+        for (int i = 0; i < jobLocks.length; i++) {
+            jobLocks[i] = new ReentrantLock();
+        }
     }
     
     /**
@@ -39,7 +105,38 @@ public class JobQueue {
     public void initialize() {
         if (initialized.compareAndSet(false, true)) {
             loadPendingJobs();
-            logger.info("JobQueue initialized with {} pending jobs", pendingJobs.size());
+            logger.info("JobQueue initialized with {} pending jobs", getPendingCount());
+        }
+    }
+    
+    /**
+     * Start firing retries: every failed job in storage is put on the retry timer,
+     * and jobs that fail from now on are added as they fail
+     */
+    public void startRetryTimer() {
+        if (retryTimerStarted.compareAndSet(false, true)) {
+            List<Job> failedJobs = persistenceManager.getFailedJobs();
+            for (Job job : failedJobs) {
+                scheduleRetry(job);
+            }
+            retryTimer.start();
+            logger.info("Retry timer started with {} failed jobs", failedJobs.size());
+        }
+    }
+    
+    /**
+     * Start reclaiming expired leases: every job left processing in storage gets one more
+     * lease timeout for its worker to renew it, and jobs dequeued from now on are added as
+     * they are leased
+     */
+    public void startLeaseReaper() {
+        if (leaseReaperStarted.compareAndSet(false, true)) {
+            List<Job> processingJobs = persistenceManager.getProcessingJobs();
+            for (Job job : processingJobs) {
+                leaseReaper.schedule(job.getJobId(), config.getLeaseTimeoutSeconds(), TimeUnit.SECONDS);
+            }
+            leaseReaper.start();
+            logger.info("Lease reaper started with {} processing jobs", processingJobs.size());
         }
     }
     
@@ -67,17 +164,62 @@ public class JobQueue {
         }
         
         // Save to persistence first
+        JobEnqueuedEvent event = new JobEnqueuedEvent();
+        event.begin();
         persistenceManager.saveJob(job);
+        event.end();
+        enqueuedJobs.increment();
+        if (event.shouldCommit()) {
+            event.jobId = job.getId();
+            event.jobCount = 1;
+            event.priority = job.getPriority();
+            event.commit();
+        }
         
         // Add to pending queue if it's in pending state
         if (job.getState() == JobState.PENDING) {
-            pendingJobs.offer(job);
-            logger.info("Job enqueued: {} - {}", job.getId(), job.getCommand());
+            offerPending(job);
+            logger.info("Job enqueued: {} - {}", job.getJobId(), job.getCommand());
         }
         
         return job.getId();
     }
     
+    /**
+     * Enqueue a batch of jobs with a single write to storage
+     *
+     * @return the job IDs, in the order given
+     */
+    public List<String> enqueueAll(Collection<Job> jobs) {
+        if (!initialized.get()) {
+            initialize();
+        }
+        
+        JobEnqueuedEvent event = new JobEnqueuedEvent();
+        event.begin();
+        persistenceManager.saveJobs(jobs);
+        event.end();
+        enqueuedJobs.add(jobs.size());
+        if (event.shouldCommit() && !jobs.isEmpty()) {
+            Job first = jobs.iterator().next();
+            event.jobId = first.getId();
+            event.jobCount = jobs.size();
+            event.priority = first.getPriority();
+            event.commit();
+        }
+        
+        List<String> jobIds = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            if (job.getState() == JobState.PENDING) {
+                offerPending(job);
+            }
+            jobIds.add(job.getId());
+        }
+        logger.info("Enqueued batch of {} jobs", jobs.size());
+        
+        return jobIds;
+    }
+    
     /**
      * Dequeue the next available job for processing
      */
@@ -89,25 +231,122 @@ public class JobQueue {
      * Dequeue the next available job with timeout
      */
     public Optional<Job> dequeue(long timeout, TimeUnit unit) {
+        return dequeue(null, timeout, unit);
+    }
+    
+    /**
+     * Dequeue the next available job and lease it to a worker
+     */
+    @Override
+    public Optional<Job> dequeue(String workerId, long timeout, TimeUnit unit) {
+        return dequeue(workerId, timeout, unit, true);
+    }
+    
+    /**
+     * Dequeue the next available job and lease it to a worker in another process.
+     * The lease is left out of {@link #renewLeases()}; only {@link #renewLeases(Collection)}
+     * calls from the worker's node keep it alive.
+     */
+    public Optional<Job> dequeueRemote(String workerId, long timeout, TimeUnit unit) {
+        return dequeue(workerId, timeout, unit, false);
+    }
+    
+    private Optional<Job> dequeue(String workerId, long timeout, TimeUnit unit, boolean renewLocally) {
+        List<Job> jobs = claim(workerId, 1, timeout, unit, renewLocally);
+        return jobs.isEmpty() ? Optional.empty() : Optional.of(jobs.get(0));
+    }
+    
+    /**
+     * Dequeue up to the given number of jobs, waiting up to the given time for the first,
+     * and mark them all processing with a single write to storage
+     */
+    public List<Job> dequeueBatch(int maxJobs, long timeout, TimeUnit unit) {
+        return dequeueBatch(null, maxJobs, timeout, unit);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * All the jobs are marked processing with a single write to storage.
+     */
+    @Override
+    public List<Job> dequeueBatch(String workerId, int maxJobs, long timeout, TimeUnit unit) {
+        return claim(workerId, maxJobs, timeout, unit, true);
+    }
+    
+    /**
+     * Dequeue up to the given number of jobs and lease them to a worker in another process,
+     * like {@link #dequeueRemote(String, long, TimeUnit)}
+     */
+    public List<Job> dequeueBatchRemote(String workerId, int maxJobs, long timeout, TimeUnit unit) {
+        return claim(workerId, maxJobs, timeout, unit, false);
+    }
+    
+    /**
+     * Take up to maxJobs pending jobs, waiting until the timeout for the first one only,
+     * and lease them to the worker with a single write to storage
+     */
+    private List<Job> claim(String workerId, int maxJobs, long timeout, TimeUnit unit, boolean renewLocally) {
         if (!initialized.get()) {
             initialize();
         }
         
+        List<Job> claimed = new ArrayList<>(Math.min(maxJobs, 16));
         try {
-            Job job = pendingJobs.poll(timeout, unit);
-            if (job != null) {
-                // Mark as processing and save
-                job.markAsProcessing();
-                persistenceManager.saveJob(job);
-                logger.debug("Job dequeued for processing: {}", job.getId());
-                return Optional.of(job);
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            Job job;
+            while (claimed.size() < maxJobs
+                    && (job = claimed.isEmpty() ? pollPending(workerId, deadline) : pollPendingNow(workerId)) != null) {
+                // Skip entries for jobs deleted or replaced since they were queued
+                if (isStillPending(job)) {
+                    claimed.add(job);
+                } else {
+                    logger.debug("Skipping stale queue entry: {}", job.getJobId());
+                }
             }
         } catch (InterruptedException e) {
+            // Jobs already taken off the queue are still leased below
             Thread.currentThread().interrupt();
             logger.debug("Dequeue interrupted");
         }
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
         
-        return Optional.empty();
+        // Mark as processing under a fresh lease and save. Waits are timed from when the job
+        // was last offered to the pending queue, on the nanosecond clock, since most are far
+        // shorter than the coarse clock's millisecond
+        JobDequeuedEvent event = new JobDequeuedEvent();
+        event.begin();
+        Job first = claimed.get(0);
+        int firstAttempt = first.getAttempts();
+        long longestWait = 0;
+        long now = System.nanoTime();
+        long leaseExpiresAt = leaseExpiryFromNow();
+        for (Job job : claimed) {
+            long waitNanos = now - job.getEnqueuedNanos();
+            queueWait.record(waitNanos);
+            longestWait = Math.max(longestWait, waitNanos);
+            job.markAsProcessing(workerId, leaseExpiresAt);
+            if (renewLocally) {
+                leasedJobs.put(job.getJobId(), job);
+            }
+        }
+        persistenceManager.saveJobs(claimed);
+        event.end();
+        dequeuedJobs.add(claimed.size());
+        if (event.shouldCommit()) {
+            event.jobId = first.getId();
+            event.jobCount = claimed.size();
+            event.workerId = workerId;
+            event.attempt = firstAttempt;
+            event.queueWait = longestWait;
+            event.commit();
+        }
+        for (Job job : claimed) {
+            scheduleLeaseExpiry(job);
+        }
+        logger.debug("Dequeued {} jobs for processing", claimed.size());
+        return claimed;
     }
     
     /**
@@ -115,52 +354,199 @@ public class JobQueue {
      */
     public void markCompleted(Job job) {
         job.markAsCompleted();
+        leasedJobs.remove(job.getJobId(), job);
         persistenceManager.saveJob(job);
-        logger.info("Job completed: {} - {}", job.getId(), job.getCommand());
+        completedJobs.increment();
+        logger.info("Job completed: {} - {}", job.getJobId(), job.getCommand());
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The job may be a copy, such as one leased over the network; the lease is looked up by
+     * job ID and must still belong to the copy's worker.
+     */
+    @Override
+    public boolean markCompleted(Job job, int attempt) {
+        Job stored = persistenceManager.getJob(job.getJobId()).orElse(job);
+        ReentrantLock lock = lockFor(job.getJobId());
+        LockWaitEvent.lock(lock, JOB_LOCK_NAME);
+        try {
+            if (!holdsLease(stored, job.getWorkerId(), attempt)) {
+                return false;
+            }
+            markCompleted(stored);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The job may be a copy, such as one leased over the network; the lease is looked up by
+     * job ID and must still belong to the copy's worker.
+     */
+    @Override
+    public boolean markFailed(Job job, int attempt, String errorMessage) {
+        Job stored = persistenceManager.getJob(job.getJobId()).orElse(job);
+        ReentrantLock lock = lockFor(job.getJobId());
+        LockWaitEvent.lock(lock, JOB_LOCK_NAME);
+        try {
+            if (!holdsLease(stored, job.getWorkerId(), attempt)) {
+                return false;
+            }
+            markFailed(stored, errorMessage);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Extend the lease of every job this queue has handed out to local workers and is still
+     * processing, with a single write to storage
+     *
+     * @return the number of leases renewed
+     */
+    @Override
+    public int renewLeases() {
+        long leaseExpiresAt = leaseExpiryFromNow();
+        List<Job> renewed = new ArrayList<>(leasedJobs.size());
+        for (Job job : leasedJobs.values()) {
+            ReentrantLock lock = lockFor(job.getJobId());
+            LockWaitEvent.lock(lock, JOB_LOCK_NAME);
+            try {
+                if (job.getState() == JobState.PROCESSING) {
+                    job.renewLease(leaseExpiresAt);
+                    renewed.add(job);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!renewed.isEmpty()) {
+            persistenceManager.saveJobs(renewed);
+            logger.debug("Renewed {} leases until {}", renewed.size(), Instant.ofEpochMilli(leaseExpiresAt));
+        }
+        return renewed.size();
+    }
+    
+    /**
+     * Extend the leases of the given jobs, which a worker node is still running, with a single
+     * write to storage. Jobs whose lease has since been lost are skipped.
+     *
+     * @param jobs copies of the jobs as they were dequeued
+     * @return the number of leases renewed
+     */
+    public int renewLeases(Collection<Job> jobs) {
+        long leaseExpiresAt = leaseExpiryFromNow();
+        List<Job> renewed = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            Optional<Job> stored = persistenceManager.getJob(job.getJobId());
+            if (stored.isEmpty()) {
+                continue;
+            }
+            ReentrantLock lock = lockFor(job.getJobId());
+            LockWaitEvent.lock(lock, JOB_LOCK_NAME);
+            try {
+                if (stored.get().getState() == JobState.PROCESSING && stored.get().getAttempts() == job.getAttempts()
+                        && Objects.equals(stored.get().getWorkerId(), job.getWorkerId())) {
+                    stored.get().renewLease(leaseExpiresAt);
+                    renewed.add(stored.get());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!renewed.isEmpty()) {
+            persistenceManager.saveJobs(renewed);
+            logger.debug("Renewed {} remote leases until {}", renewed.size(), Instant.ofEpochMilli(leaseExpiresAt));
+        }
+        return renewed.size();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The jobs may be copies, such as ones leased over the network; each lease is looked up by
+     * job ID and must still belong to the copy's worker. Returned jobs are saved in one write.
+     */
+    @Override
+    public int release(Collection<Job> jobs) {
+        List<Job> released = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            Optional<Job> stored = persistenceManager.getJob(job.getJobId());
+            if (stored.isEmpty()) {
+                continue;
+            }
+            ReentrantLock lock = lockFor(job.getJobId());
+            LockWaitEvent.lock(lock, JOB_LOCK_NAME);
+            try {
+                if (holdsLease(stored.get(), job.getWorkerId(), job.getAttempts())) {
+                    leasedJobs.remove(job.getJobId(), stored.get());
+                    stored.get().resetForRetry();
+                    released.add(stored.get());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!released.isEmpty()) {
+            persistenceManager.saveJobs(released);
+            for (Job job : released) {
+                offerPending(job);
+            }
+            logger.info("Returned {} unstarted jobs to the queue", released.size());
+        }
+        return released.size();
     }
     
     /**
      * Mark a job as failed and handle retry logic
      */
     public void markFailed(Job job, String errorMessage) {
+        leasedJobs.remove(job.getJobId(), job);
+        // Calculate next retry time using exponential backoff
+        long nextRetryAt = calculateNextRetryTime(job.getAttempts());
+        job.markAsFailed(errorMessage, nextRetryAt);
+        failedJobs.increment();
+        
         if (job.canRetry()) {
-            // Calculate next retry time using exponential backoff
-            LocalDateTime nextRetryAt = calculateNextRetryTime(job.getAttempts());
-            job.markAsFailed(errorMessage, nextRetryAt);
             persistenceManager.saveJob(job);
+            if (retryTimerStarted.get()) {
+                scheduleRetry(job);
+            }
             
             logger.warn("Job failed (attempt {}/{}): {} - {} - Next retry at: {}", 
-                       job.getAttempts(), job.getMaxRetries(), job.getId(), 
-                       job.getCommand(), nextRetryAt);
+                       job.getAttempts(), job.getMaxRetries(), job.getJobId(), 
+                       job.getCommand(), Instant.ofEpochMilli(nextRetryAt));
         } else {
             // Move to dead letter queue
             job.markAsDead(errorMessage);
             persistenceManager.saveJob(job);
+            deadJobs.increment();
             
             logger.error("Job moved to DLQ after {} attempts: {} - {} - Error: {}", 
-                        job.getAttempts(), job.getId(), job.getCommand(), errorMessage);
+                        job.getAttempts(), job.getJobId(), job.getCommand(), errorMessage);
         }
     }
     
     /**
-     * Process retry jobs that are ready for retry
+     * Requeue every failed job whose retry time has passed.
+     * The retry timer normally does this as each job falls due; this sweep is a backstop.
      */
     public int processRetries() {
-        List<Job> retryJobs = persistenceManager.getJobsReadyForRetry();
-        
-        for (Job job : retryJobs) {
-            job.resetForRetry();
-            persistenceManager.saveJob(job);
-            pendingJobs.offer(job);
-            logger.info("Job requeued for retry: {} (attempt {}/{})", 
-                       job.getId(), job.getAttempts() + 1, job.getMaxRetries());
+        int retried = 0;
+        for (Job job : persistenceManager.getJobsReadyForRetry()) {
+            if (requeueForRetry(job)) {
+                retried++;
+            }
         }
         
-        if (!retryJobs.isEmpty()) {
-            logger.info("Processed {} jobs for retry", retryJobs.size());
+        if (retried > 0) {
+            logger.info("Processed {} jobs for retry", retried);
         }
         
-        return retryJobs.size();
+        return retried;
     }
     
     /**
@@ -195,7 +581,48 @@ public class JobQueue {
      * Get the number of pending jobs in the queue
      */
     public int getPendingCount() {
-        return pendingJobs.size();
+        long size = 0;
+        for (PriorityPendingQueue<Job> pending : pendingShards) {
+            size += pending.size();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+    
+    /**
+     * Get queue depth and dequeue latency for every priority level, highest first
+     */
+    public List<PriorityPendingQueue.LaneStatistics> getLaneStatistics() {
+        if (pendingShards.size() == 1) {
+            return pendingShards.get(0).getLaneStatistics();
+        }
+        // Lanes come highest priority first in every shard, so they line up by position
+        List<PriorityPendingQueue.LaneStatistics> merged = new ArrayList<>();
+        for (PriorityPendingQueue<Job> pending : pendingShards) {
+            List<PriorityPendingQueue.LaneStatistics> lanes = pending.getLaneStatistics();
+            for (int i = 0; i < lanes.size(); i++) {
+                PriorityPendingQueue.LaneStatistics lane = lanes.get(i);
+                if (i == merged.size()) {
+                    merged.add(lane);
+                    continue;
+                }
+                PriorityPendingQueue.LaneStatistics total = merged.get(i);
+                long dequeued = total.getDequeued() + lane.getDequeued();
+                double meanWaitMillis = dequeued == 0 ? 0
+                        : (total.getMeanWaitMillis() * total.getDequeued()
+                           + lane.getMeanWaitMillis() * lane.getDequeued()) / dequeued;
+                merged.set(i, new PriorityPendingQueue.LaneStatistics(total.getPriority(),
+                        total.getWaiting() + lane.getWaiting(), dequeued, meanWaitMillis,
+                        Math.max(total.getMaxWaitMillis(), lane.getMaxWaitMillis())));
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * Get the number of jobs workers took from a shard other than their home shard
+     */
+    public long getStolenJobCount() {
+        return stolenJobs.sum();
     }
     
     /**
@@ -221,7 +648,9 @@ public class JobQueue {
             Job job = jobOpt.get();
             if (job.getState() == JobState.DEAD) {
                 // Reset the job for retry
-                Job retryJob = new Job(job.getId(), job.getCommand(), job.getMaxRetries());
+                long now = CoarseClock.currentTimeMillis();
+                Job retryJob = new Job(job.getJobId(), job.getCommand(), JobState.PENDING, 0, job.getMaxRetries(),
+                                       job.getPriority(), now, now, null, 0, null, 0);
                 return enqueue(retryJob) != null;
             }
         }
@@ -232,10 +661,7 @@ public class JobQueue {
      * Delete a job
      */
     public boolean deleteJob(String jobId) {
-        // Remove from pending queue if present
-        pendingJobs.removeIf(job -> job.getId().equals(jobId));
-        
-        // Remove from persistence
+        // A queued entry for the job is skipped when it reaches the head of the queue
         return persistenceManager.deleteJob(jobId);
     }
     
@@ -244,21 +670,257 @@ public class JobQueue {
      */
     public void shutdown() {
         logger.info("JobQueue shutting down...");
-        // The queue itself doesn't need special shutdown handling
-        // Workers will handle their own shutdown
+        // Workers handle their own shutdown; pending retries and leases are rebuilt from storage on restart
+        retryTimer.close();
+        leaseReaper.close();
+    }
+    
+    /**
+     * Get the number of failed jobs waiting on the retry timer
+     */
+    public int getScheduledRetryCount() {
+        return retryTimer.size();
+    }
+    
+    /**
+     * Get the number of jobs this queue has leased out and not yet seen finish
+     */
+    public int getLeasedJobCount() {
+        return leasedJobs.size();
+    }
+    
+    /**
+     * Register the queue's metrics: jobs through each transition since this queue was created,
+     * the pending depth and how long jobs waited to be dequeued. Every failed attempt counts as
+     * failed, including the last one that sends the job to the dead letter queue.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.counter("queuectl_jobs_enqueued_total", "Jobs enqueued", enqueuedJobs);
+        registry.counter("queuectl_jobs_dequeued_total", "Jobs dequeued by workers", dequeuedJobs);
+        registry.counter("queuectl_jobs_completed_total", "Jobs completed", completedJobs);
+        registry.counter("queuectl_jobs_failed_total", "Job attempts failed", failedJobs);
+        registry.counter("queuectl_jobs_dead_total", "Jobs moved to the dead letter queue", deadJobs);
+        registry.gauge("queuectl_pending_queue_depth", "Jobs waiting in the pending queue", this::getPendingCount);
+        registry.gauge("queuectl_leased_jobs", "Jobs leased to workers in this process", this::getLeasedJobCount);
+        registry.histogram("queuectl_queue_wait_seconds",
+                           "Time from a job becoming pending until a worker dequeued it", queueWait);
+    }
+    
+    /**
+     * Create the pending queue: one lane per priority level, each backed by the
+     * implementation selected in the configuration
+     */
+    private static PriorityPendingQueue<Job> createPendingQueue(JobQueueConfig config) {
+        PendingQueueType type = PendingQueueType.fromString(config.getPendingQueue());
+        WaitStrategy waitStrategy = WaitStrategy.fromString(config.getWaitStrategy());
+        int levels = Job.MAX_PRIORITY - Job.MIN_PRIORITY + 1;
+        int laneCapacity = Math.max(2, config.getPendingQueueCapacity() / levels);
+        
+        Supplier<PendingQueue<Job>> laneFactory;
+        switch (type) {
+            case RING:
+                // Lanes are only polled without waiting; the priority queue does the waiting
+                laneFactory = () -> new RingBufferPendingQueue<>(laneCapacity, waitStrategy);
+                break;
+            case LINKED:
+            default:
+                laneFactory = LinkedPendingQueue::new;
+                break;
+        }
+        return new PriorityPendingQueue<>(Job.MIN_PRIORITY, Job.MAX_PRIORITY, Job::getPriority,
+                                          Job::setEnqueuedNanos, Job::getEnqueuedNanos, laneFactory,
+                                          config.getPriorityAgingSeconds(), TimeUnit.SECONDS, waitStrategy);
+    }
+    
+    /**
+     * Queue a pending job on the pending queue of its shard
+     */
+    private void offerPending(Job job) {
+        pendingShards.get(persistenceManager.shardOf(job.getJobId())).offer(job);
+    }
+    
+    /**
+     * Take the next pending job for a worker, waiting until the deadline: from the worker's home
+     * shard if it has one, otherwise stolen from the next shard that does. While every shard is
+     * empty the worker waits on its home shard, looking at the others again every few
+     * milliseconds, so a job on a shard without idle workers of its own waits at most that long.
+     */
+    private Job pollPending(String workerId, long deadline) throws InterruptedException {
+        int shardCount = pendingShards.size();
+        if (shardCount == 1) {
+            return pendingShards.get(0).poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        int home = homeShard(workerId);
+        while (true) {
+            Job job = pollPendingNow(workerId);
+            if (job != null) {
+                return job;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            job = pendingShards.get(home).poll(Math.min(remaining, STEAL_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+            if (job != null) {
+                return job;
+            }
+        }
+    }
+    
+    /**
+     * Take the next pending job for a worker without waiting, from its home shard if that
+     * has one and stolen from another shard otherwise
+     */
+    private Job pollPendingNow(String workerId) {
+        int shardCount = pendingShards.size();
+        int home = homeShard(workerId);
+        for (int i = 0; i < shardCount; i++) {
+            Job job = pendingShards.get((home + i) % shardCount).poll();
+            if (job != null) {
+                if (i > 0) {
+                    stolenJobs.increment();
+                }
+                return job;
+            }
+        }
+        return null;
+    }
+    
+    private int homeShard(String workerId) {
+        return Math.floorMod(Objects.hashCode(workerId), pendingShards.size());
+    }
+    
+    /**
+     * Check that a dequeued entry is still the stored, pending instance of its job
+     */
+    private boolean isStillPending(Job job) {
+        Optional<Job> stored = persistenceManager.getJob(job.getJobId());
+        return stored.isPresent() && stored.get() == job && job.getState() == JobState.PENDING;
     }
     
     /**
      * Calculate next retry time using exponential backoff
      */
-    private LocalDateTime calculateNextRetryTime(int attempts) {
+    private long calculateNextRetryTime(int attempts) {
         // delay = base ^ attempts seconds
         long delaySeconds = (long) Math.pow(config.getBackoffBase(), attempts);
         
         // Cap the delay to prevent extremely long waits
         delaySeconds = Math.min(delaySeconds, 3600); // Max 1 hour
         
-        return LocalDateTime.now().plusSeconds(delaySeconds);
+        return CoarseClock.currentTimeMillis() + TimeUnit.SECONDS.toMillis(delaySeconds);
+    }
+    
+    /**
+     * Get the expiry of a lease taken or renewed now, in epoch milliseconds
+     */
+    private long leaseExpiryFromNow() {
+        return CoarseClock.currentTimeMillis() + TimeUnit.SECONDS.toMillis(config.getLeaseTimeoutSeconds());
+    }
+    
+    /**
+     * Put a failed job on the retry timer for its next retry time
+     */
+    private void scheduleRetry(Job job) {
+        long nextRetryAt = job.getNextRetryAtMillis();
+        long delayMillis = nextRetryAt == 0 ? 0 : nextRetryAt - CoarseClock.currentTimeMillis();
+        retryTimer.schedule(job.getJobId(), delayMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Retry timer callback: requeue the job if it is still failed and due.
+     * Entries for jobs that were deleted or retried by hand in the meantime are ignored.
+     */
+    private void retryIfDue(JobId jobId) {
+        Optional<Job> jobOpt = persistenceManager.getJob(jobId);
+        if (jobOpt.isEmpty() || jobOpt.get().getState() != JobState.FAILED) {
+            return;
+        }
+        Job job = jobOpt.get();
+        if (!job.isReadyForRetry()) {
+            // Failed again since this entry was scheduled, or the tick fired just early
+            scheduleRetry(job);
+            return;
+        }
+        requeueForRetry(job);
+    }
+    
+    /**
+     * Check that a stored job is still processing under the lease it was dequeued with.
+     * A reclaimed job has been failed (counting the attempt) or retried by hand since.
+     */
+    private boolean holdsLease(Job job, String workerId, int attempt) {
+        Optional<Job> stored = persistenceManager.getJob(job.getJobId());
+        if (stored.isPresent() && stored.get() == job && job.getState() == JobState.PROCESSING
+                && job.getAttempts() == attempt && Objects.equals(job.getWorkerId(), workerId)) {
+            return true;
+        }
+        logger.warn("Ignoring outcome of job {} attempt {}: its lease was lost", job.getJobId(), attempt + 1);
+        return false;
+    }
+    
+    /**
+     * Put a leased job on the lease reaper for its lease expiry time
+     */
+    private void scheduleLeaseExpiry(Job job) {
+        long leaseExpiresAt = job.getLeaseExpiresAtMillis();
+        long delayMillis = leaseExpiresAt == 0 ? 0 : leaseExpiresAt - CoarseClock.currentTimeMillis();
+        leaseReaper.schedule(job.getJobId(), delayMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Lease reaper callback: fail the job into the retry path if its lease ran out.
+     * Renewals do not touch the reaper; an entry that fires before the renewed expiry is
+     * simply scheduled again, and entries for jobs that finished are ignored.
+     */
+    private void reclaimIfExpired(JobId jobId) {
+        Optional<Job> jobOpt = persistenceManager.getJob(jobId);
+        if (jobOpt.isEmpty() || jobOpt.get().getState() != JobState.PROCESSING) {
+            return;
+        }
+        Job job = jobOpt.get();
+        ReentrantLock lock = lockFor(jobId);
+        LockWaitEvent.lock(lock, JOB_LOCK_NAME);
+        try {
+            if (job.getState() != JobState.PROCESSING) {
+                return;
+            }
+            if (!job.isLeaseExpired()) {
+                scheduleLeaseExpiry(job);
+                return;
+            }
+            logger.warn("Lease on job {} held by {} expired, reclaiming it", jobId, job.getWorkerId());
+            markFailed(job, String.format("Lease expired: worker %s stopped renewing it", job.getWorkerId()));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Get the lock guarding changes to a stored job
+     */
+    private ReentrantLock lockFor(JobId jobId) {
+        return jobLocks[Math.floorMod(jobId.hashCode(), jobLocks.length)];
+    }
+    
+    /**
+     * Move a failed job back to pending, unless another caller already did
+     */
+    private boolean requeueForRetry(Job job) {
+        LockWaitEvent.lock(retryLock, RETRY_LOCK_NAME);
+        try {
+            if (job.getState() != JobState.FAILED || !job.canRetry()) {
+                return false;
+            }
+            job.resetForRetry();
+            persistenceManager.saveJob(job);
+        } finally {
+            retryLock.unlock();
+        }
+        offerPending(job);
+        logger.info("Job requeued for retry: {} (attempt {}/{})", 
+                   job.getJobId(), job.getAttempts() + 1, job.getMaxRetries());
+        return true;
     }
     
     /**
@@ -267,7 +929,7 @@ public class JobQueue {
     private void loadPendingJobs() {
         List<Job> pendingJobs = persistenceManager.getPendingJobs();
         for (Job job : pendingJobs) {
-            this.pendingJobs.offer(job);
+            offerPending(job);
         }
         
         if (!pendingJobs.isEmpty()) {
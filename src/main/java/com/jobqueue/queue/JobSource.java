@@ -0,0 +1,58 @@
+package com.jobqueue.queue;
+
+import com.jobqueue.model.Job;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where workers get their jobs from and report their outcomes to. The process that owns the
+ * job store uses its {@link JobQueue} directly; workers in other processes lease jobs from it
+ * over the network.
+ */
+public interface JobSource {
+    
+    /**
+     * Dequeue the next available job and lease it to a worker, waiting up to the given time
+     */
+    Optional<Job> dequeue(String workerId, long timeout, TimeUnit unit);
+    
+    /**
+     * Dequeue up to the given number of jobs and lease them all to a worker in one step,
+     * waiting up to the given time for the first; the rest are only those already queued
+     *
+     * @return the jobs, empty if none arrived in time
+     */
+    List<Job> dequeueBatch(String workerId, int maxJobs, long timeout, TimeUnit unit);
+    
+    /**
+     * Mark a leased job as completed, unless its lease for this attempt was lost
+     *
+     * @return false if the lease expired and the job was handed to the retry path
+     */
+    boolean markCompleted(Job job, int attempt);
+    
+    /**
+     * Mark a leased job as failed, unless its lease for this attempt was lost
+     *
+     * @return false if the lease expired and the job was handed to the retry path
+     */
+    boolean markFailed(Job job, int attempt, String errorMessage);
+    
+    /**
+     * Extend the lease of every job dequeued through this source that is still running
+     *
+     * @return the number of leases renewed
+     */
+    int renewLeases();
+    
+    /**
+     * Hand back leased jobs a worker never started, such as those it prefetched before
+     * shutting down. They become pending again without using up an attempt.
+     *
+     * @return the number of jobs handed back; jobs whose lease was lost are skipped
+     */
+    int release(Collection<Job> jobs);
+}
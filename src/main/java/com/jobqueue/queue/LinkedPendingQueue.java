@@ -0,0 +1,37 @@
+package com.jobqueue.queue;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unbounded pending queue backed by a {@link LinkedBlockingQueue}.
+ * Allocates a node per item and serializes consumers on one lock.
+ */
+public class LinkedPendingQueue<T> implements PendingQueue<T> {
+    private final LinkedBlockingQueue<T> queue = new LinkedBlockingQueue<>();
+    
+    @Override
+    public void offer(T item) {
+        queue.offer(item);
+    }
+    
+    @Override
+    public T poll() {
+        return queue.poll();
+    }
+    
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+    
+    @Override
+    public T peek() {
+        return queue.peek();
+    }
+    
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.jobqueue.queue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of jobs waiting for a worker. Producers never block: an offer always succeeds,
+ * so enqueuing and retries cannot stall behind slow workers.
+ */
+public interface PendingQueue<T> {
+    
+    /**
+     * Add an item at the tail of the queue
+     */
+    void offer(T item);
+    
+    /**
+     * Take the item at the head of the queue without waiting
+     *
+     * @return the item, or null if the queue is empty
+     */
+    T poll();
+    
+    /**
+     * Take the item at the head of the queue, waiting up to the given time for one to arrive
+     *
+     * @return the item, or null if the wait timed out
+     */
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+    
+    /**
+     * Look at the item at the head of the queue without taking it
+     *
+     * @return the item, or null if the queue is empty
+     */
+    T peek();
+    
+    /**
+     * Get the number of items in the queue
+     */
+    int size();
+}
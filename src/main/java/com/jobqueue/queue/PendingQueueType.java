@@ -0,0 +1,43 @@
+package com.jobqueue.queue;
+
+/**
+ * Represents the available pending queue implementations.
+ */
+public enum PendingQueueType {
+    /**
+     * Unbounded linked queue, see {@link LinkedPendingQueue}
+     */
+    LINKED("linked"),
+    
+    /**
+     * Array-backed lock-free ring buffer, see {@link RingBufferPendingQueue}
+     */
+    RING("ring");
+    
+    private final String value;
+    
+    PendingQueueType(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    /**
+     * Convert string value to PendingQueueType enum
+     */
+    public static PendingQueueType fromString(String value) {
+        for (PendingQueueType type : PendingQueueType.values()) {
+            if (type.value.equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown pending queue: " + value);
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
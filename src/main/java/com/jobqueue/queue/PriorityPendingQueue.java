@@ -0,0 +1,234 @@
+package com.jobqueue.queue;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Pending queue with one FIFO lane per priority level.
+ * Offering appends to the item's lane; taking compares only the head of each lane, so both
+ * cost O(levels) regardless of how many items are queued.
+ * <p>
+ * Heads age while they wait: a head's effective priority is its lane plus one level for every
+ * aging interval it has been queued, and the highest effective priority is taken next
+ * (the higher lane wins a tie). A busy high lane can therefore delay a low lane by a bounded
+ * time, but never starve it.
+ * <p>
+ * Items carry the time they entered their lane themselves, so a lane holds the items as they
+ * are and offering one allocates nothing beyond what the lane does. Lanes are only polled
+ * without waiting; consumers wait on this queue with its own wait strategy, and the one a
+ * lane was built with is never used.
+ */
+public class PriorityPendingQueue<T> implements PendingQueue<T> {
+    private final int minPriority;
+    private final List<PendingQueue<T>> lanes;
+    private final LaneCounters[] counters;
+    private final ToIntFunction<T> priorityOf;
+    private final ObjLongConsumer<T> setEnqueuedNanos;
+    private final ToLongFunction<T> enqueuedNanosOf;
+    private final long agingNanos;
+    private final ConsumerWait consumerWait;
+    private final Supplier<T> pollNow = this::poll;
+    private final BooleanSupplier isEmpty = this::isEmpty;
+    
+    /**
+     * @param minPriority lowest priority level, items below it go to the lowest lane
+     * @param maxPriority highest priority level, items above it go to the highest lane
+     * @param priorityOf gets the priority of an item
+     * @param setEnqueuedNanos stores on an item the {@link System#nanoTime()} it was offered at
+     * @param enqueuedNanosOf gets that time back from an item
+     * @param laneFactory creates the queue backing each lane; its wait strategy is not used
+     * @param aging time after which a waiting head counts as one level higher
+     * @param waitStrategy how consumers wait for an item
+     */
+    public PriorityPendingQueue(int minPriority, int maxPriority, ToIntFunction<T> priorityOf,
+                                ObjLongConsumer<T> setEnqueuedNanos, ToLongFunction<T> enqueuedNanosOf,
+                                Supplier<PendingQueue<T>> laneFactory, long aging, TimeUnit agingUnit,
+                                WaitStrategy waitStrategy) {
+        if (maxPriority < minPriority) {
+            throw new IllegalArgumentException("maxPriority must not be below minPriority");
+        }
+        int levels = maxPriority - minPriority + 1;
+        this.minPriority = minPriority;
+        this.lanes = new ArrayList<>(levels);
+        this.counters = new LaneCounters[levels];
+        for (int i = 0; i < levels; i++) {
+            lanes.add(laneFactory.get());
+            counters[i] = new LaneCounters();
+        }
+        this.priorityOf = priorityOf;
+        this.setEnqueuedNanos = setEnqueuedNanos;
+        this.enqueuedNanosOf = enqueuedNanosOf;
+        this.agingNanos = Math.max(1, agingUnit.toNanos(aging));
+        this.consumerWait = new ConsumerWait(waitStrategy);
+    }
+    
+    @Override
+    public void offer(T item) {
+        int lane = Math.max(0, Math.min(lanes.size() - 1, priorityOf.applyAsInt(item) - minPriority));
+        setEnqueuedNanos.accept(item, System.nanoTime());
+        lanes.get(lane).offer(item);
+        consumerWait.signal();
+    }
+    
+    @Override
+    public T poll() {
+        while (true) {
+            long now = System.nanoTime();
+            int best = -1;
+            long bestScore = Long.MIN_VALUE;
+            for (int lane = lanes.size() - 1; lane >= 0; lane--) {
+                T head = lanes.get(lane).peek();
+                if (head != null) {
+                    long score = lane + (now - enqueuedNanosOf.applyAsLong(head)) / agingNanos;
+                    if (score > bestScore) {
+                        best = lane;
+                        bestScore = score;
+                    }
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            
+            T item = lanes.get(best).poll();
+            if (item != null) {
+                counters[best].record(System.nanoTime() - enqueuedNanosOf.applyAsLong(item));
+                return item;
+            }
+            // Another consumer took the head first; look again
+        }
+    }
+    
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return consumerWait.poll(pollNow, isEmpty, timeout, unit);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Returns the head of the highest non-empty lane, ignoring aging.
+     */
+    @Override
+    public T peek() {
+        for (int lane = lanes.size() - 1; lane >= 0; lane--) {
+            T head = lanes.get(lane).peek();
+            if (head != null) {
+                return head;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public int size() {
+        long size = 0;
+        for (PendingQueue<T> lane : lanes) {
+            size += lane.size();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+    
+    /**
+     * Get queue depth and time spent queued for every priority level, highest first
+     */
+    public List<LaneStatistics> getLaneStatistics() {
+        List<LaneStatistics> statistics = new ArrayList<>(lanes.size());
+        for (int lane = lanes.size() - 1; lane >= 0; lane--) {
+            LaneCounters laneCounters = counters[lane];
+            long dequeued = laneCounters.dequeued.sum();
+            double meanWaitMillis = dequeued == 0 ? 0
+                    : laneCounters.totalWaitNanos.sum() / (double) dequeued / 1_000_000;
+            statistics.add(new LaneStatistics(minPriority + lane, lanes.get(lane).size(), dequeued,
+                                              meanWaitMillis, laneCounters.maxWaitNanos.get() / 1_000_000.0));
+        }
+        return statistics;
+    }
+    
+    private boolean isEmpty() {
+        for (PendingQueue<T> lane : lanes) {
+            if (lane.size() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static final class LaneCounters {
+        private final LongAdder dequeued = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        
+        void record(long waitNanos) {
+            dequeued.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+    
+    /**
+     * Statistics for one priority lane
+     */
+    public static class LaneStatistics {
+        private final int priority;
+        private final int waiting;
+        private final long dequeued;
+        private final double meanWaitMillis;
+        private final double maxWaitMillis;
+        
+        @JsonCreator
+        public LaneStatistics(@JsonProperty("priority") int priority,
+                              @JsonProperty("waiting") int waiting,
+                              @JsonProperty("dequeued") long dequeued,
+                              @JsonProperty("mean_wait_millis") double meanWaitMillis,
+                              @JsonProperty("max_wait_millis") double maxWaitMillis) {
+            this.priority = priority;
+            this.waiting = waiting;
+            this.dequeued = dequeued;
+            this.meanWaitMillis = meanWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+        
+        @JsonProperty("priority")
+        public int getPriority() {
+            return priority;
+        }
+        
+        @JsonProperty("waiting")
+        public int getWaiting() {
+            return waiting;
+        }
+        
+        @JsonProperty("dequeued")
+        public long getDequeued() {
+            return dequeued;
+        }
+        
+        @JsonProperty("mean_wait_millis")
+        public double getMeanWaitMillis() {
+            return meanWaitMillis;
+        }
+        
+        @JsonProperty("max_wait_millis")
+        public double getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("LaneStatistics{priority=%d, waiting=%d, dequeued=%d, " +
+                               "meanWaitMillis=%.2f, maxWaitMillis=%.2f}",
+                               priority, waiting, dequeued, meanWaitMillis, maxWaitMillis);
+        }
+    }
+}
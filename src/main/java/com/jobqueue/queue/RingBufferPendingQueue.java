@@ -0,0 +1,167 @@
+package com.jobqueue.queue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer/multi-consumer ring buffer used as the pending queue.
+ * Each slot carries a sequence number that tells producers and consumers whose turn it is,
+ * so both sides claim slots with a single CAS on their own counter and never take a lock
+ * or allocate in the steady state (D. Vyukov's bounded MPMC queue).
+ * <p>
+ * A producer that finds the ring full spills into an unbounded overflow queue instead of
+ * blocking, and all later items follow it there until consumers have drained it, which keeps
+ * the queue FIFO. A backlog larger than the ring therefore costs allocations, never a stall.
+ */
+public class RingBufferPendingQueue<T> implements PendingQueue<T> {
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final PaddedAtomicLong tail = new PaddedAtomicLong();
+    private final PaddedAtomicLong head = new PaddedAtomicLong();
+    private final Queue<T> overflow = new ConcurrentLinkedQueue<>();
+    // Counted before an item is added and after it is removed, so 0 means the overflow is empty
+    private final AtomicInteger overflowSize = new AtomicInteger();
+    private final ConsumerWait consumerWait;
+    private final Supplier<T> pollNow = this::poll;
+    private final BooleanSupplier isEmpty = this::isEmpty;
+    
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public RingBufferPendingQueue(int capacity, WaitStrategy waitStrategy) {
+        int slots = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new Object[slots];
+        this.sequences = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = slots - 1;
+        this.consumerWait = new ConsumerWait(waitStrategy);
+    }
+    
+    @Override
+    public void offer(T item) {
+        if (overflowSize.get() > 0 || !offerToRing(item)) {
+            // Count the item first: a producer that starts once it sits in the overflow must
+            // see that and follow it there rather than pass it in the ring
+            overflowSize.incrementAndGet();
+            overflow.add(item);
+        }
+        consumerWait.signal();
+    }
+    
+    @Override
+    public T poll() {
+        T item = pollFromRing();
+        if (item == null && overflowSize.get() > 0) {
+            item = overflow.poll();
+            if (item != null) {
+                overflowSize.decrementAndGet();
+            }
+        }
+        return item;
+    }
+    
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return consumerWait.poll(pollNow, isEmpty, timeout, unit);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The slot is read without claiming it, so a concurrent consumer may take the item first.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) == position + 1) {
+            T item = (T) buffer[index];
+            if (item != null) {
+                return item;
+            }
+        }
+        return overflowSize.get() > 0 ? overflow.peek() : null;
+    }
+    
+    @Override
+    public int size() {
+        long ringSize = tail.get() - head.get();
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, ringSize) + overflowSize.get());
+    }
+    
+    /**
+     * Get the number of slots in the ring
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+    
+    private boolean offerToRing(T item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = item;
+                    // Publishing the sequence hands the slot, and the item, to consumers
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds the item from one lap ago: the ring is full
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T pollFromRing() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T item = (T) buffer[index];
+                    buffer[index] = null;
+                    // Release the slot to the producer one lap ahead
+                    sequences.set(index, position + buffer.length);
+                    return item;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                // Nothing published at the head yet: the ring is empty
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+    
+    private boolean isEmpty() {
+        return tail.get() == head.get() && overflowSize.get() == 0;
+    }
+    
+    /**
+     * Counter padded to its own cache line so the head and tail do not falsely share one
+     */
+    @SuppressWarnings("unused")
+    private static class PaddedAtomicLong extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+        
+        private long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
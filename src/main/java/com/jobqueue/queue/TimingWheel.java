@@ -0,0 +1,197 @@
+package com.jobqueue.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel that hands each scheduled item to a callback once its deadline passes.
+ * Scheduling is O(1): items are queued lock-free and moved into their bucket by the wheel
+ * thread on the next tick. Each tick only visits one bucket, so expiry is O(1) amortized
+ * per item regardless of how many items are waiting. Items fire within one tick of their
+ * deadline; the wheel thread parks while nothing is scheduled instead of ticking idle.
+ */
+public class TimingWheel<T> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+    
+    private final String name;
+    private final long tickNanos;
+    private final Queue<Entry<T>>[] buckets;
+    private final int mask;
+    private final Consumer<T> onExpiry;
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition scheduled = idleLock.newCondition();
+    private volatile boolean running;
+    private Thread thread;
+    private long startTime;
+    private long currentTick;
+    
+    /**
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, Consumer<T> onExpiry) {
+        this.name = name;
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int buckets = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.buckets = newBuckets(buckets);
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = buckets - 1;
+        this.onExpiry = onExpiry;
+    }
+    
+    /**
+     * Start the wheel thread; items scheduled earlier fire once it runs
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        startTime = System.nanoTime();
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Schedule an item to expire after the given delay; a non-positive delay fires on the next tick
+     */
+    public void schedule(T item, long delay, TimeUnit unit) {
+        incoming.add(new Entry<>(item, System.nanoTime() + Math.max(0, unit.toNanos(delay))));
+        if (size.getAndIncrement() == 0) {
+            idleLock.lock();
+            try {
+                scheduled.signal();
+            } finally {
+                idleLock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Get the number of items waiting to expire
+     */
+    public int size() {
+        return size.get();
+    }
+    
+    /**
+     * Stop the wheel thread; items that have not expired are dropped
+     */
+    @Override
+    public void close() {
+        Thread wheelThread;
+        synchronized (this) {
+            running = false;
+            wheelThread = thread;
+        }
+        if (wheelThread != null) {
+            wheelThread.interrupt();
+            try {
+                wheelThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private void run() {
+        try {
+            while (running) {
+                awaitWork();
+                awaitTick();
+                transferIncoming();
+                expire(buckets[(int) (currentTick & mask)]);
+                currentTick++;
+            }
+        } catch (InterruptedException e) {
+            logger.debug("{} interrupted", name);
+        }
+    }
+    
+    /**
+     * Park while the wheel is empty; nothing can be missed, so the tick jumps to the present
+     */
+    private void awaitWork() throws InterruptedException {
+        if (size.get() > 0) {
+            return;
+        }
+        idleLock.lock();
+        try {
+            while (running && size.get() == 0) {
+                scheduled.await();
+            }
+        } finally {
+            idleLock.unlock();
+        }
+        currentTick = Math.max(currentTick, (System.nanoTime() - startTime) / tickNanos);
+    }
+    
+    private void awaitTick() throws InterruptedException {
+        long deadline = startTime + (currentTick + 1) * tickNanos;
+        long sleepNanos;
+        while ((sleepNanos = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+    }
+    
+    private void transferIncoming() {
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            long ticks = Math.max(currentTick, (entry.deadline - startTime + tickNanos - 1) / tickNanos);
+            entry.remainingRounds = (ticks - currentTick) / buckets.length;
+            buckets[(int) (ticks & mask)].add(entry);
+        }
+    }
+    
+    private void expire(Queue<Entry<T>> bucket) {
+        Iterator<Entry<T>> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+            if (entry.remainingRounds > 0) {
+                entry.remainingRounds--;
+                continue;
+            }
+            iterator.remove();
+            size.decrementAndGet();
+            try {
+                onExpiry.accept(entry.item);
+            } catch (RuntimeException e) {
+                logger.error("{} callback failed for {}", name, entry.item, e);
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E> Queue<E>[] newBuckets(int count) {
+        return (Queue<E>[]) new Queue<?>[count];
+    }
+    
+    /**
+     * A scheduled item and the number of full wheel turns left before it is due
+     */
+    private static class Entry<T> {
+        private final T item;
+        private final long deadline;
+        private long remainingRounds;
+        
+        Entry(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.jobqueue.queue;
+
+/**
+ * How a consumer of a {@link RingBufferPendingQueue} waits for an item to arrive.
+ * The busier strategies answer faster but burn CPU while the queue is empty.
+ */
+public enum WaitStrategy {
+    /**
+     * Park until a producer signals; no CPU while idle, highest wake-up latency
+     */
+    PARK("park"),
+    
+    /**
+     * Spin briefly, then park; catches items that arrive within microseconds
+     */
+    SPIN_THEN_PARK("spin_then_park"),
+    
+    /**
+     * Yield in a loop until the timeout; lowest latency, keeps a core busy per idle consumer
+     */
+    YIELD("yield");
+    
+    private final String value;
+    
+    WaitStrategy(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    /**
+     * Convert string value to WaitStrategy enum
+     */
+    public static WaitStrategy fromString(String value) {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            if (strategy.value.equalsIgnoreCase(value)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown wait strategy: " + value);
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
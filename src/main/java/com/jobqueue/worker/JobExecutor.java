@@ -1,34 +1,74 @@
 package com.jobqueue.worker;
 
+import com.jobqueue.jfr.JobExecutedEvent;
 import com.jobqueue.model.Job;
+import com.jobqueue.output.OutputStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Executes shell commands for jobs.
- * Handles process execution, timeout, and result capture.
+ * Processes run under a {@link ProcessSupervisor}, which enforces the timeout even when a job
+ * keeps its output open and keeps only the tail of the output in memory. The complete output
+ * goes to the {@link OutputStore}.
  */
 public class JobExecutor {
     private static final Logger logger = LoggerFactory.getLogger(JobExecutor.class);
     
+    private final ProcessSupervisor supervisor;
     private final long timeoutSeconds;
+    private final int maxOutputBytes;
+    private final OutputStore outputStore;
     
-    public JobExecutor(long timeoutSeconds) {
+    /**
+     * @param maxOutputBytes how much of the most recent output to keep per job
+     * @param outputStore store that receives each attempt's complete output, or null for none
+     */
+    public JobExecutor(ProcessSupervisor supervisor, long timeoutSeconds, int maxOutputBytes, OutputStore outputStore) {
+        this.supervisor = supervisor;
         this.timeoutSeconds = timeoutSeconds;
+        this.maxOutputBytes = maxOutputBytes;
+        this.outputStore = outputStore;
+    }
+    
+    /**
+     * Get the store that receives job output, or null if output is not stored
+     */
+    OutputStore getOutputStore() {
+        return outputStore;
     }
     
     /**
      * Execute a job's command
      */
     public JobExecutionResult execute(Job job) {
+        JobExecutedEvent event = new JobExecutedEvent();
+        event.begin();
+        JobExecutionResult result = execute(job, event);
+        event.end();
+        if (event.shouldCommit()) {
+            event.jobId = job.getId();
+            event.exitCode = result.getExitCode();
+            event.success = result.isSuccess();
+            event.outputBytes = result.getOutputBytes();
+            event.commit();
+        }
+        return result;
+    }
+    
+    /**
+     * Execute a job's command, timing the process start and run on the event
+     */
+    private JobExecutionResult execute(Job job, JobExecutedEvent event) {
         String command = job.getCommand();
         logger.info("Executing job {}: {}", job.getId(), command);
         
+        ProcessSupervisor.SupervisedProcess process = null;
         try {
             ProcessBuilder processBuilder = new ProcessBuilder();
             
@@ -39,59 +79,50 @@ public class JobExecutor {
                 processBuilder.command("sh", "-c", command);
             }
             
-            processBuilder.redirectErrorStream(true);
+            OutputStream output = outputStore != null ? outputStore.openOutput(job.getId(), job.getAttempts()) : null;
+            long forkStart = System.nanoTime();
+            process = supervisor.start(processBuilder, timeoutSeconds, TimeUnit.SECONDS, maxOutputBytes, output);
+            long execStart = System.nanoTime();
+            event.forkDuration = execStart - forkStart;
+            ProcessSupervisor.Outcome outcome = process.getOutcome().get();
+            event.execDuration = System.nanoTime() - execStart;
+            String resultOutput = outcome.getOutput().trim();
+            long outputBytes = outcome.getOutputBytes();
             
-            Process process = processBuilder.start();
-            
-            // Capture output
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
-            
-            // Wait for completion with timeout
-            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-            
-            if (!finished) {
-                // Process timed out
-                process.destroyForcibly();
+            if (outcome.isTimedOut()) {
                 String errorMsg = String.format("Job timed out after %d seconds", timeoutSeconds);
                 logger.warn("Job {} timed out: {}", job.getId(), command);
-                return new JobExecutionResult(false, errorMsg, output.toString());
+                return new JobExecutionResult(false, errorMsg, -1, resultOutput, outputBytes);
             }
             
-            int exitCode = process.exitValue();
-            boolean success = exitCode == 0;
-            
-            String resultOutput = output.toString().trim();
-            
-            if (success) {
+            int exitCode = outcome.getExitCode();
+            if (exitCode == 0) {
                 logger.info("Job {} completed successfully: {}", job.getId(), command);
-                return new JobExecutionResult(true, null, resultOutput);
+                return new JobExecutionResult(true, null, exitCode, resultOutput, outputBytes);
             } else {
                 String errorMsg = String.format("Command failed with exit code %d", exitCode);
                 logger.warn("Job {} failed with exit code {}: {}", job.getId(), exitCode, command);
-                return new JobExecutionResult(false, errorMsg, resultOutput);
+                return new JobExecutionResult(false, errorMsg, exitCode, resultOutput, outputBytes);
             }
             
         } catch (IOException e) {
             String errorMsg = "Failed to start process: " + e.getMessage();
             logger.error("Job {} failed to start: {}", job.getId(), command, e);
-            return new JobExecutionResult(false, errorMsg, "");
+            return new JobExecutionResult(false, errorMsg, -1, "", 0);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            // Nobody is left to wait for the process, so do not leave it running
+            if (process != null) {
+                process.destroy();
+            }
             String errorMsg = "Job execution interrupted: " + e.getMessage();
             logger.warn("Job {} interrupted: {}", job.getId(), command);
-            return new JobExecutionResult(false, errorMsg, "");
+            return new JobExecutionResult(false, errorMsg, -1, "", 0);
         } catch (Exception e) {
-            String errorMsg = "Unexpected error: " + e.getMessage();
-            logger.error("Job {} failed with unexpected error: {}", job.getId(), command, e);
-            return new JobExecutionResult(false, errorMsg, "");
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            String errorMsg = "Unexpected error: " + cause.getMessage();
+            logger.error("Job {} failed with unexpected error: {}", job.getId(), command, cause);
+            return new JobExecutionResult(false, errorMsg, -1, "", 0);
         }
     }
     
@@ -101,12 +132,16 @@ public class JobExecutor {
     public static class JobExecutionResult {
         private final boolean success;
         private final String errorMessage;
+        private final int exitCode;
         private final String output;
+        private final long outputBytes;
         
-        public JobExecutionResult(boolean success, String errorMessage, String output) {
+        public JobExecutionResult(boolean success, String errorMessage, int exitCode, String output, long outputBytes) {
             this.success = success;
             this.errorMessage = errorMessage;
+            this.exitCode = exitCode;
             this.output = output;
+            this.outputBytes = outputBytes;
         }
         
         public boolean isSuccess() {
@@ -117,14 +152,31 @@ public class JobExecutor {
             return errorMessage;
         }
         
+        /**
+         * Get the exit code, or -1 if the process timed out or never ran
+         */
+        public int getExitCode() {
+            return exitCode;
+        }
+        
+        /**
+         * Get the retained tail of the output
+         */
         public String getOutput() {
             return output;
         }
         
+        /**
+         * Get the total number of bytes the process wrote
+         */
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+        
         @Override
         public String toString() {
-            return String.format("JobExecutionResult{success=%s, errorMessage='%s', output='%s'}", 
-                               success, errorMessage, output);
+            return String.format("JobExecutionResult{success=%s, errorMessage='%s', exitCode=%d, outputBytes=%d}", 
+                               success, errorMessage, exitCode, outputBytes);
         }
     }
 }
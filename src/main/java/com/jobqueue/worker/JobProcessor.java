@@ -0,0 +1,89 @@
+package com.jobqueue.worker;
+
+import com.jobqueue.metrics.LatencyHistogram;
+import com.jobqueue.model.Job;
+import com.jobqueue.output.OutputStore;
+import com.jobqueue.queue.JobSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Runs a dequeued job and records its outcome in the queue and the output store.
+ * Shared by platform workers and the virtual worker pool.
+ */
+class JobProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(JobProcessor.class);
+    
+    private final JobSource jobSource;
+    private final JobExecutor jobExecutor;
+    private final LatencyHistogram executionTime;
+    
+    /**
+     * @param executionTime histogram that receives how long each job's execution took
+     */
+    JobProcessor(JobSource jobSource, JobExecutor jobExecutor, LatencyHistogram executionTime) {
+        this.jobSource = jobSource;
+        this.jobExecutor = jobExecutor;
+        this.executionTime = executionTime;
+    }
+    
+    /**
+     * Process a specific job
+     */
+    void process(String workerId, Job job) {
+        logger.info("Worker {} processing job {}: {}", workerId, job.getId(), job.getCommand());
+        
+        int attempt = job.getAttempts();
+        try {
+            // Execute the job
+            long start = System.nanoTime();
+            JobExecutor.JobExecutionResult result = jobExecutor.execute(job);
+            executionTime.recordSince(start);
+            
+            // A job whose lease ran out meanwhile already went to the retry path
+            boolean completed = false;
+            if (result.isSuccess()) {
+                completed = jobSource.markCompleted(job, attempt);
+                if (completed) {
+                    logger.info("Worker {} completed job {}", workerId, job.getId());
+                }
+            } else {
+                if (jobSource.markFailed(job, attempt, result.getErrorMessage())) {
+                    logger.warn("Worker {} failed job {}: {}", workerId, job.getId(), result.getErrorMessage());
+                }
+            }
+            
+            // The output itself is in the store; `queuectl logs` reads it back
+            if (result.getOutputBytes() > 0) {
+                logger.debug("Job {} wrote {} bytes of output", job.getJobId(), result.getOutputBytes());
+            }
+            finishOutput(job, attempt, result.getExitCode(), completed);
+            
+        } catch (Exception e) {
+            // Close the attempt first, so readers following it see the end even if failing it throws
+            finishOutput(job, attempt, -1, false);
+            String errorMessage = "Worker exception: " + e.getMessage();
+            jobSource.markFailed(job, attempt, errorMessage);
+            logger.error("Worker {} failed job {} due to exception", workerId, job.getId(), e);
+        }
+    }
+    
+    /**
+     * Close the attempt in the output store so readers following it know it is over.
+     * The job may be a copy leased from another process, so whether another attempt follows
+     * is worked out from the outcome rather than read from the job's state.
+     */
+    private void finishOutput(Job job, int attempt, int exitCode, boolean completed) {
+        OutputStore outputStore = jobExecutor.getOutputStore();
+        if (outputStore == null) {
+            return;
+        }
+        try {
+            outputStore.finish(job.getId(), attempt, exitCode, completed || attempt + 1 >= job.getMaxRetries());
+        } catch (IOException e) {
+            logger.warn("Failed to record end of output for job {}", job.getId(), e);
+        }
+    }
+}
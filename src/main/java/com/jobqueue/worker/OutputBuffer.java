@@ -0,0 +1,67 @@
+package com.jobqueue.worker;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-size ring of the most recent bytes a job wrote.
+ * Older output is overwritten once the ring is full, so a chatty job costs at most
+ * the ring's capacity no matter how much it prints.
+ */
+public class OutputBuffer {
+    private final byte[] ring;
+    private long totalBytes;
+    
+    public OutputBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.ring = new byte[capacity];
+    }
+    
+    /**
+     * Append bytes, dropping the oldest ones that no longer fit
+     */
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        // Only the last ring.length bytes of a long write can survive
+        int skip = Math.max(0, length - ring.length);
+        totalBytes += skip;
+        offset += skip;
+        length -= skip;
+        
+        int position = (int) (totalBytes % ring.length);
+        int firstPart = Math.min(length, ring.length - position);
+        System.arraycopy(bytes, offset, ring, position, firstPart);
+        System.arraycopy(bytes, offset + firstPart, ring, 0, length - firstPart);
+        totalBytes += length;
+    }
+    
+    /**
+     * Get the number of bytes written, including dropped ones
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Check whether output was dropped
+     */
+    public synchronized boolean isTruncated() {
+        return totalBytes > ring.length;
+    }
+    
+    /**
+     * Decode the retained output, noting how much was dropped before it
+     */
+    @Override
+    public synchronized String toString() {
+        if (!isTruncated()) {
+            return new String(ring, 0, (int) totalBytes, StandardCharsets.UTF_8);
+        }
+        int start = (int) (totalBytes % ring.length);
+        byte[] ordered = new byte[ring.length];
+        System.arraycopy(ring, start, ordered, 0, ring.length - start);
+        System.arraycopy(ring, 0, ordered, ring.length - start, start);
+        return String.format("[... %d earlier bytes dropped ...]%n", totalBytes - ring.length)
+                + new String(ordered, StandardCharsets.UTF_8);
+    }
+}
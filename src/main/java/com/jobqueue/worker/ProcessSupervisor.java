@@ -0,0 +1,336 @@
+package com.jobqueue.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Runs child processes without dedicating threads to them.
+ * Exits are observed through {@link Process#onExit()}, timeouts fire from one shared timer
+ * thread and kill the whole process tree, and one pump thread moves whatever each child has
+ * written into its bounded {@link OutputBuffer} (and optional output stream) without ever blocking
+ * on a pipe. A child that exits while a descendant still holds its pipe open is therefore
+ * finished at once instead of waiting for end-of-file.
+ */
+public class ProcessSupervisor implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessSupervisor.class);
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MAX_CHUNKS_PER_VISIT = 8;
+    private static final long MIN_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    
+    private final ScheduledExecutorService timer;
+    private final Set<Capture> captures = ConcurrentHashMap.newKeySet();
+    private volatile Thread pumpThread;
+    private volatile boolean closed;
+    
+    public ProcessSupervisor() {
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ProcessTimer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    /**
+     * Start the output pump thread; processes can be started once it runs
+     */
+    public synchronized void start() {
+        if (pumpThread != null || closed) {
+            return;
+        }
+        Thread thread = new Thread(this::pumpLoop, "ProcessOutputPump");
+        thread.setDaemon(true);
+        thread.start();
+        pumpThread = thread;
+    }
+    
+    /**
+     * Start a process and supervise it until it exits or the timeout kills it.
+     * Standard error is merged into standard output and standard input is closed.
+     *
+     * @param maxOutputBytes how much of the most recent output to keep in memory
+     * @param output stream that receives all output, or null to keep only the tail. It is
+     *               flushed whenever the process is quiet and closed once the process is done.
+     */
+    public SupervisedProcess start(ProcessBuilder builder, long timeout, TimeUnit unit,
+                                   int maxOutputBytes, OutputStream output) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("ProcessSupervisor is closed");
+        }
+        Thread pump = pumpThread;
+        if (pump == null) {
+            throw new IllegalStateException("ProcessSupervisor is not started");
+        }
+        
+        Process process;
+        try {
+            process = builder.redirectErrorStream(true).start();
+        } catch (IOException | RuntimeException e) {
+            if (output != null) {
+                output.close();
+            }
+            throw e;
+        }
+        process.getOutputStream().close();
+        
+        Capture capture = new Capture(process, new OutputBuffer(maxOutputBytes), output);
+        captures.add(capture);
+        SupervisedProcess supervised = new SupervisedProcess(process, capture);
+        
+        ScheduledFuture<?> timeoutTask = timer.schedule(supervised::timeOut, timeout, unit);
+        process.onExit().thenRun(() -> {
+            timeoutTask.cancel(false);
+            // The pump drains what is left in the pipe, then completes the outcome
+            capture.exited = true;
+            LockSupport.unpark(pump);
+        });
+        return supervised;
+    }
+    
+    /**
+     * Get the number of processes being supervised
+     */
+    public int getActiveCount() {
+        return captures.size();
+    }
+    
+    /**
+     * Stop supervising: processes still running are killed with their descendants
+     */
+    @Override
+    public void close() {
+        Thread pump;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pump = pumpThread;
+        }
+        if (pump != null) {
+            LockSupport.unpark(pump);
+            try {
+                pump.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        timer.shutdownNow();
+    }
+    
+    /**
+     * Kill a process and every process it started
+     */
+    static void destroyTree(ProcessHandle process) {
+        // Collect descendants first: once the parent dies they are re-parented and lost
+        List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+        process.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+    
+    private void pumpLoop() {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        long idleNanos = MIN_IDLE_NANOS;
+        while (!closed) {
+            boolean progress = false;
+            for (Capture capture : captures) {
+                progress |= capture.pump(chunk);
+            }
+            if (progress) {
+                idleNanos = MIN_IDLE_NANOS;
+            } else {
+                // Back off while every child is quiet; exits unpark the pump right away
+                LockSupport.parkNanos(this, idleNanos);
+                idleNanos = Math.min(MAX_IDLE_NANOS, idleNanos * 2);
+            }
+        }
+        
+        for (Capture capture : captures) {
+            destroyTree(capture.process);
+            capture.pump(chunk);
+            capture.finish();
+        }
+    }
+    
+    /**
+     * A running process and the outcome it will complete with
+     */
+    public static class SupervisedProcess {
+        private final Process process;
+        private final AtomicBoolean timedOut = new AtomicBoolean(false);
+        private final CompletableFuture<Outcome> outcome;
+        
+        private SupervisedProcess(Process process, Capture capture) {
+            this.process = process;
+            this.outcome = capture.drained.thenApply(ignored -> new Outcome(
+                    process.isAlive() ? -1 : process.exitValue(), timedOut.get(),
+                    capture.buffer.toString(), capture.buffer.getTotalBytes()));
+        }
+        
+        /**
+         * Get a future that completes once the process has exited and its output is drained
+         */
+        public CompletableFuture<Outcome> getOutcome() {
+            return outcome;
+        }
+        
+        /**
+         * Get the process ID
+         */
+        public long getPid() {
+            return process.pid();
+        }
+        
+        /**
+         * Kill the process and its descendants
+         */
+        public void destroy() {
+            destroyTree(process.toHandle());
+        }
+        
+        private void timeOut() {
+            if (process.isAlive()) {
+                timedOut.set(true);
+                logger.warn("Process {} timed out, killing it and its descendants", process.pid());
+                destroy();
+            }
+        }
+    }
+    
+    /**
+     * How a supervised process ended
+     */
+    public static class Outcome {
+        private final int exitCode;
+        private final boolean timedOut;
+        private final String output;
+        private final long outputBytes;
+        
+        public Outcome(int exitCode, boolean timedOut, String output, long outputBytes) {
+            this.exitCode = exitCode;
+            this.timedOut = timedOut;
+            this.output = output;
+            this.outputBytes = outputBytes;
+        }
+        
+        public int getExitCode() {
+            return exitCode;
+        }
+        
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+        
+        /**
+         * Get the retained tail of the output
+         */
+        public String getOutput() {
+            return output;
+        }
+        
+        /**
+         * Get the total number of bytes the process wrote
+         */
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Outcome{exitCode=%d, timedOut=%s, outputBytes=%d}",
+                               exitCode, timedOut, outputBytes);
+        }
+    }
+    
+    /**
+     * Output side of one process, only ever read by the pump thread
+     */
+    private final class Capture {
+        private final ProcessHandle process;
+        private final InputStream in;
+        private final OutputBuffer buffer;
+        private final OutputStream output;
+        private final CompletableFuture<Void> drained = new CompletableFuture<>();
+        private volatile boolean exited;
+        
+        private Capture(Process process, OutputBuffer buffer, OutputStream output) {
+            this.process = process.toHandle();
+            this.in = process.getInputStream();
+            this.buffer = buffer;
+            this.output = output;
+        }
+        
+        /**
+         * Copy what the process has written so far without blocking, and finish once it has
+         * exited and the pipe is empty
+         *
+         * @return true if anything was read or the capture finished
+         */
+        boolean pump(byte[] chunk) {
+            // Read the flag first: everything written before the exit is then drained below
+            boolean exitedBefore = exited;
+            boolean read = false;
+            try {
+                int chunks = 0;
+                int available;
+                while (chunks < MAX_CHUNKS_PER_VISIT && (available = in.available()) > 0) {
+                    int n = in.read(chunk, 0, Math.min(available, chunk.length));
+                    if (n < 0) {
+                        break;
+                    }
+                    buffer.write(chunk, 0, n);
+                    if (output != null) {
+                        output.write(chunk, 0, n);
+                    }
+                    read = true;
+                    chunks++;
+                }
+                if (exitedBefore && chunks < MAX_CHUNKS_PER_VISIT) {
+                    finish();
+                    return true;
+                }
+                if (!read && output != null) {
+                    output.flush();
+                }
+            } catch (IOException e) {
+                logger.debug("Output pipe failed: {}", e.getMessage());
+                if (exitedBefore) {
+                    finish();
+                    return true;
+                }
+            }
+            return read;
+        }
+        
+        void finish() {
+            if (!captures.remove(this)) {
+                return;
+            }
+            try {
+                in.close();
+                if (output != null) {
+                    output.close();
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to close process output", e);
+            }
+            drained.complete(null);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.jobqueue.worker;
+
+import com.jobqueue.model.Job;
+import com.jobqueue.queue.JobSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every job on its own virtual thread.
+ * A single dispatcher takes a permit, dequeues a job and hands it to a new virtual thread,
+ * which returns the permit when the job ends. The number of permits, not the number of
+ * threads, limits how many jobs run at once, so thousands of jobs that mostly wait on their
+ * child process cost little more than their stacks on the heap.
+ * <p>
+ * With a prefetch depth above zero the dispatcher also takes up to that many further permits
+ * that are free right away and dequeues a job for each in one batch. Every job dequeued has a
+ * permit and starts at once, so nothing is left buffered to hand back on shutdown.
+ */
+public class VirtualWorkerPool implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualWorkerPool.class);
+    private static final long DISPATCH_WAIT_SECONDS = 1;
+    
+    private final String poolId;
+    private final JobSource jobSource;
+    private final JobProcessor jobProcessor;
+    private final int maxConcurrency;
+    private final int prefetch;
+    private final Semaphore permits;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    private final AtomicInteger runningJobs = new AtomicInteger();
+    
+    VirtualWorkerPool(String poolId, JobSource jobSource, JobProcessor jobProcessor, int maxConcurrency,
+                      int prefetch) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.poolId = poolId;
+        this.jobSource = jobSource;
+        this.jobProcessor = jobProcessor;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+    
+    /**
+     * Dispatch jobs until shutdown is requested, then wait for the running jobs to finish
+     */
+    @Override
+    public void run() {
+        running.set(true);
+        logger.info("Virtual worker pool {} started with a limit of {} concurrent jobs", poolId, maxConcurrency);
+        
+        // Closing the executor waits for every job thread it started
+        try (ExecutorService jobThreads = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(poolId + "-job-", 1).factory())) {
+            while (!shutdown.get() && !Thread.currentThread().isInterrupted()) {
+                try {
+                    dispatchNextJob(jobThreads);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    logger.error("Virtual worker pool {} encountered error while dispatching", poolId, e);
+                }
+            }
+            logger.info("Virtual worker pool {} waiting for {} running jobs", poolId, getRunningJobCount());
+        } finally {
+            running.set(false);
+            logger.info("Virtual worker pool {} stopped", poolId);
+        }
+    }
+    
+    private void dispatchNextJob(ExecutorService jobThreads) throws InterruptedException {
+        if (!permits.tryAcquire(DISPATCH_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            return;
+        }
+        
+        int acquired = 1;
+        while (acquired <= prefetch && permits.tryAcquire()) {
+            acquired++;
+        }
+        
+        List<Job> jobs;
+        try {
+            if (acquired == 1) {
+                jobs = jobSource.dequeue(poolId, DISPATCH_WAIT_SECONDS, TimeUnit.SECONDS)
+                        .map(List::of).orElse(List.of());
+            } else {
+                jobs = jobSource.dequeueBatch(poolId, acquired, DISPATCH_WAIT_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (RuntimeException e) {
+            permits.release(acquired);
+            throw e;
+        }
+        // Give back the permits no job arrived for
+        permits.release(acquired - jobs.size());
+        
+        for (Job job : jobs) {
+            runningJobs.incrementAndGet();
+            jobThreads.execute(() -> {
+                try {
+                    jobProcessor.process(Thread.currentThread().getName(), job);
+                } finally {
+                    runningJobs.decrementAndGet();
+                    permits.release();
+                }
+            });
+        }
+    }
+    
+    /**
+     * Request the pool to stop dispatching; running jobs are allowed to finish
+     */
+    public void shutdown() {
+        logger.info("Virtual worker pool {} shutdown requested", poolId);
+        shutdown.set(true);
+    }
+    
+    /**
+     * Check if the dispatcher is running
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+    
+    /**
+     * Check if shutdown has been requested
+     */
+    public boolean isShutdownRequested() {
+        return shutdown.get();
+    }
+    
+    /**
+     * Get the pool ID
+     */
+    public String getPoolId() {
+        return poolId;
+    }
+    
+    /**
+     * Get the maximum number of jobs run at once
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+    
+    /**
+     * Get the number of jobs running right now
+     */
+    public int getRunningJobCount() {
+        return runningJobs.get();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("VirtualWorkerPool{id='%s', running=%s, runningJobs=%d/%d}",
+                           poolId, running.get(), getRunningJobCount(), maxConcurrency);
+    }
+}
@@ -1,31 +1,57 @@
 package com.jobqueue.worker;
 
+import com.jobqueue.metrics.LatencyHistogram;
 import com.jobqueue.model.Job;
-import com.jobqueue.queue.JobQueue;
+import com.jobqueue.queue.JobSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Optional;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Individual worker that processes jobs from the queue.
  * Runs in its own thread and handles job execution.
+ * <p>
+ * With a prefetch depth above zero the worker dequeues that many jobs beyond the one it is
+ * about to run in a single batch and keeps them in a local buffer, so very short jobs do not
+ * each pay for a dequeue. Buffered jobs stay leased to the worker; those it never starts are
+ * handed back to the queue when it stops.
  */
 public class Worker implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(Worker.class);
+    public static final int MAX_PREFETCH = 255;
     
     private final String workerId;
-    private final JobQueue jobQueue;
-    private final JobExecutor jobExecutor;
+    private final JobSource jobSource;
+    private final JobProcessor jobProcessor;
+    private final int prefetch;
+    private final Deque<Job> prefetched = new ArrayDeque<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
     
-    public Worker(String workerId, JobQueue jobQueue, JobExecutor jobExecutor) {
+    public Worker(String workerId, JobSource jobSource, JobExecutor jobExecutor) {
+        this(workerId, jobSource, jobExecutor, 0);
+    }
+    
+    /**
+     * @param prefetch how many jobs to keep buffered beyond the one being run
+     */
+    public Worker(String workerId, JobSource jobSource, JobExecutor jobExecutor, int prefetch) {
+        this(workerId, jobSource, new JobProcessor(jobSource, jobExecutor, new LatencyHistogram()), prefetch);
+    }
+    
+    Worker(String workerId, JobSource jobSource, JobProcessor jobProcessor, int prefetch) {
+        if (prefetch < 0 || prefetch > MAX_PREFETCH) {
+            throw new IllegalArgumentException("prefetch must be between 0 and " + MAX_PREFETCH);
+        }
         this.workerId = workerId;
-        this.jobQueue = jobQueue;
-        this.jobExecutor = jobExecutor;
+        this.jobSource = jobSource;
+        this.jobProcessor = jobProcessor;
+        this.prefetch = prefetch;
     }
     
     @Override
@@ -43,6 +69,7 @@ public class Worker implements Runnable {
                 }
             }
         } finally {
+            returnPrefetchedJobs();
             running.set(false);
             logger.info("Worker {} stopped", workerId);
         }
@@ -52,50 +79,40 @@ public class Worker implements Runnable {
      * Process the next available job from the queue
      */
     private void processNextJob() {
-        // Try to get a job with a reasonable timeout
-        Optional<Job> jobOpt = jobQueue.dequeue(5, TimeUnit.SECONDS);
+        Job job = prefetched.poll();
+        if (job == null) {
+            if (prefetch == 0) {
+                // Try to get a job with a reasonable timeout
+                job = jobSource.dequeue(workerId, 5, TimeUnit.SECONDS).orElse(null);
+            } else {
+                prefetched.addAll(jobSource.dequeueBatch(workerId, 1 + prefetch, 5, TimeUnit.SECONDS));
+                job = prefetched.poll();
+            }
+        }
         
-        if (jobOpt.isPresent()) {
-            Job job = jobOpt.get();
-            processJob(job);
+        if (job != null) {
+            jobProcessor.process(workerId, job);
         }
         // If no job available, the loop will continue and try again
     }
     
     /**
-     * Process a specific job
+     * Hand the jobs this worker prefetched but never started back to the queue
      */
-    private void processJob(Job job) {
-        logger.info("Worker {} processing job {}: {}", workerId, job.getId(), job.getCommand());
-        
+    private void returnPrefetchedJobs() {
+        if (prefetched.isEmpty()) {
+            return;
+        }
         try {
-            // Execute the job
-            JobExecutor.JobExecutionResult result = jobExecutor.execute(job);
-            
-            if (result.isSuccess()) {
-                jobQueue.markCompleted(job);
-                logger.info("Worker {} completed job {}", workerId, job.getId());
-                
-                // Log output if present
-                if (!result.getOutput().isEmpty()) {
-                    logger.info("Job {} output: {}", job.getId(), result.getOutput());
-                }
-            } else {
-                jobQueue.markFailed(job, result.getErrorMessage());
-                logger.warn("Worker {} failed job {}: {}", workerId, job.getId(), result.getErrorMessage());
-                
-                // Log output if present (might contain error details)
-                if (!result.getOutput().isEmpty()) {
-                    logger.warn("Job {} output: {}", job.getId(), result.getOutput());
-                }
-            }
-            
+            int returned = jobSource.release(new ArrayList<>(prefetched));
+            logger.info("Worker {} returned {} prefetched jobs", workerId, returned);
         } catch (Exception e) {
-            String errorMessage = "Worker exception: " + e.getMessage();
-            jobQueue.markFailed(job, errorMessage);
-            logger.error("Worker {} failed job {} due to exception", workerId, job.getId(), e);
+            // Their leases expire and they are retried like the jobs of a dead worker
+            logger.error("Worker {} failed to return {} prefetched jobs", workerId, prefetched.size(), e);
         }
+        prefetched.clear();
     }
+
     
     /**
      * Request the worker to shutdown gracefully
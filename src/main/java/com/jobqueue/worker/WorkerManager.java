@@ -1,7 +1,13 @@
 package com.jobqueue.worker;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.metrics.LatencyHistogram;
+import com.jobqueue.metrics.MetricsRegistry;
+import com.jobqueue.output.OutputStore;
 import com.jobqueue.queue.JobQueue;
+import com.jobqueue.queue.JobSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,25 +16,59 @@ import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Manages multiple worker threads for job processing.
  * Handles worker lifecycle, graceful shutdown, and retry processing.
+ * In virtual mode the worker count is instead the concurrency limit of a {@link VirtualWorkerPool}.
+ * <p>
+ * Workers take jobs from a {@link JobSource}. The manager of the process that owns the job
+ * store also runs the queue's background duties (retry timer, retry sweep and lease reaper);
+ * a manager whose workers lease jobs from another process only renews their leases until it
+ * is handed the queue with {@link #attachQueue(JobQueue)}.
  */
 public class WorkerManager {
     private static final Logger logger = LoggerFactory.getLogger(WorkerManager.class);
     
-    private final JobQueue jobQueue;
+    private final JobSource jobSource;
+    private volatile JobQueue jobQueue;
     private final JobQueueConfig config;
     private final ExecutorService workerExecutor;
     private final ScheduledExecutorService retryScheduler;
     private final List<Worker> workers = new ArrayList<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicInteger workerIdCounter = new AtomicInteger(0);
+    private volatile VirtualWorkerPool virtualPool;
+    private volatile ProcessSupervisor processSupervisor;
+    private volatile OutputStore outputStore;
+    private final Supplier<JobExecutor> executorFactory;
+    private final LatencyHistogram executionTime = new LatencyHistogram();
     
     public WorkerManager(JobQueue jobQueue, JobQueueConfig config) {
+        this(jobQueue, jobQueue, config, null);
+    }
+    
+    /**
+     * Create a manager whose workers lease jobs from a queue owned by another process
+     */
+    public WorkerManager(JobSource jobSource, JobQueueConfig config) {
+        this(jobSource, null, config, null);
+    }
+    
+    /**
+     * Create a manager that runs the duties of a queue this process owns while its workers take
+     * jobs through another source, typically one wrapping that queue
+     *
+     * @param executorFactory creates the executors workers run jobs with, or null to run each
+     *                        job's command as a shell process
+     */
+    public WorkerManager(JobSource jobSource, JobQueue jobQueue, JobQueueConfig config,
+                         Supplier<JobExecutor> executorFactory) {
+        this.jobSource = jobSource;
         this.jobQueue = jobQueue;
         this.config = config;
+        this.executorFactory = executorFactory;
         this.workerExecutor = Executors.newCachedThreadPool(r -> {
             Thread t = new Thread(r, "JobWorker-" + workerIdCounter.incrementAndGet());
             t.setDaemon(false); // Ensure workers complete before JVM shutdown
@@ -52,29 +92,55 @@ public class WorkerManager {
     }
     
     /**
-     * Start the worker manager with specified number of workers
+     * Start the worker manager with specified number of workers, in the configured mode
      */
     public void start(int workerCount) {
+        start(workerCount, WorkerMode.fromString(config.getWorkerMode()));
+    }
+    
+    /**
+     * Start the worker manager with specified number of workers in the given mode
+     */
+    public synchronized void start(int workerCount, WorkerMode mode) {
+        if (mode == WorkerMode.VIRTUAL && workerCount < 1) {
+            throw new IllegalArgumentException("Virtual mode needs a worker count of at least 1");
+        }
         if (running.compareAndSet(false, true)) {
-            logger.info("Starting WorkerManager with {} workers", workerCount);
+            logger.info("Starting WorkerManager with {} {} workers", workerCount, mode);
             
             // Initialize job queue
-            jobQueue.initialize();
+            JobQueue queue = jobQueue;
+            if (queue != null) {
+                queue.initialize();
+            }
             
-            // Create and start workers
-            JobExecutor jobExecutor = new JobExecutor(config.getJobTimeoutSeconds());
+            // Create and start workers; they share one supervisor for their child processes
+            // and one store for their output
+            processSupervisor = new ProcessSupervisor();
+            processSupervisor.start();
+            outputStore = new OutputStore(OutputStore.directoryFor(config));
+            JobProcessor jobProcessor = new JobProcessor(jobSource, createJobExecutor(), executionTime);
             
-            for (int i = 0; i < workerCount; i++) {
-                String workerId = "worker-" + (i + 1);
-                Worker worker = new Worker(workerId, jobQueue, jobExecutor);
-                workers.add(worker);
-                workerExecutor.submit(worker);
+            if (mode == WorkerMode.VIRTUAL) {
+                // One dispatcher thread; each job gets a virtual thread of its own
+                virtualPool = new VirtualWorkerPool("virtual-pool", jobSource, jobProcessor, workerCount,
+                                                    config.getWorkerPrefetch());
+                workerExecutor.submit(virtualPool);
+            } else {
+                for (int i = 0; i < workerCount; i++) {
+                    String workerId = "worker-" + (i + 1);
+                    Worker worker = new Worker(workerId, jobSource, jobProcessor, config.getWorkerPrefetch());
+                    workers.add(worker);
+                    workerExecutor.submit(worker);
+                }
             }
             
-            // Start retry scheduler
-            startRetryScheduler();
+            if (queue != null) {
+                startQueueDuties(queue);
+            }
+            startLeaseHeartbeat();
             
-            logger.info("WorkerManager started with {} workers", workers.size());
+            logger.info("WorkerManager started with {} workers", getTotalWorkerCount());
         } else {
             logger.warn("WorkerManager is already running");
         }
@@ -91,12 +157,20 @@ public class WorkerManager {
             for (Worker worker : workers) {
                 worker.shutdown();
             }
+            if (virtualPool != null) {
+                virtualPool.shutdown();
+            }
             
-            // Shutdown executor services
+            // Shutdown executor services; the virtual pool's dispatcher exits once its jobs end
             shutdownExecutorService(workerExecutor, "WorkerExecutor", 30);
             shutdownExecutorService(retryScheduler, "RetryScheduler", 5);
             
+            // Kills only processes whose workers did not finish in time
+            processSupervisor.close();
+            outputStore.close();
+            
             workers.clear();
+            virtualPool = null;
             logger.info("WorkerManager stopped");
         } else {
             logger.warn("WorkerManager is not running");
@@ -124,14 +198,24 @@ public class WorkerManager {
      * Get the number of active workers
      */
     public int getActiveWorkerCount() {
-        return (int) workers.stream().filter(Worker::isRunning).count();
+        VirtualWorkerPool pool = virtualPool;
+        int poolJobs = pool != null ? pool.getRunningJobCount() : 0;
+        return (int) workers.stream().filter(Worker::isRunning).count() + poolJobs;
     }
     
     /**
      * Get the total number of workers
      */
     public int getTotalWorkerCount() {
-        return workers.size();
+        VirtualWorkerPool pool = virtualPool;
+        return workers.size() + (pool != null ? pool.getMaxConcurrency() : 0);
+    }
+    
+    /**
+     * Get the mode the workers run in
+     */
+    public WorkerMode getWorkerMode() {
+        return virtualPool != null ? WorkerMode.VIRTUAL : WorkerMode.PLATFORM;
     }
     
     /**
@@ -146,6 +230,10 @@ public class WorkerManager {
                 worker.isShutdownRequested()
             ));
         }
+        VirtualWorkerPool pool = virtualPool;
+        if (pool != null) {
+            statusList.add(new WorkerStatus(pool.getPoolId(), pool.isRunning(), pool.isShutdownRequested()));
+        }
         return statusList;
     }
     
@@ -156,13 +244,16 @@ public class WorkerManager {
         if (!running.get()) {
             throw new IllegalStateException("WorkerManager is not running");
         }
+        if (virtualPool != null) {
+            throw new IllegalStateException("Cannot add workers to a virtual worker pool");
+        }
         
         logger.info("Adding {} workers", count);
-        JobExecutor jobExecutor = new JobExecutor(config.getJobTimeoutSeconds());
+        JobProcessor jobProcessor = new JobProcessor(jobSource, createJobExecutor(), executionTime);
         
         for (int i = 0; i < count; i++) {
             String workerId = "worker-" + workerIdCounter.incrementAndGet();
-            Worker worker = new Worker(workerId, jobQueue, jobExecutor);
+            Worker worker = new Worker(workerId, jobSource, jobProcessor, config.getWorkerPrefetch());
             workers.add(worker);
             workerExecutor.submit(worker);
         }
@@ -171,7 +262,49 @@ public class WorkerManager {
     }
     
     /**
-     * Start the retry scheduler that periodically processes failed jobs for retry
+     * Register the workers' metrics: how many are active and in all, and how long jobs took
+     * to execute
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("queuectl_workers_active", "Active workers as reported by status", this::getActiveWorkerCount);
+        registry.gauge("queuectl_workers", "Workers, or the concurrency limit of a virtual worker pool",
+                       this::getTotalWorkerCount);
+        registry.histogram("queuectl_job_execution_seconds", "Time to execute a job's command", executionTime);
+    }
+    
+    /**
+     * Take over the background duties of a queue this process now owns, typically after it
+     * became the cluster leader. The workers keep leasing from the same job source.
+     */
+    public synchronized void attachQueue(JobQueue queue) {
+        if (jobQueue != null) {
+            throw new IllegalStateException("WorkerManager already runs a job queue");
+        }
+        jobQueue = queue;
+        queue.initialize();
+        if (running.get()) {
+            startQueueDuties(queue);
+        }
+    }
+    
+    /**
+     * Start firing retries, then the backstop sweep, then reclaiming expired leases
+     */
+    private void startQueueDuties(JobQueue queue) {
+        queue.startRetryTimer();
+        startRetryScheduler();
+        queue.startLeaseReaper();
+    }
+    
+    private JobExecutor createJobExecutor() {
+        if (executorFactory != null) {
+            return executorFactory.get();
+        }
+        return new JobExecutor(processSupervisor, config.getJobTimeoutSeconds(), config.getMaxOutputBytes(), outputStore);
+    }
+    
+    /**
+     * Start the retry scheduler that periodically sweeps for failed jobs the retry timer missed
      */
     private void startRetryScheduler() {
         retryScheduler.scheduleWithFixedDelay(
@@ -181,10 +314,29 @@ public class WorkerManager {
             TimeUnit.SECONDS
         );
         
-        logger.info("Retry scheduler started with interval {} seconds", 
+        logger.info("Retry sweep started with interval {} seconds", 
                    config.getRetryCheckIntervalSeconds());
     }
     
+    /**
+     * Renew the leases of all running jobs three times per lease timeout, in one batch.
+     * Runs on the retry scheduler, which keeps going while workers drain on shutdown.
+     */
+    private void startLeaseHeartbeat() {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(config.getLeaseTimeoutSeconds()) / 3;
+        retryScheduler.scheduleWithFixedDelay(this::renewLeases, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        
+        logger.info("Lease heartbeat started with interval {} ms", intervalMillis);
+    }
+    
+    private void renewLeases() {
+        try {
+            jobSource.renewLeases();
+        } catch (Exception e) {
+            logger.error("Error renewing leases", e);
+        }
+    }
+    
     /**
      * Process jobs that are ready for retry
      */
@@ -232,12 +384,16 @@ public class WorkerManager {
         private final boolean running;
         private final boolean shutdownRequested;
         
-        public WorkerStatus(String workerId, boolean running, boolean shutdownRequested) {
+        @JsonCreator
+        public WorkerStatus(@JsonProperty("worker_id") String workerId,
+                            @JsonProperty("running") boolean running,
+                            @JsonProperty("shutdown_requested") boolean shutdownRequested) {
             this.workerId = workerId;
             this.running = running;
             this.shutdownRequested = shutdownRequested;
         }
         
+        @JsonProperty("worker_id")
         public String getWorkerId() {
             return workerId;
         }
@@ -246,6 +402,7 @@ public class WorkerManager {
             return running;
         }
         
+        @JsonProperty("shutdown_requested")
         public boolean isShutdownRequested() {
             return shutdownRequested;
         }
@@ -0,0 +1,43 @@
+package com.jobqueue.worker;
+
+/**
+ * Represents the ways workers can be run.
+ */
+public enum WorkerMode {
+    /**
+     * One platform thread per worker, each polling the queue
+     */
+    PLATFORM("platform"),
+    
+    /**
+     * One virtual thread per running job, with the worker count as the concurrency limit
+     */
+    VIRTUAL("virtual");
+    
+    private final String value;
+    
+    WorkerMode(String value) {
+        this.value = value;
+    }
+    
+    public String getValue() {
+        return value;
+    }
+    
+    /**
+     * Convert string value to WorkerMode enum
+     */
+    public static WorkerMode fromString(String value) {
+        for (WorkerMode mode : WorkerMode.values()) {
+            if (mode.value.equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown worker mode: " + value);
+    }
+    
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -1,17 +1,83 @@
 package com.jobqueue;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jobqueue.bench.LoadGenerator;
+import com.jobqueue.bench.LoadProfile;
+import com.jobqueue.bench.LoadReport;
+import com.jobqueue.cli.QueueCtl;
+import com.jobqueue.cluster.LeaderInfo;
 import com.jobqueue.config.JobQueueConfig;
+import com.jobqueue.daemon.DaemonClient;
+import com.jobqueue.daemon.DaemonProtocol;
+import com.jobqueue.daemon.DaemonRequestHandler;
+import com.jobqueue.daemon.DaemonServer;
+import com.jobqueue.daemon.JobPage;
+import com.jobqueue.daemon.StatusReport;
+import com.jobqueue.dlq.DLQManager;
+import com.jobqueue.jfr.FlightRecording;
+import com.jobqueue.jfr.LockWaitEvent;
+import com.jobqueue.metrics.MetricsRegistry;
+import com.jobqueue.metrics.MetricsServer;
+import com.jobqueue.model.CoarseClock;
 import com.jobqueue.model.Job;
+import com.jobqueue.model.JobId;
 import com.jobqueue.model.JobState;
+import com.jobqueue.output.OutputStore;
+import com.jobqueue.persistence.JobCodec;
+import com.jobqueue.persistence.JobFileLoader;
 import com.jobqueue.persistence.PersistenceManager;
 import com.jobqueue.queue.JobQueue;
+import com.jobqueue.queue.LinkedPendingQueue;
+import com.jobqueue.queue.PriorityPendingQueue;
+import com.jobqueue.queue.PriorityPendingQueue.LaneStatistics;
+import com.jobqueue.queue.RingBufferPendingQueue;
+import com.jobqueue.queue.WaitStrategy;
+import com.jobqueue.worker.JobExecutor;
+import com.jobqueue.worker.ProcessSupervisor;
+import com.jobqueue.worker.WorkerManager;
+import com.jobqueue.worker.WorkerMode;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -93,6 +159,61 @@ class JobQueueSystemTest {
         assertFalse(job.canRetry());
     }
     
+    @Test
+    void testRetryTimerRequeuesDueJob() throws InterruptedException {
+        String jobId = jobQueue.enqueue("exit 1", 3);
+        Job job = jobQueue.dequeue().orElseThrow();
+        
+        // First failure backs off for base^0 = 1 second
+        jobQueue.markFailed(job, "Command failed");
+        jobQueue.startRetryTimer();
+        assertEquals(JobState.FAILED, jobQueue.getJob(jobId).orElseThrow().getState());
+        
+        Optional<Job> retried = jobQueue.dequeue(3, TimeUnit.SECONDS);
+        assertTrue(retried.isPresent());
+        assertEquals(jobId, retried.get().getId());
+        assertEquals(1, retried.get().getAttempts());
+        assertEquals(0, jobQueue.getScheduledRetryCount());
+        jobQueue.shutdown();
+    }
+    
+    @Test
+    void testExpiredLeaseIsReclaimed() throws InterruptedException {
+        JobQueueConfig leaseConfig = config.withLeaseTimeoutSeconds(1);
+        JobQueue leaseQueue = new JobQueue(persistenceManager, leaseConfig);
+        String jobId = leaseQueue.enqueue("exit 1", 3);
+        
+        // A dequeue stamps the lease, and renewals push it out
+        Job job = leaseQueue.dequeue("worker-a", 1, TimeUnit.SECONDS).orElseThrow();
+        assertEquals("worker-a", job.getWorkerId());
+        long firstExpiry = job.getLeaseExpiresAtMillis();
+        Thread.sleep(20);
+        assertEquals(1, leaseQueue.renewLeases());
+        assertTrue(job.getLeaseExpiresAtMillis() > firstExpiry);
+        assertEquals("worker-a", new PersistenceManager(config.getDataFile()).getJob(jobId).orElseThrow().getWorkerId());
+        
+        // Without renewals the reaper fails the job into the retry path
+        leaseQueue.startRetryTimer();
+        leaseQueue.startLeaseReaper();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getState() == JobState.PROCESSING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertNotEquals(JobState.PROCESSING, job.getState());
+        assertEquals(1, job.getAttempts());
+        assertTrue(job.getErrorMessage().startsWith("Lease expired"), job.getErrorMessage());
+        assertNull(job.getWorkerId());
+        assertEquals(0, leaseQueue.getLeasedJobCount());
+        
+        // The old holder's outcome no longer counts, and the retry goes to another worker
+        assertFalse(leaseQueue.markCompleted(job, 0));
+        Job retried = leaseQueue.dequeue("worker-b", 3, TimeUnit.SECONDS).orElseThrow();
+        assertEquals(jobId, retried.getId());
+        assertEquals("worker-b", retried.getWorkerId());
+        assertTrue(leaseQueue.markCompleted(retried, 1));
+        leaseQueue.shutdown();
+    }
+    
     @Test
     void testJobPersistence() {
         // Enqueue jobs
@@ -108,6 +229,219 @@ class JobQueueSystemTest {
         assertTrue(newPersistenceManager.getJob(jobId2).isPresent());
     }
     
+    @Test
+    void testParallelLoadMatchesSequentialLoad() throws IOException {
+        // Strings full of escapes, quotes and brackets must not confuse the element scan
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Job job = new Job("printf \"job %s\\n\" '[" + i + "]}' # caf\u00e9\t{", 3);
+            if (i % 3 == 0) {
+                job.markAsProcessing();
+                job.markAsFailed("line one\nline \"two\" \\ ]", CoarseClock.currentTimeMillis() + 30_000);
+            }
+            jobs.add(job);
+        }
+        persistenceManager.saveJobs(jobs);
+        
+        Path file = Path.of(config.getDataFile());
+        ObjectMapper mapper = DaemonProtocol.createObjectMapper();
+        Map<String, JsonNode> sequential = new ConcurrentHashMap<>();
+        Map<String, JsonNode> parallel = new ConcurrentHashMap<>();
+        assertEquals(3000, new JobFileLoader(mapper, 1).load(file, job -> sequential.put(job.getId(), mapper.valueToTree(job))));
+        assertEquals(3000, new JobFileLoader(mapper, 4).load(file, job -> parallel.put(job.getId(), mapper.valueToTree(job))));
+        assertEquals(sequential, parallel);
+        assertEquals(mapper.valueToTree(jobs.get(0)), parallel.get(jobs.get(0).getId()));
+        assertEquals(3000, new PersistenceManager(config.withParallelLoad(true)).getJobCount());
+        
+        // A file cut off after a whole job or in the middle of one, or whose array holds
+        // something other than jobs, is rejected either way
+        String text = Files.readString(file);
+        String lastJob = text.substring(0, text.lastIndexOf('}') + 1);
+        for (String broken : List.of(lastJob, text.substring(0, text.length() / 2), lastJob + ", 42]")) {
+            Path brokenFile = tempDir.resolve("broken-jobs.json");
+            Files.writeString(brokenFile, broken);
+            assertThrows(IOException.class, () -> new JobFileLoader(mapper, 1).load(brokenFile, job -> { }));
+            assertThrows(IOException.class, () -> new JobFileLoader(mapper, 4).load(brokenFile, job -> { }));
+        }
+    }
+    
+    @Test
+    void testWriteAheadLogRecovery() {
+        String dataFile = tempDir.resolve("wal-jobs.json").toString();
+        JobQueueConfig walConfig = new JobQueueConfig().withDataFile(dataFile).withStorageMode("wal");
+        PersistenceManager walPersistence = new PersistenceManager(walConfig);
+        JobQueue walQueue = new JobQueue(walPersistence, walConfig);
+        
+        String completedJobId = walQueue.enqueue("echo 'done'");
+        String deletedJobId = walQueue.enqueue("echo 'gone'");
+        walQueue.markCompleted(walQueue.getJob(completedJobId).orElseThrow());
+        walQueue.deleteJob(deletedJobId);
+        walPersistence.close();
+        
+        // Replaying the log restores the latest state of every job
+        PersistenceManager recovered = new PersistenceManager(walConfig);
+        assertEquals(1, recovered.getJobCount());
+        assertEquals(JobState.COMPLETED, recovered.getJob(completedJobId).orElseThrow().getState());
+        assertFalse(recovered.getJob(deletedJobId).isPresent());
+        recovered.close();
+    }
+    
+    @Test
+    void testWriteAheadLogCompaction() {
+        String dataFile = tempDir.resolve("compact-jobs.json").toString();
+        JobQueueConfig walConfig = new JobQueueConfig().withDataFile(dataFile).withStorageMode("wal");
+        PersistenceManager walPersistence = new PersistenceManager(walConfig);
+        JobQueue walQueue = new JobQueue(walPersistence, walConfig);
+        
+        String jobId = walQueue.enqueue("echo 'before snapshot'");
+        walPersistence.compact();
+        assertEquals(0, walPersistence.getStorageStatistics().getLogRecords());
+        assertNotNull(walPersistence.getStorageStatistics().getLastSnapshotTime());
+        
+        // Changes after the snapshot are replayed on top of it
+        walQueue.markCompleted(walQueue.getJob(jobId).orElseThrow());
+        String laterJobId = walQueue.enqueue("echo 'after snapshot'");
+        walPersistence.close();
+        
+        PersistenceManager recovered = new PersistenceManager(walConfig);
+        assertEquals(2, recovered.getJobCount());
+        assertEquals(JobState.COMPLETED, recovered.getJob(jobId).orElseThrow().getState());
+        assertTrue(recovered.getJob(laterJobId).isPresent());
+        recovered.close();
+    }
+    
+    @Test
+    void testBinaryStorageFormat() {
+        String dataFile = tempDir.resolve("binary-jobs.json").toString();
+        JobQueueConfig jsonConfig = new JobQueueConfig().withDataFile(dataFile);
+        PersistenceManager jsonPersistence = new PersistenceManager(jsonConfig);
+        JobQueue jsonQueue = new JobQueue(jsonPersistence, jsonConfig);
+        String jsonJobId = jsonQueue.enqueue("echo 'written as json'");
+        
+        // Switching the format keeps reading the existing JSON file
+        JobQueueConfig binaryConfig = jsonConfig.withStorageFormat("binary");
+        PersistenceManager binaryPersistence = new PersistenceManager(binaryConfig);
+        assertTrue(binaryPersistence.getJob(jsonJobId).isPresent());
+        
+        Job failed = new Job("binary-job", "echo 'written as binary'", 3);
+        failed.markAsProcessing();
+        failed.markAsFailed("exit code 1", CoarseClock.currentTimeMillis() + 30_000);
+        binaryPersistence.saveJob(failed);
+        
+        PersistenceManager reloaded = new PersistenceManager(binaryConfig);
+        Job restored = reloaded.getJob("binary-job").orElseThrow();
+        assertEquals(2, reloaded.getJobCount());
+        assertEquals(JobState.FAILED, restored.getState());
+        assertEquals(1, restored.getAttempts());
+        assertEquals("exit code 1", restored.getErrorMessage());
+        assertEquals(failed.getNextRetryAtMillis(), restored.getNextRetryAtMillis());
+        assertEquals(failed.getCreatedAtMillis(), restored.getCreatedAtMillis());
+    }
+    
+    @Test
+    void testTimestampsReadFromOlderFormats() throws IOException {
+        // JSON keeps local date-times; ones written with nanoseconds are cut to milliseconds
+        ObjectMapper mapper = DaemonProtocol.createObjectMapper();
+        Job job = new Job("json-times", "echo 'times'", 3);
+        job.markAsProcessing("worker-1", CoarseClock.currentTimeMillis() + 30_000);
+        ObjectNode json = mapper.valueToTree(job);
+        assertEquals(mapper.valueToTree(job.getLeaseExpiresAt()), json.get("lease_expires_at"));
+        assertFalse(json.has("createdAtMillis"));
+        assertEquals(job.getLeaseExpiresAtMillis(), mapper.treeToValue(json, Job.class).getLeaseExpiresAtMillis());
+        
+        LocalDateTime written = LocalDateTime.parse("2024-03-31T02:30:15.123456789");
+        json.set("created_at", mapper.valueToTree(written));
+        Job legacy = mapper.treeToValue(json, Job.class);
+        assertEquals(written.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), legacy.getCreatedAtMillis());
+        
+        // Binary version 1 records hold wall-clock time as if it were UTC
+        LocalDateTime wallClock = LocalDateTime.parse("2024-01-15T12:00:00.250");
+        long asUtc = wallClock.toInstant(ZoneOffset.UTC).toEpochMilli();
+        Job v1Job = new Job(JobId.parse("v1-times"), "echo 'v1'", JobState.FAILED, 1, 3, Job.DEFAULT_PRIORITY,
+                            asUtc, asUtc, "exit code 1", asUtc, null, 0);
+        JobCodec codec = new JobCodec();
+        Job decoded = codec.decode(ByteBuffer.wrap(codec.encode(v1Job)), JobCodec.WALL_CLOCK_FORMAT_VERSION);
+        assertEquals(wallClock, decoded.getCreatedAt());
+        assertEquals(wallClock, decoded.getNextRetryAt());
+        assertEquals(asUtc, codec.decode(codec.encode(v1Job)).getCreatedAtMillis());
+        
+        // Version 2 records hold epoch millis and every ID as text; a UUID still parses to bits
+        String uuid = "0b9f0e4c-5a8e-4c55-9d1e-2f6f7f0d9a51";
+        String placeholder = uuid.toUpperCase();
+        Job textIdJob = new Job(JobId.parse(placeholder), "echo 'v2'", JobState.FAILED, 1, 3, Job.DEFAULT_PRIORITY,
+                                asUtc, asUtc, "exit code 1", asUtc, null, 0);
+        byte[] v2Record = new String(codec.encode(textIdJob), StandardCharsets.ISO_8859_1)
+                .replace(placeholder, uuid).getBytes(StandardCharsets.ISO_8859_1);
+        Job v2Job = codec.decode(ByteBuffer.wrap(v2Record), JobCodec.TEXT_ID_FORMAT_VERSION);
+        assertTrue(v2Job.getJobId().isBinary());
+        assertEquals(uuid, v2Job.getId());
+        assertEquals(asUtc, v2Job.getNextRetryAtMillis());
+        
+        // A record with a 16-byte ID is refused under the versions that did not have one
+        byte[] v3Record = codec.encode(new Job(uuid, "echo 'v3'", 3));
+        assertEquals(uuid, codec.decode(v3Record).getId());
+        assertThrows(IOException.class, () -> codec.decode(ByteBuffer.wrap(v3Record), JobCodec.TEXT_ID_FORMAT_VERSION));
+    }
+    
+    @Test
+    void testJobIdsAreTimeOrdered() throws Exception {
+        // Each thread's IDs strictly increase, and a later millisecond sorts later
+        List<JobId> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(new Job("echo 'ordered'", 3).getJobId());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+        JobId earlier = ids.get(ids.size() - 1);
+        Thread.sleep(5);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(earlier.compareTo(executor.submit(JobId::generate).get()) < 0);
+        } finally {
+            executor.shutdown();
+        }
+        
+        // Generated IDs render as version 7 UUIDs and parse back to the same bits
+        JobId id = ids.get(0);
+        String text = id.toString();
+        assertEquals(7, UUID.fromString(text).version());
+        assertEquals(id, JobId.parse(text));
+        assertEquals(text.hashCode(), id.hashCode());
+        
+        // IDs of older jobs keep their text: random UUIDs become bits, anything else stays text
+        String legacy = UUID.randomUUID().toString();
+        assertTrue(JobId.parse(legacy).isBinary());
+        assertEquals(legacy, JobId.parse(legacy).toString());
+        assertEquals(legacy.hashCode(), JobId.parse(legacy).hashCode());
+        assertFalse(JobId.parse(legacy.toUpperCase()).isBinary());
+        assertEquals("binary-job", JobId.parse("binary-job").toString());
+        
+        // Both kinds survive the store, and listings come out in ID order
+        JobQueueConfig binaryConfig = config.withDataFile(tempDir.resolve("ids.json").toString())
+                                            .withStorageFormat("binary");
+        PersistenceManager store = new PersistenceManager(binaryConfig);
+        store.saveJobs(List.of(new Job(legacy, "echo 'legacy'", 3), new Job("named-job", "echo 'named'", 3),
+                               new Job("echo 'new'", 3)));
+        PersistenceManager reloaded = new PersistenceManager(binaryConfig);
+        assertTrue(reloaded.getJob(legacy).isPresent());
+        assertTrue(reloaded.getJob("named-job").isPresent());
+        List<JobId> listed = reloaded.getAllJobs().stream().map(Job::getJobId).toList();
+        assertEquals(listed.stream().sorted().toList(), listed);
+        assertEquals("named-job", listed.get(2).toString());
+        
+        // A sharded store merges its shards' listings into one ID order
+        PersistenceManager sharded = new PersistenceManager(binaryConfig.withStoreShards(4));
+        List<Job> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Job("echo 'sharded " + i + "'", 3));
+        }
+        sharded.saveJobs(batch);
+        listed = sharded.getAllJobs().stream().map(Job::getJobId).toList();
+        assertEquals(103, listed.size());
+        assertEquals(listed.stream().sorted().toList(), listed);
+    }
+    
     @Test
     void testJobStatistics() {
         // Enqueue jobs in different states
@@ -143,4 +477,775 @@ class JobQueueSystemTest {
         List<Job> completedJobs = jobQueue.getJobsByState(JobState.COMPLETED);
         assertEquals(0, completedJobs.size());
     }
+    
+    @Test
+    void testStateIndexFollowsTransitions() {
+        String firstJobId = jobQueue.enqueue("echo 'first'");
+        String secondJobId = jobQueue.enqueue("echo 'second'");
+        
+        // A saved transition moves the job between state indexes
+        jobQueue.markCompleted(jobQueue.getJob(firstJobId).orElseThrow());
+        assertEquals(1, persistenceManager.getJobCount(JobState.PENDING));
+        assertEquals(1, persistenceManager.getJobCount(JobState.COMPLETED));
+        assertEquals(firstJobId, persistenceManager.getCompletedJobs().get(0).getId());
+        
+        // Deletes and reloads keep the counters in step with the cache
+        assertEquals(1, jobQueue.clearCompletedJobs());
+        assertEquals(0, persistenceManager.getJobCount(JobState.COMPLETED));
+        
+        PersistenceManager reloaded = new PersistenceManager(persistenceManager.getDataFile());
+        assertEquals(1, reloaded.getJobCount(JobState.PENDING));
+        assertEquals(secondJobId, reloaded.getPendingJobs().get(0).getId());
+        assertFalse(reloaded.getJobStatistics().containsKey(JobState.COMPLETED));
+    }
+    
+    @Test
+    void testEnqueueAllStoresBatch() {
+        List<Job> batch = List.of(new Job("echo 'one'", 1), new Job("echo 'two'", 2), new Job("echo 'three'", 3));
+        
+        List<String> jobIds = jobQueue.enqueueAll(batch);
+        assertEquals(3, jobIds.size());
+        assertEquals(batch.get(1).getId(), jobIds.get(1));
+        assertEquals(3, jobQueue.getPendingCount());
+        
+        // The whole batch is on disk and dequeues in submission order
+        PersistenceManager reloaded = new PersistenceManager(persistenceManager.getDataFile());
+        assertEquals(3, reloaded.getJobCount(JobState.PENDING));
+        assertEquals("echo 'one'", jobQueue.dequeue().orElseThrow().getCommand());
+    }
+    
+    @Test
+    void testShardedStoreStealsAndReshards() {
+        String dataFile = tempDir.resolve("sharded-jobs.json").toString();
+        JobQueueConfig shardedConfig = new JobQueueConfig().withDataFile(dataFile).withStoreShards(4);
+        PersistenceManager sharded = new PersistenceManager(shardedConfig);
+        JobQueue shardedQueue = new JobQueue(sharded, shardedConfig);
+        
+        List<Job> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(new Job("echo 'job " + i + "'", 3));
+        }
+        shardedQueue.enqueueAll(batch);
+        assertEquals(20, sharded.getJobCount(JobState.PENDING));
+        assertEquals(20, shardedQueue.getPendingCount());
+        assertTrue(Files.exists(Path.of(dataFile + ".shard-3-of-4")));
+        assertFalse(Files.exists(Path.of(dataFile)));
+        
+        // One worker drains every shard, stealing from those that are not its home
+        for (int i = 0; i < 20; i++) {
+            Job job = shardedQueue.dequeue("worker-1", 1, TimeUnit.SECONDS).orElseThrow();
+            if (i % 2 == 0) {
+                shardedQueue.markCompleted(job);
+            }
+        }
+        assertTrue(shardedQueue.getStolenJobCount() > 0);
+        assertEquals(10, sharded.getJobStatistics().get(JobState.COMPLETED));
+        assertEquals(10, sharded.getProcessingJobs().size());
+        
+        // Changing the shard count moves every job into the new layout
+        PersistenceManager resharded = new PersistenceManager(shardedConfig.withStoreShards(2));
+        assertEquals(20, resharded.getJobCount());
+        assertEquals(10, resharded.getJobCount(JobState.COMPLETED));
+        assertFalse(Files.exists(Path.of(dataFile + ".shard-3-of-4")));
+        
+        PersistenceManager unsharded = new PersistenceManager(shardedConfig.withStoreShards(1));
+        assertEquals(20, unsharded.getJobCount());
+        assertTrue(unsharded.getJob(batch.get(7).getId()).isPresent());
+        assertFalse(Files.exists(Path.of(dataFile + ".shards")));
+    }
+    
+    @Test
+    void testDequeueBatchAndPrefetchReturn() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            jobQueue.enqueue("echo 'batch " + i + "'");
+        }
+        
+        // One batch claims what is queued, up to the limit, and stores it as processing
+        List<Job> batch = jobQueue.dequeueBatch("worker-1", 3, 1, TimeUnit.SECONDS);
+        assertEquals(3, batch.size());
+        assertEquals(2, jobQueue.getPendingCount());
+        PersistenceManager reloaded = new PersistenceManager(persistenceManager.getDataFile());
+        assertEquals(3, reloaded.getJobCount(JobState.PROCESSING));
+        assertEquals("worker-1", reloaded.getJob(batch.get(0).getId()).orElseThrow().getWorkerId());
+        
+        // Unstarted jobs go back without using up an attempt
+        assertEquals(2, jobQueue.release(batch.subList(1, 3)));
+        assertEquals(4, jobQueue.getPendingCount());
+        assertEquals(0, jobQueue.getJob(batch.get(1).getId()).orElseThrow().getAttempts());
+        assertEquals(0, jobQueue.release(batch.subList(1, 2)));
+        jobQueue.markCompleted(batch.get(0), 0);
+        
+        // A prefetching worker hands back its buffer when it stops
+        for (int i = 0; i < 4; i++) {
+            jobQueue.enqueue("sleep 0.5");
+        }
+        WorkerManager workerManager = new WorkerManager(jobQueue, config.withWorkerPrefetch(8));
+        workerManager.start(1, WorkerMode.PLATFORM);
+        waitFor(() -> jobQueue.getPendingCount() == 0, 10);
+        workerManager.stop();
+        
+        assertEquals(0, jobQueue.getJobsByState(JobState.PROCESSING).size());
+        assertEquals(0, jobQueue.getLeasedJobCount());
+        long finished = jobQueue.getJobsByState(JobState.COMPLETED).size();
+        assertTrue(finished < 9, "finished " + finished);
+        assertEquals(9 - finished, jobQueue.getPendingCount());
+    }
+    
+    @Test
+    void testRingBufferPendingQueue() throws Exception {
+        // Items beyond the ring's capacity spill over without reordering
+        RingBufferPendingQueue<Integer> small = new RingBufferPendingQueue<>(4, WaitStrategy.PARK);
+        for (int i = 0; i < 10; i++) {
+            small.offer(i);
+        }
+        assertEquals(10, small.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, small.poll(0, TimeUnit.MILLISECONDS));
+        }
+        assertNull(small.poll(10, TimeUnit.MILLISECONDS));
+        
+        // Every item offered by concurrent producers is taken exactly once
+        RingBufferPendingQueue<Integer> queue = new RingBufferPendingQueue<>(64, WaitStrategy.SPIN_THEN_PARK);
+        Set<Integer> received = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int p = 0; p < 2; p++) {
+                int base = p * 5000;
+                executor.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        queue.offer(base + i);
+                    }
+                });
+            }
+            List<Future<?>> consumers = new ArrayList<>();
+            for (int c = 0; c < 2; c++) {
+                consumers.add(executor.submit(() -> {
+                    Integer item;
+                    while ((item = queue.poll(500, TimeUnit.MILLISECONDS)) != null) {
+                        assertTrue(received.add(item), "duplicate " + item);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> consumer : consumers) {
+                consumer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(10000, received.size());
+        assertEquals(0, queue.size());
+        
+        // A ring small enough to keep spilling over still hands out each producer's items in order
+        RingBufferPendingQueue<Integer> spilling = new RingBufferPendingQueue<>(4, WaitStrategy.SPIN_THEN_PARK);
+        ExecutorService producers = Executors.newFixedThreadPool(2);
+        try {
+            for (int p = 0; p < 2; p++) {
+                int base = p * 5000;
+                producers.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        spilling.offer(base + i);
+                    }
+                });
+            }
+            int[] last = {-1, 4999};
+            for (int taken = 0; taken < 10000; taken++) {
+                Integer item = spilling.poll(5, TimeUnit.SECONDS);
+                assertNotNull(item);
+                assertTrue(item > last[item / 5000], item + " after " + last[item / 5000]);
+                last[item / 5000] = item;
+            }
+        } finally {
+            producers.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testRingQueueSkipsDeletedJobs() {
+        JobQueue ringQueue = new JobQueue(persistenceManager, config.withPendingQueue("ring").withPendingQueueCapacity(2));
+        String deletedJobId = ringQueue.enqueue("echo 'deleted'");
+        String keptJobId = ringQueue.enqueue("echo 'kept'");
+        ringQueue.enqueue("echo 'overflow'");
+        
+        assertTrue(ringQueue.deleteJob(deletedJobId));
+        assertEquals(keptJobId, ringQueue.dequeue(100, TimeUnit.MILLISECONDS).orElseThrow().getId());
+        assertEquals("echo 'overflow'", ringQueue.dequeue(100, TimeUnit.MILLISECONDS).orElseThrow().getCommand());
+    }
+    
+    @Test
+    void testPriorityOrderAndAging() throws Exception {
+        // Higher priorities are taken first, FIFO within a priority
+        String low = jobQueue.enqueue(new Job("echo 'low'", 3, 1));
+        String high = jobQueue.enqueue(new Job("echo 'high'", 3, 9));
+        String first = jobQueue.enqueue(new Job("echo 'first'", 3, Job.DEFAULT_PRIORITY));
+        String second = jobQueue.enqueue(new Job("echo 'second'", 3, Job.DEFAULT_PRIORITY));
+        for (String expected : List.of(high, first, second, low)) {
+            assertEquals(expected, jobQueue.dequeue(1, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        assertEquals(4, jobQueue.getLaneStatistics().stream().mapToLong(LaneStatistics::getDequeued).sum());
+        assertThrows(IllegalArgumentException.class, () -> new Job("echo 'invalid'", 3, Job.MAX_PRIORITY + 1));
+        
+        // A head that has waited long enough overtakes newer work of a higher priority
+        PriorityPendingQueue<Job> queue = new PriorityPendingQueue<>(0, 9, Job::getPriority, Job::setEnqueuedNanos,
+                Job::getEnqueuedNanos, LinkedPendingQueue::new, 5, TimeUnit.MILLISECONDS, WaitStrategy.PARK);
+        queue.offer(new Job("echo 'low'", 3, 0));
+        Thread.sleep(100);
+        queue.offer(new Job("echo 'high'", 3, 9));
+        assertEquals(0, queue.poll(0, TimeUnit.MILLISECONDS).getPriority());
+        assertEquals(9, queue.poll(0, TimeUnit.MILLISECONDS).getPriority());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        
+        // The priority survives both storage formats
+        for (String format : List.of("json", "binary")) {
+            JobQueueConfig formatConfig = config.withDataFile(tempDir.resolve(format + "-priority").toString())
+                                                .withStorageFormat(format);
+            new PersistenceManager(formatConfig).saveJob(new Job("echo 'urgent'", 3, 8));
+            Job restored = new PersistenceManager(formatConfig).getAllJobs().get(0);
+            assertEquals(8, restored.getPriority());
+        }
+    }
+    
+    @Test
+    void testVirtualWorkerPoolLimitsConcurrency() throws Exception {
+        List<String> jobIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            jobIds.add(jobQueue.enqueue("sleep 0.3"));
+        }
+        
+        WorkerManager workerManager = new WorkerManager(jobQueue, config.withJobTimeout(10));
+        workerManager.start(3, WorkerMode.VIRTUAL);
+        try {
+            assertEquals(WorkerMode.VIRTUAL, workerManager.getWorkerMode());
+            assertEquals(3, workerManager.getTotalWorkerCount());
+            
+            // The semaphore, not a thread count, caps the jobs running at once
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+            int maxActive = 0;
+            while (jobQueue.getJobsByState(JobState.COMPLETED).size() < jobIds.size()
+                    && System.nanoTime() < deadline) {
+                maxActive = Math.max(maxActive, workerManager.getActiveWorkerCount());
+                Thread.sleep(10);
+            }
+            assertTrue(maxActive <= 3, "ran " + maxActive + " jobs at once");
+            for (String jobId : jobIds) {
+                assertEquals(JobState.COMPLETED, jobQueue.getJob(jobId).orElseThrow().getState());
+            }
+        } finally {
+            workerManager.stop();
+        }
+        assertFalse(workerManager.isRunning());
+    }
+    
+    @Test
+    void testLoadGeneratorWithVirtualWorkers() throws Exception {
+        // Many virtual workers writing a WAL store once deadlocked on pinned carrier threads
+        JobQueueConfig benchConfig = config.withDataFile(tempDir.resolve("bench/jobs.json").toString())
+                                           .withStorageMode("wal");
+        Files.createDirectories(tempDir.resolve("bench"));
+        LoadProfile profile = new LoadProfile()
+                .withJobs(2000)
+                .withWarmupJobs(200)
+                .withConcurrency(128)
+                .withWorkerCount(64)
+                .withWorkerMode(WorkerMode.VIRTUAL)
+                .withWorkMicros(200);
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            LoadReport report = executor.submit(() -> new LoadGenerator(benchConfig, profile).run())
+                                        .get(60, TimeUnit.SECONDS);
+            assertEquals(2000, report.getCompletedJobs());
+            assertEquals(0, report.getFailedJobs());
+            assertEquals(2000, report.getEndToEnd().getTotalCount());
+            assertTrue(report.getExecution().getValueAtPercentile(50) >= 200);
+            assertTrue(report.getEndToEnd().getMaxValue() >= report.getQueueWait().getMaxValue());
+            assertTrue(report.getJobsPerSecond() > 0);
+            
+            // Every collector is reported, with pauses apart from concurrent cycles
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                assertTrue(report.getGcActivity().containsKey(gc.getName()), gc.getName());
+            }
+            ByteArrayOutputStream printed = new ByteArrayOutputStream();
+            report.print(new PrintStream(printed, true, StandardCharsets.UTF_8));
+            assertTrue(printed.toString(StandardCharsets.UTF_8).contains("GC pauses: "));
+            assertTrue(printed.toString(StandardCharsets.UTF_8).contains("GC concurrent cycles: "));
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator(benchConfig, profile.withJobs(0)));
+    }
+    
+    @Test
+    void testMetricsEndpoint() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        persistenceManager.registerMetrics(registry);
+        jobQueue.registerMetrics(registry);
+        
+        jobQueue.enqueue("echo 'one'");
+        jobQueue.enqueue("exit 1", 1);
+        Job first = jobQueue.dequeue("worker-a", 1, TimeUnit.SECONDS).orElseThrow();
+        assertTrue(jobQueue.markCompleted(first, 0));
+        Job second = jobQueue.dequeue("worker-a", 1, TimeUnit.SECONDS).orElseThrow();
+        assertTrue(jobQueue.markFailed(second, 0, "Command failed"));
+        
+        String metrics = registry.render();
+        assertTrue(metrics.contains("# TYPE queuectl_jobs_enqueued_total counter\nqueuectl_jobs_enqueued_total 2\n"));
+        assertTrue(metrics.contains("queuectl_jobs_completed_total 1\n"));
+        assertTrue(metrics.contains("queuectl_jobs_dead_total 1\n"));
+        assertTrue(metrics.contains("queuectl_jobs{state=\"dead\"} 1\n"), metrics);
+        assertTrue(metrics.contains("queuectl_queue_wait_seconds_bucket{le=\"+Inf\"} 2\n"));
+        assertTrue(metrics.contains("queuectl_queue_wait_seconds_count 2\n"));
+        // Waits far shorter than a millisecond are still measured
+        assertFalse(metrics.contains("queuectl_queue_wait_seconds_sum 0.0\n"), metrics);
+        
+        // Served as text over HTTP, and nothing but reads are allowed
+        try (MetricsServer server = new MetricsServer(new InetSocketAddress("127.0.0.1", 0), registry)) {
+            server.start();
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/metrics");
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(),
+                                                        HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain"));
+            assertTrue(response.body().contains("queuectl_jobs_enqueued_total 2"));
+            
+            HttpRequest post = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build();
+            assertEquals(405, client.send(post, HttpResponse.BodyHandlers.discarding()).statusCode());
+        }
+    }
+    
+    @Test
+    void testStoreLockStatistics() throws IOException {
+        String jobId = jobQueue.enqueue("echo 'locked'");
+        jobQueue.enqueueAll(List.of(new Job("echo 'a'", 1), new Job("echo 'b'", 1)));
+        jobQueue.getJob(jobId);
+        jobQueue.getJob(jobId);
+        
+        List<PersistenceManager.LockStatistics> statistics = persistenceManager.getLockStatistics();
+        PersistenceManager.LockStatistics saveJob = statistics.stream()
+                .filter(s -> s.getOperation().equals("saveJob"))
+                .findFirst().orElseThrow();
+        assertEquals("write", saveJob.getMode());
+        assertEquals(1, saveJob.getAcquisitions());
+        assertTrue(saveJob.getMaxHoldMicros() > 0);
+        assertTrue(saveJob.getP99HoldMicros() <= saveJob.getMaxHoldMicros());
+        PersistenceManager.LockStatistics getJob = statistics.stream()
+                .filter(s -> s.getOperation().equals("getJob"))
+                .findFirst().orElseThrow();
+        assertEquals("read", getJob.getMode());
+        assertTrue(getJob.getAcquisitions() >= 2);
+        assertTrue(statistics.stream().anyMatch(s -> s.getOperation().equals("saveJobs")));
+        // Busiest first
+        for (int i = 1; i < statistics.size(); i++) {
+            assertTrue(statistics.get(i - 1).getTotalHoldMillis() >= statistics.get(i).getTotalHoldMillis());
+        }
+        
+        // The timings reach status clients through the daemon protocol
+        StatusReport report = StatusReport.collect(persistenceManager, jobQueue, new WorkerManager(jobQueue, config),
+                                                   config);
+        ObjectMapper mapper = DaemonProtocol.createObjectMapper();
+        StatusReport decoded = mapper.readValue(mapper.writeValueAsString(report), StatusReport.class);
+        assertEquals(report.getLockStatistics().size(), decoded.getLockStatistics().size());
+        assertEquals(report.getLockStatistics().get(0).getOperation(),
+                     decoded.getLockStatistics().get(0).getOperation());
+    }
+    
+    @Test
+    void testFlightRecordingEvents() throws Exception {
+        Path file = tempDir.resolve("queuectl.jfr");
+        ReentrantLock lock = new ReentrantLock();
+        try (FlightRecording recording = new FlightRecording(file);
+             ProcessSupervisor supervisor = new ProcessSupervisor()) {
+            supervisor.start();
+            jobQueue.enqueue("echo 'recorded'");
+            Job job = jobQueue.dequeue("worker-a", 1, TimeUnit.SECONDS).orElseThrow();
+            assertTrue(new JobExecutor(supervisor, 10, 1024, null).execute(job).isSuccess());
+            
+            // Only a contended acquisition is recorded
+            LockWaitEvent.lock(lock, "uncontended");
+            lock.unlock();
+            lock.lock();
+            Thread waiter = new Thread(() -> {
+                LockWaitEvent.lock(lock, "contended");
+                lock.unlock();
+            });
+            waiter.start();
+            Thread.sleep(50);
+            lock.unlock();
+            waiter.join();
+        }
+        
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent executed = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.jobqueue.JobExecuted"))
+                .findFirst().orElseThrow();
+        assertEquals(jobIdOf(events, "com.jobqueue.JobEnqueued"), executed.getString("jobId"));
+        assertEquals(jobIdOf(events, "com.jobqueue.JobDequeued"), executed.getString("jobId"));
+        assertEquals(0, executed.getInt("exitCode"));
+        assertTrue(executed.getLong("forkDuration") > 0);
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.jobqueue.PersistFlush")
+                                                 && e.getLong("bytes") > 0));
+        List<String> locks = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.jobqueue.LockWait"))
+                .map(e -> e.getString("lockName"))
+                .toList();
+        assertTrue(locks.contains("contended"));
+        assertFalse(locks.contains("uncontended"));
+    }
+    
+    private static String jobIdOf(List<RecordedEvent> events, String eventName) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(eventName))
+                .map(e -> e.getString("jobId"))
+                .findFirst().orElseThrow();
+    }
+    
+    @Test
+    void testProcessSupervisorTimeoutAndBoundedOutput() throws IOException {
+        try (ProcessSupervisor supervisor = new ProcessSupervisor()) {
+            supervisor.start();
+            // A job whose child keeps the pipe open is still killed on time, tree and all
+            JobExecutor executor = new JobExecutor(supervisor, 1, 1024, null);
+            long start = System.nanoTime();
+            JobExecutor.JobExecutionResult hung = executor.execute(new Job("sleep 60 & sleep 60", 0));
+            assertFalse(hung.isSuccess());
+            assertTrue(hung.getErrorMessage().contains("timed out"), hung.getErrorMessage());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+            assertEquals(0, supervisor.getActiveCount());
+            
+            // Only the tail stays in memory; the output store gets everything
+            try (OutputStore store = new OutputStore(tempDir.resolve("output"))) {
+                JobExecutor storing = new JobExecutor(supervisor, 30, 1024, store);
+                Job chatty = new Job("seq 1 50000", 0);
+                JobExecutor.JobExecutionResult result = storing.execute(chatty);
+                assertTrue(result.isSuccess());
+                assertTrue(result.getOutput().startsWith("[..."), result.getOutput().substring(0, 40));
+                assertTrue(result.getOutput().endsWith("49999\n50000"));
+                assertTrue(result.getOutput().length() < 1100);
+                assertEquals(result.getOutputBytes(), readOutput(store, chatty.getId()).length());
+                
+                String[] stored = readOutput(store, chatty.getId()).split("\n");
+                assertEquals(50000, stored.length);
+                assertEquals("1", stored[0]);
+            }
+        }
+    }
+    
+    @Test
+    void testOutputStoreRoundTrip() throws IOException {
+        Path directory = tempDir.resolve("output");
+        try (OutputStore store = new OutputStore(directory)) {
+            // Interleaved writers each find only their own output
+            OutputStream first = store.openOutput("job-a", 0);
+            OutputStream second = store.openOutput("job-b", 0);
+            byte[] big = "x".repeat(200_000).getBytes(StandardCharsets.UTF_8);
+            first.write(big);
+            second.write("hello\n".getBytes(StandardCharsets.UTF_8));
+            first.write("tail\n".getBytes(StandardCharsets.UTF_8));
+            second.close();
+            first.close();
+            store.finish("job-a", 0, 1, false);
+            
+            assertEquals(big.length + 5, readOutput(store, "job-a").length());
+            assertTrue(readOutput(store, "job-a").endsWith("xtail\n"));
+            assertEquals("hello\n", readOutput(store, "job-b"));
+            assertEquals("", readOutput(store, "job-c"));
+            
+            // A cursor at the end picks up what is appended later
+            try (OutputStore.Cursor cursor = store.cursor("job-a")) {
+                OutputStore.Record record;
+                while ((record = cursor.next()) != null) {
+                    if (record.isFinish()) {
+                        assertEquals(1, record.getExitCode());
+                        assertFalse(record.isFinalAttempt());
+                    }
+                }
+                try (OutputStream retry = store.openOutput("job-a", 1)) {
+                    retry.write("again\n".getBytes(StandardCharsets.UTF_8));
+                }
+                record = cursor.next();
+                assertEquals(1, record.getAttempt());
+                assertEquals("again\n", new String(record.getData(), StandardCharsets.UTF_8));
+            }
+        }
+        
+        // A new writer starts a new segment, and readers follow the job across both
+        try (OutputStore store = new OutputStore(directory)) {
+            store.finish("job-a", 1, 0, true);
+            OutputStore.Record last = null;
+            try (OutputStore.Cursor cursor = store.cursor("job-a")) {
+                OutputStore.Record record;
+                while ((record = cursor.next()) != null) {
+                    last = record;
+                }
+            }
+            assertTrue(last.isFinish() && last.isFinalAttempt());
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(2, files.filter(file -> file.toString().endsWith(".log")).count());
+            }
+        }
+        
+        // Segments that were done before a job was created are not read for it
+        String jobId = JobId.generate().toString();
+        try (OutputStore store = new OutputStore(directory); OutputStream out = store.openOutput(jobId, 0)) {
+            out.write("before\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            FileTime longAgo = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(20));
+            for (Path file : files.toList()) {
+                Files.setLastModifiedTime(file, longAgo);
+            }
+        }
+        try (OutputStore store = new OutputStore(directory)) {
+            assertEquals("", readOutput(store, jobId));
+            // IDs that carry no time are looked for everywhere
+            assertTrue(readOutput(store, "job-a").endsWith("xtail\nagain\n"));
+        }
+    }
+    
+    @Test
+    void testLogsFollowStopsWhenJobIsOver() throws Exception {
+        JobQueueConfig logsConfig = config.withDataFile(tempDir.resolve("logs-jobs.json").toString());
+        Path configFile = tempDir.resolve("logs-config.json");
+        new ObjectMapper().writeValue(configFile.toFile(), logsConfig);
+        
+        // A worker killed mid-attempt leaves output without a final finish record
+        long now = System.currentTimeMillis();
+        Job killed = new Job(JobId.generate(), "echo 'killed'", JobState.DEAD, 1, 1, Job.DEFAULT_PRIORITY,
+                             now, now, "Lease expired", 0, null, 0);
+        PersistenceManager store = new PersistenceManager(logsConfig);
+        try {
+            store.saveJob(killed);
+        } finally {
+            store.close();
+        }
+        try (OutputStore output = new OutputStore(OutputStore.directoryFor(logsConfig));
+             OutputStream out = output.openOutput(killed.getId(), 0)) {
+            out.write("killed\n".getBytes(StandardCharsets.UTF_8));
+        }
+        
+        Process dead = startLogsProcess(configFile, logsConfig, killed.getId(), "logs-dead");
+        assertTrue(dead.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, dead.exitValue());
+        assertTrue(readLog(tempDir.resolve("logs-dead.log")).contains("killed"));
+        
+        Process missing = startLogsProcess(configFile, logsConfig, "no-such-job", "logs-missing");
+        assertTrue(missing.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(1, missing.exitValue());
+    }
+    
+    private Process startLogsProcess(Path configFile, JobQueueConfig logsConfig, String jobId, String name)
+            throws IOException {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        return new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                                  QueueCtl.class.getName(), "-c", configFile.toString(),
+                                  "-d", logsConfig.getDataFile(), "logs", "--follow", jobId)
+                .redirectErrorStream(true)
+                .redirectOutput(tempDir.resolve(name + ".log").toFile())
+                .start();
+    }
+    
+    private static String readOutput(OutputStore store, String jobId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStore.Cursor cursor = store.cursor(jobId)) {
+            OutputStore.Record record;
+            while ((record = cursor.next()) != null) {
+                bytes.write(record.getData());
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    void testDaemonRoundTrip() throws IOException {
+        WorkerManager workerManager = new WorkerManager(jobQueue, config);
+        DaemonRequestHandler handler = new DaemonRequestHandler(persistenceManager, jobQueue, workerManager,
+                new DLQManager(persistenceManager, jobQueue), config, DaemonProtocol.createObjectMapper());
+        Path socketPath = DaemonProtocol.socketPath(config);
+        
+        try (DaemonServer server = new DaemonServer(socketPath, handler, DaemonProtocol.createObjectMapper())) {
+            server.start();
+            
+            try (DaemonClient client = DaemonClient.connect(socketPath).orElseThrow()) {
+                assertTrue(client.ping());
+                
+                // Requests on one connection act on the daemon's store directly
+                String jobId = client.enqueue("echo 'daemon'", 1, 7);
+                assertEquals(JobState.PENDING, jobQueue.getJob(jobId).orElseThrow().getState());
+                assertEquals(7, jobQueue.getJob(jobId).orElseThrow().getPriority());
+                assertEquals("echo 'daemon'", client.getJob(jobId).orElseThrow().getCommand());
+                assertTrue(client.getJob("no-such-job").isEmpty());
+                
+                JobPage page = client.listJobs(JobState.PENDING, 0, 10);
+                assertEquals(1, page.getTotal());
+                assertEquals("echo 'daemon'", page.getJobs().get(0).getCommand());
+                assertEquals(1L, client.status().getJobStatistics().get(JobState.PENDING));
+                
+                // Failures come back as errors without dropping the connection
+                assertThrows(IOException.class, () -> client.enqueue(" ", null, Job.DEFAULT_PRIORITY));
+                assertTrue(client.ping());
+            }
+        }
+        
+        // Closing the server removes the socket, so clients fall back to the store
+        assertFalse(Files.exists(socketPath));
+        assertTrue(DaemonClient.connect(socketPath).isEmpty());
+    }
+    
+    @Test
+    void testClusterFailoverAcrossProcesses() throws Exception {
+        JobQueueConfig clusterConfig = config.withDataFile(tempDir.resolve("cluster-jobs.json").toString())
+                .withLeaseTimeoutSeconds(3)
+                .withRetryCheckInterval(1);
+        Path configFile = tempDir.resolve("cluster-config.json");
+        new ObjectMapper().writeValue(configFile.toFile(), clusterConfig);
+        Path leaderFile = LeaderInfo.pathFor(clusterConfig);
+        
+        Process leader = startWorkerProcess(configFile, clusterConfig, "leader");
+        Process follower = null;
+        try {
+            // The first process takes the lock, the second follows it
+            assertTrue(waitFor(() -> LeaderInfo.read(leaderFile).isPresent(), 30));
+            LeaderInfo leaderInfo = LeaderInfo.read(leaderFile).orElseThrow();
+            assertEquals(leader.pid(), leaderInfo.getPid());
+            follower = startWorkerProcess(configFile, clusterConfig, "follower");
+            Path followerLog = tempDir.resolve("follower.log");
+            assertTrue(waitFor(() -> readLog(followerLog).contains("Cluster role: follower"), 30), readLog(followerLog));
+            
+            try (DaemonClient client = DaemonClient.connect(leaderInfo.getAddress(), leaderInfo.getToken())) {
+                for (int i = 0; i < 4; i++) {
+                    client.enqueue("sleep 1", 3, Job.DEFAULT_PRIORITY);
+                }
+                assertTrue(waitFor(() -> completedJobs(client) == 4, 30));
+            }
+            try (DaemonClient intruder = DaemonClient.connect(leaderInfo.getAddress(), "not-the-token")) {
+                assertThrows(IOException.class, intruder::ping);
+            }
+            
+            // Killing the leader hands the lock, and the store, to the follower
+            leader.destroyForcibly().waitFor();
+            long followerPid = follower.pid();
+            assertTrue(waitFor(() -> LeaderInfo.read(leaderFile).map(LeaderInfo::getPid).orElse(0L) == followerPid, 30));
+            
+            LeaderInfo newLeader = LeaderInfo.read(leaderFile).orElseThrow();
+            try (DaemonClient client = DaemonClient.connect(newLeader.getAddress(), newLeader.getToken())) {
+                client.enqueue("echo 'after failover'", 3, Job.DEFAULT_PRIORITY);
+                assertTrue(waitFor(() -> completedJobs(client) == 5, 30), readLog(followerLog));
+            }
+        } finally {
+            leader.destroyForcibly();
+            if (follower != null) {
+                follower.destroyForcibly().waitFor();
+            }
+        }
+    }
+    
+    @Test
+    void testOutputStoreWithTwoWriters() throws Exception {
+        Path directory = tempDir.resolve("shared-output");
+        try (OutputStore leader = new OutputStore(directory); OutputStore follower = new OutputStore(directory);
+             OutputStore.Cursor cursor = follower.cursor("job-a"); OutputStore.Cursor reader = leader.cursor("job-a")) {
+            // Both open their first segment at the same moment without colliding
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                List<Future<?>> writes = new ArrayList<>();
+                for (OutputStore store : List.of(leader, follower)) {
+                    writes.add(executor.submit(() -> {
+                        barrier.await();
+                        store.finish("warm-up", 0, 0, false);
+                        return null;
+                    }));
+                }
+                for (Future<?> write : writes) {
+                    write.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            
+            // The leader keeps appending to its segment after the follower opened a later one
+            try (OutputStream out = leader.openOutput("job-a", 0)) {
+                out.write("first\n".getBytes(StandardCharsets.UTF_8));
+            }
+            assertEquals("first\n", new String(cursor.next().getData(), StandardCharsets.UTF_8));
+            assertNull(cursor.next());
+            leader.finish("job-a", 0, 1, false);
+            OutputStore.Record record = cursor.next();
+            assertTrue(record.isFinish());
+            assertEquals(1, record.getExitCode());
+            
+            // The retry runs on the follower, and the leader's segment is still followed afterwards
+            try (OutputStream out = follower.openOutput("job-a", 1)) {
+                out.write("second\n".getBytes(StandardCharsets.UTF_8));
+            }
+            leader.finish("job-b", 0, 0, true);
+            follower.finish("job-a", 1, 0, true);
+            assertEquals("second\n", new String(cursor.next().getData(), StandardCharsets.UTF_8));
+            assertTrue(cursor.next().isFinalAttempt());
+            assertNull(cursor.next());
+            
+            // A reader that has not looked yet finds the attempts across both writers in the order they ran, even once
+            // the writers have gone quiet and their segments are read for the last time
+            try (Stream<Path> files = Files.list(directory)) {
+                FileTime quiet = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(11));
+                for (Path file : files.toList()) {
+                    Files.setLastModifiedTime(file, quiet);
+                }
+            }
+            List<String> records = new ArrayList<>();
+            while ((record = reader.next()) != null) {
+                records.add(record.getAttempt() + (record.isFinish() ? ":finish" : ":"
+                        + new String(record.getData(), StandardCharsets.UTF_8).trim()));
+            }
+            assertEquals(List.of("0:first", "0:finish", "1:second", "1:finish"), records);
+            assertNull(reader.next());
+            assertEquals(0, readOutput(leader, "job-b").length());
+        }
+        
+        // Each writer named its segments with its own ID, whichever host it is on
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("segment-[0-9a-f]{24}-000001\\.log"))
+                    .count());
+        }
+    }
+    
+    private Process startWorkerProcess(Path configFile, JobQueueConfig clusterConfig, String name) throws IOException {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        return new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                                  QueueCtl.class.getName(), "-c", configFile.toString(),
+                                  "-d", clusterConfig.getDataFile(), "worker", "start", "-c", "2")
+                .redirectErrorStream(true)
+                .redirectOutput(tempDir.resolve(name + ".log").toFile())
+                .start();
+    }
+    
+    private static long completedJobs(DaemonClient client) {
+        try {
+            return client.listJobs(JobState.COMPLETED, 0, 0).getTotal();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+    
+    private static String readLog(Path log) {
+        try {
+            return Files.readString(log);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+    
+    private static boolean waitFor(BooleanSupplier condition, int timeoutSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(100);
+        }
+        return true;
+    }
 }